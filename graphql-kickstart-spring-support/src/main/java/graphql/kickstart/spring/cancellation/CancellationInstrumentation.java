@@ -0,0 +1,86 @@
+package graphql.kickstart.spring.cancellation;
+
+import graphql.ExecutionResult;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Abandons the field fetches of the executions whose {@link CancellationToken} is cancelled.
+ *
+ * <p>The fields of a cancelled execution are not fetched anymore, and the pending asynchronous
+ * fetches are completed right away with a {@code null} value and an error instead of being awaited,
+ * so that the execution ends without resolving their children. The work already started by the
+ * fetchers is only stopped by the fetchers observing the token themselves.
+ */
+public class CancellationInstrumentation extends SimpleInstrumentation {
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+      InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+    CancellationToken token =
+        CancellationToken.from(parameters.getExecutionContext().getGraphQLContext());
+    if (token != null && token.isCancelled()) {
+      throw new AbortExecutionException(token.getReason());
+    }
+    return super.beginExecuteOperation(parameters, state);
+  }
+
+  @Override
+  public DataFetcher<?> instrumentDataFetcher(
+      DataFetcher<?> dataFetcher,
+      InstrumentationFieldFetchParameters parameters,
+      InstrumentationState state) {
+    if (parameters.isTrivialDataFetcher()) {
+      return dataFetcher;
+    }
+    return environment -> fetch(dataFetcher, environment);
+  }
+
+  private Object fetch(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment)
+      throws Exception {
+    CancellationToken token = CancellationToken.from(environment.getGraphQlContext());
+    if (token == null) {
+      return dataFetcher.get(environment);
+    }
+    if (token.isCancelled()) {
+      return abandoned(token, environment);
+    }
+    Object value = dataFetcher.get(environment);
+    if (!(value instanceof CompletionStage)) {
+      return value;
+    }
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    Runnable deregistration = token.onCancel(() -> result.complete(abandoned(token, environment)));
+    ((CompletionStage<?>) value)
+        .whenComplete(
+            (fetched, error) -> {
+              deregistration.run();
+              if (error != null) {
+                result.completeExceptionally(error);
+              } else {
+                result.complete(fetched);
+              }
+            });
+    return result;
+  }
+
+  private DataFetcherResult<Object> abandoned(
+      CancellationToken token, DataFetchingEnvironment environment) {
+    return DataFetcherResult.<Object>newResult()
+        .error(
+            GraphqlErrorBuilder.newError(environment)
+                .message("Field fetch abandoned: %s", token.getReason())
+                .build())
+        .build();
+  }
+}
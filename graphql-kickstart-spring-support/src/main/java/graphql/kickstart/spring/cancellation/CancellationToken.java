@@ -0,0 +1,95 @@
+package graphql.kickstart.spring.cancellation;
+
+import graphql.GraphQLContext;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Signals that the result of an execution is no longer awaited, because its client disconnected or
+ * its deadline passed.
+ *
+ * <p>The transports put a token in the {@link GraphQLContext} of the executions they can abandon.
+ * Data fetchers and batch loaders doing expensive work can look it up with {@link
+ * #from(GraphQLContext)} and check {@link #isCancelled()} or register a callback with {@link
+ * #onCancel(Runnable)} to stop early. The {@link CancellationInstrumentation} abandons the pending
+ * field fetches of a cancelled execution on its own.
+ */
+@Slf4j
+public class CancellationToken {
+
+  private final Set<Runnable> callbacks = ConcurrentHashMap.newKeySet();
+  private volatile String reason;
+
+  /** @return the token of the execution, {@code null} when it cannot be cancelled */
+  public static CancellationToken from(GraphQLContext context) {
+    return context.get(CancellationToken.class);
+  }
+
+  /** Puts a new token in the context of an execution. */
+  public static CancellationToken attach(GraphQLContext context) {
+    CancellationToken token = new CancellationToken();
+    context.put(CancellationToken.class, token);
+    return token;
+  }
+
+  public boolean isCancelled() {
+    return reason != null;
+  }
+
+  /** @return why the execution was cancelled, {@code null} while it is not */
+  public String getReason() {
+    return reason;
+  }
+
+  /**
+   * Cancels the execution and runs the callbacks registered, only the first call has effect.
+   *
+   * @return whether this call cancelled the execution
+   */
+  public boolean cancel(String reason) {
+    synchronized (this) {
+      if (this.reason != null) {
+        return false;
+      }
+      this.reason = reason;
+    }
+    for (Runnable callback : callbacks) {
+      run(callback);
+    }
+    return true;
+  }
+
+  /**
+   * Registers a callback run once when the execution is cancelled, right away if it is already.
+   *
+   * @return a handle removing the callback, to be run once it is no longer needed
+   */
+  public Runnable onCancel(Runnable callback) {
+    callbacks.add(callback);
+    if (isCancelled()) {
+      run(callback);
+    }
+    return () -> callbacks.remove(callback);
+  }
+
+  /** @throws CancellationException when the execution is cancelled */
+  public void throwIfCancelled() {
+    String cancelled = reason;
+    if (cancelled != null) {
+      throw new CancellationException(cancelled);
+    }
+  }
+
+  private void run(Runnable callback) {
+    // the callback may be run by a concurrent cancel or registration, only its remover runs it
+    if (callbacks.remove(callback)) {
+      try {
+        callback.run();
+      } catch (RuntimeException e) {
+        log.warn("Error running cancellation callback", e);
+      }
+    }
+  }
+}
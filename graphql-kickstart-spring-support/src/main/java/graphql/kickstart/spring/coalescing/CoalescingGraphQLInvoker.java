@@ -0,0 +1,32 @@
+package graphql.kickstart.spring.coalescing;
+
+import graphql.ExecutionResult;
+import graphql.kickstart.execution.BatchedDataLoaderGraphQLBuilder;
+import graphql.kickstart.execution.GraphQLInvoker;
+import graphql.kickstart.execution.config.GraphQLBuilder;
+import graphql.kickstart.execution.input.GraphQLSingleInvocationInput;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Invoker sharing the execution of identical concurrent queries through a {@link QueryCoalescer}.
+ * Batched queries are executed as usual.
+ */
+public class CoalescingGraphQLInvoker extends GraphQLInvoker {
+
+  private final QueryCoalescer coalescer;
+
+  public CoalescingGraphQLInvoker(
+      GraphQLBuilder graphQLBuilder,
+      BatchedDataLoaderGraphQLBuilder batchedDataLoaderGraphQLBuilder,
+      QueryCoalescer coalescer) {
+    super(graphQLBuilder, batchedDataLoaderGraphQLBuilder);
+    this.coalescer = coalescer;
+  }
+
+  @Override
+  public CompletableFuture<ExecutionResult> executeAsync(
+      GraphQLSingleInvocationInput invocationInput) {
+    return coalescer.execute(
+        invocationInput.getExecutionInput(), () -> super.executeAsync(invocationInput));
+  }
+}
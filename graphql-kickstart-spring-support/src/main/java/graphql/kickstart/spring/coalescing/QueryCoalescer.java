@@ -0,0 +1,289 @@
+package graphql.kickstart.spring.coalescing;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.kickstart.spring.cancellation.CancellationToken;
+import graphql.kickstart.spring.limits.DocumentParser;
+import graphql.kickstart.spring.live.LiveQueries;
+import graphql.language.AstPrinter;
+import graphql.language.Definition;
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.language.OperationDefinition.Operation;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Single-flight execution of identical concurrent queries.
+ *
+ * <p>A query arriving while an identical one is executing waits for that execution and receives its
+ * {@link ExecutionResult} instead of being executed again. Queries are identical when their
+ * documents are equal once parsed and printed again, and their operation names, variables and
+ * discriminators are equal. The shared execution runs with the context of the first caller, the
+ * {@link QueryCoalescingDiscriminator} keeps apart the callers which may see different results.
+ *
+ * <p>Every caller receives its own copy of the result, which it can cancel without affecting the
+ * others. The shared execution has its own {@link CancellationToken}, cancelled once every caller
+ * cancelled its copy or its own token.
+ *
+ * <p>Only the executions in flight are shared, a query arriving after the execution completed is
+ * executed again. Mutations, subscriptions and live queries are always executed on their own. The
+ * documents are looked up by a digest of their text, the queries themselves are not kept.
+ */
+public class QueryCoalescer {
+
+  private final QueryCoalescingDiscriminator discriminator;
+  private final DocumentParser parser;
+  private final int maxDocuments;
+  private final Map<String, NormalizedDocument> documents = new ConcurrentHashMap<>();
+  private final Map<Key, SharedExecution> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  /**
+   * @param parser parses the queries with the limits of the execution
+   * @param maxDocuments number of parsed documents kept, the documents are parsed again once it is
+   *     reached
+   */
+  public QueryCoalescer(
+      QueryCoalescingDiscriminator discriminator, DocumentParser parser, int maxDocuments) {
+    this.discriminator = discriminator;
+    this.parser = parser;
+    this.maxDocuments = maxDocuments;
+  }
+
+  /**
+   * @return the result of the execution in flight for an identical query, or of the given one
+   */
+  public CompletableFuture<ExecutionResult> execute(
+      ExecutionInput executionInput, Supplier<CompletableFuture<ExecutionResult>> execution) {
+    Key key = key(executionInput);
+    if (key == null) {
+      executions.increment();
+      return execution.get();
+    }
+    CancellationToken callerToken = discriminator.cancellationToken(executionInput);
+    SharedExecution shared = new SharedExecution(key);
+    SharedExecution existing = inFlight.putIfAbsent(key, shared);
+    if (existing != null) {
+      if (existing.join()) {
+        coalesced.increment();
+        return copy(existing, callerToken);
+      }
+      // every caller of the execution in flight left, it is being cancelled
+      executions.increment();
+      return execution.get();
+    }
+    shared.join();
+    executions.increment();
+    executionInput.getGraphQLContext().put(CancellationToken.class, shared.token);
+    CompletableFuture<ExecutionResult> future;
+    try {
+      future = execution.get();
+    } catch (RuntimeException e) {
+      inFlight.remove(key, shared);
+      shared.result.completeExceptionally(e);
+      throw e;
+    }
+    future.whenComplete(
+        (result, error) -> {
+          inFlight.remove(key, shared);
+          if (error != null) {
+            shared.result.completeExceptionally(error);
+          } else {
+            shared.result.complete(result);
+          }
+        });
+    return copy(shared, callerToken);
+  }
+
+  /** A copy of the shared result, its caller leaves the execution when it cancels it. */
+  private CompletableFuture<ExecutionResult> copy(
+      SharedExecution shared, CancellationToken callerToken) {
+    CompletableFuture<ExecutionResult> copy = shared.result.thenApply(result -> result);
+    AtomicBoolean left = new AtomicBoolean();
+    Runnable leave =
+        () -> {
+          if (left.compareAndSet(false, true)) {
+            shared.leave();
+          }
+        };
+    Runnable unregister = callerToken == null ? null : callerToken.onCancel(leave);
+    copy.whenComplete(
+        (result, error) -> {
+          if (copy.isCancelled()) {
+            leave.run();
+          }
+          if (unregister != null) {
+            unregister.run();
+          }
+        });
+    return copy;
+  }
+
+  /**
+   * @return the number of queries executed
+   */
+  public long getExecutionCount() {
+    return executions.sum();
+  }
+
+  /**
+   * @return the number of queries answered with the result of an identical execution
+   */
+  public long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  private Key key(ExecutionInput executionInput) {
+    NormalizedDocument document = normalize(executionInput);
+    if (document == null) {
+      return null;
+    }
+    String operationName = executionInput.getOperationName();
+    if (operationName != null && operationName.isEmpty()) {
+      operationName = null;
+    }
+    Boolean query = document.queries.get(operationName);
+    if (query == null || !query) {
+      return null;
+    }
+    Object discriminant = discriminator.discriminate(executionInput);
+    if (discriminant == null) {
+      return null;
+    }
+    return new Key(document.digest, operationName, executionInput.getVariables(), discriminant);
+  }
+
+  private NormalizedDocument normalize(ExecutionInput executionInput) {
+    String query = executionInput.getQuery();
+    // checked first, the text of a request not executed from it is not looked into at all
+    if (query == null || !parser.executesQueryText(executionInput.getExtensions())) {
+      return null;
+    }
+    String digest = digest(query);
+    NormalizedDocument document = documents.get(digest);
+    if (document == null) {
+      Document parsed = parser.parse(query);
+      if (parsed == null) {
+        // left to the execution to report
+        return null;
+      }
+      document =
+          new NormalizedDocument(digest(AstPrinter.printAstCompact(parsed)), queries(parsed));
+      if (documents.size() >= maxDocuments) {
+        documents.clear();
+      }
+      documents.put(digest, document);
+    }
+    return document;
+  }
+
+  private static String digest(String text) {
+    try {
+      return Base64.getEncoder()
+          .encodeToString(
+              MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform implements it
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return whether each operation of the document can be coalesced by name, and under the null
+   *     name for the single operation of a document
+   */
+  private static Map<String, Boolean> queries(Document document) {
+    Map<String, Boolean> queries = new HashMap<>();
+    int operations = 0;
+    OperationDefinition last = null;
+    for (Definition<?> definition : document.getDefinitions()) {
+      if (definition instanceof OperationDefinition) {
+        OperationDefinition operation = (OperationDefinition) definition;
+        operations++;
+        last = operation;
+        if (operation.getName() != null) {
+          queries.put(operation.getName(), isCoalescable(operation));
+        }
+      }
+    }
+    if (operations == 1) {
+      queries.put(null, isCoalescable(last));
+    }
+    return queries;
+  }
+
+  private static boolean isCoalescable(OperationDefinition operation) {
+    return operation.getOperation() == Operation.QUERY
+        && !operation.hasDirective(LiveQueries.DIRECTIVE);
+  }
+
+  @RequiredArgsConstructor
+  private static class NormalizedDocument {
+    /** Digest of the printed document, equal for the texts of the same document. */
+    private final String digest;
+
+    private final Map<String, Boolean> queries;
+  }
+
+  private class SharedExecution {
+
+    private final Key key;
+    private final CompletableFuture<ExecutionResult> result = new CompletableFuture<>();
+    private final CancellationToken token = new CancellationToken();
+    // guarded by this
+    private int callers;
+    private boolean abandoned;
+
+    SharedExecution(Key key) {
+      this.key = key;
+    }
+
+    /**
+     * @return whether the caller joined, false once every caller left
+     */
+    synchronized boolean join() {
+      if (abandoned) {
+        return false;
+      }
+      callers++;
+      return true;
+    }
+
+    void leave() {
+      synchronized (this) {
+        if (--callers > 0 || result.isDone()) {
+          return;
+        }
+        abandoned = true;
+      }
+      inFlight.remove(key, this);
+      token.cancel("Execution cancelled by every caller");
+    }
+  }
+
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static class Key {
+    private final String documentDigest;
+    private final String operationName;
+    private final Map<String, Object> variables;
+    private final Object discriminant;
+  }
+}
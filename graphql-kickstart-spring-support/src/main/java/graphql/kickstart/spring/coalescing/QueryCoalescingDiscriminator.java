@@ -0,0 +1,25 @@
+package graphql.kickstart.spring.coalescing;
+
+import graphql.ExecutionInput;
+import graphql.kickstart.spring.cancellation.CancellationToken;
+
+/**
+ * Tells apart the callers whose identical queries may not share a result, typically by their
+ * credentials: only queries with equal discriminators are coalesced.
+ */
+@FunctionalInterface
+public interface QueryCoalescingDiscriminator {
+
+  /**
+   * @return the discriminator of the caller, null if it cannot be determined, in which case the
+   *     query is executed on its own
+   */
+  Object discriminate(ExecutionInput executionInput);
+
+  /**
+   * @return the token cancelled when the caller stops waiting for the result, null if there is none
+   */
+  default CancellationToken cancellationToken(ExecutionInput executionInput) {
+    return CancellationToken.from(executionInput.getGraphQLContext());
+  }
+}
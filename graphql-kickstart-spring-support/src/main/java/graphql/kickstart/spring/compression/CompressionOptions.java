@@ -0,0 +1,18 @@
+package graphql.kickstart.spring.compression;
+
+import java.util.zip.Deflater;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CompressionOptions {
+
+  /**
+   * Size in bytes below which responses are written uncompressed. Streamed responses are compressed
+   * from their first part regardless.
+   */
+  @Builder.Default int minResponseSize = 2048;
+  /** Deflate level, from 1 for the fastest to 9 for the smallest output, -1 for the default. */
+  @Builder.Default int level = Deflater.DEFAULT_COMPRESSION;
+}
@@ -0,0 +1,135 @@
+package graphql.kickstart.spring.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip encoder handing out the compressed bytes as they are produced, so that a response can be
+ * compressed part by part. Every {@link #flush()} ends the current deflate block, everything
+ * written before it can then be decoded by the client without waiting for the rest of the response.
+ */
+public class StreamingGzip {
+
+  public static final String GZIP = "gzip";
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+  private final GZIPOutputStream gzip;
+
+  public StreamingGzip(int level) {
+    try {
+      gzip =
+          new GZIPOutputStream(sink, true) {
+            {
+              def.setLevel(level);
+            }
+          };
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @return whether the {@code Accept-Encoding} headers accept gzip, an explicit gzip coding taking
+   *     precedence over {@code *}
+   */
+  public static boolean isAccepted(Collection<String> acceptEncodings) {
+    Boolean gzipAccepted = null;
+    Boolean anyAccepted = null;
+    for (String header : acceptEncodings) {
+      for (String coding : header.split(",")) {
+        String[] parameters = coding.trim().split(";");
+        String name = parameters[0].trim();
+        if (GZIP.equalsIgnoreCase(name)) {
+          gzipAccepted = isAcceptable(parameters);
+        } else if ("*".equals(name)) {
+          anyAccepted = isAcceptable(parameters);
+        }
+      }
+    }
+    if (gzipAccepted != null) {
+      return gzipAccepted;
+    }
+    return anyAccepted != null && anyAccepted;
+  }
+
+  private static boolean isAcceptable(String[] parameters) {
+    for (int i = 1; i < parameters.length; i++) {
+      String parameter = parameters[i].trim();
+      if (parameter.startsWith("q=")) {
+        return !parameter.matches("q=0(\\.0*)?");
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return whether responses of the content type are written part by part and must be flushed
+   *     after every part
+   */
+  public static boolean isStreaming(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    String type = contentType.toLowerCase();
+    return type.startsWith("text/event-stream") || type.startsWith("multipart/mixed");
+  }
+
+  /**
+   * @return whether the bytes start with the gzip magic number, which no JSON document starts with,
+   *     meaning the response has been compressed already
+   */
+  public static boolean isCompressed(byte[] bytes, int offset, int length) {
+    return length >= 2 && bytes[offset] == (byte) 0x1f && bytes[offset + 1] == (byte) 0x8b;
+  }
+
+  /**
+   * @return the compressed bytes produced so far, possibly none as the deflater keeps a window of
+   *     the input until it is flushed
+   */
+  public byte[] write(byte[] bytes, int offset, int length) {
+    try {
+      gzip.write(bytes, offset, length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return drain();
+  }
+
+  /**
+   * @return the compressed bytes of everything written so far
+   */
+  public byte[] flush() {
+    try {
+      gzip.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return drain();
+  }
+
+  /**
+   * @return the remaining compressed bytes followed by the gzip trailer
+   */
+  public byte[] finish() {
+    try {
+      gzip.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return drain();
+  }
+
+  private byte[] drain() {
+    if (sink.size() == 0) {
+      return EMPTY;
+    }
+    byte[] bytes = sink.toByteArray();
+    sink.reset();
+    return bytes;
+  }
+}
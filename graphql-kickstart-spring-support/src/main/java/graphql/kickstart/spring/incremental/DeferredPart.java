@@ -0,0 +1,19 @@
+package graphql.kickstart.spring.incremental;
+
+import java.util.List;
+import java.util.Set;
+import lombok.Value;
+
+/** Selection of an incremental query delivered after the initial payload. */
+@Value
+public class DeferredPart {
+
+  /** Response keys of the fields leading to the objects the part belongs to. */
+  List<String> path;
+
+  String label;
+  /** Response key of the streamed list field, null for deferred fragments. */
+  String streamedField;
+  /** Response keys of the fields of the deferred fragment, null for streamed fields. */
+  Set<String> responseKeys;
+}
@@ -0,0 +1,155 @@
+package graphql.kickstart.spring.incremental;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Builds the payloads of an incremental response from the results of the executions of an {@link
+ * IncrementalQuery}, and frames them as parts of a {@code multipart/mixed} body.
+ */
+public final class IncrementalPayloads {
+
+  public static final String CONTENT_TYPE = "multipart/mixed; boundary=\"-\"; deferSpec=20220824";
+  public static final String MEDIA_TYPE = "multipart/mixed";
+
+  private static final String DELIMITER = "\r\n---";
+  private static final String PART_HEADERS =
+      "\r\nContent-Type: application/json; charset=utf-8\r\n\r\n";
+  private static final String CLOSE_DELIMITER = "\r\n-----\r\n";
+
+  private IncrementalPayloads() {}
+
+  /**
+   * @param result the result of the initial query as specified, changed in place
+   */
+  public static Map<String, Object> initial(
+      Map<String, Object> result, List<DeferredPart> parts, boolean hasNext) {
+    for (DeferredPart part : parts) {
+      if (part.getStreamedField() != null) {
+        visit(
+            result.get("data"),
+            part.getPath(),
+            0,
+            new ArrayList<>(),
+            (object, path) -> object.put(part.getStreamedField(), new ArrayList<>()));
+      }
+    }
+    Map<String, Object> payload = new LinkedHashMap<>(result);
+    payload.put("hasNext", hasNext);
+    return payload;
+  }
+
+  /**
+   * @param result the result of the deferred query as specified
+   * @return the payload delivering every part, the last one of the response
+   */
+  public static Map<String, Object> subsequent(
+      List<DeferredPart> parts, Map<String, Object> result) {
+    List<Map<String, Object>> incremental = new ArrayList<>();
+    for (DeferredPart part : parts) {
+      visit(
+          result.get("data"),
+          part.getPath(),
+          0,
+          new ArrayList<>(),
+          (object, path) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            if (part.getStreamedField() == null) {
+              // the object holds the fields of the other parts at the same path too
+              Map<String, Object> data = new LinkedHashMap<>();
+              object.forEach(
+                  (key, value) -> {
+                    if (part.getResponseKeys().contains(key)) {
+                      data.put(key, value);
+                    }
+                  });
+              if (data.isEmpty()) {
+                return;
+              }
+              item.put("data", data);
+              item.put("path", path);
+            } else {
+              Object items = object.get(part.getStreamedField());
+              if (!(items instanceof List) || ((List<?>) items).isEmpty()) {
+                return;
+              }
+              List<Object> itemPath = new ArrayList<>(path);
+              itemPath.add(part.getStreamedField());
+              itemPath.add(0);
+              item.put("items", items);
+              item.put("path", itemPath);
+            }
+            if (part.getLabel() != null) {
+              item.put("label", part.getLabel());
+            }
+            incremental.add(item);
+          });
+    }
+    Object errors = result.get("errors");
+    if (errors != null) {
+      if (incremental.isEmpty()) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put(
+            "path", parts.isEmpty() ? new ArrayList<>() : new ArrayList<>(parts.get(0).getPath()));
+        incremental.add(item);
+      }
+      incremental.get(0).put("errors", errors);
+    }
+    Map<String, Object> payload = new LinkedHashMap<>();
+    if (!incremental.isEmpty()) {
+      payload.put("incremental", incremental);
+    }
+    payload.put("hasNext", false);
+    return payload;
+  }
+
+  /**
+   * @return the part holding the serialized payload, to be followed by another part or by {@link
+   *     #end()}
+   */
+  public static String part(String json) {
+    return DELIMITER + PART_HEADERS + json;
+  }
+
+  public static String end() {
+    return CLOSE_DELIMITER;
+  }
+
+  /**
+   * @return whether the accept header of a request lists {@code multipart/mixed}
+   */
+  public static boolean isAccepted(List<String> acceptHeaders) {
+    return acceptHeaders != null
+        && acceptHeaders.stream().anyMatch(accept -> accept.contains(MEDIA_TYPE));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void visit(
+      Object value,
+      List<String> keys,
+      int depth,
+      List<Object> path,
+      BiConsumer<Map<String, Object>, List<Object>> visitor) {
+    if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      for (int i = 0; i < list.size(); i++) {
+        path.add(i);
+        visit(list.get(i), keys, depth, path, visitor);
+        path.remove(path.size() - 1);
+      }
+    } else if (value instanceof Map) {
+      Map<String, Object> object = (Map<String, Object>) value;
+      if (depth == keys.size()) {
+        visitor.accept(object, Collections.unmodifiableList(new ArrayList<>(path)));
+      } else {
+        path.add(keys.get(depth));
+        visit(object.get(keys.get(depth)), keys, depth + 1, path, visitor);
+        path.remove(path.size() - 1);
+      }
+    }
+  }
+}
@@ -0,0 +1,399 @@
+package graphql.kickstart.spring.incremental;
+
+import graphql.kickstart.spring.limits.DocumentParser;
+import graphql.language.Argument;
+import graphql.language.AstPrinter;
+import graphql.language.BooleanValue;
+import graphql.language.Directive;
+import graphql.language.DirectivesContainer;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.OperationDefinition;
+import graphql.language.OperationDefinition.Operation;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.StringValue;
+import graphql.language.Value;
+import graphql.language.VariableReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.Getter;
+
+/**
+ * A query with {@code @defer} fragments or {@code @stream} fields, split into an initial query and
+ * a deferred query selecting the deferred parts.
+ *
+ * <p>graphql-java executes a document at once, so the initial payload and the deferred parts are
+ * two executions: the initial query skips the deferred selections and the deferred query skips
+ * every selection but the deferred ones and the fields leading to them. The executions can run
+ * concurrently, the fields on the path of a part are resolved once more for the deferred query. The
+ * parts are taken from the result of the deferred query, and delivered together once it completes.
+ * Named fragments are inlined beforehand, and {@code @defer} and {@code @stream} nested in a
+ * deferred part are delivered with it. A streamed list is delivered whole, list fetchers resolve
+ * their lists at once anyway; {@code initialCount} is therefore ignored and the initial payload
+ * holds empty lists in place of the streamed fields.
+ *
+ * <p>The documents sent to the engine no longer contain the directives, the schema does not need to
+ * declare them.
+ */
+@Getter
+public class IncrementalQuery {
+
+  public static final String DEFER = "defer";
+  public static final String STREAM = "stream";
+
+  private static final String SKIP = "skip";
+  private static final String INCLUDE = "include";
+
+  private final String initialQuery;
+  private final String deferredQuery;
+  private final List<DeferredPart> parts;
+
+  private IncrementalQuery(String initialQuery, String deferredQuery, List<DeferredPart> parts) {
+    this.initialQuery = initialQuery;
+    this.deferredQuery = deferredQuery;
+    this.parts = parts;
+  }
+
+  /**
+   * @param extensions the extensions of the request, a request not executed from its query text is
+   *     not split
+   * @param parser parses the query with the limits of the execution
+   * @return the split query, null if the document is not a query with deferred selections or cannot
+   *     be parsed, in which case it is to be executed as is
+   */
+  public static IncrementalQuery split(
+      String query,
+      String operationName,
+      Map<String, Object> variables,
+      Map<String, Object> extensions,
+      DocumentParser parser) {
+    if (query == null
+        || !parser.executesQueryText(extensions)
+        || (!query.contains("@" + DEFER) && !query.contains("@" + STREAM))) {
+      return null;
+    }
+    Document document = parser.parse(query);
+    if (document == null) {
+      return null;
+    }
+    OperationDefinition operation = operation(document, operationName);
+    if (operation == null || operation.getOperation() != Operation.QUERY) {
+      return null;
+    }
+    Map<String, FragmentDefinition> fragments = new HashMap<>();
+    for (FragmentDefinition fragment : document.getDefinitionsOfType(FragmentDefinition.class)) {
+      fragments.put(fragment.getName(), fragment);
+    }
+    Splitter splitter =
+        new Splitter(variables == null ? Collections.emptyMap() : variables, fragments);
+    OperationDefinition inlined =
+        operation.transform(
+            builder -> builder.selectionSet(splitter.inline(operation.getSelectionSet())));
+    splitter.collect(inlined.getSelectionSet(), new ArrayList<>(), new ArrayList<>());
+    if (splitter.deferred.isEmpty()) {
+      return null;
+    }
+    List<DeferredPart> parts = new ArrayList<>();
+    for (Deferred deferred : splitter.deferred) {
+      parts.add(
+          deferred.selection instanceof Field
+              ? new DeferredPart(
+                  deferred.path, deferred.label, responseKey((Field) deferred.selection), null)
+              : new DeferredPart(
+                  deferred.path,
+                  deferred.label,
+                  null,
+                  responseKeys(
+                      ((InlineFragment) deferred.selection).getSelectionSet(),
+                      new LinkedHashSet<>())));
+    }
+    return new IncrementalQuery(
+        print(inlined, splitter.rewrite(inlined.getSelectionSet(), true)),
+        print(inlined, splitter.rewrite(inlined.getSelectionSet(), false)),
+        parts);
+  }
+
+  private static OperationDefinition operation(Document document, String operationName) {
+    List<OperationDefinition> operations = document.getDefinitionsOfType(OperationDefinition.class);
+    if (operationName == null || operationName.isEmpty()) {
+      return operations.size() == 1 ? operations.get(0) : null;
+    }
+    return operations.stream()
+        .filter(operation -> operationName.equals(operation.getName()))
+        .findFirst()
+        .orElse(null);
+  }
+
+  private static String print(OperationDefinition operation, SelectionSet selectionSet) {
+    return AstPrinter.printAstCompact(
+        Document.newDocument()
+            .definition(operation.transform(builder -> builder.selectionSet(selectionSet)))
+            .build());
+  }
+
+  private static String responseKey(Field field) {
+    return field.getAlias() == null ? field.getName() : field.getAlias();
+  }
+
+  /** Collects the response keys of the fields of a fragment, those of nested fragments included. */
+  private static Set<String> responseKeys(SelectionSet selectionSet, Set<String> keys) {
+    if (selectionSet != null) {
+      for (Selection<?> selection : selectionSet.getSelections()) {
+        if (selection instanceof Field) {
+          keys.add(responseKey((Field) selection));
+        } else if (selection instanceof InlineFragment) {
+          responseKeys(((InlineFragment) selection).getSelectionSet(), keys);
+        }
+      }
+    }
+    return keys;
+  }
+
+  private static class Deferred {
+    private final Selection<?> selection;
+    private final List<String> path;
+    private final String label;
+
+    Deferred(Selection<?> selection, List<String> path) {
+      this.selection = selection;
+      this.path = Collections.unmodifiableList(new ArrayList<>(path));
+      Directive directive =
+          ((DirectivesContainer<?>) selection)
+              .getDirectives(selection instanceof Field ? STREAM : DEFER)
+              .get(0);
+      Argument label = directive.getArgument("label");
+      this.label =
+          label != null && label.getValue() instanceof StringValue
+              ? ((StringValue) label.getValue()).getValue()
+              : null;
+    }
+  }
+
+  private static class Splitter {
+
+    private final Map<String, Object> variables;
+    private final Map<String, FragmentDefinition> fragments;
+    private final List<Deferred> deferred = new ArrayList<>();
+    // by identity, equal selections may be at different places of the document
+    private final Set<Selection<?>> deferredSelections =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Selection<?>> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    Splitter(Map<String, Object> variables, Map<String, FragmentDefinition> fragments) {
+      this.variables = variables;
+      this.fragments = fragments;
+    }
+
+    /** Replaces the fragment spreads with inline fragments, recursively. */
+    SelectionSet inline(SelectionSet selectionSet) {
+      if (selectionSet == null) {
+        return null;
+      }
+      return map(
+          selectionSet,
+          selection -> {
+            if (selection instanceof Field) {
+              Field field = (Field) selection;
+              return field.transform(
+                  builder -> builder.selectionSet(inline(field.getSelectionSet())));
+            }
+            if (selection instanceof InlineFragment) {
+              InlineFragment fragment = (InlineFragment) selection;
+              return fragment.transform(
+                  builder -> builder.selectionSet(inline(fragment.getSelectionSet())));
+            }
+            FragmentSpread spread = (FragmentSpread) selection;
+            FragmentDefinition definition = fragments.get(spread.getName());
+            if (definition == null) {
+              // left to the validation of the engine
+              return spread;
+            }
+            return InlineFragment.newInlineFragment()
+                .typeCondition(definition.getTypeCondition())
+                .directives(spread.getDirectives())
+                .selectionSet(inline(definition.getSelectionSet()))
+                .build();
+          });
+    }
+
+    /** Finds the deferred selections, those nested in another one belong to the outer one. */
+    void collect(SelectionSet selectionSet, List<String> path, List<Selection<?>> ancestors) {
+      if (selectionSet == null) {
+        return;
+      }
+      for (Selection<?> selection : selectionSet.getSelections()) {
+        if (isDeferred(selection)) {
+          deferred.add(new Deferred(selection, path));
+          deferredSelections.add(selection);
+          this.ancestors.addAll(ancestors);
+          continue;
+        }
+        ancestors.add(selection);
+        if (selection instanceof Field) {
+          path.add(responseKey((Field) selection));
+          collect(((Field) selection).getSelectionSet(), path, ancestors);
+          path.remove(path.size() - 1);
+        } else if (selection instanceof InlineFragment) {
+          collect(((InlineFragment) selection).getSelectionSet(), path, ancestors);
+        }
+        ancestors.remove(ancestors.size() - 1);
+      }
+    }
+
+    /**
+     * @param initial whether to select everything but the deferred parts, or only the deferred
+     *     parts and the fields leading to them
+     */
+    SelectionSet rewrite(SelectionSet selectionSet, boolean initial) {
+      if (selectionSet == null) {
+        return null;
+      }
+      return map(
+          selectionSet,
+          selection -> {
+            if (initial) {
+              return isDeferred(selection)
+                  ? skip(selection)
+                  : withSelectionSet(
+                      withoutDirectives(selection), rewrite(selectionSet(selection), true));
+            }
+            if (deferredSelections.contains(selection)) {
+              return strip(selection);
+            }
+            if (ancestors.contains(selection)) {
+              return withSelectionSet(
+                  withoutDirectives(selection), rewrite(selectionSet(selection), false));
+            }
+            return skip(selection);
+          });
+    }
+
+    private boolean isDeferred(Selection<?> selection) {
+      String name = selection instanceof Field ? STREAM : DEFER;
+      List<Directive> directives =
+          selection instanceof Field
+              ? ((Field) selection).getDirectives(name)
+              : selection instanceof InlineFragment
+                  ? ((InlineFragment) selection).getDirectives(name)
+                  : Collections.emptyList();
+      if (directives.isEmpty()) {
+        return false;
+      }
+      Argument condition = directives.get(0).getArgument("if");
+      if (condition == null) {
+        return true;
+      }
+      Value<?> value = condition.getValue();
+      if (value instanceof BooleanValue) {
+        return ((BooleanValue) value).isValue();
+      }
+      if (value instanceof VariableReference) {
+        return !Boolean.FALSE.equals(variables.get(((VariableReference) value).getName()));
+      }
+      return true;
+    }
+
+    /** Removes the incremental directives of the selection and of everything it selects. */
+    private Selection<?> strip(Selection<?> selection) {
+      SelectionSet selectionSet = selectionSet(selection);
+      return withSelectionSet(
+          withoutDirectives(selection),
+          selectionSet == null ? null : map(selectionSet, this::strip));
+    }
+
+    private Selection<?> skip(Selection<?> selection) {
+      Selection<?> stripped = strip(selection);
+      Directive skip =
+          Directive.newDirective()
+              .name(SKIP)
+              .arguments(
+                  Collections.singletonList(
+                      new Argument("if", BooleanValue.newBooleanValue(true).build())))
+              .build();
+      List<Directive> directives = new ArrayList<>();
+      for (Directive directive : directives(stripped)) {
+        if (!SKIP.equals(directive.getName()) && !INCLUDE.equals(directive.getName())) {
+          directives.add(directive);
+        }
+      }
+      directives.add(skip);
+      return withDirectives(stripped, directives);
+    }
+
+    private Selection<?> withoutDirectives(Selection<?> selection) {
+      return withDirectives(
+          selection,
+          directives(selection).stream()
+              .filter(
+                  directive ->
+                      !DEFER.equals(directive.getName()) && !STREAM.equals(directive.getName()))
+              .collect(Collectors.toList()));
+    }
+
+    private static List<Directive> directives(Selection<?> selection) {
+      if (selection instanceof Field) {
+        return ((Field) selection).getDirectives();
+      }
+      if (selection instanceof InlineFragment) {
+        return ((InlineFragment) selection).getDirectives();
+      }
+      return ((FragmentSpread) selection).getDirectives();
+    }
+
+    private static Selection<?> withDirectives(Selection<?> selection, List<Directive> directives) {
+      if (selection instanceof Field) {
+        return ((Field) selection).transform(builder -> builder.directives(directives));
+      }
+      if (selection instanceof InlineFragment) {
+        return ((InlineFragment) selection).transform(builder -> builder.directives(directives));
+      }
+      return ((FragmentSpread) selection).transform(builder -> builder.directives(directives));
+    }
+
+    private static SelectionSet selectionSet(Selection<?> selection) {
+      if (selection instanceof Field) {
+        return ((Field) selection).getSelectionSet();
+      }
+      if (selection instanceof InlineFragment) {
+        return ((InlineFragment) selection).getSelectionSet();
+      }
+      return null;
+    }
+
+    private static Selection<?> withSelectionSet(
+        Selection<?> selection, SelectionSet selectionSet) {
+      if (selectionSet == null) {
+        return selection;
+      }
+      if (selection instanceof Field) {
+        return ((Field) selection).transform(builder -> builder.selectionSet(selectionSet));
+      }
+      if (selection instanceof InlineFragment) {
+        return ((InlineFragment) selection)
+            .transform(builder -> builder.selectionSet(selectionSet));
+      }
+      return selection;
+    }
+
+    private static SelectionSet map(
+        SelectionSet selectionSet, Function<Selection<?>, Selection<?>> mapper) {
+      List<Selection<?>> selections = new ArrayList<>();
+      for (Selection<?> selection : selectionSet.getSelections()) {
+        selections.add(mapper.apply(selection));
+      }
+      return selectionSet.transform(builder -> builder.selections(selections));
+    }
+  }
+}
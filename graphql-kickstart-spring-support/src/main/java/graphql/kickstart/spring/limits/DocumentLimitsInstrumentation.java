@@ -0,0 +1,150 @@
+package graphql.kickstart.spring.limits;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Definition;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.InlineFragment;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.parser.ParserOptions;
+import graphql.validation.ValidationError;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rejects the oversized documents and variables before they are parsed and validated.
+ *
+ * <p>The size of the document and of the variables is checked first, then the document is parsed
+ * with the token limits of the options. Once parsed, and before it is validated, the document is
+ * walked once to count its aliases, the fields selected several times in the same selection set,
+ * inline fragments included, and the directives of every field. Requests exceeding a limit are
+ * aborted with a {@code DOCUMENT_LIMIT_EXCEEDED} error, before the complexity analysis and the
+ * validation, whose cost grows with these numbers, run.
+ */
+public class DocumentLimitsInstrumentation extends SimpleInstrumentation {
+
+  public static final String DOCUMENT_LIMIT_EXCEEDED = "DOCUMENT_LIMIT_EXCEEDED";
+
+  private final DocumentLimitsOptions options;
+  private final ParserOptions parserOptions;
+
+  public DocumentLimitsInstrumentation(DocumentLimitsOptions options) {
+    this.options = options;
+    this.parserOptions = DocumentParser.parserOptions(options);
+  }
+
+  @Override
+  public ExecutionInput instrumentExecutionInput(
+      ExecutionInput executionInput,
+      InstrumentationExecutionParameters parameters,
+      InstrumentationState state) {
+    String query = executionInput.getQuery();
+    if (query != null) {
+      check("characters", query.length(), options.getMaxCharacters());
+      if (options.getMaxDocumentBytes() > 0) {
+        check("bytes", JsonSize.utf8Length(query), options.getMaxDocumentBytes());
+      }
+    }
+    if (options.getMaxVariablesBytes() > 0) {
+      check(
+          "variables bytes",
+          JsonSize.of(executionInput.getVariables(), options.getMaxVariablesBytes()),
+          options.getMaxVariablesBytes());
+    }
+    GraphQLContext context = executionInput.getGraphQLContext();
+    if (!context.hasKey(ParserOptions.class)) {
+      context.put(ParserOptions.class, parserOptions);
+    }
+    return super.instrumentExecutionInput(executionInput, parameters, state);
+  }
+
+  @Override
+  public InstrumentationContext<List<ValidationError>> beginValidation(
+      InstrumentationValidationParameters parameters, InstrumentationState state) {
+    if (options.getMaxAliases() > 0
+        || options.getMaxFieldDuplication() > 0
+        || options.getMaxDirectivesPerField() > 0) {
+      checkSelections(parameters.getDocument());
+    }
+    return super.beginValidation(parameters, state);
+  }
+
+  private void checkSelections(Document document) {
+    Deque<SelectionSet> selectionSets = new ArrayDeque<>();
+    for (Definition<?> definition : document.getDefinitions()) {
+      if (definition instanceof OperationDefinition) {
+        push(selectionSets, ((OperationDefinition) definition).getSelectionSet());
+      } else if (definition instanceof FragmentDefinition) {
+        push(selectionSets, ((FragmentDefinition) definition).getSelectionSet());
+      }
+    }
+    int aliases = 0;
+    Map<String, Integer> selected = new HashMap<>();
+    Deque<Selection<?>> selections = new ArrayDeque<>();
+    while (!selectionSets.isEmpty()) {
+      selected.clear();
+      addAll(selections, selectionSets.pop());
+      while (!selections.isEmpty()) {
+        Selection<?> selection = selections.pop();
+        if (selection instanceof Field) {
+          Field field = (Field) selection;
+          if (field.getAlias() != null) {
+            check("aliases", ++aliases, options.getMaxAliases());
+          }
+          check(
+              "selections of the same field",
+              selected.merge(field.getResultKey(), 1, Integer::sum),
+              options.getMaxFieldDuplication());
+          check(
+              "directives per field",
+              field.getDirectives().size(),
+              options.getMaxDirectivesPerField());
+          push(selectionSets, field.getSelectionSet());
+        } else if (selection instanceof InlineFragment) {
+          // the fields of inline fragments are merged with the fields around them
+          addAll(selections, ((InlineFragment) selection).getSelectionSet());
+        }
+      }
+    }
+  }
+
+  private static void push(Deque<SelectionSet> selectionSets, SelectionSet selectionSet) {
+    if (selectionSet != null) {
+      selectionSets.push(selectionSet);
+    }
+  }
+
+  private static void addAll(Deque<Selection<?>> selections, SelectionSet selectionSet) {
+    if (selectionSet != null) {
+      for (Selection<?> selection : selectionSet.getSelections()) {
+        selections.add(selection);
+      }
+    }
+  }
+
+  private static void check(String what, long count, int limit) {
+    if (limit > 0 && count > limit) {
+      throw new AbortExecutionException(
+          Collections.singletonList(
+              GraphqlErrorBuilder.newError()
+                  .message("Document exceeds the maximum of %d %s", limit, what)
+                  .extensions(Collections.singletonMap("code", DOCUMENT_LIMIT_EXCEEDED))
+                  .build()));
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package graphql.kickstart.spring.limits;
+
+import graphql.parser.ParserOptions;
+import lombok.Builder;
+import lombok.Value;
+
+/** Limits of the documents and variables of a request, zero or less meaning unlimited. */
+@Value
+@Builder
+public class DocumentLimitsOptions {
+
+  /** Maximum number of grammar tokens of a document. */
+  @Builder.Default int maxTokens = ParserOptions.MAX_QUERY_TOKENS;
+  /** Maximum number of whitespace tokens of a document. */
+  @Builder.Default int maxWhitespaceTokens = ParserOptions.MAX_WHITESPACE_TOKENS;
+  /** Maximum number of characters of a document. */
+  @Builder.Default int maxCharacters = 1_000_000;
+  /** Maximum size of a document in UTF-8 bytes. */
+  int maxDocumentBytes;
+  /** Maximum number of aliased fields of a document. */
+  int maxAliases;
+  /** Maximum number of times a field is selected in the same selection set. */
+  int maxFieldDuplication;
+  /** Maximum number of directives of a field. */
+  int maxDirectivesPerField;
+  /** Maximum size of the variables of a request, measured as their JSON representation. */
+  int maxVariablesBytes;
+}
@@ -0,0 +1,82 @@
+package graphql.kickstart.spring.limits;
+
+import graphql.language.Document;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+import graphql.parser.ParserOptions;
+import java.util.Map;
+
+/**
+ * Parses documents ahead of their execution, for the components looking into a query before the
+ * engine does, with the limits the engine parses it with. A document exceeding the limits is not
+ * parsed here, its execution reports the limit it exceeds.
+ */
+public class DocumentParser {
+
+  private final DocumentLimitsOptions options;
+  private final ParserOptions parserOptions;
+
+  /** Parser with the limits the engine applies by default. */
+  public DocumentParser() {
+    this.options = null;
+    this.parserOptions = ParserOptions.getDefaultOperationParserOptions();
+  }
+
+  public DocumentParser(DocumentLimitsOptions options) {
+    this.options = options;
+    this.parserOptions = parserOptions(options);
+  }
+
+  static ParserOptions parserOptions(DocumentLimitsOptions options) {
+    return ParserOptions.getDefaultOperationParserOptions()
+        .transform(
+            builder ->
+                builder
+                    .maxTokens(unlimitedIfNotPositive(options.getMaxTokens()))
+                    .maxWhitespaceTokens(unlimitedIfNotPositive(options.getMaxWhitespaceTokens())));
+  }
+
+  private static int unlimitedIfNotPositive(int limit) {
+    return limit > 0 ? limit : Integer.MAX_VALUE;
+  }
+
+  /**
+   * @param extensions the extensions of the request sending the query
+   * @return the document, null if the request is not executed from its text, or if the document
+   *     exceeds the limits or cannot be parsed
+   */
+  public Document parse(String query, Map<String, Object> extensions) {
+    return executesQueryText(extensions) ? parse(query) : null;
+  }
+
+  /**
+   * @return whether a request with the given extensions is executed from its query text, rather
+   *     than from a document the engine looks up otherwise
+   */
+  public boolean executesQueryText(Map<String, Object> extensions) {
+    return true;
+  }
+
+  /**
+   * @return the document, null if it exceeds the limits or cannot be parsed
+   */
+  public Document parse(String query) {
+    if (query == null || exceedsSize(query)) {
+      return null;
+    }
+    try {
+      return new Parser().parseDocument(query, parserOptions);
+    } catch (InvalidSyntaxException e) {
+      return null;
+    }
+  }
+
+  private boolean exceedsSize(String query) {
+    if (options == null) {
+      return false;
+    }
+    return (options.getMaxCharacters() > 0 && query.length() > options.getMaxCharacters())
+        || (options.getMaxDocumentBytes() > 0
+            && JsonSize.utf8Length(query) > options.getMaxDocumentBytes());
+  }
+}
@@ -0,0 +1,63 @@
+package graphql.kickstart.spring.limits;
+
+import java.util.Map;
+
+/** Size of the JSON representation of values, measured until it exceeds a limit. */
+final class JsonSize {
+
+  private final long limit;
+  private long size;
+
+  private JsonSize(long limit) {
+    this.limit = limit;
+  }
+
+  /** @return the size of the value in JSON, or a size above the limit once it exceeds it */
+  static long of(Object value, long limit) {
+    JsonSize jsonSize = new JsonSize(limit);
+    jsonSize.add(value);
+    return jsonSize.size;
+  }
+
+  /** @return the size of the value in UTF-8 bytes */
+  static long utf8Length(String value) {
+    long length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c)) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  private void add(Object value) {
+    if (size > limit) {
+      return;
+    }
+    if (value instanceof Map) {
+      size += 2;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        size += utf8Length(String.valueOf(entry.getKey())) + 4;
+        add(entry.getValue());
+      }
+    } else if (value instanceof Iterable) {
+      size += 2;
+      for (Object element : (Iterable<?>) value) {
+        size++;
+        add(element);
+      }
+    } else if (value instanceof CharSequence) {
+      size += utf8Length(value.toString()) + 2;
+    } else {
+      size += String.valueOf(value).length();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package graphql.kickstart.spring.limits;
+
+import graphql.ExecutionResult;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.FetchedValue;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldCompleteParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.OperationDefinition.Operation;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLTypeUtil;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aborts the executions whose result grows over a budget of nodes or bytes.
+ *
+ * <p>Every completed field and list item counts as a node, and adds the estimated size of its JSON
+ * representation to the bytes of the result. The execution is aborted with a {@code
+ * RESULT_BUDGET_EXCEEDED} error as soon as either budget is exceeded, dropping the partial result
+ * instead of building and serializing it, and the data fetchers of the fields still pending are not
+ * called anymore. The events of subscriptions are not counted.
+ */
+public class ResultBudgetInstrumentation extends SimpleInstrumentation {
+
+  public static final String RESULT_BUDGET_EXCEEDED = "RESULT_BUDGET_EXCEEDED";
+
+  private final ResultBudgetOptions options;
+
+  public ResultBudgetInstrumentation(ResultBudgetOptions options) {
+    this.options = options;
+  }
+
+  @Override
+  public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+    return new Budget();
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginFieldComplete(
+      InstrumentationFieldCompleteParameters parameters, InstrumentationState state) {
+    if (isSubscription(parameters.getExecutionContext())) {
+      return super.beginFieldComplete(parameters, state);
+    }
+    Budget budget = (Budget) state;
+    ExecutionStepInfo stepInfo = parameters.getExecutionStepInfo();
+    Object value = ((FetchedValue) parameters.getFetchedValue()).getFetchedValue();
+    long bytes = 0;
+    if (options.getMaxBytes() > 0) {
+      bytes = JsonSize.utf8Length(stepInfo.getField().getResultKey()) + 4;
+      if (value == null) {
+        bytes += 4;
+      } else if (isLeaf(stepInfo) && !GraphQLTypeUtil.isList(stepInfo.getUnwrappedNonNullType())) {
+        bytes += JsonSize.of(value, options.getMaxBytes());
+      } else {
+        bytes += 2;
+      }
+    }
+    budget.spend(1, bytes);
+    return super.beginFieldComplete(parameters, state);
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginFieldListComplete(
+      InstrumentationFieldCompleteParameters parameters, InstrumentationState state) {
+    if (isSubscription(parameters.getExecutionContext())) {
+      return super.beginFieldListComplete(parameters, state);
+    }
+    Budget budget = (Budget) state;
+    Object values = parameters.getFetchedValue();
+    long nodes = values instanceof Collection ? ((Collection<?>) values).size() : 0;
+    long bytes = 0;
+    if (options.getMaxBytes() > 0) {
+      bytes = nodes;
+      if (values instanceof Collection && isLeaf(parameters.getExecutionStepInfo())) {
+        for (Object item : (Iterable<?>) values) {
+          if (bytes > options.getMaxBytes()) {
+            break;
+          }
+          if (!(item instanceof Iterable)) {
+            bytes += JsonSize.of(item, options.getMaxBytes());
+          }
+        }
+      }
+    }
+    budget.spend(nodes, bytes);
+    return super.beginFieldListComplete(parameters, state);
+  }
+
+  @Override
+  public DataFetcher<?> instrumentDataFetcher(
+      DataFetcher<?> dataFetcher,
+      InstrumentationFieldFetchParameters parameters,
+      InstrumentationState state) {
+    if (parameters.isTrivialDataFetcher()) {
+      return dataFetcher;
+    }
+    Budget budget = (Budget) state;
+    // the result is dropped once the budget is exceeded, the remaining fields are not fetched
+    return environment -> budget.isExceeded() ? null : dataFetcher.get(environment);
+  }
+
+  // the events of a subscription share its state, their results are not summed up
+  private static boolean isSubscription(ExecutionContext executionContext) {
+    return executionContext.getOperationDefinition().getOperation() == Operation.SUBSCRIPTION;
+  }
+
+  private static boolean isLeaf(ExecutionStepInfo stepInfo) {
+    return GraphQLTypeUtil.isLeaf(GraphQLTypeUtil.unwrapAll(stepInfo.getType()));
+  }
+
+  private class Budget implements InstrumentationState {
+
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile boolean exceeded;
+
+    void spend(long nodeCount, long byteCount) {
+      if (options.getMaxNodes() > 0) {
+        check(nodes.addAndGet(nodeCount), options.getMaxNodes(), "nodes");
+      }
+      if (options.getMaxBytes() > 0) {
+        check(bytes.addAndGet(byteCount), options.getMaxBytes(), "bytes");
+      }
+    }
+
+    boolean isExceeded() {
+      return exceeded;
+    }
+
+    private void check(long spent, long limit, String what) {
+      if (spent > limit) {
+        exceeded = true;
+        throw new AbortExecutionException(
+            Collections.singletonList(
+                GraphqlErrorBuilder.newError()
+                    .message("Result exceeds the maximum of %d %s", limit, what)
+                    .extensions(Collections.singletonMap("code", RESULT_BUDGET_EXCEEDED))
+                    .build()));
+      }
+    }
+  }
+}
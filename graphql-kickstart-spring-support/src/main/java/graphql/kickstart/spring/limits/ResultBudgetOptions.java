@@ -0,0 +1,15 @@
+package graphql.kickstart.spring.limits;
+
+import lombok.Builder;
+import lombok.Value;
+
+/** Budget of the result of an execution, zero or less meaning unlimited. */
+@Value
+@Builder
+public class ResultBudgetOptions {
+
+  /** Maximum number of fields and list items of a result. */
+  long maxNodes;
+  /** Maximum size of a result, estimated as its JSON representation in bytes. */
+  long maxBytes;
+}
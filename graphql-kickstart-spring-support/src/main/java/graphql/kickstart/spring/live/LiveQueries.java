@@ -0,0 +1,39 @@
+package graphql.kickstart.spring.live;
+
+import graphql.GraphQLContext;
+import graphql.schema.DataFetchingEnvironment;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Entry point for data fetchers of live queries.
+ *
+ * <p>A query operation marked with {@code @live} keeps its subscribers up to date: the data
+ * fetchers record the keys of the entities they read with {@link #touch}, and the query is executed
+ * again whenever one of them is invalidated through the {@link LiveQueryRegistry}. The directive
+ * must be declared by the schema:
+ *
+ * <pre>
+ * directive &#64;live on QUERY
+ * </pre>
+ */
+public final class LiveQueries {
+
+  public static final String DIRECTIVE = "live";
+
+  /** Key of the keys touched by the current execution in the {@link GraphQLContext}. */
+  static final String TOUCHED_KEYS = LiveQueries.class.getName();
+
+  private LiveQueries() {}
+
+  /**
+   * Records entity keys the result of the current execution depends on, does nothing unless the
+   * operation is a live query.
+   */
+  public static void touch(DataFetchingEnvironment environment, Object... keys) {
+    Set<Object> touched = environment.getGraphQlContext().get(TOUCHED_KEYS);
+    if (touched != null) {
+      touched.addAll(Arrays.asList(keys));
+    }
+  }
+}
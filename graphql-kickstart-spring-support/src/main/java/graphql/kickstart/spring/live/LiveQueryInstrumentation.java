@@ -0,0 +1,71 @@
+package graphql.kickstart.spring.live;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.GraphQLContext;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.language.OperationDefinition;
+import graphql.language.OperationDefinition.Operation;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns the result of a query marked with {@code @live} into a publisher of results, the first
+ * being the result of the execution itself. Transports stream such results like the ones of
+ * subscriptions.
+ */
+public class LiveQueryInstrumentation extends SimpleInstrumentation {
+
+  private final LiveQueryRegistry registry;
+
+  LiveQueryInstrumentation(LiveQueryRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+      InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+    ExecutionContext executionContext = parameters.getExecutionContext();
+    OperationDefinition operation = executionContext.getOperationDefinition();
+    GraphQLContext context = executionContext.getGraphQLContext();
+    if (operation.getOperation() == Operation.QUERY
+        && operation.hasDirective(LiveQueries.DIRECTIVE)
+        && !context.hasKey(LiveQueries.TOUCHED_KEYS)) {
+      context.put(LiveQueries.TOUCHED_KEYS, ConcurrentHashMap.newKeySet());
+      // the query is executed again like this time, with all the instrumentations of the chain
+      context.put(LiveQueryRegistry.INSTRUMENTATION, executionContext.getInstrumentation());
+      context.put(LiveQueryRegistry.QUERY_STRATEGY, executionContext.getQueryStrategy());
+    }
+    return super.beginExecuteOperation(parameters, state);
+  }
+
+  @Override
+  public CompletableFuture<ExecutionResult> instrumentExecutionResult(
+      ExecutionResult executionResult,
+      InstrumentationExecutionParameters parameters,
+      InstrumentationState state) {
+    GraphQLContext context = parameters.getGraphQLContext();
+    Set<Object> touched = context.get(LiveQueries.TOUCHED_KEYS);
+    if (touched == null
+        || context.hasKey(LiveQueryRegistry.REEXECUTION)
+        || !executionResult.getErrors().isEmpty()) {
+      return CompletableFuture.completedFuture(executionResult);
+    }
+    return CompletableFuture.completedFuture(
+        ExecutionResultImpl.newExecutionResult()
+            .from(executionResult)
+            .data(
+                registry.register(
+                    parameters.getExecutionInput(),
+                    parameters.getSchema(),
+                    executionResult,
+                    touched))
+            .build());
+  }
+}
@@ -0,0 +1,28 @@
+package graphql.kickstart.spring.live;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Application event invalidating entity keys, the live queries that touched them are executed
+ * again.
+ */
+public class LiveQueryInvalidation {
+
+  private final Set<Object> keys;
+
+  public LiveQueryInvalidation(Object... keys) {
+    this(Arrays.asList(keys));
+  }
+
+  public LiveQueryInvalidation(Collection<?> keys) {
+    this.keys = Collections.unmodifiableSet(new LinkedHashSet<>(keys));
+  }
+
+  public Set<Object> getKeys() {
+    return keys;
+  }
+}
@@ -0,0 +1,19 @@
+package graphql.kickstart.spring.live;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class LiveQueryOptions {
+
+  /** Delay between the first invalidation of a live query and its execution. */
+  @Builder.Default Duration debounce = Duration.ofMillis(50);
+  /**
+   * Whether live queries with the same document, operation and variables share their executions.
+   * Shared executions run with the context and data loaders of the first client, only enable it
+   * when results do not depend on who asks.
+   */
+  @Builder.Default boolean coalesce = false;
+}
@@ -0,0 +1,282 @@
+package graphql.kickstart.spring.live;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.ExecutionStrategy;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.schema.GraphQLSchema;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
+import org.reactivestreams.Publisher;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Keeps the live queries of all clients along with the entity keys their results depend on.
+ *
+ * <p>Invalidating a key executes the live queries that touched it again, once per debounce window
+ * however many invalidations arrive in it, and with {@link LiveQueryOptions#isCoalesce()} once for
+ * all the clients of the same document. A client only receives a result if it differs from the last
+ * one it received, compared by the hash of the result.
+ *
+ * <p>Keys are invalidated with {@link #invalidate} or by publishing a {@link LiveQueryInvalidation}
+ * application event. Executions run again with the data loaders of the original execution, their
+ * caches cleared, and with its instrumentations and query strategy, so the limits applied to the
+ * first execution apply to the next ones too.
+ */
+@Slf4j
+public class LiveQueryRegistry implements ApplicationListener<ApplicationEvent> {
+
+  /** Marks the repeated executions in the {@link graphql.GraphQLContext}. */
+  static final String REEXECUTION = LiveQueryRegistry.class.getName();
+  /** Key of the instrumentation of the original execution in the {@link graphql.GraphQLContext}. */
+  static final String INSTRUMENTATION = REEXECUTION + ".instrumentation";
+  /** Key of the query strategy of the original execution in the {@link graphql.GraphQLContext}. */
+  static final String QUERY_STRATEGY = REEXECUTION + ".queryStrategy";
+
+  private final LiveQueryOptions options;
+  private final LiveQueryInstrumentation instrumentation = new LiveQueryInstrumentation(this);
+  // both guarded by the registry
+  private final Map<Object, LiveQuery> queries = new HashMap<>();
+  private final Map<Object, Set<LiveQuery>> dependents = new HashMap<>();
+
+  public LiveQueryRegistry(LiveQueryOptions options) {
+    this.options = options;
+  }
+
+  /**
+   * @return the instrumentation to execute queries with, for {@code @live} to take effect
+   */
+  public LiveQueryInstrumentation getInstrumentation() {
+    return instrumentation;
+  }
+
+  /** Executes the live queries depending on any of the keys again. */
+  public void invalidate(Object... keys) {
+    invalidate(Arrays.asList(keys));
+  }
+
+  /** Executes the live queries depending on any of the keys again. */
+  public void invalidate(Collection<?> keys) {
+    Set<LiveQuery> affected = new HashSet<>();
+    synchronized (this) {
+      for (Object key : keys) {
+        Set<LiveQuery> queriesOfKey = dependents.get(key);
+        if (queriesOfKey != null) {
+          affected.addAll(queriesOfKey);
+        }
+      }
+    }
+    affected.forEach(LiveQuery::invalidate);
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationEvent applicationEvent) {
+    Object event =
+        applicationEvent instanceof PayloadApplicationEvent
+            ? ((PayloadApplicationEvent<?>) applicationEvent).getPayload()
+            : applicationEvent;
+    if (event instanceof LiveQueryInvalidation) {
+      invalidate(((LiveQueryInvalidation) event).getKeys());
+    }
+  }
+
+  /**
+   * @return the number of live queries currently executed, shared ones counting once
+   */
+  public synchronized int getQueryCount() {
+    return queries.size();
+  }
+
+  Publisher<ExecutionResult> register(
+      ExecutionInput input, GraphQLSchema schema, ExecutionResult initial, Set<Object> keys) {
+    Object document =
+        options.isCoalesce()
+            ? Arrays.asList(input.getQuery(), input.getOperationName(), input.getVariables())
+            : new Object();
+    HashedResult first = new HashedResult(initial);
+    return Flux.defer(
+        () -> {
+          LiveQuery query = join(document, input, schema, keys);
+          // a subscriber that has not requested the previous result only gets the latest one, the
+          // sink thereby always has demand and never drops results
+          return query
+              .results
+              .asFlux()
+              .onBackpressureLatest()
+              .startWith(first)
+              .distinctUntilChanged(HashedResult::getHash)
+              .map(HashedResult::getResult)
+              .doFinally(signal -> leave(query));
+        });
+  }
+
+  private synchronized LiveQuery join(
+      Object document, ExecutionInput input, GraphQLSchema schema, Set<Object> keys) {
+    LiveQuery query = queries.computeIfAbsent(document, key -> new LiveQuery(key, input, schema));
+    query.subscribers++;
+    index(query, keys);
+    return query;
+  }
+
+  private synchronized void leave(LiveQuery query) {
+    if (--query.subscribers == 0) {
+      queries.remove(query.document);
+      query.close();
+      reindex(query, new HashSet<>());
+    }
+  }
+
+  private void index(LiveQuery query, Set<Object> keys) {
+    for (Object key : keys) {
+      if (query.keys.add(key)) {
+        dependents.computeIfAbsent(key, k -> new HashSet<>()).add(query);
+      }
+    }
+  }
+
+  private synchronized void reindex(LiveQuery query, Set<Object> keys) {
+    for (Object key : query.keys) {
+      if (!keys.contains(key)) {
+        Set<LiveQuery> queriesOfKey = dependents.get(key);
+        queriesOfKey.remove(query);
+        if (queriesOfKey.isEmpty()) {
+          dependents.remove(key);
+        }
+      }
+    }
+    query.keys.retainAll(keys);
+    if (query.subscribers > 0) {
+      index(query, keys);
+    }
+  }
+
+  @Value
+  private static class HashedResult {
+    ExecutionResult result;
+    int hash;
+
+    HashedResult(ExecutionResult result) {
+      this.result = result;
+      this.hash = result.toSpecification().hashCode();
+    }
+  }
+
+  /** Executions of one document, shared by its subscribers. */
+  private class LiveQuery {
+
+    private final Object document;
+    private final ExecutionInput input;
+    private final GraphQL graphQL;
+    private final Sinks.Many<HashedResult> results = Sinks.many().multicast().directBestEffort();
+    // guarded by the registry
+    private final Set<Object> keys = new HashSet<>();
+    private int subscribers;
+    // guarded by the live query
+    private boolean scheduled;
+    private boolean running;
+    private boolean closed;
+
+    LiveQuery(Object document, ExecutionInput input, GraphQLSchema schema) {
+      this.document = document;
+      this.input = input;
+      Instrumentation original = input.getGraphQLContext().get(INSTRUMENTATION);
+      ExecutionStrategy queryStrategy = input.getGraphQLContext().get(QUERY_STRATEGY);
+      GraphQL.Builder builder = GraphQL.newGraphQL(schema);
+      if (original == null) {
+        builder.instrumentation(instrumentation);
+      } else {
+        // the chain holds the default instrumentations of the original execution already
+        builder.instrumentation(original).doNotAddDefaultInstrumentations();
+      }
+      if (queryStrategy != null) {
+        builder.queryExecutionStrategy(queryStrategy);
+      }
+      this.graphQL = builder.build();
+    }
+
+    synchronized void invalidate() {
+      if (!closed && !scheduled) {
+        scheduled = true;
+        if (!running) {
+          schedule();
+        }
+      }
+    }
+
+    synchronized void close() {
+      closed = true;
+    }
+
+    private void schedule() {
+      Schedulers.parallel()
+          .schedule(this::execute, options.getDebounce().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void execute() {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        scheduled = false;
+        running = true;
+      }
+      Set<Object> touched = ConcurrentHashMap.newKeySet();
+      input.getDataLoaderRegistry().getDataLoaders().forEach(DataLoader::clearAll);
+      graphQL
+          .executeAsync(reexecution(touched))
+          .whenComplete(
+              (result, error) -> {
+                if (error != null) {
+                  log.error("Error executing live query again", error);
+                } else {
+                  reindex(this, touched);
+                  Sinks.EmitResult emitted = results.tryEmitNext(new HashedResult(result));
+                  if (emitted.isFailure() && emitted != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                    log.warn(
+                        "Dropped result of live query {}: {}", input.getOperationName(), emitted);
+                  }
+                }
+                synchronized (this) {
+                  running = false;
+                  if (scheduled && !closed) {
+                    schedule();
+                  }
+                }
+              });
+    }
+
+    private ExecutionInput reexecution(Set<Object> touched) {
+      return ExecutionInput.newExecutionInput()
+          .query(input.getQuery())
+          .operationName(input.getOperationName())
+          .variables(input.getVariables())
+          .extensions(input.getExtensions())
+          .localContext(input.getLocalContext())
+          .root(input.getRoot())
+          .locale(input.getLocale())
+          .dataLoaderRegistry(input.getDataLoaderRegistry())
+          .graphQLContext(
+              builder -> {
+                input.getGraphQLContext().stream()
+                    .forEach(e -> builder.of(e.getKey(), e.getValue()));
+                builder.of(LiveQueries.TOUCHED_KEYS, touched, REEXECUTION, true);
+              })
+          .build();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package graphql.kickstart.spring.ratelimit;
+
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.QueryComplexityInfo;
+import graphql.execution.AbortExecutionException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charges the complexity of every operation to the budget of its client, computed like {@link
+ * MaxQueryComplexityInstrumentation} does, and aborts the operations of the clients that spent
+ * their budget with a {@code RATE_LIMITED} error telling when to retry.
+ */
+public class QueryCostRateLimitInstrumentation extends MaxQueryComplexityInstrumentation {
+
+  public static final String RATE_LIMITED = "RATE_LIMITED";
+
+  public QueryCostRateLimitInstrumentation(
+      QueryCostRateLimiter limiter, RateLimitKeyResolver keyResolver) {
+    this(limiter, keyResolver, (environment, childComplexity) -> 1 + childComplexity);
+  }
+
+  public QueryCostRateLimitInstrumentation(
+      QueryCostRateLimiter limiter,
+      RateLimitKeyResolver keyResolver,
+      FieldComplexityCalculator fieldComplexityCalculator) {
+    // every operation exceeds a complexity of zero, the function charges its cost
+    super(0, fieldComplexityCalculator, info -> charge(limiter, keyResolver, info));
+  }
+
+  private static boolean charge(
+      QueryCostRateLimiter limiter, RateLimitKeyResolver keyResolver, QueryComplexityInfo info) {
+    ExecutionInput executionInput =
+        info.getInstrumentationExecuteOperationParameters()
+            .getExecutionContext()
+            .getExecutionInput();
+    Object key = keyResolver.resolve(executionInput);
+    if (key == null) {
+      return false;
+    }
+    long wait = limiter.charge(key, info.getComplexity());
+    if (wait == 0) {
+      return false;
+    }
+    long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999));
+    keyResolver.rejected(executionInput, retryAfterSeconds);
+    Map<String, Object> extensions = new HashMap<>();
+    extensions.put("code", RATE_LIMITED);
+    extensions.put("retryAfter", retryAfterSeconds);
+    throw new AbortExecutionException(
+        Collections.singletonList(
+            GraphqlErrorBuilder.newError()
+                .message("Query cost budget exhausted, retry after %d seconds", retryAfterSeconds)
+                .extensions(extensions)
+                .build()));
+  }
+}
@@ -0,0 +1,22 @@
+package graphql.kickstart.spring.ratelimit;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class QueryCostRateLimitOptions {
+
+  /**
+   * Cost a client may spend at once, the size of its bucket. Queries costing more are always
+   * rejected, it should not be lower than the maximum query complexity.
+   */
+  @Builder.Default long capacity = 1000;
+  /** Cost refilled per second in the bucket of every client. */
+  @Builder.Default long refillPerSecond = 100;
+  /** Number of stripes the buckets are spread over, rounded up to a power of two. */
+  @Builder.Default int stripes = 64;
+  /** Minimum delay between two sweeps of the full buckets of a stripe. */
+  @Builder.Default Duration sweepInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,136 @@
+package graphql.kickstart.spring.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets of the clients, charged with the cost of their queries.
+ *
+ * <p>A bucket is a single timestamp, the time at which it will be full again, updated by
+ * compare-and-set: charging a cost moves it forward by the time needed to refill that cost, and the
+ * charge is rejected when it would move further than the capacity of the bucket ahead of now. A
+ * bucket whose timestamp has passed is full, it carries no state and is dropped by the periodic
+ * sweep of its stripe, so that only the clients that spent part of their budget recently are
+ * tracked.
+ *
+ * <p>The buckets are spread over stripes that are swept independently, by the first charge hitting
+ * a stripe once its sweep interval elapsed. No thread is dedicated to the sweeps and no lock is
+ * taken to charge a bucket.
+ */
+public class QueryCostRateLimiter {
+
+  private static final long EVICTED = Long.MAX_VALUE;
+  private static final AtomicLongFieldUpdater<Bucket> FULL_AT =
+      AtomicLongFieldUpdater.newUpdater(Bucket.class, "fullAt");
+  private static final AtomicLongFieldUpdater<Stripe> NEXT_SWEEP =
+      AtomicLongFieldUpdater.newUpdater(Stripe.class, "nextSweep");
+
+  private final double nanosPerCost;
+  private final long capacityNanos;
+  private final long sweepIntervalNanos;
+  private final Stripe[] stripes;
+  private final LongAdder rejected = new LongAdder();
+
+  public QueryCostRateLimiter(QueryCostRateLimitOptions options) {
+    this.nanosPerCost = (double) TimeUnit.SECONDS.toNanos(1) / options.getRefillPerSecond();
+    this.capacityNanos = (long) (options.getCapacity() * nanosPerCost);
+    this.sweepIntervalNanos = options.getSweepInterval().toNanos();
+    int size = Math.min(Math.max(options.getStripes(), 1), 1 << 16);
+    this.stripes =
+        new Stripe[Integer.bitCount(size) == 1 ? size : Integer.highestOneBit(size) << 1];
+    long now = System.nanoTime();
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Stripe(now + sweepIntervalNanos);
+    }
+  }
+
+  /**
+   * Charges the cost of a query to the bucket of a client.
+   *
+   * @return {@code 0} when the query is accepted, otherwise the number of nanoseconds after which
+   *     the bucket holds enough to accept it
+   */
+  public long charge(Object key, long cost) {
+    long now = System.nanoTime();
+    Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+    long costNanos = (long) (cost * nanosPerCost);
+    long wait;
+    while (true) {
+      Bucket bucket = stripe.computeIfAbsent(key, k -> new Bucket(now));
+      long fullAt = bucket.fullAt;
+      if (fullAt == EVICTED) {
+        stripe.remove(key, bucket);
+        continue;
+      }
+      long next = Math.max(fullAt, now) + costNanos;
+      wait = next - now - capacityNanos;
+      if (wait > 0 || FULL_AT.compareAndSet(bucket, fullAt, next)) {
+        break;
+      }
+    }
+    long nextSweep = stripe.nextSweep;
+    if (now - nextSweep >= 0
+        && NEXT_SWEEP.compareAndSet(stripe, nextSweep, now + sweepIntervalNanos)) {
+      sweep(stripe, now);
+    }
+    if (wait > 0) {
+      rejected.increment();
+      return wait;
+    }
+    return 0;
+  }
+
+  private void sweep(Stripe stripe, long now) {
+    for (Map.Entry<Object, Bucket> entry : stripe.entrySet()) {
+      Bucket bucket = entry.getValue();
+      long fullAt = bucket.fullAt;
+      // a bucket is only dropped when full, charges racing with the sweep retry on a new bucket
+      if (fullAt != EVICTED
+          && now - fullAt >= 0
+          && FULL_AT.compareAndSet(bucket, fullAt, EVICTED)) {
+        stripe.remove(entry.getKey(), bucket);
+      }
+    }
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  /** @return the number of clients tracked, whose buckets are not known to be full */
+  public long getClientCount() {
+    long count = 0;
+    for (Stripe stripe : stripes) {
+      count += stripe.size();
+    }
+    return count;
+  }
+
+  /** @return the number of queries rejected so far */
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  private static class Bucket {
+
+    volatile long fullAt;
+
+    Bucket(long fullAt) {
+      this.fullAt = fullAt;
+    }
+  }
+
+  private static class Stripe extends ConcurrentHashMap<Object, Bucket> {
+
+    private static final long serialVersionUID = 1L;
+
+    volatile long nextSweep;
+
+    Stripe(long nextSweep) {
+      this.nextSweep = nextSweep;
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package graphql.kickstart.spring.ratelimit;
+
+/** What identifies the client of a request. */
+public enum RateLimitKey {
+  /** The name of the authenticated principal, or the address of anonymous clients. */
+  PRINCIPAL,
+  /** The value of a request header such as an API key, or the address when it is missing. */
+  HEADER,
+  /** The remote address of the client. */
+  IP
+}
@@ -0,0 +1,16 @@
+package graphql.kickstart.spring.ratelimit;
+
+import graphql.ExecutionInput;
+
+/** Identifies the client whose budget an execution is charged to. */
+public interface RateLimitKeyResolver {
+
+  /** @return the key of the client, or {@code null} when the execution is not limited */
+  Object resolve(ExecutionInput executionInput);
+
+  /**
+   * Called when an execution is rejected, typically to set the {@code Retry-After} header of the
+   * response.
+   */
+  default void rejected(ExecutionInput executionInput, long retryAfterSeconds) {}
+}
@@ -0,0 +1,95 @@
+package graphql.kickstart.spring.subscriptions;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import graphql.kickstart.execution.error.GenericGraphQLError;
+import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage.Type;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission.Decision;
+import java.io.IOException;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Apollo protocol consumer checking every {@code start} message against the limits of the session
+ * before handing it to the protocol consumer. Rejected operations are answered with an {@code
+ * error} message for their id, so clients see them like any other failed operation, except for a
+ * start reusing the id of a running subscription which is dropped. Only the {@code type} and {@code
+ * id} of a message are read here, the payload is left to the protocol consumer.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class AdmissionControlledSubscriptionConsumer implements Consumer<String> {
+
+  private static final String START = Type.GQL_START.getValue();
+
+  private final SubscriptionSession session;
+  private final SessionAdmission admission;
+  private final GraphQLObjectMapper objectMapper;
+  private final Consumer<String> delegate;
+
+  @Override
+  public void accept(String request) {
+    String[] header = readHeader(request);
+    // a start without an id cannot be tracked, it is left to the protocol consumer
+    if (header == null || !START.equals(header[0]) || header[1] == null || admit(header[1])) {
+      delegate.accept(request);
+    }
+  }
+
+  /**
+   * Reads the type and id of a message, stopping as soon as both are known. Returns null for a
+   * message that is not an object, the protocol consumer answers malformed messages.
+   */
+  private String[] readHeader(String request) {
+    String[] header = new String[2];
+    try (JsonParser parser = objectMapper.getJacksonMapper().getFactory().createParser(request)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        boolean text = value.isScalarValue() && value != JsonToken.VALUE_NULL;
+        if ("type".equals(field)) {
+          header[0] = text ? parser.getText() : null;
+        } else if ("id".equals(field)) {
+          header[1] = text ? parser.getText() : null;
+        } else {
+          parser.skipChildren();
+        }
+        if (header[0] != null && header[1] != null) {
+          break;
+        }
+      }
+      return header;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private boolean admit(String id) {
+    Decision decision = admission.tryStart(id);
+    if (decision == Decision.ADMITTED) {
+      return true;
+    }
+    log.debug("Rejected subscription {} on session {}: {}", id, session.getId(), decision);
+    if (admission.isActive(id)) {
+      // only the new start is rejected, a subscription already running with the id keeps running:
+      // an error for the id would end it for the client and free its slot
+      return false;
+    }
+    session.sendMessage(
+        new OperationMessage(
+            Type.GQL_ERROR,
+            id,
+            singletonMap("errors", singletonList(new GenericGraphQLError(decision.getMessage())))));
+    return false;
+  }
+}
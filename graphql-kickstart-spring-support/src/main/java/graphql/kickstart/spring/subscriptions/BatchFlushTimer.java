@@ -0,0 +1,38 @@
+package graphql.kickstart.spring.subscriptions;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flushes the batched writes of websocket sessions once the coalescing window of their first
+ * unflushed message has ended. A single thread serves all the sessions of a server.
+ */
+public class BatchFlushTimer {
+
+  private final FrameCoalescingOptions options;
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "graphql-ws-flush");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public BatchFlushTimer(FrameCoalescingOptions options) {
+    this.options = options;
+  }
+
+  public FrameCoalescingOptions getOptions() {
+    return options;
+  }
+
+  /** Runs the flush once the coalescing window has ended. */
+  public void schedule(Runnable flush) {
+    executor.schedule(flush, options.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
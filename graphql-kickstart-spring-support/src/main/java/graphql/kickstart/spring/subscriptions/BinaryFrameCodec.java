@@ -0,0 +1,81 @@
+package graphql.kickstart.spring.subscriptions;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import lombok.Getter;
+
+/**
+ * Encodes operation messages as binary frames of a Jackson binary data format.
+ *
+ * <p>Outgoing messages are serialized by the JSON mapper of the server into a token buffer that is
+ * written straight to the binary format, so no JSON text is produced on the way. Incoming messages
+ * are few and small, they are converted to the JSON text the protocol consumers expect.
+ */
+public class BinaryFrameCodec {
+
+  @Getter private final String subProtocol;
+  private final ObjectMapper objectMapper;
+  private final JsonFactory binaryFactory;
+
+  public BinaryFrameCodec(
+      String subProtocol, ObjectMapper objectMapper, JsonFactory binaryFactory) {
+    this.subProtocol = subProtocol;
+    this.objectMapper = objectMapper;
+    this.binaryFactory = binaryFactory;
+  }
+
+  /**
+   * @return the message serialized into a binary frame
+   */
+  public byte[] encode(Object message) {
+    try (TokenBuffer buffer = new TokenBuffer(objectMapper, false)) {
+      objectMapper.writeValue(buffer, message);
+      try (JsonParser parser = buffer.asParser(objectMapper)) {
+        return write(parser);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot encode message to " + subProtocol, e);
+    }
+  }
+
+  /**
+   * @return the message given as JSON text converted into a binary frame
+   */
+  public byte[] encode(String json) {
+    try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+      return write(parser);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot encode message to " + subProtocol, e);
+    }
+  }
+
+  /**
+   * @return the message of the binary frame as JSON text
+   */
+  public String decode(InputStream frame) throws IOException {
+    StringWriter json = new StringWriter();
+    try (JsonParser parser = binaryFactory.createParser(frame);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+      parser.nextToken();
+      generator.copyCurrentStructure(parser);
+    }
+    return json.toString();
+  }
+
+  private byte[] write(JsonParser parser) throws IOException {
+    ByteArrayOutputStream frame = new ByteArrayOutputStream();
+    try (JsonGenerator generator = binaryFactory.createGenerator(frame)) {
+      parser.nextToken();
+      generator.copyCurrentStructure(parser);
+    }
+    return frame.toByteArray();
+  }
+}
@@ -0,0 +1,61 @@
+package graphql.kickstart.spring.subscriptions;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Jackson binary data formats operation messages can be framed with. A format is only offered when
+ * its Jackson data format module is on the classpath.
+ */
+public enum BinaryFrameFormat {
+  CBOR("com.fasterxml.jackson.dataformat.cbor.CBORFactory"),
+  SMILE("com.fasterxml.jackson.dataformat.smile.SmileFactory"),
+  MSGPACK("org.msgpack.jackson.dataformat.MessagePackFactory");
+
+  private final String factoryClassName;
+
+  BinaryFrameFormat(String factoryClassName) {
+    this.factoryClassName = factoryClassName;
+  }
+
+  public boolean isAvailable() {
+    return ClassUtils.isPresent(factoryClassName, BinaryFrameFormat.class.getClassLoader());
+  }
+
+  /**
+   * @return the subprotocol negotiating this format, e.g. {@code graphql-ws+cbor}
+   */
+  public String getSubProtocol(String protocol) {
+    return protocol + "+" + name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Creates a codec for the subprotocol that serializes the messages with the configuration of the
+   * given mapper.
+   */
+  public BinaryFrameCodec createCodec(String protocol, ObjectMapper objectMapper) {
+    JsonFactory factory =
+        (JsonFactory)
+            BeanUtils.instantiateClass(
+                ClassUtils.resolveClassName(
+                    factoryClassName, BinaryFrameFormat.class.getClassLoader()));
+    return new BinaryFrameCodec(getSubProtocol(protocol), objectMapper, factory);
+  }
+
+  /**
+   * @return codecs for those of the formats that are available, in the given order
+   */
+  public static List<BinaryFrameCodec> createCodecs(
+      Collection<BinaryFrameFormat> formats, String protocol, ObjectMapper objectMapper) {
+    return formats.stream()
+        .filter(BinaryFrameFormat::isAvailable)
+        .map(format -> format.createCodec(protocol, objectMapper))
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,20 @@
+package graphql.kickstart.spring.subscriptions;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** How the messages bound for a websocket session are coalesced into fewer socket writes. */
+@Value
+@Builder
+public class FrameCoalescingOptions {
+
+  /** How long the first message of a burst waits for the next ones, zero disables coalescing. */
+  @Builder.Default Duration window = Duration.ZERO;
+  /** Number of messages written at once without waiting for the window to end. */
+  @Builder.Default int maxMessages = 16;
+
+  public boolean isEnabled() {
+    return !window.isZero() && !window.isNegative() && maxMessages > 1;
+  }
+}
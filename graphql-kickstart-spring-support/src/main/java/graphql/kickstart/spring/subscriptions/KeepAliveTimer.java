@@ -0,0 +1,169 @@
+package graphql.kickstart.spring.subscriptions;
+
+import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends keep-alive messages to all registered sessions from a single hashed wheel timer.
+ *
+ * <p>The wheel makes exactly one revolution per keep-alive interval, so a session stays in the
+ * bucket it was registered in and is visited once per interval without ever being rescheduled.
+ * Sessions implementing {@link SubscriptionSessionActivity} that sent a message within the last
+ * interval are skipped.
+ */
+@Slf4j
+public class KeepAliveTimer {
+
+  private static final OperationMessage KEEP_ALIVE_MESSAGE =
+      OperationMessage.newKeepAliveMessage();
+
+  private final long intervalNanos;
+  private final long tickNanos;
+  private final List<Set<SubscriptionSession>> wheel;
+  private final Map<SubscriptionSession, Set<SubscriptionSession>> buckets =
+      new ConcurrentHashMap<>();
+  private final LongSupplier ticker;
+  private final long startTime;
+  private final Thread worker;
+
+  private volatile long tick;
+  private volatile long tickLagNanos;
+  private volatile boolean running = true;
+
+  public KeepAliveTimer(Duration keepAliveInterval) {
+    this(keepAliveInterval, Duration.ofSeconds(1));
+  }
+
+  public KeepAliveTimer(Duration keepAliveInterval, Duration tickDuration) {
+    this(keepAliveInterval, tickDuration, System::nanoTime, true);
+  }
+
+  /**
+   * @param ticker the source of {@link System#nanoTime()} values
+   * @param startWorker whether a thread runs the ticks, otherwise {@link #advance()} does
+   */
+  KeepAliveTimer(
+      Duration keepAliveInterval, Duration tickDuration, LongSupplier ticker, boolean startWorker) {
+    if (keepAliveInterval.isNegative() || keepAliveInterval.isZero()) {
+      throw new IllegalArgumentException("Keep alive interval must be positive");
+    }
+    this.intervalNanos = keepAliveInterval.toNanos();
+    this.tickNanos = Math.max(1, Math.min(tickDuration.toNanos(), intervalNanos));
+    int ticksPerWheel = (int) Math.max(1, (intervalNanos + tickNanos - 1) / tickNanos);
+    this.wheel = new ArrayList<>(ticksPerWheel);
+    for (int i = 0; i < ticksPerWheel; i++) {
+      wheel.add(ConcurrentHashMap.newKeySet());
+    }
+    this.ticker = ticker;
+    this.startTime = ticker.getAsLong();
+    if (startWorker) {
+      this.worker = new Thread(this::run, "graphql-keep-alive-timer");
+      this.worker.setDaemon(true);
+      this.worker.start();
+    } else {
+      this.worker = null;
+    }
+  }
+
+  /** Sends a keep-alive right away and then once per interval until the session is removed. */
+  public void register(SubscriptionSession session) {
+    if (!running || buckets.containsKey(session)) {
+      return;
+    }
+    sendKeepAlive(session);
+    // the bucket processed last comes around again in one full revolution
+    Set<SubscriptionSession> bucket = wheel.get((int) ((tick + wheel.size() - 1) % wheel.size()));
+    if (buckets.putIfAbsent(session, bucket) == null) {
+      bucket.add(session);
+    }
+  }
+
+  public void unregister(SubscriptionSession session) {
+    Set<SubscriptionSession> bucket = buckets.remove(session);
+    if (bucket != null) {
+      bucket.remove(session);
+    }
+  }
+
+  public int getSessionCount() {
+    return buckets.size();
+  }
+
+  /** @return how late the most recent tick started compared to its deadline */
+  public Duration getTickLag() {
+    return Duration.ofNanos(tickLagNanos);
+  }
+
+  public void shutdown() {
+    running = false;
+    if (worker != null) {
+      worker.interrupt();
+    }
+    buckets.clear();
+  }
+
+  private void run() {
+    while (running) {
+      long sleepNanos;
+      while (running && (sleepNanos = nextDeadline() - ticker.getAsLong()) > 0) {
+        LockSupport.parkNanos(this, sleepNanos);
+      }
+      advance();
+    }
+  }
+
+  /** Runs the ticks whose deadline passed. */
+  void advance() {
+    long now = ticker.getAsLong();
+    while (running && nextDeadline() <= now) {
+      tickLagNanos = now - nextDeadline();
+      try {
+        expire(wheel.get((int) (tick % wheel.size())), now);
+      } catch (RuntimeException e) {
+        log.error("Error sending keep alive messages", e);
+      }
+      tick++;
+    }
+  }
+
+  private long nextDeadline() {
+    return startTime + (tick + 1) * tickNanos;
+  }
+
+  private void expire(Set<SubscriptionSession> bucket, long now) {
+    for (SubscriptionSession session : bucket) {
+      if (!session.isOpen()) {
+        log.debug("Session {} appears to be closed. Aborting keep alive", session.getId());
+        unregister(session);
+      } else if (!isActive(session, now)) {
+        sendKeepAlive(session);
+      }
+    }
+  }
+
+  private boolean isActive(SubscriptionSession session, long now) {
+    // allow a tick of jitter, the previous keep-alive counts as activity too
+    return session instanceof SubscriptionSessionActivity
+        && now - ((SubscriptionSessionActivity) session).getLastSentNanos()
+            < intervalNanos - tickNanos;
+  }
+
+  private void sendKeepAlive(SubscriptionSession session) {
+    try {
+      session.sendMessage(KEEP_ALIVE_MESSAGE);
+    } catch (Exception e) {
+      log.error(
+          "Cannot send keep alive message to session {}. Aborting keep alive", session.getId(), e);
+      unregister(session);
+    }
+  }
+}
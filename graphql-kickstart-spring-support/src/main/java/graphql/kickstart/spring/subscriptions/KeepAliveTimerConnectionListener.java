@@ -0,0 +1,24 @@
+package graphql.kickstart.spring.subscriptions;
+
+import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionConnectionListener;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** Keeps Apollo connections alive using a {@link KeepAliveTimer} shared by all sessions. */
+@RequiredArgsConstructor
+public class KeepAliveTimerConnectionListener implements ApolloSubscriptionConnectionListener {
+
+  @Getter private final KeepAliveTimer keepAliveTimer;
+
+  @Override
+  public void onConnect(SubscriptionSession session, OperationMessage message) {
+    keepAliveTimer.register(session);
+  }
+
+  @Override
+  public void onTerminate(SubscriptionSession session, OperationMessage message) {
+    keepAliveTimer.unregister(session);
+  }
+}
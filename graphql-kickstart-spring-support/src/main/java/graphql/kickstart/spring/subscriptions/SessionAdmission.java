@@ -0,0 +1,75 @@
+package graphql.kickstart.spring.subscriptions;
+
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission.Decision;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscription limits of a single session. The start rate is a token bucket implemented as a
+ * generic cell rate algorithm, which only needs the theoretical arrival time of the next start.
+ */
+public class SessionAdmission {
+
+  private final SubscriptionAdmission admission;
+  private final Set<String> subscriptionIds = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger subscriptions = new AtomicInteger();
+  private final AtomicLong theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+
+  SessionAdmission(SubscriptionAdmission admission) {
+    this.admission = admission;
+  }
+
+  /** Decides whether the subscription with the given id may be started. */
+  public Decision tryStart(String id) {
+    boolean added = subscriptionIds.add(id);
+    if (added
+        && !SubscriptionAdmission.tryIncrement(
+            subscriptions, admission.getLimits().getMaxSubscriptionsPerSession())) {
+      subscriptionIds.remove(id);
+      return Decision.SUBSCRIPTION_LIMIT;
+    }
+    if (!tryAcquireStart()) {
+      if (added) {
+        release(id);
+      }
+      return Decision.RATE_LIMIT;
+    }
+    return Decision.ADMITTED;
+  }
+
+  /** Frees the slot of a subscription that completed, failed or was stopped. */
+  public void release(String id) {
+    if (id != null && subscriptionIds.remove(id)) {
+      subscriptions.decrementAndGet();
+    }
+  }
+
+  /** @return whether a subscription with the given id holds a slot */
+  public boolean isActive(String id) {
+    return subscriptionIds.contains(id);
+  }
+
+  public int getSubscriptionCount() {
+    return subscriptions.get();
+  }
+
+  private boolean tryAcquireStart() {
+    long interval = admission.emissionIntervalNanos;
+    if (interval == 0) {
+      return true;
+    }
+    long now = System.nanoTime();
+    long current;
+    long next;
+    do {
+      current = theoreticalArrivalNanos.get();
+      next = Math.max(current, now) + interval;
+      if (next - now > admission.burstToleranceNanos + interval) {
+        return false;
+      }
+    } while (!theoreticalArrivalNanos.compareAndSet(current, next));
+    return true;
+  }
+}
@@ -0,0 +1,85 @@
+package graphql.kickstart.spring.subscriptions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Admission control for websocket sessions and the subscriptions started on them. All checks are
+ * compare-and-set operations on atomic counters, so they can run on the I/O threads.
+ */
+public class SubscriptionAdmission {
+
+  @Getter private final SubscriptionLimits limits;
+  private final AtomicInteger sessions = new AtomicInteger();
+  final long emissionIntervalNanos;
+  final long burstToleranceNanos;
+
+  public SubscriptionAdmission(SubscriptionLimits limits) {
+    this.limits = limits;
+    if (limits.getStartsPerSecond() > 0) {
+      this.emissionIntervalNanos =
+          Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limits.getStartsPerSecond()));
+      this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, limits.getStartBurst() - 1);
+    } else {
+      this.emissionIntervalNanos = 0;
+      this.burstToleranceNanos = 0;
+    }
+  }
+
+  /**
+   * @return whether another session would be admitted right now
+   */
+  public boolean hasSessionCapacity() {
+    return limits.getMaxSessions() <= 0 || sessions.get() < limits.getMaxSessions();
+  }
+
+  /** @return whether the subscriptions of the sessions are limited in number or in rate */
+  public boolean isLimitingSubscriptions() {
+    return limits.getMaxSubscriptionsPerSession() > 0 || limits.getStartsPerSecond() > 0;
+  }
+
+  /** Claims a session slot, to be returned through {@link #releaseSession()}. */
+  public boolean tryAcquireSession() {
+    return tryIncrement(sessions, limits.getMaxSessions());
+  }
+
+  public void releaseSession() {
+    sessions.decrementAndGet();
+  }
+
+  public int getSessionCount() {
+    return sessions.get();
+  }
+
+  /** Creates the state tracking the subscriptions started on a single session. */
+  public SessionAdmission newSession() {
+    return new SessionAdmission(this);
+  }
+
+  static boolean tryIncrement(AtomicInteger counter, int max) {
+    if (max <= 0) {
+      counter.incrementAndGet();
+      return true;
+    }
+    int current;
+    do {
+      current = counter.get();
+      if (current >= max) {
+        return false;
+      }
+    } while (!counter.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  public enum Decision {
+    ADMITTED(null),
+    SUBSCRIPTION_LIMIT("Too many active subscriptions on this connection"),
+    RATE_LIMIT("Subscriptions are started too fast on this connection");
+
+    private final String message;
+  }
+}
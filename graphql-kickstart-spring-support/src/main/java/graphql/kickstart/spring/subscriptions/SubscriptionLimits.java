@@ -0,0 +1,23 @@
+package graphql.kickstart.spring.subscriptions;
+
+import lombok.Builder;
+import lombok.Value;
+
+/** Limits enforced by {@link SubscriptionAdmission}. Zero or less disables a limit. */
+@Value
+@Builder
+public class SubscriptionLimits {
+
+  /** Maximum number of concurrent websocket sessions on this node. */
+  int maxSessions;
+  /** Maximum number of active subscriptions on a single session. */
+  int maxSubscriptionsPerSession;
+  /** Rate at which a single session may start subscriptions, per second. */
+  double startsPerSecond;
+  /** Number of subscriptions a session may start at once before the rate applies. */
+  @Builder.Default int startBurst = 1;
+
+  public static SubscriptionLimits unlimited() {
+    return SubscriptionLimits.builder().build();
+  }
+}
@@ -0,0 +1,8 @@
+package graphql.kickstart.spring.subscriptions;
+
+/** Implemented by subscription sessions that record when they last sent a message. */
+public interface SubscriptionSessionActivity {
+
+  /** @return the {@link System#nanoTime()} at which the last message was sent */
+  long getLastSentNanos();
+}
@@ -0,0 +1,97 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps track of the local listeners per topic, so that implementations only have to consume a
+ * topic between its first listener being added and its last one being removed.
+ */
+@Slf4j
+public abstract class AbstractSubscriptionEventBus implements SubscriptionEventBus {
+
+  private final Map<String, Set<Consumer<Object>>> listeners = new ConcurrentHashMap<>();
+
+  @Override
+  public TopicSubscription subscribe(String topic, Consumer<Object> listener) {
+    listeners.compute(
+        topic,
+        (key, current) -> {
+          Set<Consumer<Object>> updated = current;
+          if (updated == null) {
+            updated = new CopyOnWriteArraySet<>();
+            topicAdded(topic);
+          }
+          updated.add(listener);
+          return updated;
+        });
+    return new ListenerSubscription(topic, listener);
+  }
+
+  /**
+   * @return the topics with at least one local listener
+   */
+  public Set<String> getTopics() {
+    return Collections.unmodifiableSet(listeners.keySet());
+  }
+
+  /** Hands an event to the local listeners of its topic. */
+  protected void dispatch(String topic, Object event) {
+    Set<Consumer<Object>> topicListeners = listeners.get(topic);
+    if (topicListeners == null) {
+      return;
+    }
+    for (Consumer<Object> listener : topicListeners) {
+      try {
+        listener.accept(event);
+      } catch (RuntimeException e) {
+        log.error("Error delivering event of topic {}", topic, e);
+      }
+    }
+  }
+
+  /**
+   * Called when the first local listener of a topic is added. Calls for the same topic never
+   * overlap, as the topic is locked meanwhile, so implementations must not block.
+   */
+  protected void topicAdded(String topic) {}
+
+  /** Called when the last local listener of a topic is removed, see {@link #topicAdded}. */
+  protected void topicRemoved(String topic) {}
+
+  private void unsubscribe(String topic, Consumer<Object> listener) {
+    listeners.computeIfPresent(
+        topic,
+        (key, current) -> {
+          current.remove(listener);
+          if (!current.isEmpty()) {
+            return current;
+          }
+          topicRemoved(topic);
+          return null;
+        });
+  }
+
+  @RequiredArgsConstructor
+  private class ListenerSubscription implements TopicSubscription {
+
+    private final String topic;
+    private final Consumer<Object> listener;
+
+    @Override
+    public String getTopic() {
+      return topic;
+    }
+
+    @Override
+    public void cancel() {
+      unsubscribe(topic, listener);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Encodes events as JSON. Events published on another node arrive in their JSON form, as maps,
+ * lists and scalars, which the GraphQL data fetchers resolve just like the original objects.
+ */
+@RequiredArgsConstructor
+public class JacksonSubscriptionEventCodec implements SubscriptionEventCodec {
+
+  private final ObjectMapper objectMapper;
+
+  public JacksonSubscriptionEventCodec() {
+    this(new ObjectMapper());
+  }
+
+  @Override
+  public byte[] encode(Object event) throws IOException {
+    return objectMapper.writeValueAsBytes(event);
+  }
+
+  @Override
+  public Object decode(byte[] bytes) throws IOException {
+    return objectMapper.readValue(bytes, Object.class);
+  }
+}
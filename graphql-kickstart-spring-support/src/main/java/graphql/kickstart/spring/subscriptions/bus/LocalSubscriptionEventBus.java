@@ -0,0 +1,10 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+/** Event bus for a single node, events are handed to the listeners on the publishing thread. */
+public class LocalSubscriptionEventBus extends AbstractSubscriptionEventBus {
+
+  @Override
+  public void publish(String topic, Object event) {
+    dispatch(topic, event);
+  }
+}
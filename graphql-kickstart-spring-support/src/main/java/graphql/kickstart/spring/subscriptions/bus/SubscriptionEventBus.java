@@ -0,0 +1,34 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+import java.util.function.Consumer;
+import org.reactivestreams.Publisher;
+
+/**
+ * Topic based publish/subscribe between the nodes serving subscriptions. Implementations consume a
+ * topic at most once per node, no matter how many local listeners it has, and fan the events out to
+ * those listeners locally.
+ */
+public interface SubscriptionEventBus {
+
+  /** Delivers the event to the listeners of the topic on every node, including this one. */
+  void publish(String topic, Object event);
+
+  /** Registers a listener for the events of the topic until the subscription is cancelled. */
+  TopicSubscription subscribe(String topic, Consumer<Object> listener);
+
+  /**
+   * @return a publisher emitting the events of the topic to each of its subscribers, meant to be
+   *     returned from subscription resolvers
+   */
+  default Publisher<Object> publisher(String topic) {
+    return new TopicPublisher(this, topic);
+  }
+
+  /**
+   * @return a publisher like {@link #publisher(String)}, failing subscribers that fall more than
+   *     the given number of events behind
+   */
+  default Publisher<Object> publisher(String topic, int maxBufferedEvents) {
+    return new TopicPublisher(this, topic, maxBufferedEvents);
+  }
+}
@@ -0,0 +1,11 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+import java.io.IOException;
+
+/** Turns events into bytes and back for event buses crossing process boundaries. */
+public interface SubscriptionEventCodec {
+
+  byte[] encode(Object event) throws IOException;
+
+  Object decode(byte[] bytes) throws IOException;
+}
@@ -0,0 +1,36 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+/** Settings of a {@link TcpSubscriptionEventBus}. */
+@Value
+@Builder
+public class TcpEventBusOptions {
+
+  /**
+   * Address to accept peer connections on, all interfaces when null. The bus neither authenticates
+   * nor encrypts its connections, so it must only be reachable by the peers.
+   */
+  @Builder.Default String host = "127.0.0.1";
+  /** Port to accept peer connections on, 0 for an ephemeral port. */
+  int port;
+  /** Nodes to receive events from. */
+  @Builder.Default List<InetSocketAddress> peers = Collections.emptyList();
+  /** Maximum number of events written to a peer in one frame. */
+  @Builder.Default int maxBatchSize = 256;
+  /** How long to wait for more events before writing a frame that is not full. */
+  @Builder.Default Duration maxBatchDelay = Duration.ofMillis(5);
+  /** Events queued per peer before further events for that peer are dropped. */
+  @Builder.Default int maxQueuedEvents = 10_000;
+  /** Maximum number of payload bytes accepted in one frame from a peer. */
+  @Builder.Default int maxFrameBytes = 16 * 1024 * 1024;
+  /** Maximum number of topics a peer may announce, its connection is closed beyond. */
+  @Builder.Default int maxTopics = 10_000;
+  /** Pause between attempts to connect to a peer. */
+  @Builder.Default Duration reconnectDelay = Duration.ofSeconds(1);
+}
@@ -0,0 +1,403 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reference event bus connecting the nodes with plain TCP sockets.
+ *
+ * <p>Every node accepts connections from its peers and connects to the peers it is configured with.
+ * Over its own connections a node announces the topics it has local listeners for, and the peer
+ * only writes the events of those topics back, batched into frames. A topic is therefore consumed
+ * once per node however many subscriptions share it.
+ *
+ * <p>The nodes do not relay events, every node publishing events must be a peer of every node
+ * consuming them.
+ *
+ * <p>Connections are neither authenticated nor encrypted: anyone able to connect can subscribe to
+ * and receive every topic. The bus binds to the loopback interface unless told otherwise, and must
+ * otherwise be bound to a private network only reachable by the peers, or be tunnelled through TLS.
+ */
+@Slf4j
+public class TcpSubscriptionEventBus extends AbstractSubscriptionEventBus implements Closeable {
+
+  static final byte SUBSCRIBE = 1;
+  static final byte UNSUBSCRIBE = 2;
+  static final byte EVENTS = 3;
+
+  private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+  private final TcpEventBusOptions options;
+  private final SubscriptionEventCodec codec;
+  private final Set<Downstream> downstreams = ConcurrentHashMap.newKeySet();
+  private final List<Upstream> upstreams = new CopyOnWriteArrayList<>();
+  private final ExecutorService executor;
+  private volatile ServerSocket serverSocket;
+  private volatile boolean running;
+
+  public TcpSubscriptionEventBus(TcpEventBusOptions options, SubscriptionEventCodec codec) {
+    this.options = options;
+    this.codec = codec;
+    AtomicInteger threads = new AtomicInteger();
+    this.executor =
+        Executors.newCachedThreadPool(
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "graphql-event-bus-" + threads.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Starts accepting peer connections and connects to the configured peers. */
+  public void start() throws IOException {
+    ServerSocket socket = new ServerSocket();
+    // a restarted node binds its port again while connections of the previous one linger
+    socket.setReuseAddress(true);
+    socket.bind(
+        options.getHost() == null
+            ? new InetSocketAddress(options.getPort())
+            : new InetSocketAddress(options.getHost(), options.getPort()));
+    serverSocket = socket;
+    running = true;
+    executor.execute(this::accept);
+    for (InetSocketAddress peer : options.getPeers()) {
+      Upstream upstream = new Upstream(peer);
+      upstreams.add(upstream);
+      executor.execute(upstream::run);
+    }
+    log.info("Subscription event bus listening on {}", socket.getLocalSocketAddress());
+  }
+
+  public int getLocalPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * @return whether a peer has announced the topic
+   */
+  public boolean hasRemoteListeners(String topic) {
+    return downstreams.stream().anyMatch(downstream -> downstream.topics.contains(topic));
+  }
+
+  @Override
+  public void publish(String topic, Object event) {
+    dispatch(topic, event);
+    EncodedEvent encoded = null;
+    for (Downstream downstream : downstreams) {
+      if (downstream.topics.contains(topic)) {
+        if (encoded == null) {
+          try {
+            encoded = new EncodedEvent(topic, codec.encode(event));
+          } catch (IOException e) {
+            log.error("Cannot encode event of topic {}", topic, e);
+            return;
+          }
+          if (encoded.payload.length > options.getMaxFrameBytes()) {
+            log.error(
+                "Event of topic {} exceeds the frame size of {} bytes, not sent to the peers",
+                topic,
+                options.getMaxFrameBytes());
+            return;
+          }
+        }
+        downstream.enqueue(encoded);
+      }
+    }
+  }
+
+  @Override
+  protected void topicAdded(String topic) {
+    upstreams.forEach(upstream -> upstream.controls.offer(new Control(SUBSCRIBE, topic)));
+  }
+
+  @Override
+  protected void topicRemoved(String topic) {
+    upstreams.forEach(upstream -> upstream.controls.offer(new Control(UNSUBSCRIBE, topic)));
+  }
+
+  /** Drops the connections of the peers, which connect again and announce their topics. */
+  void disconnectPeers() {
+    downstreams.forEach(Downstream::close);
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    closeQuietly(serverSocket);
+    downstreams.forEach(Downstream::close);
+    upstreams.forEach(upstream -> closeQuietly(upstream.socket));
+    executor.shutdownNow();
+  }
+
+  private void accept() {
+    while (running) {
+      try {
+        Socket socket = serverSocket.accept();
+        socket.setTcpNoDelay(true);
+        Downstream downstream = new Downstream(socket);
+        downstreams.add(downstream);
+        executor.execute(downstream::read);
+        executor.execute(downstream::write);
+      } catch (IOException e) {
+        if (running) {
+          log.error("Error accepting event bus connection", e);
+        }
+      }
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    if (closeable == null) {
+      return;
+    }
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      log.debug("Error closing event bus socket", e);
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class EncodedEvent {
+    private final String topic;
+    private final byte[] payload;
+  }
+
+  @RequiredArgsConstructor
+  private static class Control {
+    private final byte type;
+    private final String topic;
+  }
+
+  /** Connection accepted from a peer, which announces its topics and receives their events. */
+  private class Downstream {
+
+    private final Socket socket;
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<EncodedEvent> queue;
+
+    Downstream(Socket socket) {
+      this.socket = socket;
+      this.queue = new ArrayBlockingQueue<>(options.getMaxQueuedEvents());
+    }
+
+    void enqueue(EncodedEvent event) {
+      if (!queue.offer(event)) {
+        log.warn("Event queue of {} is full, dropping event", socket.getRemoteSocketAddress());
+      }
+    }
+
+    void read() {
+      try (DataInputStream in =
+          new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+        while (running) {
+          byte type = in.readByte();
+          String topic = in.readUTF();
+          if (type == SUBSCRIBE) {
+            if (topics.size() >= options.getMaxTopics() && !topics.contains(topic)) {
+              throw new IOException(
+                  "Peer announced more than the maximum of " + options.getMaxTopics() + " topics");
+            }
+            topics.add(topic);
+          } else if (type == UNSUBSCRIBE) {
+            topics.remove(topic);
+          } else {
+            throw new IOException("Unexpected frame type " + type);
+          }
+        }
+      } catch (IOException e) {
+        log.debug("Event bus peer {} disconnected", socket.getRemoteSocketAddress(), e);
+      } finally {
+        close();
+      }
+    }
+
+    void write() {
+      long maxDelayNanos = options.getMaxBatchDelay().toNanos();
+      int maxBatchSize = Math.max(1, options.getMaxBatchSize());
+      List<EncodedEvent> batch = new ArrayList<>(maxBatchSize);
+      EncodedEvent carried = null;
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+        while (running && !socket.isClosed()) {
+          EncodedEvent first = carried != null ? carried : queue.poll(1, TimeUnit.SECONDS);
+          carried = null;
+          if (first == null) {
+            continue;
+          }
+          batch.add(first);
+          long frameBytes = first.payload.length;
+          long deadline = System.nanoTime() + maxDelayNanos;
+          while (batch.size() < maxBatchSize) {
+            EncodedEvent next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+              break;
+            }
+            if (frameBytes + next.payload.length > options.getMaxFrameBytes()) {
+              // starts the next frame, peers reject frames above their limit
+              carried = next;
+              break;
+            }
+            batch.add(next);
+            frameBytes += next.payload.length;
+          }
+          out.writeByte(EVENTS);
+          out.writeInt(batch.size());
+          for (EncodedEvent event : batch) {
+            out.writeUTF(event.topic);
+            out.writeInt(event.payload.length);
+            out.write(event.payload);
+          }
+          out.flush();
+          batch.clear();
+        }
+      } catch (IOException e) {
+        log.debug("Cannot write to event bus peer {}", socket.getRemoteSocketAddress(), e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        close();
+      }
+    }
+
+    void close() {
+      downstreams.remove(this);
+      closeQuietly(socket);
+    }
+  }
+
+  /** Connection to a peer, announcing the local topics and receiving their events. */
+  @RequiredArgsConstructor
+  private class Upstream {
+
+    private final InetSocketAddress address;
+    private final BlockingQueue<Control> controls = new LinkedBlockingQueue<>();
+    private volatile Socket socket;
+
+    void run() {
+      while (running) {
+        try (Socket connection = new Socket()) {
+          socket = connection;
+          // peers given by name are looked up again on every attempt
+          connection.connect(
+              address.isUnresolved()
+                  ? new InetSocketAddress(address.getHostString(), address.getPort())
+                  : address,
+              CONNECT_TIMEOUT_MILLIS);
+          if (connection.getLocalSocketAddress().equals(connection.getRemoteSocketAddress())) {
+            // a port in the ephemeral range of a peer that is down can be connected to itself,
+            // which would hold the port and keep the peer from binding it when it comes back
+            throw new IOException("Connected to itself, peer " + address + " is down");
+          }
+          connection.setTcpNoDelay(true);
+          log.info("Connected to event bus peer {}", address);
+          DataOutputStream out =
+              new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+          // changes queued from here on are written after the current topics
+          controls.clear();
+          for (String topic : getTopics()) {
+            writeControl(out, new Control(SUBSCRIBE, topic));
+          }
+          out.flush();
+          executor.execute(() -> read(connection));
+          while (running && !connection.isClosed()) {
+            Control control = controls.poll(1, TimeUnit.SECONDS);
+            if (control != null) {
+              writeControl(out, control);
+              out.flush();
+            }
+          }
+        } catch (IOException e) {
+          log.debug("Cannot connect to event bus peer {}", address, e);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        if (!pause()) {
+          return;
+        }
+      }
+    }
+
+    private void dispatch(String topic, byte[] payload) {
+      Object event;
+      try {
+        event = codec.decode(payload);
+      } catch (IOException e) {
+        log.error("Cannot decode event of topic {} from {}", topic, address, e);
+        return;
+      }
+      TcpSubscriptionEventBus.this.dispatch(topic, event);
+    }
+
+    private void writeControl(DataOutputStream out, Control control) throws IOException {
+      out.writeByte(control.type);
+      out.writeUTF(control.topic);
+    }
+
+    private void read(Socket connection) {
+      try (DataInputStream in =
+          new DataInputStream(new BufferedInputStream(connection.getInputStream()))) {
+        while (running) {
+          byte type = in.readByte();
+          if (type != EVENTS) {
+            throw new IOException("Unexpected frame type " + type);
+          }
+          int count = in.readInt();
+          long remaining = options.getMaxFrameBytes();
+          if (count < 0) {
+            throw new IOException("Invalid event count " + count);
+          }
+          for (int i = 0; i < count; i++) {
+            String topic = in.readUTF();
+            int length = in.readInt();
+            if (length < 0 || length > remaining) {
+              throw new IOException(
+                  "Frame exceeds the maximum of " + options.getMaxFrameBytes() + " bytes");
+            }
+            remaining -= length;
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            dispatch(topic, payload);
+          }
+        }
+      } catch (IOException e) {
+        log.debug("Lost connection to event bus peer {}", address, e);
+      } finally {
+        closeQuietly(connection);
+      }
+    }
+
+    private boolean pause() {
+      try {
+        Thread.sleep(options.getReconnectDelay().toMillis());
+        return running;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+import graphql.execution.reactive.SingleSubscriberPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Publisher registering a bus listener per subscriber. Demand is handled by graphql-java's {@link
+ * SingleSubscriberPublisher}, events are buffered until requested. A subscriber falling further
+ * behind than the buffer allows is failed with a {@link BufferOverflowException}, ahead of the
+ * events it has buffered, rather than buffering without bound or silently losing events.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class TopicPublisher implements Publisher<Object> {
+
+  static final int DEFAULT_MAX_BUFFERED_EVENTS = 1024;
+
+  private final SubscriptionEventBus eventBus;
+  private final String topic;
+  private final int maxBufferedEvents;
+
+  TopicPublisher(SubscriptionEventBus eventBus, String topic) {
+    this(eventBus, topic, DEFAULT_MAX_BUFFERED_EVENTS);
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super Object> subscriber) {
+    SingleSubscriberPublisher<Object> publisher = new SingleSubscriberPublisher<>();
+    AtomicInteger buffered = new AtomicInteger();
+    AtomicBoolean overflowed = new AtomicBoolean();
+    TopicSubscription subscription =
+        eventBus.subscribe(
+            topic,
+            event -> {
+              if (overflowed.get()) {
+                return;
+              }
+              if (buffered.incrementAndGet() <= maxBufferedEvents) {
+                publisher.offer(event);
+              } else if (overflowed.compareAndSet(false, true)) {
+                log.warn(
+                    "Subscriber of topic {} is more than {} events behind, failing it",
+                    topic,
+                    maxBufferedEvents);
+                publisher.offerError(new BufferOverflowException(topic, maxBufferedEvents));
+              }
+            });
+    publisher.subscribe(new CancellingSubscriber(subscriber, subscription, buffered));
+  }
+
+  /** Signalled to a subscriber that did not keep up with the events of its topic. */
+  static class BufferOverflowException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    BufferOverflowException(String topic, int maxBufferedEvents) {
+      super(
+          "Subscriber of topic "
+              + topic
+              + " fell more than "
+              + maxBufferedEvents
+              + " events behind");
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class CancellingSubscriber implements Subscriber<Object> {
+
+    private final Subscriber<? super Object> delegate;
+    private final TopicSubscription topicSubscription;
+    private final AtomicInteger buffered;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      delegate.onSubscribe(
+          new Subscription() {
+            @Override
+            public void request(long n) {
+              subscription.request(n);
+            }
+
+            @Override
+            public void cancel() {
+              topicSubscription.cancel();
+              subscription.cancel();
+            }
+          });
+    }
+
+    @Override
+    public void onNext(Object event) {
+      buffered.decrementAndGet();
+      delegate.onNext(event);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      topicSubscription.cancel();
+      delegate.onError(t);
+    }
+
+    @Override
+    public void onComplete() {
+      topicSubscription.cancel();
+      delegate.onComplete();
+    }
+  }
+}
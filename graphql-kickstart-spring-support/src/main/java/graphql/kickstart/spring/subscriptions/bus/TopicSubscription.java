@@ -0,0 +1,10 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+/** Registration of a listener with a {@link SubscriptionEventBus}. */
+public interface TopicSubscription {
+
+  String getTopic();
+
+  /** Removes the listener. The node stops consuming the topic once its last listener is gone. */
+  void cancel();
+}
@@ -0,0 +1,33 @@
+package graphql.kickstart.spring.subscriptions.delta;
+
+import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionConnectionListener;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage;
+import java.util.Map;
+
+/**
+ * Enables JSON Patch deltas for the sessions of clients sending {@code "delta": "json-patch"} in
+ * their {@code connection_init} payload.
+ */
+public class DeltaConnectionListener implements ApolloSubscriptionConnectionListener {
+
+  public static final String DELTA = "delta";
+  public static final String JSON_PATCH = "json-patch";
+
+  private final int snapshotInterval;
+
+  /**
+   * @param snapshotInterval number of data messages of a subscription between full payloads
+   */
+  public DeltaConnectionListener(int snapshotInterval) {
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  @Override
+  public void onConnect(SubscriptionSession session, OperationMessage message) {
+    if (message.getPayload() instanceof Map
+        && JSON_PATCH.equals(((Map<?, ?>) message.getPayload()).get(DELTA))) {
+      session.getUserProperties().put(JsonPatchDeltaEncoder.SNAPSHOT_INTERVAL, snapshotInterval);
+    }
+  }
+}
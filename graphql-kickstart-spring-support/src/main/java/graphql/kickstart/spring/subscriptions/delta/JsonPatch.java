@@ -0,0 +1,76 @@
+package graphql.kickstart.spring.subscriptions.delta;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Computes RFC 6902 JSON Patch documents between two JSON values.
+ *
+ * <p>Objects are compared member by member and arrays index by index, elements are appended or
+ * removed at the end. Moves are never detected, a reordered array is patched element by element.
+ */
+public final class JsonPatch {
+
+  private JsonPatch() {}
+
+  /**
+   * @return the operations turning the source into the target, empty if they are equal
+   */
+  public static ArrayNode diff(JsonNode source, JsonNode target) {
+    ArrayNode operations = JsonNodeFactory.instance.arrayNode();
+    diff("", source, target, operations);
+    return operations;
+  }
+
+  private static void diff(String path, JsonNode source, JsonNode target, ArrayNode operations) {
+    if (source.equals(target)) {
+      return;
+    }
+    if (source.isObject() && target.isObject()) {
+      Iterator<String> names = source.fieldNames();
+      while (names.hasNext()) {
+        String name = names.next();
+        if (!target.has(name)) {
+          operation(operations, "remove", path + "/" + escape(name));
+        }
+      }
+      Iterator<Map.Entry<String, JsonNode>> fields = target.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        String fieldPath = path + "/" + escape(field.getKey());
+        JsonNode previous = source.get(field.getKey());
+        if (previous == null) {
+          operation(operations, "add", fieldPath).set("value", field.getValue());
+        } else {
+          diff(fieldPath, previous, field.getValue(), operations);
+        }
+      }
+    } else if (source.isArray() && target.isArray()) {
+      int common = Math.min(source.size(), target.size());
+      for (int i = 0; i < common; i++) {
+        diff(path + "/" + i, source.get(i), target.get(i), operations);
+      }
+      // from the end, so that the indexes of the remaining elements stay the same
+      for (int i = source.size() - 1; i >= common; i--) {
+        operation(operations, "remove", path + "/" + i);
+      }
+      for (int i = common; i < target.size(); i++) {
+        operation(operations, "add", path + "/" + i).set("value", target.get(i));
+      }
+    } else {
+      operation(operations, "replace", path).set("value", target);
+    }
+  }
+
+  private static ObjectNode operation(ArrayNode operations, String op, String path) {
+    return operations.addObject().put("op", op).put("path", path);
+  }
+
+  private static String escape(String name) {
+    return name.replace("~", "~0").replace("/", "~1");
+  }
+}
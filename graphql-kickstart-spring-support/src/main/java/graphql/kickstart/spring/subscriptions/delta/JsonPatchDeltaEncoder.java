@@ -0,0 +1,70 @@
+package graphql.kickstart.spring.subscriptions.delta;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Turns the data message payloads of a single subscription into JSON Patch deltas.
+ *
+ * <p>The first payload, and every payload once the snapshot interval has passed, is sent in full.
+ * The others are sent as {@code {"patch": [...]}}, the RFC 6902 operations turning the previous
+ * payload into the current one, unless the patch is larger than the payload itself. Clients tell
+ * the two apart by the {@code patch} member, which full payloads never have.
+ */
+public class JsonPatchDeltaEncoder {
+
+  /** Session property holding the snapshot interval of a session that negotiated deltas. */
+  public static final String SNAPSHOT_INTERVAL = JsonPatchDeltaEncoder.class.getName();
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final int snapshotInterval;
+  private JsonNode last;
+  private int sinceSnapshot;
+
+  public JsonPatchDeltaEncoder(int snapshotInterval) {
+    this.snapshotInterval = Math.max(1, snapshotInterval);
+  }
+
+  /**
+   * @return an encoder for a new subscription of the session, null if the session did not negotiate
+   *     deltas
+   */
+  public static JsonPatchDeltaEncoder forSession(Map<String, Object> userProperties) {
+    Object snapshotInterval = userProperties.get(SNAPSHOT_INTERVAL);
+    return snapshotInterval instanceof Integer
+        ? new JsonPatchDeltaEncoder((Integer) snapshotInterval)
+        : null;
+  }
+
+  /**
+   * @param json the serialized payload
+   * @return the payload to send in its place
+   */
+  public synchronized JsonNode encode(String json) {
+    JsonNode payload;
+    try {
+      payload = MAPPER.readTree(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    JsonNode previous = last;
+    last = payload;
+    if (previous == null || ++sinceSnapshot >= snapshotInterval) {
+      sinceSnapshot = 0;
+      return payload;
+    }
+    ObjectNode delta = MAPPER.createObjectNode();
+    delta.set("patch", JsonPatch.diff(previous, payload));
+    if (delta.toString().length() >= json.length()) {
+      // most of the payload changed, the payload is sent as the next snapshot instead
+      sinceSnapshot = 0;
+      return payload;
+    }
+    return delta;
+  }
+}
@@ -0,0 +1,31 @@
+package graphql.kickstart.spring.subscriptions.throttle;
+
+import java.time.Duration;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Conflates the events of a subscription publisher to at most one per interval, for feeds that
+ * publish faster than clients can render. Each subscription is throttled on its own.
+ */
+public final class SubscriptionThrottle {
+
+  private SubscriptionThrottle() {}
+
+  public static <T> Publisher<T> throttle(
+      Publisher<T> publisher, Duration interval, ThrottleMode mode) {
+    if (interval.isZero() || interval.isNegative()) {
+      return publisher;
+    }
+    if (mode == ThrottleMode.FIRST) {
+      return Flux.from(publisher).sampleFirst(interval);
+    }
+    // the next event is requested once the interval of the previous one is over, in the meantime
+    // only the latest event is kept
+    return Flux.from(publisher)
+        .onBackpressureLatest()
+        .flatMap(
+            event -> Mono.just(event).concatWith(Mono.delay(interval).then(Mono.empty())), 1, 1);
+  }
+}
@@ -0,0 +1,60 @@
+package graphql.kickstart.spring.subscriptions.throttle;
+
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetcherFactories;
+import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLAppliedDirectiveArgument;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.idl.SchemaDirectiveWiring;
+import graphql.schema.idl.SchemaDirectiveWiringEnvironment;
+import java.time.Duration;
+import org.reactivestreams.Publisher;
+
+/**
+ * Throttles the publishers returned by the subscription fields it is applied to, with the schema
+ * declaring:
+ *
+ * <pre>
+ * directive &#64;throttle(ms: Int!, mode: String = "LATEST") on FIELD_DEFINITION
+ * </pre>
+ *
+ * <p>The mode names a {@link ThrottleMode}, as a string since the schema parser does not take enum
+ * values as directive arguments.
+ *
+ * <p>A throttled subscription conflates events, it can no longer be resumed by event id.
+ */
+public class ThrottleDirective implements SchemaDirectiveWiring {
+
+  public static final String NAME = "throttle";
+
+  @Override
+  public GraphQLFieldDefinition onField(
+      SchemaDirectiveWiringEnvironment<GraphQLFieldDefinition> environment) {
+    Duration interval = Duration.ofMillis(((Number) argument(environment, "ms")).longValue());
+    Object mode = argument(environment, "mode");
+    ThrottleMode throttleMode =
+        mode == null ? ThrottleMode.LATEST : ThrottleMode.valueOf(mode.toString());
+    FieldCoordinates coordinates =
+        FieldCoordinates.coordinates(environment.getFieldsContainer(), environment.getElement());
+    DataFetcher<?> dataFetcher =
+        environment.getCodeRegistry().getDataFetcher(coordinates, environment.getElement());
+    environment
+        .getCodeRegistry()
+        .dataFetcher(
+            coordinates,
+            DataFetcherFactories.wrapDataFetcher(
+                dataFetcher,
+                (fetchingEnvironment, value) ->
+                    value instanceof Publisher
+                        ? SubscriptionThrottle.throttle(
+                            (Publisher<?>) value, interval, throttleMode)
+                        : value));
+    return environment.getElement();
+  }
+
+  private static Object argument(
+      SchemaDirectiveWiringEnvironment<GraphQLFieldDefinition> environment, String name) {
+    GraphQLAppliedDirectiveArgument argument = environment.getAppliedDirective().getArgument(name);
+    return argument == null ? null : argument.getValue();
+  }
+}
@@ -0,0 +1,12 @@
+package graphql.kickstart.spring.subscriptions.throttle;
+
+/** How the events of a throttled subscription are conflated. */
+public enum ThrottleMode {
+  /**
+   * Emits the first event of a burst right away and then at most the latest event of every
+   * interval, so the last state is never lost.
+   */
+  LATEST,
+  /** Emits the first event of every interval and drops the others. */
+  FIRST
+}
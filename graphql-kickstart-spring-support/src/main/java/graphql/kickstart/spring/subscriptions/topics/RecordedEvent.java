@@ -0,0 +1,12 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import lombok.Value;
+
+/** Event kept by a resumable topic, with the id it was published under. */
+@Value
+class RecordedEvent {
+
+  long id;
+  long nanos;
+  Object payload;
+}
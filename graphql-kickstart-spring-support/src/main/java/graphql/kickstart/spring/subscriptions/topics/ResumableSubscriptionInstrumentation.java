@@ -0,0 +1,102 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldCompleteParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.OperationDefinition.Operation;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.reactivestreams.Publisher;
+
+/**
+ * Adds the id of the event each result of a resumable subscription was computed from to that
+ * result, as {@code extensions.eventId}. The id is taken from the event the subscription field is
+ * completed with, so it stays with its result however the transports conflate or drop results.
+ */
+public class ResumableSubscriptionInstrumentation extends SimpleInstrumentation {
+
+  @Override
+  public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+    return new EventIds();
+  }
+
+  @Override
+  public InstrumentationContext<Object> beginFieldFetch(
+      InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+    if (!(state instanceof EventIds)
+        || parameters.getExecutionContext().getOperationDefinition().getOperation()
+            != Operation.SUBSCRIPTION
+        || parameters.getExecutionStepInfo().getPath().getLevel() != 1) {
+      return SimpleInstrumentationContext.noOp();
+    }
+    return SimpleInstrumentationContext.whenCompleted(
+        (value, error) -> {
+          Object publisher =
+              value instanceof DataFetcherResult ? ((DataFetcherResult<?>) value).getData() : value;
+          if (publisher instanceof Publisher) {
+            ((EventIds) state).publisher = ResumableSubscriptions.find((Publisher<?>) publisher);
+          }
+        });
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginFieldComplete(
+      InstrumentationFieldCompleteParameters parameters, InstrumentationState state) {
+    if (!(state instanceof EventIds)
+        || ((EventIds) state).publisher == null
+        || parameters.getExecutionStepInfo().getPath().getLevel() != 1) {
+      return SimpleInstrumentationContext.noOp();
+    }
+    EventIds eventIds = (EventIds) state;
+    // the subscription field of an event is completed with the event as root
+    Long eventId = eventIds.publisher.eventId(parameters.getExecutionContext().getRoot());
+    if (eventId == null) {
+      return SimpleInstrumentationContext.noOp();
+    }
+    return SimpleInstrumentationContext.whenCompleted(
+        (result, error) -> {
+          if (result != null && result.getData() != null) {
+            eventIds.byData.put(result.getData(), eventId);
+          }
+        });
+  }
+
+  @Override
+  public CompletableFuture<ExecutionResult> instrumentExecutionResult(
+      ExecutionResult executionResult,
+      InstrumentationExecutionParameters parameters,
+      InstrumentationState state) {
+    if (!(state instanceof EventIds) || !(executionResult.getData() instanceof Map)) {
+      return CompletableFuture.completedFuture(executionResult);
+    }
+    Map<?, ?> data = executionResult.getData();
+    // the result of an event holds the result of the subscription field under its name
+    Long eventId =
+        data.size() == 1 ? ((EventIds) state).byData.remove(data.values().iterator().next()) : null;
+    if (eventId == null) {
+      return CompletableFuture.completedFuture(executionResult);
+    }
+    return CompletableFuture.completedFuture(
+        ExecutionResultImpl.newExecutionResult()
+            .from(executionResult)
+            // a string, the ids exceed what JSON numbers hold exactly in every client
+            .addExtension(ResumableSubscriptions.EVENT_ID, String.valueOf(eventId))
+            .build());
+  }
+
+  private static class EventIds implements InstrumentationState {
+
+    private final Map<Object, Long> byData = Collections.synchronizedMap(new IdentityHashMap<>());
+    private volatile ResumableTopicPublisher publisher;
+  }
+}
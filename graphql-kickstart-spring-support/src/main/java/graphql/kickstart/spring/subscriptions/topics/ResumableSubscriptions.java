@@ -0,0 +1,106 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import graphql.ExecutionResult;
+import graphql.execution.reactive.CompletionStageMappingPublisher;
+import graphql.execution.reactive.SubscriptionPublisher;
+import java.util.HashMap;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+
+/**
+ * Resumes the subscriptions of reconnecting clients on the transports.
+ *
+ * <p>The data messages of a resumable subscription carry the id of their event as {@code
+ * extensions.eventId}, added to the results by the {@link ResumableSubscriptionInstrumentation}. A
+ * client resumes with the last id it has seen, as {@code lastEventId} in the payload of its
+ * websocket {@code connection_init} message, either a single id or an object of ids by operation
+ * id, or as the {@code Last-Event-ID} header of a server-sent events request.
+ *
+ * <p>Only subscription fields returning the publisher of a resumable topic as is can be resumed.
+ */
+public final class ResumableSubscriptions {
+
+  public static final String LAST_EVENT_ID = "lastEventId";
+  public static final String EVENT_ID = "eventId";
+
+  private ResumableSubscriptions() {}
+
+  /**
+   * @return the resumable topic publisher behind the results of a subscription, null if there is
+   *     none
+   */
+  public static ResumableTopicPublisher find(Publisher<?> results) {
+    Publisher<?> publisher = results;
+    while (true) {
+      if (publisher instanceof ResumableTopicPublisher) {
+        return (ResumableTopicPublisher) publisher;
+      } else if (publisher instanceof SubscriptionPublisher) {
+        publisher = ((SubscriptionPublisher) publisher).getUpstreamPublisher();
+      } else if (publisher instanceof CompletionStageMappingPublisher) {
+        publisher = ((CompletionStageMappingPublisher<?, ?>) publisher).getUpstreamPublisher();
+      } else {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Resumes the subscription of an operation after the last event id the client has sent.
+   *
+   * @param lastEventId a single id or a map of ids by operation id, may be null
+   * @return the resumable topic publisher behind the results, null if there is none
+   */
+  public static ResumableTopicPublisher resume(
+      Publisher<?> results, Object lastEventId, String operationId) {
+    ResumableTopicPublisher publisher = find(results);
+    if (publisher != null) {
+      Object id =
+          lastEventId instanceof Map ? ((Map<?, ?>) lastEventId).get(operationId) : lastEventId;
+      Long eventId = parseEventId(id);
+      if (eventId != null) {
+        publisher.resumeAfter(eventId);
+      }
+    }
+    return publisher;
+  }
+
+  /**
+   * @return the id of the event a subscription result was computed from, null if it has none
+   */
+  public static Object eventId(ExecutionResult result) {
+    return result.getExtensions() == null ? null : result.getExtensions().get(EVENT_ID);
+  }
+
+  /**
+   * @return a copy of the data message payload with the event id as extension, the payload itself
+   *     if there is no id or it is not a map
+   */
+  @SuppressWarnings("unchecked")
+  public static Object withEventId(Object payload, Object eventId) {
+    if (eventId == null || !(payload instanceof Map)) {
+      return payload;
+    }
+    Map<String, Object> result = new HashMap<>((Map<String, Object>) payload);
+    Map<String, Object> extensions = new HashMap<>();
+    if (result.get("extensions") instanceof Map) {
+      extensions.putAll((Map<String, Object>) result.get("extensions"));
+    }
+    extensions.put(EVENT_ID, eventId);
+    result.put("extensions", extensions);
+    return result;
+  }
+
+  static Long parseEventId(Object id) {
+    if (id instanceof Number) {
+      return ((Number) id).longValue();
+    }
+    if (id instanceof String) {
+      try {
+        return Long.parseLong(((String) id).trim());
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+}
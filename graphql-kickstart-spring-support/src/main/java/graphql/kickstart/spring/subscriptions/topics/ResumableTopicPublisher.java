@@ -0,0 +1,83 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+/**
+ * Publisher of the events of a resumable topic, for a single subscription.
+ *
+ * <p>Before being subscribed it can be resumed after the id of the last event a client has seen, it
+ * then starts with the kept events published after that one instead of the most recent ones. The
+ * {@link ResumableSubscriptionInstrumentation} looks up the id of each event the subscription is
+ * executed with by {@link #eventId(Object)}, and adds it to the result of that event.
+ */
+public class ResumableTopicPublisher implements Publisher<Object> {
+
+  /** Delivered events waiting for their ids to be looked up, events dropped in between included. */
+  private static final int MAX_PENDING_EVENTS = 256;
+
+  private final TopicRegistry registry;
+  private final Object key;
+  // guarded by itself
+  private final Deque<RecordedEvent> delivered = new ArrayDeque<>();
+  private volatile long resumeAfter = -1;
+
+  ResumableTopicPublisher(TopicRegistry registry, Object key) {
+    this.registry = registry;
+    this.key = key;
+  }
+
+  public Object getKey() {
+    return key;
+  }
+
+  /** Resumes the subscription after the given event, unless it is already subscribed. */
+  public void resumeAfter(long eventId) {
+    this.resumeAfter = eventId;
+  }
+
+  /**
+   * Takes the id of a delivered event. Events are looked up in the order they were delivered, the
+   * ones delivered before it whose ids were not taken are forgotten.
+   *
+   * @return the id of the event, null if it was not delivered by this publisher
+   */
+  public Long eventId(Object event) {
+    synchronized (delivered) {
+      int index = 0;
+      for (RecordedEvent recorded : delivered) {
+        if (recorded.getPayload() == event) {
+          Iterator<RecordedEvent> iterator = delivered.iterator();
+          for (int i = 0; i <= index; i++) {
+            iterator.next();
+            iterator.remove();
+          }
+          return recorded.getId();
+        }
+        index++;
+      }
+      return null;
+    }
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super Object> subscriber) {
+    registry
+        .recorded(key, resumeAfter)
+        .doOnNext(this::deliver)
+        .map(RecordedEvent::getPayload)
+        .subscribe(subscriber);
+  }
+
+  private void deliver(RecordedEvent event) {
+    synchronized (delivered) {
+      if (delivered.size() == MAX_PENDING_EVENTS) {
+        delivered.removeFirst();
+      }
+      delivered.addLast(event);
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionConnectionListener;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage;
+import java.util.Map;
+
+/**
+ * Keeps the last event ids a client sends in its {@code connection_init} payload as the {@link
+ * ResumableSubscriptions#LAST_EVENT_ID} property of the session.
+ */
+public class ResumeConnectionListener implements ApolloSubscriptionConnectionListener {
+
+  @Override
+  public void onConnect(SubscriptionSession session, OperationMessage message) {
+    if (message.getPayload() instanceof Map) {
+      Object lastEventId =
+          ((Map<?, ?>) message.getPayload()).get(ResumableSubscriptions.LAST_EVENT_ID);
+      if (lastEventId != null) {
+        session.getUserProperties().put(ResumableSubscriptions.LAST_EVENT_ID, lastEventId);
+      }
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+/**
+ * Application event routed to the subscribers of a topic by the {@link TopicRegistry}. Can be
+ * implemented by {@code ApplicationEvent}s as well as by plain objects published through the
+ * application context.
+ */
+public interface TopicEvent {
+
+  /**
+   * @return the key of the topic the event belongs to
+   */
+  Object getTopic();
+
+  /**
+   * @return the value emitted to the subscribers of the topic, the event itself by default
+   */
+  default Object getPayload() {
+    return this;
+  }
+}
@@ -0,0 +1,338 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Shared hot publishers for subscription resolvers, one per topic key.
+ *
+ * <p>A topic exists while it has subscribers: the first subscriber activates the {@link
+ * TopicSource}, the last one to leave deactivates it and removes the topic. Late subscribers get
+ * the most recent events replayed. Subscribing and unsubscribing lock one of a fixed number of
+ * stripes chosen by the topic key, so unrelated topics rarely contend.
+ *
+ * <p>Every subscriber has a bounded buffer for the events it has not requested yet. Once it is
+ * full, {@link TopicRegistryOptions#getOverflow()} decides whether the subscriber fails or which
+ * events are dropped, dropped events are logged and counted in {@link #getDroppedEvents()}.
+ * Subscribers of resumable topics fail when their buffer overflows while the kept events are
+ * replayed to them, they can resume after the last event they received.
+ *
+ * <p>Application events implementing {@link TopicEvent} are routed to their topic with a single
+ * lookup.
+ *
+ * <p>With resuming enabled every event gets an id, increasing across the topics of the registry,
+ * and each topic keeps its recent events bounded by count and age. Topics then outlive their last
+ * subscriber by the maximum age, still recording the events of their source, and {@link
+ * #topic(Object)} returns a {@link ResumableTopicPublisher} which a reconnecting client resumes
+ * after the last event it has seen. The ids are local to the registry, clients must reconnect to
+ * the same node to resume.
+ */
+@Slf4j
+public class TopicRegistry implements ApplicationListener<ApplicationEvent> {
+
+  private final Map<Object, Topic> topics = new ConcurrentHashMap<>();
+  private final ReentrantLock[] stripes;
+  private final int replay;
+  private final int resumeEvents;
+  private final long resumeMaxAgeNanos;
+  private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+  private final AtomicLong dropped = new AtomicLong();
+  private final int subscriberBuffer;
+  private final BufferOverflowStrategy overflow;
+  private final TopicSource source;
+
+  public TopicRegistry() {
+    this(TopicRegistryOptions.builder().build(), null);
+  }
+
+  public TopicRegistry(TopicRegistryOptions options, TopicSource source) {
+    int stripeCount = Integer.highestOneBit(Math.max(1, options.getStripes() - 1) << 1);
+    this.stripes = new ReentrantLock[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    this.replay = options.getReplay();
+    this.subscriberBuffer = Math.max(1, options.getSubscriberBuffer());
+    this.overflow = options.getOverflow();
+    this.resumeEvents = Math.max(0, options.getResumeEvents());
+    this.resumeMaxAgeNanos = options.getResumeMaxAge().toNanos();
+    this.source = source;
+  }
+
+  /**
+   * @return a publisher of the events of the topic, shared by all its subscribers, a {@link
+   *     ResumableTopicPublisher} if resuming is enabled
+   */
+  public Publisher<Object> topic(Object key) {
+    if (isResumable()) {
+      return new ResumableTopicPublisher(this, key);
+    }
+    return Flux.defer(
+        () -> {
+          Topic topic = acquire(key);
+          return buffered(topic.sink.asFlux(), key).doFinally(signal -> release(topic));
+        });
+  }
+
+  /** Emits the event to the current subscribers of the topic, if there are any. */
+  public void publish(Object key, Object event) {
+    Topic topic = topics.get(key);
+    if (topic != null) {
+      topic.emit(event);
+    }
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationEvent applicationEvent) {
+    Object event =
+        applicationEvent instanceof PayloadApplicationEvent
+            ? ((PayloadApplicationEvent<?>) applicationEvent).getPayload()
+            : applicationEvent;
+    if (event instanceof TopicEvent) {
+      TopicEvent topicEvent = (TopicEvent) event;
+      publish(topicEvent.getTopic(), topicEvent.getPayload());
+    }
+  }
+
+  /**
+   * @return the number of topics that currently have subscribers or are kept for resuming
+   */
+  public int getTopicCount() {
+    return topics.size();
+  }
+
+  /**
+   * @return the number of events dropped so far because a subscriber did not keep up with them
+   */
+  public long getDroppedEvents() {
+    return dropped.get();
+  }
+
+  boolean isResumable() {
+    return resumeEvents > 0;
+  }
+
+  /**
+   * Events of the topic with their ids: those kept after the given id, or the most recent ones if
+   * it is negative, followed by the live events. The kept events are copied and the live events
+   * subscribed under the monitor of the topic, so that no event falls in between.
+   */
+  Flux<RecordedEvent> recorded(Object key, long after) {
+    return Flux.defer(
+        () -> {
+          Topic topic = acquire(key);
+          Sinks.Many<Object> live =
+              Sinks.many().unicast().onBackpressureBuffer(Queues.get(subscriberBuffer).get());
+          List<RecordedEvent> kept;
+          Disposable feed;
+          synchronized (topic) {
+            kept = topic.keptAfter(after);
+            feed =
+                topic
+                    .sink
+                    .asFlux()
+                    .subscribe(
+                        event -> {
+                          if (live.tryEmitNext(event) == Sinks.EmitResult.FAIL_OVERFLOW) {
+                            live.tryEmitError(Exceptions.failWithOverflow());
+                          }
+                        },
+                        live::tryEmitError,
+                        live::tryEmitComplete);
+          }
+          Flux<RecordedEvent> events =
+              Flux.fromIterable(kept).concatWith(live.asFlux().cast(RecordedEvent.class));
+          return buffered(events, key)
+              .doFinally(
+                  signal -> {
+                    feed.dispose();
+                    release(topic);
+                  });
+        });
+  }
+
+  /** Buffers the events of one subscriber, applying the overflow strategy once it is full. */
+  private <T> Flux<T> buffered(Flux<T> events, Object key) {
+    return events.onBackpressureBuffer(
+        subscriberBuffer,
+        event -> {
+          dropped.incrementAndGet();
+          log.warn(
+              "Buffer of {} events of a subscriber of topic {} overflowed, applying {}",
+              subscriberBuffer,
+              key,
+              overflow);
+        },
+        overflow);
+  }
+
+  private Topic acquire(Object key) {
+    ReentrantLock lock = stripe(key);
+    lock.lock();
+    try {
+      Topic topic = topics.computeIfAbsent(key, Topic::new);
+      topic.subscribers++;
+      if (!topic.active) {
+        topic.activate();
+      }
+      return topic;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(Topic topic) {
+    ReentrantLock lock = stripe(topic.key);
+    lock.lock();
+    try {
+      if (--topic.subscribers == 0) {
+        if (isResumable()) {
+          long idle = ++topic.idle;
+          Schedulers.parallel()
+              .schedule(() -> expire(topic, idle), resumeMaxAgeNanos, TimeUnit.NANOSECONDS);
+        } else {
+          topics.remove(topic.key, topic);
+          topic.deactivate();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Removes a topic kept for resuming unless it got subscribers in the meantime. */
+  private void expire(Topic topic, long idle) {
+    ReentrantLock lock = stripe(topic.key);
+    lock.lock();
+    try {
+      if (topic.subscribers == 0 && topic.idle == idle) {
+        topics.remove(topic.key, topic);
+        topic.deactivate();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private ReentrantLock stripe(Object key) {
+    int hash = key.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+  }
+
+  private class Topic {
+
+    private final Object key;
+    private final Sinks.Many<Object> sink;
+    // guarded by the monitor of the topic
+    private final Deque<RecordedEvent> kept;
+    private int subscribers;
+    private long idle;
+    private boolean active;
+    private AutoCloseable upstream;
+    // guarded by the monitor of the topic
+    private boolean completed;
+
+    Topic(Object key) {
+      this.key = key;
+      // resumable topics replay from the kept events instead
+      this.sink =
+          replay > 0 && !isResumable()
+              ? Sinks.many().replay().limit(replay)
+              : Sinks.many().multicast().directBestEffort();
+      this.kept = isResumable() ? new ArrayDeque<>() : null;
+    }
+
+    void activate() {
+      active = true;
+      if (source != null) {
+        upstream = source.activate(key, this::emit);
+      }
+    }
+
+    void deactivate() {
+      synchronized (this) {
+        // serialized with the emissions of the source, which may still be running
+        completed = true;
+        sink.tryEmitComplete();
+      }
+      if (upstream != null) {
+        try {
+          upstream.close();
+        } catch (Exception e) {
+          log.error("Error deactivating the source of topic {}", key, e);
+        }
+      }
+    }
+
+    /** Emissions of a topic are serialized, the subscribers may run on the publishing thread. */
+    synchronized void emit(Object event) {
+      if (completed) {
+        return;
+      }
+      Object element = event;
+      if (kept != null) {
+        RecordedEvent recorded =
+            new RecordedEvent(sequence.incrementAndGet(), System.nanoTime(), event);
+        kept.addLast(recorded);
+        trim(recorded.getNanos());
+        element = recorded;
+      }
+      Sinks.EmitResult result = sink.tryEmitNext(element);
+      if (result.isFailure()
+          && result != Sinks.EmitResult.FAIL_TERMINATED
+          && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+        dropped.incrementAndGet();
+        log.warn("Dropped event of topic {}: {}", key, result);
+      }
+    }
+
+    List<RecordedEvent> keptAfter(long after) {
+      trim(System.nanoTime());
+      List<RecordedEvent> events = new ArrayList<>();
+      if (after < 0) {
+        int skip = Math.max(0, kept.size() - replay);
+        Iterator<RecordedEvent> iterator = kept.iterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+          RecordedEvent event = iterator.next();
+          if (i >= skip) {
+            events.add(event);
+          }
+        }
+      } else {
+        for (RecordedEvent event : kept) {
+          if (event.getId() > after) {
+            events.add(event);
+          }
+        }
+      }
+      return events;
+    }
+
+    private void trim(long now) {
+      while (kept.size() > resumeEvents
+          || (!kept.isEmpty() && now - kept.peekFirst().getNanos() > resumeMaxAgeNanos)) {
+        kept.removeFirst();
+      }
+    }
+  }
+}
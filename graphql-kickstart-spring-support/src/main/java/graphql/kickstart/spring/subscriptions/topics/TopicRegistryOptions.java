@@ -0,0 +1,25 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+import reactor.core.publisher.BufferOverflowStrategy;
+
+/** Settings of a {@link TopicRegistry}. */
+@Value
+@Builder
+public class TopicRegistryOptions {
+
+  /** Number of locks guarding the topic lifecycle, rounded up to a power of two. */
+  @Builder.Default int stripes = 64;
+  /** Number of recent events replayed to new subscribers of an active topic. */
+  @Builder.Default int replay = 16;
+  /** Number of events buffered per subscriber that has not requested them yet. */
+  @Builder.Default int subscriberBuffer = 256;
+  /** What happens to the events of a subscriber whose buffer is full. */
+  @Builder.Default BufferOverflowStrategy overflow = BufferOverflowStrategy.ERROR;
+  /** Number of events kept per topic for resuming subscribers, 0 disables resuming. */
+  @Builder.Default int resumeEvents = 0;
+  /** Age after which kept events are dropped, idle topics are kept as long. */
+  @Builder.Default Duration resumeMaxAge = Duration.ofMinutes(5);
+}
@@ -0,0 +1,18 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import java.util.function.Consumer;
+
+/**
+ * Upstream of the topics of a {@link TopicRegistry}. A topic is activated when it gets its first
+ * subscriber and deactivated when its last subscriber leaves.
+ */
+@FunctionalInterface
+public interface TopicSource {
+
+  /**
+   * Starts feeding events of the topic to the emitter.
+   *
+   * @return handle stopping the upstream again
+   */
+  AutoCloseable activate(Object topic, Consumer<Object> emitter);
+}
@@ -0,0 +1,80 @@
+package graphql.kickstart.spring.trusted;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import graphql.kickstart.execution.GraphQLRequest;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Jackson module reading requests that reference a trusted document by id.
+ *
+ * <p>A top-level {@code documentId} is moved to the extensions of the request, where {@link
+ * TrustedDocuments} looks it up, and a missing query defaults to an empty one so that a request can
+ * carry nothing but the id: {@code {"documentId": "...", "variables": {...}}}.
+ */
+public class TrustedDocumentRequestModule extends SimpleModule {
+
+  private static final long serialVersionUID = 1L;
+
+  public TrustedDocumentRequestModule() {
+    super(TrustedDocumentRequestModule.class.getSimpleName());
+    setDeserializerModifier(
+        new BeanDeserializerModifier() {
+          @Override
+          public JsonDeserializer<?> modifyDeserializer(
+              DeserializationConfig config,
+              BeanDescription beanDesc,
+              JsonDeserializer<?> deserializer) {
+            return GraphQLRequest.class.equals(beanDesc.getBeanClass())
+                ? new RequestDeserializer(deserializer)
+                : deserializer;
+          }
+        });
+  }
+
+  private static class RequestDeserializer extends DelegatingDeserializer {
+
+    private static final long serialVersionUID = 1L;
+
+    RequestDeserializer(JsonDeserializer<?> delegate) {
+      super(delegate);
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+      return new RequestDeserializer(newDelegatee);
+    }
+
+    @Override
+    public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      JsonNode node = ctxt.readTree(p);
+      JsonNode documentId =
+          node.isObject() ? ((ObjectNode) node).remove(TrustedDocuments.DOCUMENT_ID) : null;
+      JsonParser tree = node.traverse(p.getCodec());
+      tree.nextToken();
+      GraphQLRequest request = (GraphQLRequest) _delegatee.deserialize(tree, ctxt);
+      if (documentId != null && !documentId.isNull()) {
+        Map<String, Object> extensions =
+            request.getExtensions() == null
+                ? new HashMap<>()
+                : new HashMap<>(request.getExtensions());
+        extensions.putIfAbsent(TrustedDocuments.DOCUMENT_ID, documentId.asText());
+        request.setExtensions(extensions);
+      }
+      if (request.getQuery() == null) {
+        request.setQuery("");
+      }
+      return request;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package graphql.kickstart.spring.trusted;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.ParseAndValidate;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.kickstart.spring.limits.DocumentParser;
+import graphql.language.Document;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.validation.ValidationError;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Documents approved ahead of time, executed by their id only.
+ *
+ * <p>The documents of the manifest are parsed and validated once against the schema when created.
+ * Requests then reference a document by its id in their {@code documentId} extension, or in the
+ * {@code persistedQuery.sha256Hash} extension of clients sending persisted queries, and are
+ * executed without being parsed or validated again. Requests sending any other query text are
+ * rejected, unless untrusted documents are allowed. The {@link #parser(DocumentParser) parser} of
+ * the components reading documents ahead of the execution then leaves their text alone too.
+ *
+ * <p>The manifest entries failing to parse or validate, typically after a change of the schema, are
+ * logged and reported by {@link #getInvalidDocuments()}. Requests referencing them are rejected
+ * like requests referencing unknown ids.
+ */
+@Slf4j
+public class TrustedDocuments implements PreparsedDocumentProvider {
+
+  public static final String DOCUMENT_ID = "documentId";
+
+  private static final String PERSISTED_QUERY = "persistedQuery";
+  private static final String SHA_256_HASH = "sha256Hash";
+
+  private final Map<String, PreparsedDocumentEntry> documents = new HashMap<>();
+  private final Map<String, List<String>> invalidDocuments = new LinkedHashMap<>();
+  private final boolean allowUntrusted;
+
+  /**
+   * @param manifest the trusted documents by id
+   * @param allowUntrusted whether requests without document id are parsed and executed as usual
+   */
+  public TrustedDocuments(
+      GraphQLSchema schema, Map<String, String> manifest, boolean allowUntrusted) {
+    this.allowUntrusted = allowUntrusted;
+    manifest.forEach((id, query) -> load(schema, id, query));
+    if (!invalidDocuments.isEmpty()) {
+      log.warn(
+          "{} of {} trusted documents are invalid and will be rejected: {}",
+          invalidDocuments.size(),
+          manifest.size(),
+          invalidDocuments);
+    }
+  }
+
+  private void load(GraphQLSchema schema, String id, String query) {
+    Document document;
+    try {
+      document = Parser.parse(query);
+    } catch (InvalidSyntaxException e) {
+      invalidDocuments.put(id, Collections.singletonList(e.getMessage()));
+      return;
+    }
+    List<ValidationError> errors = ParseAndValidate.validate(schema, document);
+    if (errors.isEmpty()) {
+      documents.put(id, new PreparsedDocumentEntry(document));
+    } else {
+      invalidDocuments.put(
+          id, errors.stream().map(ValidationError::getMessage).collect(Collectors.toList()));
+    }
+  }
+
+  /** @return the number of documents that can be executed */
+  public int size() {
+    return documents.size();
+  }
+
+  /** @return the error messages of the manifest entries failing to parse or validate, by id */
+  public Map<String, List<String>> getInvalidDocuments() {
+    return Collections.unmodifiableMap(invalidDocuments);
+  }
+
+  /**
+   * Wraps the parser of the components reading documents before the execution, so that they leave
+   * alone the query text of the requests that are not executed from it.
+   */
+  public DocumentParser parser(DocumentParser parser) {
+    return new DocumentParser() {
+      @Override
+      public boolean executesQueryText(Map<String, Object> extensions) {
+        return allowUntrusted
+            && documentId(extensions) == null
+            && parser.executesQueryText(extensions);
+      }
+
+      @Override
+      public Document parse(String query) {
+        return parser.parse(query);
+      }
+    };
+  }
+
+  @Override
+  public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+      ExecutionInput executionInput,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+    String id = documentId(executionInput.getExtensions());
+    if (id == null) {
+      return CompletableFuture.completedFuture(
+          allowUntrusted
+              ? parseAndValidateFunction.apply(executionInput)
+              : error("Only trusted documents are accepted, send a documentId instead of a query"));
+    }
+    PreparsedDocumentEntry entry = documents.get(id);
+    return CompletableFuture.completedFuture(
+        entry == null ? error("Unknown trusted document: " + id) : entry);
+  }
+
+  /** @deprecated the engine calls {@link #getDocumentAsync(ExecutionInput, Function)} */
+  @Deprecated
+  @Override
+  public PreparsedDocumentEntry getDocument(
+      ExecutionInput executionInput,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+    return getDocumentAsync(executionInput, parseAndValidateFunction).join();
+  }
+
+  private String documentId(Map<String, Object> extensions) {
+    if (extensions == null) {
+      return null;
+    }
+    Object id = extensions.get(DOCUMENT_ID);
+    if (id == null && extensions.get(PERSISTED_QUERY) instanceof Map) {
+      id = ((Map<?, ?>) extensions.get(PERSISTED_QUERY)).get(SHA_256_HASH);
+    }
+    return id == null ? null : id.toString();
+  }
+
+  private PreparsedDocumentEntry error(String message) {
+    GraphQLError error = GraphqlErrorBuilder.newError().message(message).build();
+    return new PreparsedDocumentEntry(error);
+  }
+}
@@ -0,0 +1,81 @@
+package graphql.kickstart.spring.cancellation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class CancellationInstrumentationTest {
+
+  private final CompletableFuture<Object> pending = new CompletableFuture<>();
+  private final AtomicInteger fetches = new AtomicInteger();
+  private final GraphQL graphQL =
+      GraphQL.newGraphQL(
+              new SchemaGenerator()
+                  .makeExecutableSchema(
+                      new SchemaParser().parse("type Query { slow: String fast: String }"),
+                      RuntimeWiring.newRuntimeWiring()
+                          .type(
+                              "Query",
+                              type ->
+                                  type.dataFetcher("slow", environment -> pending)
+                                      .dataFetcher(
+                                          "fast",
+                                          environment -> "fetched " + fetches.incrementAndGet()))
+                          .build()))
+          .instrumentation(new CancellationInstrumentation())
+          .build();
+
+  @Test
+  void abandons_the_pending_fetches_once_cancelled() throws Exception {
+    ExecutionInput input = ExecutionInput.newExecutionInput("{ slow fast }").build();
+    CancellationToken token = CancellationToken.attach(input.getGraphQLContext());
+
+    CompletableFuture<ExecutionResult> result = graphQL.executeAsync(input);
+    assertThat(result).isNotDone();
+    token.cancel("client gone");
+
+    ExecutionResult executionResult = result.get(1, TimeUnit.SECONDS);
+    assertThat(executionResult.<Map<String, Object>>getData())
+        .containsEntry("slow", null)
+        .containsEntry("fast", "fetched 1");
+    assertThat(executionResult.getErrors()).hasSize(1);
+    assertThat(executionResult.getErrors().get(0).getMessage()).contains("client gone");
+  }
+
+  @Test
+  void does_not_execute_operations_already_cancelled() {
+    ExecutionInput input = ExecutionInput.newExecutionInput("{ fast }").build();
+    CancellationToken.attach(input.getGraphQLContext()).cancel("deadline passed");
+
+    ExecutionResult executionResult = graphQL.execute(input);
+
+    assertThat(executionResult.getErrors()).hasSize(1);
+    assertThat(fetches).hasValue(0);
+  }
+
+  @Test
+  void runs_the_callbacks_once() {
+    CancellationToken token = new CancellationToken();
+    AtomicInteger calls = new AtomicInteger();
+    token.onCancel(calls::incrementAndGet);
+    Runnable deregistration = token.onCancel(calls::incrementAndGet);
+    deregistration.run();
+
+    token.cancel("first");
+    token.cancel("second");
+    token.onCancel(calls::incrementAndGet);
+
+    assertThat(calls).hasValue(2);
+    assertThat(token.getReason()).isEqualTo("first");
+  }
+}
@@ -0,0 +1,122 @@
+package graphql.kickstart.spring.coalescing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.kickstart.spring.cancellation.CancellationToken;
+import graphql.kickstart.spring.limits.DocumentParser;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class QueryCoalescerTest {
+
+  private final AtomicInteger executions = new AtomicInteger();
+  private CompletableFuture<ExecutionResult> pending = new CompletableFuture<>();
+  private final QueryCoalescer coalescer =
+      new QueryCoalescer(
+          input -> input.getGraphQLContext().getOrDefault("user", "anonymous"),
+          new DocumentParser(),
+          10);
+
+  @Test
+  void shares_the_execution_of_identical_queries_in_flight() {
+    CompletableFuture<ExecutionResult> first = execute("{ products { name } }", "alice");
+    CompletableFuture<ExecutionResult> second =
+        execute("query {\n  products {\n    name\n  }\n}", "alice");
+
+    ExecutionResult result =
+        new ExecutionResultImpl(Collections.singletonMap("products", null), null);
+    pending.complete(result);
+
+    assertThat(executions).hasValue(1);
+    assertThat(first.join()).isSameAs(result);
+    assertThat(second.join()).isSameAs(result);
+    assertThat(coalescer.getCoalescedCount()).isOne();
+    assertThat(coalescer.getInFlightCount()).isZero();
+
+    pending = new CompletableFuture<>();
+    execute("{ products { name } }", "alice");
+    assertThat(executions).hasValue(2);
+  }
+
+  @Test
+  void cancels_the_shared_execution_once_every_caller_left() {
+    ExecutionInput input =
+        ExecutionInput.newExecutionInput("{ products { name } }")
+            .graphQLContext(Collections.singletonMap("user", "alice"))
+            .build();
+    CancellationToken firstToken = CancellationToken.attach(input.getGraphQLContext());
+    CompletableFuture<ExecutionResult> first = execute(input);
+    CancellationToken shared = CancellationToken.from(input.getGraphQLContext());
+    CompletableFuture<ExecutionResult> second = execute("{ products { name } }", "alice");
+
+    firstToken.cancel("Client disconnected");
+    assertThat(shared).isNotSameAs(firstToken);
+    assertThat(shared.isCancelled()).isFalse();
+    assertThat(pending).isNotCancelled();
+
+    second.cancel(false);
+    assertThat(shared.isCancelled()).isTrue();
+    assertThat(first).isNotDone();
+    assertThat(coalescer.getInFlightCount()).isZero();
+  }
+
+  @Test
+  void keeps_apart_different_callers_and_variables() {
+    execute("{ products { name } }", "alice");
+    execute("{ products { name } }", "bob");
+    execute(
+        ExecutionInput.newExecutionInput("query($id: ID) { product(id: $id) { name } }")
+            .variables(Collections.singletonMap("id", "1"))
+            .build());
+    execute(
+        ExecutionInput.newExecutionInput("query($id: ID) { product(id: $id) { name } }")
+            .variables(Collections.singletonMap("id", "2"))
+            .build());
+
+    assertThat(executions).hasValue(4);
+    assertThat(coalescer.getCoalescedCount()).isZero();
+  }
+
+  @Test
+  void never_shares_mutations_subscriptions_or_live_queries() {
+    execute("mutation { buy { id } }", "alice");
+    execute("mutation { buy { id } }", "alice");
+    execute("subscription { prices }", "alice");
+    execute("subscription { prices }", "alice");
+    execute("query @live { products { name } }", "alice");
+    execute("query @live { products { name } }", "alice");
+    execute("query A { a } mutation B { b }", "alice", "B");
+    execute("query A { a } mutation B { b }", "alice", "B");
+
+    assertThat(executions).hasValue(8);
+  }
+
+  private CompletableFuture<ExecutionResult> execute(String query, String user) {
+    return execute(query, user, null);
+  }
+
+  private CompletableFuture<ExecutionResult> execute(
+      String query, String user, String operationName) {
+    Map<Object, Object> context = Collections.singletonMap("user", user);
+    return execute(
+        ExecutionInput.newExecutionInput(query)
+            .operationName(operationName)
+            .graphQLContext(context)
+            .build());
+  }
+
+  private CompletableFuture<ExecutionResult> execute(ExecutionInput input) {
+    return coalescer.execute(
+        input,
+        () -> {
+          executions.incrementAndGet();
+          return pending;
+        });
+  }
+}
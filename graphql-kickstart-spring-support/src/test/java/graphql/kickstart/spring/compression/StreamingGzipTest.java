@@ -0,0 +1,81 @@
+package graphql.kickstart.spring.compression;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import org.junit.jupiter.api.Test;
+
+class StreamingGzipTest {
+
+  private static final int HEADER_SIZE = 10;
+
+  @Test
+  void makes_every_flushed_part_decodable() throws DataFormatException {
+    StreamingGzip gzip = new StreamingGzip(6);
+    Inflater inflater = new Inflater(true);
+    byte[] header = gzip.write(new byte[0], 0, 0);
+    assertThat(header).hasSize(HEADER_SIZE);
+
+    byte[] first = "{\"data\":{\"first\":true}}".getBytes(UTF_8);
+    gzip.write(first, 0, first.length);
+    assertThat(inflate(inflater, gzip.flush())).isEqualTo("{\"data\":{\"first\":true}}");
+
+    byte[] second = "{\"data\":{\"second\":true}}".getBytes(UTF_8);
+    gzip.write(second, 0, second.length);
+    assertThat(inflate(inflater, gzip.flush())).isEqualTo("{\"data\":{\"second\":true}}");
+  }
+
+  @Test
+  void produces_a_complete_gzip_stream() throws IOException {
+    StreamingGzip gzip = new StreamingGzip(9);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    String part = "{\"data\":{\"products\":[{\"name\":\"product\"}]}}";
+    for (int i = 0; i < 100; i++) {
+      byte[] bytes = part.getBytes(UTF_8);
+      out.write(gzip.write(bytes, 0, bytes.length));
+      if (i % 10 == 0) {
+        out.write(gzip.flush());
+      }
+    }
+    out.write(gzip.finish());
+
+    byte[] compressed = out.toByteArray();
+    assertThat(StreamingGzip.isCompressed(compressed, 0, compressed.length)).isTrue();
+    assertThat(compressed.length).isLessThan(part.length() * 10);
+    ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      byte[] buffer = new byte[4096];
+      for (int read; (read = in.read(buffer)) != -1; ) {
+        decompressed.write(buffer, 0, read);
+      }
+    }
+    assertThat(decompressed.toString("UTF-8"))
+        .isEqualTo(String.join("", Collections.nCopies(100, part)));
+  }
+
+  @Test
+  void reads_the_accepted_encodings() {
+    assertThat(StreamingGzip.isAccepted(Collections.singletonList("gzip, deflate, br"))).isTrue();
+    assertThat(StreamingGzip.isAccepted(Collections.singletonList("br;q=1.0, *;q=0.5"))).isTrue();
+    assertThat(StreamingGzip.isAccepted(Collections.singletonList("deflate, gzip;q=0"))).isFalse();
+    assertThat(StreamingGzip.isAccepted(Arrays.asList("identity", "br"))).isFalse();
+    assertThat(StreamingGzip.isAccepted(Collections.singletonList("*;q=0.5, gzip;q=0"))).isFalse();
+    assertThat(StreamingGzip.isAccepted(Arrays.asList("gzip;q=0.8", "*;q=0"))).isTrue();
+    assertThat(StreamingGzip.isAccepted(Collections.singletonList("gzip;level=1;q=0"))).isFalse();
+  }
+
+  private String inflate(Inflater inflater, byte[] compressed) throws DataFormatException {
+    inflater.setInput(compressed);
+    byte[] buffer = new byte[4096];
+    int length = inflater.inflate(buffer);
+    return new String(buffer, 0, length, UTF_8);
+  }
+}
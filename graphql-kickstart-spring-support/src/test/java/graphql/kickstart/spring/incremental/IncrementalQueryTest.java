@@ -0,0 +1,175 @@
+package graphql.kickstart.spring.incremental;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.kickstart.spring.limits.DocumentLimitsOptions;
+import graphql.kickstart.spring.limits.DocumentParser;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("unchecked")
+class IncrementalQueryTest {
+
+  private final DocumentParser parser = new DocumentParser();
+  private final GraphQL graphQL =
+      GraphQL.newGraphQL(
+              new SchemaGenerator()
+                  .makeExecutableSchema(
+                      new SchemaParser()
+                          .parse(
+                              "type Query { products: [Product] }"
+                                  + " type Product { name: String, recommendations: [String] }"),
+                      RuntimeWiring.newRuntimeWiring()
+                          .type(
+                              "Query",
+                              type ->
+                                  type.dataFetcher(
+                                      "products",
+                                      env ->
+                                          Arrays.asList(
+                                              product("chair", "table"), product("lamp", "bulb"))))
+                          .build()))
+          .build();
+
+  @Test
+  void delivers_deferred_fragments_after_the_initial_payload() {
+    IncrementalQuery query =
+        IncrementalQuery.split(
+            "query { products { name ...Recommended @defer(label: \"recommended\") } }"
+                + " fragment Recommended on Product { recommendations }",
+            null,
+            null,
+            null,
+            parser);
+
+    assertThat(query.getParts()).hasSize(1);
+    DeferredPart part = query.getParts().get(0);
+    assertThat(part.getPath()).containsExactly("products");
+    assertThat(execute(query.getInitialQuery()))
+        .isEqualTo(data("products", Arrays.asList(name("chair"), name("lamp"))));
+
+    Map<String, Object> subsequent =
+        IncrementalPayloads.subsequent(query.getParts(), execute(query.getDeferredQuery()));
+    assertThat(subsequent.get("hasNext")).isEqualTo(false);
+    assertThat((List<Object>) subsequent.get("incremental"))
+        .containsExactly(
+            item("recommendations", "table", Arrays.asList("products", 0)),
+            item("recommendations", "bulb", Arrays.asList("products", 1)));
+  }
+
+  @Test
+  void delivers_streamed_lists_as_items() {
+    IncrementalQuery query =
+        IncrementalQuery.split(
+            "{ products { name recommendations @stream(initialCount: 0) } }",
+            null,
+            null,
+            null,
+            parser);
+
+    Map<String, Object> initial =
+        IncrementalPayloads.initial(execute(query.getInitialQuery()), query.getParts(), true);
+    Map<String, Object> chair = name("chair");
+    chair.put("recommendations", Collections.emptyList());
+    Map<String, Object> lamp = name("lamp");
+    lamp.put("recommendations", Collections.emptyList());
+    assertThat(initial.get("data"))
+        .isEqualTo(Collections.singletonMap("products", Arrays.asList(chair, lamp)));
+    assertThat(initial.get("hasNext")).isEqualTo(true);
+
+    Map<String, Object> subsequent =
+        IncrementalPayloads.subsequent(query.getParts(), execute(query.getDeferredQuery()));
+    Map<String, Object> first = new HashMap<>();
+    first.put("items", Collections.singletonList("table"));
+    first.put("path", Arrays.asList("products", 0, "recommendations", 0));
+    assertThat((List<Object>) subsequent.get("incremental")).hasSize(2).first().isEqualTo(first);
+  }
+
+  @Test
+  void delivers_each_part_with_its_own_fields_from_a_single_execution() {
+    IncrementalQuery query =
+        IncrementalQuery.split(
+            "{ products { ... @defer(label: \"recommended\") { recommendations }"
+                + " ... @defer { name } } }",
+            null,
+            null,
+            null,
+            parser);
+
+    assertThat(query.getParts()).hasSize(2);
+    Map<String, Object> subsequent =
+        IncrementalPayloads.subsequent(query.getParts(), execute(query.getDeferredQuery()));
+    Map<String, Object> named = new HashMap<>();
+    named.put("data", name("lamp"));
+    named.put("path", Arrays.asList("products", 1));
+    assertThat((List<Object>) subsequent.get("incremental"))
+        .hasSize(4)
+        .startsWith(
+            item("recommendations", "table", Arrays.asList("products", 0)),
+            item("recommendations", "bulb", Arrays.asList("products", 1)))
+        .endsWith(named);
+  }
+
+  @Test
+  void leaves_documents_over_the_limits_to_the_execution() {
+    DocumentParser limited =
+        new DocumentParser(DocumentLimitsOptions.builder().maxTokens(8).build());
+
+    assertThat(
+            IncrementalQuery.split(
+                "{ products { name recommendations @stream } }", null, null, null, limited))
+        .isNull();
+  }
+
+  @Test
+  void leaves_queries_without_active_deferred_parts_alone() {
+    assertThat(IncrementalQuery.split("{ products { name } }", null, null, null, parser)).isNull();
+    assertThat(
+            IncrementalQuery.split(
+                "query($later: Boolean) { products { ... @defer(if: $later) { name } } }",
+                null,
+                Collections.singletonMap("later", false),
+                null,
+                parser))
+        .isNull();
+    assertThat(IncrementalQuery.split("mutation { products @stream }", null, null, null, parser))
+        .isNull();
+  }
+
+  private Map<String, Object> execute(String query) {
+    return graphQL.execute(ExecutionInput.newExecutionInput(query)).toSpecification();
+  }
+
+  private static Map<String, Object> product(String name, String recommendation) {
+    Map<String, Object> product = name(name);
+    product.put("recommendations", Collections.singletonList(recommendation));
+    return product;
+  }
+
+  private static Map<String, Object> name(String name) {
+    Map<String, Object> product = new HashMap<>();
+    product.put("name", name);
+    return product;
+  }
+
+  private static Map<String, Object> data(String key, Object value) {
+    return Collections.singletonMap("data", Collections.singletonMap(key, value));
+  }
+
+  private static Map<String, Object> item(String key, String value, List<Object> path) {
+    Map<String, Object> item = new HashMap<>();
+    item.put("data", Collections.singletonMap(key, Collections.singletonList(value)));
+    item.put("path", path);
+    item.put("label", "recommended");
+    return item;
+  }
+}
@@ -0,0 +1,98 @@
+package graphql.kickstart.spring.limits;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class DocumentLimitsInstrumentationTest {
+
+  @Test
+  void executes_documents_within_the_limits() {
+    ExecutionResult result =
+        execute(
+            DocumentLimitsOptions.builder().maxAliases(2).maxFieldDuplication(2).build(),
+            ExecutionInput.newExecutionInput("{ a: hello b: hello hello }").build());
+
+    assertThat(result.getErrors()).isEmpty();
+    assertThat(result.<Object>getData()).isNotNull();
+  }
+
+  @Test
+  void rejects_too_many_aliases() {
+    ExecutionResult result =
+        execute(
+            DocumentLimitsOptions.builder().maxAliases(2).build(),
+            ExecutionInput.newExecutionInput("{ a: hello b: hello c: hello }").build());
+
+    assertRejected(result, "Document exceeds the maximum of 2 aliases");
+  }
+
+  @Test
+  void rejects_duplicated_fields_and_directives() {
+    DocumentLimitsOptions options =
+        DocumentLimitsOptions.builder().maxFieldDuplication(2).maxDirectivesPerField(1).build();
+
+    assertRejected(
+        execute(
+            options,
+            ExecutionInput.newExecutionInput("{ hello ... { hello hello } hello }").build()),
+        "Document exceeds the maximum of 2 selections of the same field");
+    assertRejected(
+        execute(
+            options,
+            ExecutionInput.newExecutionInput("{ hello @include(if: true) @skip(if: false) }")
+                .build()),
+        "Document exceeds the maximum of 1 directives per field");
+  }
+
+  @Test
+  void rejects_oversized_documents_and_variables_before_parsing() {
+    assertRejected(
+        execute(
+            DocumentLimitsOptions.builder().maxDocumentBytes(10).build(),
+            ExecutionInput.newExecutionInput("{ hello hello }").build()),
+        "Document exceeds the maximum of 10 bytes");
+    assertRejected(
+        execute(
+            DocumentLimitsOptions.builder().maxVariablesBytes(16).build(),
+            ExecutionInput.newExecutionInput("{ hello }")
+                .variables(Collections.singletonMap("name", "a long variable value"))
+                .build()),
+        "Document exceeds the maximum of 16 variables bytes");
+    assertThat(
+            execute(
+                    DocumentLimitsOptions.builder().maxTokens(3).build(),
+                    ExecutionInput.newExecutionInput("{ hello hello }").build())
+                .getErrors())
+        .singleElement()
+        .satisfies(error -> assertThat(error.getMessage()).contains("3"));
+  }
+
+  private ExecutionResult execute(DocumentLimitsOptions options, ExecutionInput input) {
+    return GraphQL.newGraphQL(
+            new SchemaGenerator()
+                .makeExecutableSchema(
+                    new SchemaParser().parse("type Query { hello: String }"),
+                    RuntimeWiring.newRuntimeWiring()
+                        .type("Query", type -> type.dataFetcher("hello", environment -> "world"))
+                        .build()))
+        .instrumentation(new DocumentLimitsInstrumentation(options))
+        .build()
+        .execute(input);
+  }
+
+  private void assertRejected(ExecutionResult result, String message) {
+    assertThat(result.<Object>getData()).isNull();
+    assertThat(result.getErrors()).singleElement();
+    assertThat(result.getErrors().get(0).getMessage()).isEqualTo(message);
+    assertThat(result.getErrors().get(0).getExtensions())
+        .containsEntry("code", DocumentLimitsInstrumentation.DOCUMENT_LIMIT_EXCEEDED);
+  }
+}
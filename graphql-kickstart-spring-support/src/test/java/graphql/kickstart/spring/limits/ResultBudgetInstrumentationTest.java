@@ -0,0 +1,87 @@
+package graphql.kickstart.spring.limits;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ResultBudgetInstrumentationTest {
+
+  private final AtomicInteger fetches = new AtomicInteger();
+
+  @Test
+  void executes_results_within_the_budget() {
+    ExecutionResult result =
+        execute(ResultBudgetOptions.builder().maxNodes(100).maxBytes(1000).build(), 10);
+
+    assertThat(result.getErrors()).isEmpty();
+    assertThat(result.<Object>getData()).isNotNull();
+  }
+
+  @Test
+  void aborts_results_over_the_node_budget() {
+    ExecutionResult result = execute(ResultBudgetOptions.builder().maxNodes(100).build(), 1000);
+
+    assertThat(result.<Object>getData()).isNull();
+    assertThat(result.getErrors()).singleElement();
+    assertThat(result.getErrors().get(0).getMessage())
+        .isEqualTo("Result exceeds the maximum of 100 nodes");
+    assertThat(result.getErrors().get(0).getExtensions())
+        .containsEntry("code", ResultBudgetInstrumentation.RESULT_BUDGET_EXCEEDED);
+    assertThat(fetches).hasValueLessThan(100);
+  }
+
+  @Test
+  void aborts_results_over_the_byte_budget() {
+    ExecutionResult result = execute(ResultBudgetOptions.builder().maxBytes(1000).build(), 100);
+
+    assertThat(result.<Object>getData()).isNull();
+    assertThat(result.getErrors().get(0).getMessage())
+        .isEqualTo("Result exceeds the maximum of 1000 bytes");
+  }
+
+  private ExecutionResult execute(ResultBudgetOptions options, int items) {
+    return GraphQL.newGraphQL(
+            new SchemaGenerator()
+                .makeExecutableSchema(
+                    new SchemaParser()
+                        .parse(
+                            "type Query { items: [Item] tags: [String] }"
+                                + " type Item { name: String }"),
+                    RuntimeWiring.newRuntimeWiring()
+                        .type(
+                            "Query",
+                            type ->
+                                type.dataFetcher(
+                                        "items",
+                                        environment ->
+                                            IntStream.range(0, items)
+                                                .boxed()
+                                                .collect(Collectors.toList()))
+                                    .dataFetcher(
+                                        "tags",
+                                        environment ->
+                                            Collections.nCopies(items, "a tag of the catalog")))
+                        .type(
+                            "Item",
+                            type ->
+                                type.dataFetcher(
+                                    "name",
+                                    environment ->
+                                        "item "
+                                            + environment.getSource()
+                                            + fetches.incrementAndGet()))
+                        .build()))
+        .instrumentation(new ResultBudgetInstrumentation(options))
+        .build()
+        .execute("{ items { name } tags }");
+  }
+}
@@ -0,0 +1,151 @@
+package graphql.kickstart.spring.live;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.kickstart.spring.limits.ResultBudgetInstrumentation;
+import graphql.kickstart.spring.limits.ResultBudgetOptions;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.context.PayloadApplicationEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+class LiveQueryRegistryTest {
+
+  private static final String LIVE_QUERY = "query Counter @live { counter }";
+
+  private final AtomicInteger counter = new AtomicInteger();
+  private final AtomicInteger executions = new AtomicInteger();
+  private final LiveQueryRegistry registry =
+      new LiveQueryRegistry(
+          LiveQueryOptions.builder().debounce(Duration.ofMillis(20)).coalesce(true).build());
+  private final GraphQL graphQL =
+      GraphQL.newGraphQL(
+              new SchemaGenerator()
+                  .makeExecutableSchema(
+                      new SchemaParser()
+                          .parse(
+                              "directive @live on QUERY type Query { counter: Int items: [Int] }"),
+                      RuntimeWiring.newRuntimeWiring()
+                          .type(
+                              "Query",
+                              type ->
+                                  type.dataFetcher(
+                                          "counter",
+                                          env -> {
+                                            executions.incrementAndGet();
+                                            LiveQueries.touch(env, "counter");
+                                            return counter.get();
+                                          })
+                                      .dataFetcher(
+                                          "items",
+                                          env -> {
+                                            LiveQueries.touch(env, "counter");
+                                            return Collections.nCopies(counter.get(), 1);
+                                          }))
+                          .build()))
+          .instrumentation(registry.getInstrumentation())
+          .build();
+
+  @Test
+  void pushes_changed_results_after_invalidation() throws InterruptedException {
+    List<Object> counters = new CopyOnWriteArrayList<>();
+    Disposable subscription = subscribe(counters);
+
+    counter.set(1);
+    registry.invalidate("counter");
+    registry.invalidate("counter");
+    await(() -> counters.size() == 2);
+    registry.invalidate("unrelated");
+    registry.onApplicationEvent(
+        new PayloadApplicationEvent<>(this, new LiveQueryInvalidation("counter")));
+    await(() -> executions.get() == 3);
+    TimeUnit.MILLISECONDS.sleep(50);
+
+    assertThat(counters).containsExactly(0, 1);
+    assertThat(executions).hasValue(3);
+    subscription.dispose();
+    assertThat(registry.getQueryCount()).isZero();
+  }
+
+  @Test
+  void executes_identical_documents_once_for_all_clients() throws InterruptedException {
+    List<Object> first = new CopyOnWriteArrayList<>();
+    List<Object> second = new CopyOnWriteArrayList<>();
+    subscribe(first);
+    subscribe(second);
+    assertThat(registry.getQueryCount()).isOne();
+
+    counter.set(1);
+    registry.invalidate("counter");
+    await(() -> first.size() == 2 && second.size() == 2);
+
+    assertThat(first).containsExactly(0, 1);
+    assertThat(second).containsExactly(0, 1);
+    assertThat(executions).hasValue(3);
+  }
+
+  @Test
+  void executes_again_with_the_instrumentations_of_the_query() throws InterruptedException {
+    GraphQL limited =
+        GraphQL.newGraphQL(graphQL.getGraphQLSchema())
+            .instrumentation(
+                new ChainedInstrumentation(
+                    registry.getInstrumentation(),
+                    new ResultBudgetInstrumentation(
+                        ResultBudgetOptions.builder().maxNodes(10).build())))
+            .build();
+    List<ExecutionResult> results = new CopyOnWriteArrayList<>();
+    Publisher<ExecutionResult> publisher = limited.execute("query Items @live { items }").getData();
+    Flux.from(publisher).subscribe(results::add);
+
+    counter.set(100);
+    registry.invalidate("counter");
+    await(() -> results.size() == 2);
+
+    assertThat(results.get(0).getErrors()).isEmpty();
+    assertThat(results.get(1).<Object>getData()).isNull();
+    assertThat(results.get(1).getErrors())
+        .singleElement()
+        .satisfies(
+            error ->
+                assertThat(error.getExtensions())
+                    .containsEntry("code", ResultBudgetInstrumentation.RESULT_BUDGET_EXCEEDED));
+  }
+
+  @Test
+  void leaves_other_queries_alone() {
+    ExecutionResult result = graphQL.execute("{ counter }");
+
+    assertThat(result.<Map<String, Object>>getData())
+        .isEqualTo(Collections.singletonMap("counter", 0));
+    assertThat(registry.getQueryCount()).isZero();
+  }
+
+  private Disposable subscribe(List<Object> counters) {
+    Publisher<ExecutionResult> results = graphQL.execute(LIVE_QUERY).getData();
+    return Flux.from(results)
+        .map(result -> result.<Map<String, Object>>getData().get("counter"))
+        .subscribe(counters::add);
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+      TimeUnit.MILLISECONDS.sleep(20);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package graphql.kickstart.spring.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.schema.StaticDataFetcher;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class QueryCostRateLimiterTest {
+
+  @Test
+  void rejects_clients_that_spent_their_budget() {
+    QueryCostRateLimiter limiter =
+        new QueryCostRateLimiter(
+            QueryCostRateLimitOptions.builder().capacity(10).refillPerSecond(1).build());
+
+    assertThat(limiter.charge("alice", 6)).isZero();
+    assertThat(limiter.charge("alice", 4)).isZero();
+    long wait = limiter.charge("alice", 2);
+    assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(2));
+    assertThat(limiter.charge("bob", 10)).isZero();
+    assertThat(limiter.getRejectedCount()).isOne();
+    assertThat(limiter.getClientCount()).isEqualTo(2);
+  }
+
+  @Test
+  void drops_full_buckets_when_sweeping() throws InterruptedException {
+    QueryCostRateLimiter limiter =
+        new QueryCostRateLimiter(
+            QueryCostRateLimitOptions.builder()
+                .capacity(10)
+                .refillPerSecond(1000)
+                .stripes(1)
+                .sweepInterval(Duration.ZERO)
+                .build());
+
+    limiter.charge("alice", 10);
+    limiter.charge("bob", 10);
+    Thread.sleep(20);
+    limiter.charge("carol", 1);
+
+    assertThat(limiter.getClientCount()).isOne();
+    assertThat(limiter.charge("alice", 10)).isZero();
+  }
+
+  @Test
+  void aborts_the_queries_exceeding_the_budget() {
+    QueryCostRateLimiter limiter =
+        new QueryCostRateLimiter(
+            QueryCostRateLimitOptions.builder().capacity(3).refillPerSecond(1).build());
+    AtomicLong retryAfter = new AtomicLong();
+    RateLimitKeyResolver keyResolver =
+        new RateLimitKeyResolver() {
+          @Override
+          public Object resolve(ExecutionInput executionInput) {
+            return "alice";
+          }
+
+          @Override
+          public void rejected(ExecutionInput executionInput, long retryAfterSeconds) {
+            retryAfter.set(retryAfterSeconds);
+          }
+        };
+    GraphQL graphQL =
+        GraphQL.newGraphQL(
+                new SchemaGenerator()
+                    .makeExecutableSchema(
+                        new SchemaParser().parse("type Query { hello: String }"),
+                        RuntimeWiring.newRuntimeWiring()
+                            .type(
+                                "Query",
+                                type -> type.dataFetcher("hello", new StaticDataFetcher("world")))
+                            .build()))
+            .instrumentation(new QueryCostRateLimitInstrumentation(limiter, keyResolver))
+            .build();
+
+    assertThat(graphQL.execute("{ a: hello b: hello }").getErrors()).isEmpty();
+    ExecutionResult rejected = graphQL.execute("{ a: hello b: hello }");
+
+    assertThat(rejected.<Object>getData()).isNull();
+    assertThat(rejected.getErrors()).hasSize(1);
+    GraphQLError error = rejected.getErrors().get(0);
+    assertThat(error.getExtensions())
+        .containsEntry("code", QueryCostRateLimitInstrumentation.RATE_LIMITED)
+        .containsEntry("retryAfter", 1L);
+    assertThat(retryAfter).hasValue(1);
+  }
+}
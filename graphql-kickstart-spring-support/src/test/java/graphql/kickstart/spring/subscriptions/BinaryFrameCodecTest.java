@@ -0,0 +1,56 @@
+package graphql.kickstart.spring.subscriptions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage.Type;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BinaryFrameCodecTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final BinaryFrameCodec codec =
+      BinaryFrameFormat.CBOR.createCodec("graphql-ws", objectMapper);
+
+  @Test
+  void encodes_messages_with_the_binary_format() throws IOException {
+    OperationMessage message =
+        new OperationMessage(
+            Type.GQL_DATA,
+            "1",
+            Collections.singletonMap("data", Collections.singletonMap("hello", 42)));
+
+    byte[] frame = codec.encode(message);
+
+    assertThat(new ObjectMapper(new CBORFactory()).readTree(frame))
+        .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(message)));
+    assertThat(frame.length).isLessThan(objectMapper.writeValueAsBytes(message).length);
+  }
+
+  @Test
+  void decodes_frames_to_json() throws IOException {
+    String json = "{\"type\":\"start\",\"id\":\"1\",\"payload\":{\"query\":\"{ hello }\"}}";
+
+    String decoded = codec.decode(new ByteArrayInputStream(codec.encode(json)));
+
+    assertThat(objectMapper.readTree(decoded)).isEqualTo(objectMapper.readTree(json));
+  }
+
+  @Test
+  void only_creates_codecs_for_available_formats() {
+    List<BinaryFrameCodec> codecs =
+        BinaryFrameFormat.createCodecs(
+            Arrays.asList(BinaryFrameFormat.values()), "graphql-ws", objectMapper);
+
+    assertThat(codecs)
+        .extracting(BinaryFrameCodec::getSubProtocol)
+        .containsExactly("graphql-ws+cbor");
+  }
+}
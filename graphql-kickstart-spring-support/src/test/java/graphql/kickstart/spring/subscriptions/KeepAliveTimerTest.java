@@ -0,0 +1,96 @@
+package graphql.kickstart.spring.subscriptions;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class KeepAliveTimerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final KeepAliveTimer timer =
+      new KeepAliveTimer(Duration.ofMillis(200), Duration.ofMillis(20), clock::get, false);
+
+  @AfterEach
+  void shutdown() {
+    timer.shutdown();
+  }
+
+  @Test
+  void sends_keep_alive_on_register_and_every_interval() {
+    SubscriptionSession session = mock(SubscriptionSession.class);
+    when(session.isOpen()).thenReturn(true);
+
+    timer.register(session);
+    verify(session, times(1)).sendMessage(any());
+
+    advance(190);
+    verify(session, times(1)).sendMessage(any());
+    advance(10);
+    verify(session, times(2)).sendMessage(any());
+    advance(400);
+    verify(session, times(4)).sendMessage(any());
+  }
+
+  @Test
+  void skips_keep_alive_for_active_session() {
+    SubscriptionSession session =
+        mock(
+            SubscriptionSession.class,
+            withSettings().extraInterfaces(SubscriptionSessionActivity.class));
+    when(session.isOpen()).thenReturn(true);
+    when(((SubscriptionSessionActivity) session).getLastSentNanos()).thenAnswer(i -> clock.get());
+
+    timer.register(session);
+    advance(600);
+
+    verify(session, times(1)).sendMessage(any());
+  }
+
+  @Test
+  void removes_closed_session() {
+    SubscriptionSession session = mock(SubscriptionSession.class);
+    when(session.isOpen()).thenReturn(false);
+
+    timer.register(session);
+    advance(200);
+
+    verify(session, times(1)).isOpen();
+    Assertions.assertThat(timer.getSessionCount()).isZero();
+  }
+
+  @Test
+  void unregister_stops_keep_alive() {
+    SubscriptionSession session = mock(SubscriptionSession.class);
+    when(session.isOpen()).thenReturn(true);
+
+    timer.register(session);
+    timer.unregister(session);
+    advance(400);
+
+    verify(session, times(1)).sendMessage(any());
+  }
+
+  @Test
+  void reports_the_lag_of_late_ticks() {
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(25));
+    timer.advance();
+
+    Assertions.assertThat(timer.getTickLag()).isEqualTo(Duration.ofMillis(5));
+  }
+
+  private void advance(long millis) {
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    timer.advance();
+  }
+}
@@ -0,0 +1,85 @@
+package graphql.kickstart.spring.subscriptions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission.Decision;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionAdmissionTest {
+
+  @Test
+  void limits_concurrent_sessions() {
+    SubscriptionAdmission admission =
+        new SubscriptionAdmission(SubscriptionLimits.builder().maxSessions(2).build());
+
+    assertThat(admission.tryAcquireSession()).isTrue();
+    assertThat(admission.tryAcquireSession()).isTrue();
+    assertThat(admission.hasSessionCapacity()).isFalse();
+    assertThat(admission.tryAcquireSession()).isFalse();
+
+    admission.releaseSession();
+
+    assertThat(admission.hasSessionCapacity()).isTrue();
+    assertThat(admission.tryAcquireSession()).isTrue();
+    assertThat(admission.getSessionCount()).isEqualTo(2);
+  }
+
+  @Test
+  void limits_active_subscriptions_per_session() {
+    SessionAdmission session =
+        new SubscriptionAdmission(
+                SubscriptionLimits.builder().maxSubscriptionsPerSession(2).build())
+            .newSession();
+
+    assertThat(session.tryStart("1")).isEqualTo(Decision.ADMITTED);
+    assertThat(session.tryStart("2")).isEqualTo(Decision.ADMITTED);
+    assertThat(session.tryStart("3")).isEqualTo(Decision.SUBSCRIPTION_LIMIT);
+    // restarting an active id does not take another slot
+    assertThat(session.tryStart("2")).isEqualTo(Decision.ADMITTED);
+
+    session.release("1");
+
+    assertThat(session.tryStart("3")).isEqualTo(Decision.ADMITTED);
+    assertThat(session.getSubscriptionCount()).isEqualTo(2);
+  }
+
+  @Test
+  void limits_start_rate_after_burst() {
+    SessionAdmission session =
+        new SubscriptionAdmission(
+                SubscriptionLimits.builder().startsPerSecond(0.5).startBurst(3).build())
+            .newSession();
+
+    assertThat(session.tryStart("1")).isEqualTo(Decision.ADMITTED);
+    assertThat(session.tryStart("2")).isEqualTo(Decision.ADMITTED);
+    assertThat(session.tryStart("3")).isEqualTo(Decision.ADMITTED);
+    assertThat(session.tryStart("4")).isEqualTo(Decision.RATE_LIMIT);
+    assertThat(session.getSubscriptionCount()).isEqualTo(3);
+  }
+
+  @Test
+  void unlimited_by_default() {
+    SubscriptionAdmission admission = new SubscriptionAdmission(SubscriptionLimits.unlimited());
+    SessionAdmission session = admission.newSession();
+
+    for (int i = 0; i < 1000; i++) {
+      assertThat(admission.tryAcquireSession()).isTrue();
+      assertThat(session.tryStart(String.valueOf(i))).isEqualTo(Decision.ADMITTED);
+    }
+  }
+
+  @Test
+  void wraps_consumers_only_when_subscriptions_are_limited() {
+    assertThat(new SubscriptionAdmission(SubscriptionLimits.unlimited()).isLimitingSubscriptions())
+        .isFalse();
+    assertThat(
+            new SubscriptionAdmission(SubscriptionLimits.builder().maxSessions(1).build())
+                .isLimitingSubscriptions())
+        .isFalse();
+    assertThat(
+            new SubscriptionAdmission(
+                    SubscriptionLimits.builder().maxSubscriptionsPerSession(1).build())
+                .isLimitingSubscriptions())
+        .isTrue();
+  }
+}
@@ -0,0 +1,130 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+class LocalSubscriptionEventBusTest {
+
+  private final List<String> added = new ArrayList<>();
+  private final List<String> removed = new ArrayList<>();
+  private final LocalSubscriptionEventBus eventBus =
+      new LocalSubscriptionEventBus() {
+        @Override
+        protected void topicAdded(String topic) {
+          added.add(topic);
+        }
+
+        @Override
+        protected void topicRemoved(String topic) {
+          removed.add(topic);
+        }
+      };
+
+  @Test
+  void fans_out_events_to_all_listeners_of_a_topic() {
+    List<Object> first = new ArrayList<>();
+    List<Object> second = new ArrayList<>();
+    List<Object> other = new ArrayList<>();
+    eventBus.subscribe("news", first::add);
+    eventBus.subscribe("news", second::add);
+    eventBus.subscribe("weather", other::add);
+
+    eventBus.publish("news", "hello");
+
+    assertThat(first).containsExactly("hello");
+    assertThat(second).containsExactly("hello");
+    assertThat(other).isEmpty();
+  }
+
+  @Test
+  void consumes_a_topic_once_while_it_has_listeners() {
+    TopicSubscription first = eventBus.subscribe("news", event -> {});
+    TopicSubscription second = eventBus.subscribe("news", event -> {});
+
+    first.cancel();
+    assertThat(removed).isEmpty();
+    second.cancel();
+
+    assertThat(added).containsExactly("news");
+    assertThat(removed).containsExactly("news");
+    assertThat(eventBus.getTopics()).isEmpty();
+  }
+
+  @Test
+  void publisher_removes_listener_on_cancel() {
+    List<Object> received = new ArrayList<>();
+    Subscription[] subscription = new Subscription[1];
+    eventBus
+        .publisher("news")
+        .subscribe(
+            new Subscriber<Object>() {
+              @Override
+              public void onSubscribe(Subscription s) {
+                subscription[0] = s;
+                s.request(Long.MAX_VALUE);
+              }
+
+              @Override
+              public void onNext(Object event) {
+                received.add(event);
+              }
+
+              @Override
+              public void onError(Throwable t) {}
+
+              @Override
+              public void onComplete() {}
+            });
+
+    eventBus.publish("news", "hello");
+    subscription[0].cancel();
+    eventBus.publish("news", "ignored");
+
+    assertThat(received).containsExactly("hello");
+    assertThat(eventBus.getTopics()).isEmpty();
+  }
+
+  @Test
+  void publisher_fails_subscribers_that_fall_behind() {
+    List<Object> received = new ArrayList<>();
+    List<Throwable> errors = new ArrayList<>();
+    Subscription[] subscription = new Subscription[1];
+    eventBus
+        .publisher("news", 2)
+        .subscribe(
+            new Subscriber<Object>() {
+              @Override
+              public void onSubscribe(Subscription s) {
+                subscription[0] = s;
+              }
+
+              @Override
+              public void onNext(Object event) {
+                received.add(event);
+              }
+
+              @Override
+              public void onError(Throwable t) {
+                errors.add(t);
+              }
+
+              @Override
+              public void onComplete() {}
+            });
+
+    eventBus.publish("news", "first");
+    eventBus.publish("news", "second");
+    eventBus.publish("news", "overflow");
+    subscription[0].request(10);
+
+    // the error is signalled ahead of the buffered events
+    assertThat(received).isEmpty();
+    assertThat(errors).singleElement().isInstanceOf(TopicPublisher.BufferOverflowException.class);
+    assertThat(eventBus.getTopics()).isEmpty();
+  }
+}
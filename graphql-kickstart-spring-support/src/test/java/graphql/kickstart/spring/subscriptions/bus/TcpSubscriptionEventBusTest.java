@@ -0,0 +1,163 @@
+package graphql.kickstart.spring.subscriptions.bus;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TcpSubscriptionEventBusTest {
+
+  private TcpSubscriptionEventBus publisher;
+  private TcpSubscriptionEventBus consumer;
+
+  @BeforeEach
+  void start() throws IOException {
+    publisher =
+        new TcpSubscriptionEventBus(
+            TcpEventBusOptions.builder().build(), new JacksonSubscriptionEventCodec());
+    publisher.start();
+    consumer =
+        new TcpSubscriptionEventBus(
+            TcpEventBusOptions.builder()
+                .peers(singletonList(new InetSocketAddress("127.0.0.1", publisher.getLocalPort())))
+                .reconnectDelay(Duration.ofMillis(50))
+                .build(),
+            new JacksonSubscriptionEventCodec());
+    consumer.start();
+  }
+
+  @AfterEach
+  void close() {
+    consumer.close();
+    publisher.close();
+  }
+
+  @Test
+  void delivers_events_to_every_listener_of_a_peer() throws InterruptedException {
+    List<Object> first = new CopyOnWriteArrayList<>();
+    List<Object> second = new CopyOnWriteArrayList<>();
+    List<Object> local = new CopyOnWriteArrayList<>();
+    consumer.subscribe("news", first::add);
+    consumer.subscribe("news", second::add);
+    publisher.subscribe("news", local::add);
+    await(() -> publisher.hasRemoteListeners("news"));
+
+    for (int i = 0; i < 100; i++) {
+      publisher.publish("news", singletonMap("headline", i));
+    }
+    await(() -> first.size() == 100 && second.size() == 100);
+
+    assertThat(first).hasSize(100).startsWith(singletonMap("headline", 0));
+    assertThat(second).isEqualTo(first);
+    assertThat(local).hasSize(100);
+  }
+
+  @Test
+  void stops_sending_events_once_the_last_listener_is_gone() throws InterruptedException {
+    List<Object> received = new CopyOnWriteArrayList<>();
+    TopicSubscription subscription = consumer.subscribe("news", received::add);
+    consumer.subscribe("weather", event -> {});
+    await(() -> publisher.hasRemoteListeners("news"));
+
+    subscription.cancel();
+    await(() -> !publisher.hasRemoteListeners("news"));
+    publisher.publish("news", "ignored");
+
+    assertThat(publisher.hasRemoteListeners("news")).isFalse();
+    assertThat(publisher.hasRemoteListeners("weather")).isTrue();
+    assertThat(received).isEmpty();
+  }
+
+  @Test
+  void announces_topics_again_after_reconnecting() throws InterruptedException {
+    List<Object> received = new CopyOnWriteArrayList<>();
+    consumer.subscribe("news", received::add);
+    await(() -> publisher.hasRemoteListeners("news"));
+
+    publisher.disconnectPeers();
+    assertThat(publisher.hasRemoteListeners("news")).isFalse();
+    await(() -> publisher.hasRemoteListeners("news"));
+    publisher.publish("news", "hello");
+    await(() -> !received.isEmpty());
+
+    assertThat(received).containsExactly("hello");
+  }
+
+  @Test
+  void drops_peers_sending_frames_above_the_limit() throws IOException, InterruptedException {
+    try (ServerSocket peer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      TcpSubscriptionEventBus limited =
+          new TcpSubscriptionEventBus(
+              TcpEventBusOptions.builder()
+                  .peers(singletonList(new InetSocketAddress("127.0.0.1", peer.getLocalPort())))
+                  .maxFrameBytes(1024)
+                  .reconnectDelay(Duration.ofMinutes(1))
+                  .build(),
+              new JacksonSubscriptionEventCodec());
+      limited.start();
+      try (Socket connection = peer.accept()) {
+        connection.setSoTimeout(2000);
+        DataOutputStream out = new DataOutputStream(connection.getOutputStream());
+        out.writeByte(TcpSubscriptionEventBus.EVENTS);
+        out.writeInt(1);
+        out.writeUTF("news");
+        out.writeInt(1025);
+        out.flush();
+
+        // the bus closes the connection instead of waiting for the announced payload
+        assertThat(connection.getInputStream().read()).isEqualTo(-1);
+      } finally {
+        limited.close();
+      }
+    }
+  }
+
+  @Test
+  void drops_peers_announcing_too_many_topics() throws IOException, InterruptedException {
+    TcpSubscriptionEventBus limited =
+        new TcpSubscriptionEventBus(
+            TcpEventBusOptions.builder().maxTopics(2).build(), new JacksonSubscriptionEventCodec());
+    limited.start();
+    try (Socket connection = new Socket(InetAddress.getLoopbackAddress(), limited.getLocalPort())) {
+      connection.setSoTimeout(2000);
+      DataOutputStream out = new DataOutputStream(connection.getOutputStream());
+      for (String topic : new String[] {"news", "news", "weather"}) {
+        out.writeByte(TcpSubscriptionEventBus.SUBSCRIBE);
+        out.writeUTF(topic);
+      }
+      out.flush();
+      await(() -> limited.hasRemoteListeners("weather"));
+      assertThat(limited.hasRemoteListeners("news")).isTrue();
+
+      out.writeByte(TcpSubscriptionEventBus.SUBSCRIBE);
+      out.writeUTF("sports");
+      out.flush();
+
+      assertThat(connection.getInputStream().read()).isEqualTo(-1);
+      await(() -> !limited.hasRemoteListeners("news"));
+      assertThat(limited.hasRemoteListeners("news")).isFalse();
+    } finally {
+      limited.close();
+    }
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+      TimeUnit.MILLISECONDS.sleep(50);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package graphql.kickstart.spring.subscriptions.delta;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class JsonPatchDeltaEncoderTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void diffs_objects_and_arrays() throws IOException {
+    JsonNode source = mapper.readTree("{\"a\":1,\"b/c\":2,\"list\":[1,2,3],\"gone\":true}");
+    JsonNode target = mapper.readTree("{\"a\":1,\"b/c\":3,\"list\":[1,4],\"new\":{\"x\":1}}");
+
+    assertThat(JsonPatch.diff(source, target))
+        .isEqualTo(
+            mapper.readTree(
+                "[{\"op\":\"remove\",\"path\":\"/gone\"},"
+                    + "{\"op\":\"replace\",\"path\":\"/b~1c\",\"value\":3},"
+                    + "{\"op\":\"replace\",\"path\":\"/list/1\",\"value\":4},"
+                    + "{\"op\":\"remove\",\"path\":\"/list/2\"},"
+                    + "{\"op\":\"add\",\"path\":\"/new\",\"value\":{\"x\":1}}]"));
+    assertThat(JsonPatch.diff(target, target)).isEmpty();
+  }
+
+  @Test
+  void sends_patches_between_snapshots() throws IOException {
+    JsonPatchDeltaEncoder encoder = new JsonPatchDeltaEncoder(2);
+    String name = "\"name\":\"a name long enough for patches to be smaller than the payload\"";
+
+    assertThat(encoder.encode("{\"data\":{\"n\":1," + name + "}}"))
+        .isEqualTo(mapper.readTree("{\"data\":{\"n\":1," + name + "}}"));
+    assertThat(encoder.encode("{\"data\":{\"n\":2," + name + "}}"))
+        .isEqualTo(
+            mapper.readTree("{\"patch\":[{\"op\":\"replace\",\"path\":\"/data/n\",\"value\":2}]}"));
+    assertThat(encoder.encode("{\"data\":{\"n\":3," + name + "}}"))
+        .isEqualTo(mapper.readTree("{\"data\":{\"n\":3," + name + "}}"));
+  }
+
+  @Test
+  void sends_payloads_smaller_than_their_patch_in_full() throws IOException {
+    JsonPatchDeltaEncoder encoder = new JsonPatchDeltaEncoder(10);
+
+    encoder.encode("{\"data\":{\"n\":1}}");
+
+    assertThat(encoder.encode("{\"data\":{\"n\":2}}"))
+        .isEqualTo(mapper.readTree("{\"data\":{\"n\":2}}"));
+  }
+}
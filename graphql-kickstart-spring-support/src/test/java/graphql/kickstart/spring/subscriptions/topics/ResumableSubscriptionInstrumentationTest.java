@@ -0,0 +1,74 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+
+class ResumableSubscriptionInstrumentationTest {
+
+  private final TopicRegistry registry =
+      new TopicRegistry(TopicRegistryOptions.builder().resumeEvents(10).build(), null);
+
+  @Test
+  void adds_the_id_of_its_event_to_each_result() {
+    List<ExecutionResult> results = new ArrayList<>();
+    Subscription[] subscription = new Subscription[1];
+    // a transport conflating results the client has not requested yet
+    Flux.from(subscribe())
+        .onBackpressureLatest()
+        .subscribe(results::add, error -> {}, () -> {}, s -> subscription[0] = s);
+    subscription[0].request(1);
+    registry.publish("news", "a");
+    registry.publish("news", "b");
+    registry.publish("news", "c");
+    subscription[0].request(1);
+
+    assertThat(results).hasSize(2);
+    assertThat(results.get(1).<Object>getData()).hasToString("{news=c}");
+    assertThat(eventId(results.get(1))).isEqualTo(eventId(results.get(0)) + 2);
+  }
+
+  @Test
+  void leaves_the_results_of_other_operations_alone() {
+    ExecutionResult result = graphQL().execute("{ version }");
+
+    assertThat(result.getExtensions()).isNull();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Publisher<ExecutionResult> subscribe() {
+    return (Publisher<ExecutionResult>) graphQL().execute("subscription { news }").getData();
+  }
+
+  private GraphQL graphQL() {
+    return GraphQL.newGraphQL(
+            new SchemaGenerator()
+                .makeExecutableSchema(
+                    new SchemaParser()
+                        .parse(
+                            "type Query { version: String }"
+                                + " type Subscription { news: String }"),
+                    RuntimeWiring.newRuntimeWiring()
+                        .type("Query", type -> type.dataFetcher("version", env -> "1"))
+                        .type(
+                            "Subscription",
+                            type -> type.dataFetcher("news", env -> registry.topic("news")))
+                        .build()))
+        .instrumentation(new ResumableSubscriptionInstrumentation())
+        .build();
+  }
+
+  private static long eventId(ExecutionResult result) {
+    return Long.parseLong((String) ResumableSubscriptions.eventId(result));
+  }
+}
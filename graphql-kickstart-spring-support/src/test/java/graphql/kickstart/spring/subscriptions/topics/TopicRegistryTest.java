@@ -0,0 +1,219 @@
+package graphql.kickstart.spring.subscriptions.topics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.context.PayloadApplicationEvent;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+class TopicRegistryTest {
+
+  private final AtomicInteger activations = new AtomicInteger();
+  private final AtomicInteger deactivations = new AtomicInteger();
+  private final List<Consumer<Object>> emitters = new ArrayList<>();
+  private final TopicRegistry registry =
+      new TopicRegistry(
+          TopicRegistryOptions.builder().stripes(4).replay(2).build(),
+          (topic, emitter) -> {
+            activations.incrementAndGet();
+            emitters.add(emitter);
+            return deactivations::incrementAndGet;
+          });
+
+  @Test
+  void shares_one_upstream_between_the_subscribers_of_a_topic() {
+    List<Object> first = new ArrayList<>();
+    List<Object> second = new ArrayList<>();
+    Disposable firstSubscription = Flux.from(registry.topic("news")).subscribe(first::add);
+    Disposable secondSubscription = Flux.from(registry.topic("news")).subscribe(second::add);
+
+    emitters.get(0).accept("hello");
+
+    assertThat(activations).hasValue(1);
+    assertThat(first).containsExactly("hello");
+    assertThat(second).containsExactly("hello");
+
+    firstSubscription.dispose();
+    assertThat(deactivations).hasValue(0);
+    secondSubscription.dispose();
+    assertThat(deactivations).hasValue(1);
+    assertThat(registry.getTopicCount()).isZero();
+  }
+
+  @Test
+  void replays_recent_events_to_late_subscribers() {
+    Disposable subscription = Flux.from(registry.topic("news")).subscribe();
+    registry.publish("news", "a");
+    registry.publish("news", "b");
+    registry.publish("news", "c");
+
+    List<Object> late = new ArrayList<>();
+    Flux.from(registry.topic("news")).subscribe(late::add);
+
+    assertThat(late).containsExactly("b", "c");
+    subscription.dispose();
+  }
+
+  @Test
+  void routes_application_events_to_their_topic() {
+    List<Object> news = new ArrayList<>();
+    List<Object> weather = new ArrayList<>();
+    Flux.from(registry.topic("news")).subscribe(news::add);
+    Flux.from(registry.topic("weather")).subscribe(weather::add);
+
+    registry.onApplicationEvent(new PayloadApplicationEvent<>(this, new Headline("extra")));
+    registry.publish("sports", "dropped");
+
+    assertThat(news).containsExactly("extra");
+    assertThat(weather).isEmpty();
+  }
+
+  @Test
+  void starts_a_new_topic_after_teardown() {
+    Flux.from(registry.topic("news")).take(1).subscribe();
+    registry.publish("news", "first");
+
+    List<Object> events = new ArrayList<>();
+    Flux.from(registry.topic("news")).subscribe(events::add);
+    registry.publish("news", "second");
+
+    assertThat(activations).hasValue(2);
+    assertThat(events).containsExactly("second");
+  }
+
+  @Test
+  void applies_the_overflow_strategy_to_slow_subscribers() {
+    TopicRegistry dropping =
+        new TopicRegistry(
+            TopicRegistryOptions.builder()
+                .subscriberBuffer(2)
+                .overflow(BufferOverflowStrategy.DROP_OLDEST)
+                .build(),
+            null);
+    List<Object> events = new ArrayList<>();
+    Subscription[] subscription = new Subscription[1];
+    Flux.from(dropping.topic("news"))
+        .subscribe(events::add, error -> {}, () -> {}, s -> subscription[0] = s);
+    dropping.publish("news", "a");
+    dropping.publish("news", "b");
+    dropping.publish("news", "c");
+    subscription[0].request(Long.MAX_VALUE);
+
+    assertThat(events).containsExactly("b", "c");
+    assertThat(dropping.getDroppedEvents()).isEqualTo(1);
+  }
+
+  @Test
+  void fails_slow_subscribers_by_default() {
+    TopicRegistry failing =
+        new TopicRegistry(TopicRegistryOptions.builder().subscriberBuffer(2).build(), null);
+    List<Object> events = new ArrayList<>();
+    List<Throwable> errors = new ArrayList<>();
+    Subscription[] subscription = new Subscription[1];
+    Flux.from(failing.topic("news"))
+        .subscribe(events::add, errors::add, () -> {}, s -> subscription[0] = s);
+    failing.publish("news", "a");
+    failing.publish("news", "b");
+    failing.publish("news", "c");
+    subscription[0].request(Long.MAX_VALUE);
+
+    // the buffered events are delivered ahead of the error
+    assertThat(events).containsExactly("a", "b");
+    assertThat(errors).singleElement().matches(Exceptions::isOverflow);
+    assertThat(failing.getTopicCount()).isZero();
+  }
+
+  @Test
+  void resumes_after_the_last_event_seen() {
+    TopicRegistry resumable =
+        new TopicRegistry(TopicRegistryOptions.builder().replay(1).resumeEvents(3).build(), null);
+    ResumableTopicPublisher first = (ResumableTopicPublisher) resumable.topic("news");
+    Disposable subscription = Flux.from(first).subscribe();
+    resumable.publish("news", "a");
+    long seen = first.eventId("a");
+    subscription.dispose();
+    // recorded while the client is away
+    resumable.publish("news", "b");
+    resumable.publish("news", "c");
+
+    ResumableTopicPublisher resumed = (ResumableTopicPublisher) resumable.topic("news");
+    resumed.resumeAfter(seen);
+    List<Object> events = new ArrayList<>();
+    Flux.from(resumed).subscribe(events::add);
+    resumable.publish("news", "d");
+
+    assertThat(events).containsExactly("b", "c", "d");
+    assertThat(resumed.eventId("b")).isEqualTo(seen + 1);
+    // events whose ids are not taken, like events filtered out, are skipped
+    assertThat(resumed.eventId("d")).isEqualTo(seen + 3);
+    assertThat(resumed.eventId("c")).isNull();
+    List<Object> late = new ArrayList<>();
+    Flux.from(resumable.topic("news")).subscribe(late::add);
+    assertThat(late).containsExactly("d");
+  }
+
+  @Test
+  void keeps_a_bounded_number_of_events() {
+    TopicRegistry resumable =
+        new TopicRegistry(TopicRegistryOptions.builder().resumeEvents(2).build(), null);
+    Flux.from(resumable.topic("news")).take(1).subscribe();
+    resumable.publish("news", "a");
+    resumable.publish("news", "b");
+    resumable.publish("news", "c");
+
+    ResumableTopicPublisher resumed = (ResumableTopicPublisher) resumable.topic("news");
+    resumed.resumeAfter(0);
+    List<Object> events = new ArrayList<>();
+    Flux.from(resumed).subscribe(events::add);
+
+    assertThat(events).containsExactly("b", "c");
+  }
+
+  @Test
+  void drops_idle_resumable_topics_after_the_maximum_age() throws InterruptedException {
+    TopicRegistry resumable =
+        new TopicRegistry(
+            TopicRegistryOptions.builder()
+                .resumeEvents(2)
+                .resumeMaxAge(Duration.ofMillis(50))
+                .build(),
+            (topic, emitter) -> deactivations::incrementAndGet);
+    Flux.from(resumable.topic("news")).subscribe().dispose();
+    assertThat(resumable.getTopicCount()).isOne();
+    assertThat(deactivations).hasValue(0);
+
+    for (int i = 0; i < 100 && resumable.getTopicCount() > 0; i++) {
+      Thread.sleep(10);
+    }
+    assertThat(resumable.getTopicCount()).isZero();
+    assertThat(deactivations).hasValue(1);
+  }
+
+  private static class Headline implements TopicEvent {
+
+    private final String text;
+
+    Headline(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public Object getTopic() {
+      return "news";
+    }
+
+    @Override
+    public Object getPayload() {
+      return text;
+    }
+  }
+}
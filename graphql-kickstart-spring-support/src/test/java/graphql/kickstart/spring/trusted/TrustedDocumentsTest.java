@@ -0,0 +1,111 @@
+package graphql.kickstart.spring.trusted;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.kickstart.execution.GraphQLRequest;
+import graphql.kickstart.spring.incremental.IncrementalQuery;
+import graphql.kickstart.spring.limits.DocumentParser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.StaticDataFetcher;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TrustedDocumentsTest {
+
+  private final GraphQLSchema schema =
+      new SchemaGenerator()
+          .makeExecutableSchema(
+              new SchemaParser().parse("type Query { hello: String }"),
+              RuntimeWiring.newRuntimeWiring()
+                  .type("Query", type -> type.dataFetcher("hello", new StaticDataFetcher("world")))
+                  .build());
+
+  private TrustedDocuments trustedDocuments(boolean allowUntrusted) {
+    Map<String, String> manifest = new HashMap<>();
+    manifest.put("hello", "{ hello }");
+    manifest.put("removed", "{ goodbye }");
+    manifest.put("broken", "{ hello");
+    return new TrustedDocuments(schema, manifest, allowUntrusted);
+  }
+
+  private ExecutionResult execute(TrustedDocuments trustedDocuments, ExecutionInput input) {
+    return GraphQL.newGraphQL(schema)
+        .preparsedDocumentProvider(trustedDocuments)
+        .build()
+        .execute(input);
+  }
+
+  private ExecutionInput byId(String id) {
+    return ExecutionInput.newExecutionInput("")
+        .extensions(Collections.singletonMap(TrustedDocuments.DOCUMENT_ID, id))
+        .build();
+  }
+
+  @Test
+  void reports_the_invalid_documents_of_the_manifest() {
+    TrustedDocuments trustedDocuments = trustedDocuments(false);
+
+    assertThat(trustedDocuments.size()).isOne();
+    assertThat(trustedDocuments.getInvalidDocuments()).containsOnlyKeys("removed", "broken");
+  }
+
+  @Test
+  void executes_documents_by_id_only() {
+    TrustedDocuments trustedDocuments = trustedDocuments(false);
+
+    ExecutionResult trusted = execute(trustedDocuments, byId("hello"));
+    assertThat(trusted.getErrors()).isEmpty();
+    assertThat(trusted.<Map<String, Object>>getData()).containsEntry("hello", "world");
+
+    assertThat(execute(trustedDocuments, byId("removed")).getErrors()).hasSize(1);
+    assertThat(execute(trustedDocuments, byId("unknown")).getErrors()).hasSize(1);
+    ExecutionResult untrusted =
+        execute(trustedDocuments, ExecutionInput.newExecutionInput("{ hello }").build());
+    assertThat(untrusted.getErrors()).hasSize(1);
+    assertThat(untrusted.<Object>getData()).isNull();
+  }
+
+  @Test
+  void executes_untrusted_documents_when_allowed() {
+    ExecutionResult result =
+        execute(trustedDocuments(true), ExecutionInput.newExecutionInput("{ hello }").build());
+
+    assertThat(result.getErrors()).isEmpty();
+  }
+
+  @Test
+  void keeps_the_parser_away_from_untrusted_text() {
+    DocumentParser trustedOnly = trustedDocuments(false).parser(new DocumentParser());
+    DocumentParser untrustedAllowed = trustedDocuments(true).parser(new DocumentParser());
+    Map<String, Object> byId = Collections.singletonMap(TrustedDocuments.DOCUMENT_ID, "hello");
+
+    assertThat(trustedOnly.parse("{ hello }", null)).isNull();
+    assertThat(trustedOnly.parse("{ hello }", byId)).isNull();
+    assertThat(untrustedAllowed.parse("{ hello }", byId)).isNull();
+    assertThat(untrustedAllowed.parse("{ hello }", null)).isNotNull();
+    assertThat(IncrementalQuery.split("{ hello @stream }", null, null, null, trustedOnly)).isNull();
+  }
+
+  @Test
+  void reads_requests_carrying_only_a_document_id() throws Exception {
+    ObjectMapper objectMapper =
+        new ObjectMapper().registerModule(new TrustedDocumentRequestModule());
+
+    GraphQLRequest request =
+        objectMapper.readValue(
+            "{\"documentId\": \"hello\", \"variables\": {\"id\": 1}}", GraphQLRequest.class);
+
+    assertThat(request.getQuery()).isEmpty();
+    assertThat(request.getExtensions()).containsEntry(TrustedDocuments.DOCUMENT_ID, "hello");
+    assertThat(request.getVariables()).containsEntry("id", 1);
+  }
+}
@@ -0,0 +1,11 @@
+package graphql.kickstart.spring.webflux;
+
+/** Subscription session that can be wound down gracefully before its connection is closed. */
+public interface DrainableSubscriptionSession {
+
+  /** Subscriptions started from now on are completed right away. */
+  void stopAccepting();
+
+  /** Cancels all active subscriptions, sending a complete message for each of them. */
+  void completeAll();
+}
@@ -0,0 +1,28 @@
+package graphql.kickstart.spring.webflux;
+
+import graphql.ExecutionInput;
+import graphql.kickstart.spring.coalescing.QueryCoalescingDiscriminator;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.server.ServerWebExchange;
+
+/** Discriminates the HTTP queries by the values of the headers carrying the credentials. */
+@RequiredArgsConstructor
+public class ExchangeHeadersDiscriminator implements QueryCoalescingDiscriminator {
+
+  private final List<String> headers;
+
+  @Override
+  public Object discriminate(ExecutionInput executionInput) {
+    ServerWebExchange exchange = executionInput.getGraphQLContext().get(ServerWebExchange.class);
+    if (exchange == null) {
+      return null;
+    }
+    List<List<String>> values = new ArrayList<>(headers.size());
+    for (String header : headers) {
+      values.add(exchange.getRequest().getHeaders().getOrEmpty(header));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,82 @@
+package graphql.kickstart.spring.webflux;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import graphql.kickstart.spring.ratelimit.RateLimitKey;
+import graphql.kickstart.spring.ratelimit.RateLimitKeyResolver;
+import java.net.InetSocketAddress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Identifies the clients of the HTTP queries, the queries over websockets are not limited. The key
+ * is resolved within the reactive chain of the exchange by {@link #resolveKey(GraphQLContext)},
+ * before the execution starts, so that the principal can be waited for. An execution whose key was
+ * not resolved beforehand is keyed by the header or the address of the client.
+ */
+@RequiredArgsConstructor
+public class ExchangeRateLimitKeyResolver implements RateLimitKeyResolver {
+
+  private final RateLimitKey key;
+  private final String header;
+
+  /**
+   * Resolves the key of the exchange of an execution and puts it in its context, where {@link
+   * #resolve(ExecutionInput)} looks it up.
+   *
+   * @return the key, empty when the execution has no exchange
+   */
+  public Mono<String> resolveKey(GraphQLContext context) {
+    ServerWebExchange exchange = context.get(ServerWebExchange.class);
+    if (exchange == null) {
+      return Mono.empty();
+    }
+    Mono<String> resolved =
+        key == RateLimitKey.PRINCIPAL
+            ? exchange
+                .getPrincipal()
+                .map(principal -> "principal:" + principal.getName())
+                .switchIfEmpty(Mono.fromSupplier(() -> address(exchange)))
+            : Mono.fromSupplier(() -> withoutPrincipal(exchange));
+    return resolved.doOnNext(value -> context.put(ExchangeRateLimitKeyResolver.class, value));
+  }
+
+  @Override
+  public Object resolve(ExecutionInput executionInput) {
+    GraphQLContext context = executionInput.getGraphQLContext();
+    ServerWebExchange exchange = context.get(ServerWebExchange.class);
+    if (exchange == null) {
+      return null;
+    }
+    String resolved = context.get(ExchangeRateLimitKeyResolver.class);
+    return resolved == null ? withoutPrincipal(exchange) : resolved;
+  }
+
+  private String withoutPrincipal(ServerWebExchange exchange) {
+    if (key == RateLimitKey.HEADER) {
+      String value = exchange.getRequest().getHeaders().getFirst(header);
+      if (value != null) {
+        return "header:" + value;
+      }
+    }
+    return address(exchange);
+  }
+
+  private static String address(ServerWebExchange exchange) {
+    InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+    return "ip:" + (address == null ? null : address.getHostString());
+  }
+
+  @Override
+  public void rejected(ExecutionInput executionInput, long retryAfterSeconds) {
+    ServerWebExchange exchange = executionInput.getGraphQLContext().get(ServerWebExchange.class);
+    if (exchange != null && !exchange.getResponse().isCommitted()) {
+      exchange
+          .getResponse()
+          .getHeaders()
+          .set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+  }
+}
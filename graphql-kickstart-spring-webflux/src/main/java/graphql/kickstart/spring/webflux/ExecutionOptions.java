@@ -0,0 +1,17 @@
+package graphql.kickstart.spring.webflux;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** How {@link GraphQLController} bounds the executions of the operations. */
+@Value
+@Builder
+public class ExecutionOptions {
+
+  /**
+   * Time after which an execution is cancelled and answered with an error. Zero disables the
+   * timeout.
+   */
+  @Builder.Default Duration timeout = Duration.ZERO;
+}
@@ -0,0 +1,18 @@
+package graphql.kickstart.spring.webflux;
+
+import graphql.kickstart.spring.subscriptions.BinaryFrameCodec;
+import org.reactivestreams.Publisher;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+
+/**
+ * Subscription session encoding its outgoing messages into websocket frames itself, text frames or
+ * binary ones once a binary subprotocol has been negotiated.
+ */
+public interface FramedSubscriptionSession {
+
+  /** @return the codec of the negotiated subprotocol, {@code null} for text sessions */
+  BinaryFrameCodec getFrameCodec();
+
+  /** @return the outgoing messages, used instead of the text publisher */
+  Publisher<WebSocketMessage> getMessages();
+}
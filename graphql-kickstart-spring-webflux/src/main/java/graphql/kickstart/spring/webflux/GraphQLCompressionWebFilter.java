@@ -0,0 +1,122 @@
+package graphql.kickstart.spring.webflux;
+
+import graphql.kickstart.spring.compression.CompressionOptions;
+import graphql.kickstart.spring.compression.StreamingGzip;
+import java.io.ByteArrayOutputStream;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gzip compression of the responses of the GraphQL endpoint.
+ *
+ * <p>Responses written at once are compressed when they reach the configured size. Responses
+ * written and flushed part by part, {@code text/event-stream} and {@code multipart/mixed}, are
+ * compressed as one gzip stream with the deflater flushed after every part, so that the client can
+ * decode each part as it arrives.
+ *
+ * <p>Responses carrying a {@code Content-Encoding} already, or starting with the gzip magic number,
+ * are left as they are.
+ */
+@RequiredArgsConstructor
+public class GraphQLCompressionWebFilter implements WebFilter {
+
+  private final String path;
+  private final CompressionOptions options;
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    if (!path.equals(exchange.getRequest().getPath().pathWithinApplication().value())) {
+      return chain.filter(exchange);
+    }
+    exchange.getResponse().getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (!StreamingGzip.isAccepted(
+        exchange.getRequest().getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING))) {
+      return chain.filter(exchange);
+    }
+    return chain.filter(
+        exchange.mutate().response(new CompressingResponse(exchange.getResponse())).build());
+  }
+
+  private class CompressingResponse extends ServerHttpResponseDecorator {
+
+    CompressingResponse(ServerHttpResponse delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      if (getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+        return super.writeWith(body);
+      }
+      return DataBufferUtils.join(body)
+          .defaultIfEmpty(bufferFactory().wrap(new byte[0]))
+          .flatMap(
+              buffer -> {
+                byte[] bytes = read(buffer);
+                if (StreamingGzip.isCompressed(bytes, 0, bytes.length)) {
+                  getHeaders().set(HttpHeaders.CONTENT_ENCODING, StreamingGzip.GZIP);
+                } else if (bytes.length >= options.getMinResponseSize()) {
+                  compressed();
+                  StreamingGzip gzip = new StreamingGzip(options.getLevel());
+                  bytes = concat(gzip.write(bytes, 0, bytes.length), gzip.finish());
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+              });
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+      if (getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+        return super.writeAndFlushWith(body);
+      }
+      compressed();
+      StreamingGzip gzip = new StreamingGzip(options.getLevel());
+      Flux<Mono<DataBuffer>> parts =
+          Flux.from(body)
+              .concatMap(
+                  part ->
+                      Flux.from(part)
+                          .map(this::read)
+                          .reduceWith(
+                              ByteArrayOutputStream::new,
+                              (out, bytes) -> {
+                                byte[] compressed = gzip.write(bytes, 0, bytes.length);
+                                out.write(compressed, 0, compressed.length);
+                                return out;
+                              })
+                          .map(out -> concat(out.toByteArray(), gzip.flush())))
+              .concatWith(Mono.fromCallable(gzip::finish))
+              .map(bytes -> Mono.just(bufferFactory().wrap(bytes)));
+      return super.writeAndFlushWith(parts);
+    }
+
+    private void compressed() {
+      getHeaders().set(HttpHeaders.CONTENT_ENCODING, StreamingGzip.GZIP);
+      getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+    }
+
+    private byte[] read(DataBuffer buffer) {
+      byte[] bytes = new byte[buffer.readableByteCount()];
+      buffer.read(bytes);
+      DataBufferUtils.release(buffer);
+      return bytes;
+    }
+
+    private byte[] concat(byte[] first, byte[] second) {
+      byte[] bytes = new byte[first.length + second.length];
+      System.arraycopy(first, 0, bytes, 0, first.length);
+      System.arraycopy(second, 0, bytes, first.length, second.length);
+      return bytes;
+    }
+  }
+}
@@ -1,23 +1,70 @@
 package graphql.kickstart.spring.webflux;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
 import graphql.kickstart.execution.GraphQLInvoker;
 import graphql.kickstart.execution.GraphQLObjectMapper;
 import graphql.kickstart.execution.GraphQLRequest;
+import graphql.kickstart.execution.error.GenericGraphQLError;
 import graphql.kickstart.execution.input.GraphQLSingleInvocationInput;
 import graphql.kickstart.spring.AbstractGraphQLController;
 import graphql.kickstart.spring.GraphQLSpringInvocationInputFactory;
+import graphql.kickstart.spring.cancellation.CancellationToken;
+import graphql.kickstart.spring.incremental.IncrementalPayloads;
+import graphql.kickstart.spring.incremental.IncrementalQuery;
+import graphql.kickstart.spring.limits.DocumentParser;
+import graphql.kickstart.spring.ratelimit.RateLimitKeyResolver;
+import graphql.kickstart.spring.subscriptions.topics.ResumableSubscriptions;
+import graphql.kickstart.spring.webflux.upload.GraphQLUpload;
+import graphql.kickstart.spring.webflux.upload.MultipartRequestReader;
+import graphql.kickstart.spring.webflux.upload.UploadOptions;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+@Slf4j
 @RestController
 public class GraphQLController extends AbstractGraphQLController {
 
+  static final String MULTIPART_BOUNDARY = "-";
+  private static final MediaType MULTIPART_MIXED =
+      MediaType.parseMediaType("multipart/mixed; boundary=\"" + MULTIPART_BOUNDARY + "\"");
+  private static final String PART_HEADER =
+      "\r\n--" + MULTIPART_BOUNDARY + "\r\nContent-Type: application/json; charset=utf-8\r\n\r\n";
+  private static final String MULTIPART_END = "\r\n--" + MULTIPART_BOUNDARY + "--\r\n";
+
   private final GraphQLObjectMapper objectMapper;
   private final GraphQLInvoker graphQLInvoker;
   private final GraphQLSpringInvocationInputFactory invocationInputFactory;
+  private SubscriptionStreamOptions streamOptions = SubscriptionStreamOptions.builder().build();
+  private ExecutionOptions executionOptions = ExecutionOptions.builder().build();
+  private boolean incrementalDelivery;
+  private DocumentParser documentParser = new DocumentParser();
+  private ExchangeRateLimitKeyResolver rateLimitKeyResolver;
+  private MultipartRequestReader multipartReader;
 
   public GraphQLController(
       GraphQLObjectMapper objectMapper,
@@ -27,6 +74,41 @@ public class GraphQLController extends AbstractGraphQLController {
     this.objectMapper = objectMapper;
     this.graphQLInvoker = graphQLInvoker;
     this.invocationInputFactory = invocationInputFactory;
+    this.multipartReader =
+        new MultipartRequestReader(objectMapper, UploadOptions.builder().build());
+  }
+
+  @Autowired(required = false)
+  public void setStreamOptions(SubscriptionStreamOptions streamOptions) {
+    this.streamOptions = streamOptions;
+  }
+
+  @Autowired(required = false)
+  public void setExecutionOptions(ExecutionOptions executionOptions) {
+    this.executionOptions = executionOptions;
+  }
+
+  @Autowired(required = false)
+  public void setUploadOptions(UploadOptions uploadOptions) {
+    this.multipartReader = new MultipartRequestReader(objectMapper, uploadOptions);
+  }
+
+  @Autowired(required = false)
+  public void setDocumentParser(DocumentParser documentParser) {
+    this.documentParser = documentParser;
+  }
+
+  @Autowired(required = false)
+  public void setRateLimitKeyResolver(RateLimitKeyResolver rateLimitKeyResolver) {
+    this.rateLimitKeyResolver =
+        rateLimitKeyResolver instanceof ExchangeRateLimitKeyResolver
+            ? (ExchangeRateLimitKeyResolver) rateLimitKeyResolver
+            : null;
+  }
+
+  @Value("${graphql.incremental-delivery.enabled:false}")
+  public void setIncrementalDelivery(boolean incrementalDelivery) {
+    this.incrementalDelivery = incrementalDelivery;
   }
 
   protected Object executeRequest(
@@ -38,8 +120,284 @@ public class GraphQLController extends AbstractGraphQLController {
     GraphQLSingleInvocationInput invocationInput =
         invocationInputFactory.create(
             new GraphQLRequest(query, variables, extensions, operationName), serverWebExchange);
-    Mono<ExecutionResult> executionResult =
-        Mono.fromCompletionStage(graphQLInvoker.executeAsync(invocationInput));
-    return executionResult.map(objectMapper::createResultFromExecutionResult);
+    return executeAsync(invocationInput).map(objectMapper::createResultFromExecutionResult);
+  }
+
+  /**
+   * Starts the execution right away, the result is awaited once subscribed. Cancelling the result
+   * or reaching the execution timeout cancels the {@link CancellationToken} of the execution, which
+   * abandons its pending field fetches.
+   */
+  private Mono<ExecutionResult> executeAsync(GraphQLSingleInvocationInput invocationInput) {
+    CancellationToken token =
+        CancellationToken.attach(invocationInput.getExecutionInput().getGraphQLContext());
+    Mono<ExecutionResult> executionResult = Mono.fromFuture(invoke(invocationInput));
+    Duration timeout = executionOptions.getTimeout();
+    if (!timeout.isZero()) {
+      executionResult =
+          executionResult
+              .timeout(timeout)
+              .onErrorResume(
+                  TimeoutException.class,
+                  e -> {
+                    String reason = "Execution timed out after " + timeout.toMillis() + " ms";
+                    token.cancel(reason);
+                    return Mono.just(new ExecutionResultImpl(new GenericGraphQLError(reason)));
+                  });
+    }
+    return executionResult.doOnCancel(() -> token.cancel("Execution cancelled by the client"));
+  }
+
+  /** Resolves the rate limit key of the execution within the chain, before the execution starts. */
+  private CompletableFuture<ExecutionResult> invoke(GraphQLSingleInvocationInput invocationInput) {
+    if (rateLimitKeyResolver == null) {
+      return graphQLInvoker.executeAsync(invocationInput);
+    }
+    return rateLimitKeyResolver
+        .resolveKey(invocationInput.getExecutionInput().getGraphQLContext())
+        .toFuture()
+        .thenCompose(key -> graphQLInvoker.executeAsync(invocationInput));
+  }
+
+  /**
+   * Executes the operations of a request following the GraphQL multipart request specification, the
+   * files are passed to the resolvers as {@link GraphQLUpload}. The parts are deleted once the
+   * operations completed.
+   */
+  @PostMapping(
+      value = "${graphql.url:graphql}",
+      consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<Object> graphqlUploadPOST(ServerWebExchange serverWebExchange) {
+    return multipartReader
+        .read(serverWebExchange.getRequest())
+        .flatMap(
+            multipart -> {
+              Mono<List<Map<String, Object>>> results =
+                  Flux.fromIterable(multipart.getRequests())
+                      .concatMap(
+                          request ->
+                              executeSpecification(
+                                  invocationInput(request, request.getQuery(), serverWebExchange)))
+                      .collectList();
+              return results
+                  .<Object>map(list -> multipart.isBatched() ? list : list.get(0))
+                  .doFinally(signal -> multipart.delete());
+            });
+  }
+
+  /**
+   * Streams the results of an operation as server-sent events: a {@code next} event per result
+   * followed by a {@code complete} event. Comment lines are sent as heartbeats in between.
+   *
+   * <p>The events of resumable subscriptions carry the id of their topic event, a reconnecting
+   * client sending it back as {@code Last-Event-ID} gets the events it missed.
+   *
+   * <p>The streaming handlers leave out the consumes condition, which makes the JSON handler the
+   * better match for clients that do not explicitly ask for a stream.
+   */
+  @PostMapping(value = "${graphql.url:graphql}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<String>> graphqlEventStreamPOST(
+      @RequestBody String body,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+      ServerWebExchange serverWebExchange) {
+    return eventStream(readRequest(body), lastEventId, serverWebExchange);
+  }
+
+  /**
+   * Streams the results of an operation as the parts of a {@code multipart/mixed} response. Empty
+   * JSON objects are sent as heartbeats in between.
+   *
+   * <p>With incremental delivery enabled, queries with {@code @defer} or {@code @stream} are sent
+   * as an initial payload followed by a payload delivering the deferred parts.
+   */
+  @PostMapping(value = "${graphql.url:graphql}", produces = MediaType.MULTIPART_MIXED_VALUE)
+  public Mono<Void> graphqlMultipartPOST(
+      @RequestBody String body, ServerWebExchange serverWebExchange) {
+    GraphQLRequest request = readRequest(body);
+    IncrementalQuery incrementalQuery =
+        incrementalDelivery
+            ? IncrementalQuery.split(
+                request.getQuery(),
+                request.getOperationName(),
+                request.getVariables(),
+                request.getExtensions(),
+                documentParser)
+            : null;
+    ServerHttpResponse response = serverWebExchange.getResponse();
+    response
+        .getHeaders()
+        .setContentType(
+            incrementalQuery == null
+                ? MULTIPART_MIXED
+                : MediaType.parseMediaType(IncrementalPayloads.CONTENT_TYPE));
+    disableBuffering(response);
+    Flux<String> payloads =
+        incrementalQuery == null
+            ? execute(request, null, serverWebExchange).map(this::serialize)
+            : executeIncremental(request, incrementalQuery, serverWebExchange);
+    Flux<String> parts =
+        withHeartbeat(payloads, "{}")
+            .map(json -> PART_HEADER + json)
+            .concatWith(Mono.just(MULTIPART_END));
+    // one flush per part, the parts must reach the client as soon as they are produced
+    return response.writeAndFlushWith(
+        parts.map(part -> Mono.just(response.bufferFactory().wrap(part.getBytes(UTF_8)))));
+  }
+
+  /**
+   * The initial query and the deferred query are executed at once, the parts are written together
+   * after the initial payload. A failed execution is written as a payload with its error. The
+   * deferred query is cancelled when the initial payload ends the response or the client leaves
+   * before the parts are written.
+   */
+  private Flux<String> executeIncremental(
+      GraphQLRequest request, IncrementalQuery query, ServerWebExchange serverWebExchange) {
+    return Flux.defer(
+        () -> {
+          Mono<Map<String, Object>> initial =
+              executeIncrementalSpecification(
+                  invocationInput(request, query.getInitialQuery(), serverWebExchange));
+          GraphQLSingleInvocationInput deferredInput =
+              invocationInput(request, query.getDeferredQuery(), serverWebExchange);
+          Mono<Map<String, Object>> deferred = executeIncrementalSpecification(deferredInput);
+          CancellationToken deferredToken =
+              CancellationToken.from(deferredInput.getExecutionInput().getGraphQLContext());
+          return initial
+              .flatMapMany(
+                  first -> {
+                    boolean executed = first.get("data") != null;
+                    Mono<String> head =
+                        Mono.just(
+                            serialize(
+                                IncrementalPayloads.initial(first, query.getParts(), executed)));
+                    if (!executed) {
+                      // the document failed validation or its execution failed, the parts have nothing to add
+                      deferredToken.cancel("The initial payload of the query has no data");
+                      return head;
+                    }
+                    return head.concatWith(
+                        deferred.map(
+                            result ->
+                                serialize(
+                                    IncrementalPayloads.subsequent(query.getParts(), result))));
+                  })
+              .doOnCancel(() -> deferredToken.cancel("Execution cancelled by the client"));
+        });
+  }
+
+  private Mono<Map<String, Object>> executeIncrementalSpecification(
+      GraphQLSingleInvocationInput invocationInput) {
+    return executeSpecification(invocationInput)
+        .onErrorResume(
+            e -> {
+              log.error("Error executing incremental GraphQL query", e);
+              return Mono.just(
+                  objectMapper.createResultFromExecutionResult(
+                      new ExecutionResultImpl(new GenericGraphQLError(e.getMessage()))));
+            });
+  }
+
+  /** Starts the execution right away, the result is awaited once subscribed. */
+  private Mono<Map<String, Object>> executeSpecification(
+      GraphQLSingleInvocationInput invocationInput) {
+    return executeAsync(invocationInput).map(objectMapper::createResultFromExecutionResult);
+  }
+
+  private GraphQLSingleInvocationInput invocationInput(
+      GraphQLRequest request, String query, ServerWebExchange serverWebExchange) {
+    return invocationInputFactory.create(
+        new GraphQLRequest(
+            query, request.getVariables(), request.getExtensions(), request.getOperationName()),
+        serverWebExchange);
+  }
+
+  private Flux<ServerSentEvent<String>> eventStream(
+      GraphQLRequest request, String lastEventId, ServerWebExchange serverWebExchange) {
+    disableBuffering(serverWebExchange.getResponse());
+    Flux<ServerSentEvent<String>> events =
+        execute(request, lastEventId, serverWebExchange)
+            .map(this::toEvent)
+            .concatWith(Mono.just(ServerSentEvent.<String>builder().event("complete").build()));
+    return withHeartbeat(events, ServerSentEvent.<String>builder().comment("").build());
+  }
+
+  private ServerSentEvent<String> toEvent(ExecutionResult result) {
+    ServerSentEvent.Builder<String> event =
+        ServerSentEvent.builder(serialize(result)).event("next");
+    Object eventId = ResumableSubscriptions.eventId(result);
+    if (eventId != null) {
+      event.id(eventId.toString());
+    }
+    return event.build();
+  }
+
+  private Flux<ExecutionResult> execute(
+      GraphQLRequest request, String lastEventId, ServerWebExchange serverWebExchange) {
+    GraphQLSingleInvocationInput invocationInput =
+        invocationInputFactory.create(request, serverWebExchange);
+    return Mono.defer(() -> executeAsync(invocationInput))
+        .flatMapMany(executionResult -> toResults(executionResult, lastEventId))
+        .doOnCancel(() -> log.debug("Client disconnected, cancelled the streamed operation"))
+        .onErrorResume(
+            e -> {
+              log.error("Error streaming GraphQL results", e);
+              return Mono.just(new ExecutionResultImpl(new GenericGraphQLError(e.getMessage())));
+            });
+  }
+
+  @SuppressWarnings("unchecked")
+  private Publisher<ExecutionResult> toResults(
+      ExecutionResult executionResult, String lastEventId) {
+    if (!(executionResult.getData() instanceof Publisher)
+        || objectMapper.areErrorsPresent(executionResult)) {
+      return Mono.just(executionResult);
+    }
+    Publisher<ExecutionResult> results = (Publisher<ExecutionResult>) executionResult.getData();
+    ResumableSubscriptions.resume(results, lastEventId, null);
+    return results;
+  }
+
+  private <T> Flux<T> withHeartbeat(Flux<T> stream, T heartbeat) {
+    Duration interval = streamOptions.getHeartbeatInterval();
+    if (interval == null || interval.isZero() || interval.isNegative()) {
+      return stream;
+    }
+    return stream.publish(
+        shared ->
+            Flux.merge(
+                shared,
+                Flux.interval(interval).map(tick -> heartbeat).takeUntilOther(shared.then())));
+  }
+
+  private String serialize(ExecutionResult executionResult) {
+    return objectMapper.serializeResultAsJson(executionResult);
+  }
+
+  private String serialize(Map<String, Object> payload) {
+    try {
+      return objectMapper.getJacksonMapper().writeValueAsString(payload);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private GraphQLRequest readRequest(String body) {
+    try {
+      GraphQLRequest request = objectMapper.readGraphQLRequest(body);
+      if (request.getQuery() == null) {
+        request.setQuery("");
+      }
+      return request;
+    } catch (IOException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid request body", e);
+    }
+  }
+
+  private static void disableBuffering(ServerHttpResponse response) {
+    HttpHeaders headers = response.getHeaders();
+    headers.setCacheControl("no-cache");
+    // keeps reverse proxies such as nginx from holding back the stream
+    headers.set("X-Accel-Buffering", "no");
   }
 }
@@ -0,0 +1,19 @@
+package graphql.kickstart.spring.webflux;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class PerMessageDeflateOptions {
+
+  public static final int MAX_WINDOW_BITS = 15;
+
+  @Builder.Default int compressionLevel = 6;
+  @Builder.Default int serverMaxWindowBits = MAX_WINDOW_BITS;
+  @Builder.Default int clientMaxWindowBits = MAX_WINDOW_BITS;
+  boolean serverNoContextTakeover;
+  boolean clientNoContextTakeover;
+  /** Frames with a smaller payload (in bytes) are sent uncompressed. */
+  int threshold;
+}
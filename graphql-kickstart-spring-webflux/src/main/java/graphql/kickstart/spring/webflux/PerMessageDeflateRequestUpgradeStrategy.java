@@ -0,0 +1,160 @@
+package graphql.kickstart.spring.webflux;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.socket.HandshakeInfo;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.NettyPipeline;
+
+/**
+ * Reactor Netty upgrade strategy negotiating permessage-deflate with configurable window bits,
+ * context takeover and a minimum payload size. Reactor Netty itself only offers to switch the
+ * default compression handler on or off.
+ */
+@Slf4j
+public class PerMessageDeflateRequestUpgradeStrategy extends ReactorNettyRequestUpgradeStrategy {
+
+  static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+  static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+  static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+
+  private final PerMessageDeflateOptions options;
+
+  public PerMessageDeflateRequestUpgradeStrategy(PerMessageDeflateOptions options) {
+    this.options = options;
+  }
+
+  @Override
+  public Mono<Void> upgrade(
+      ServerWebExchange exchange,
+      WebSocketHandler handler,
+      @Nullable String subProtocol,
+      Supplier<HandshakeInfo> handshakeInfoFactory) {
+    Object nativeResponse = ServerHttpResponseDecorator.getNativeResponse(exchange.getResponse());
+    if (nativeResponse instanceof Connection) {
+      addCompressionHandler((Connection) nativeResponse, exchange.getRequest());
+    }
+    return super.upgrade(exchange, handler, subProtocol, handshakeInfoFactory);
+  }
+
+  private void addCompressionHandler(Connection connection, ServerHttpRequest request) {
+    ChannelPipeline pipeline = connection.channel().pipeline();
+    ChannelHandlerContext reactiveBridge = pipeline.context(NettyPipeline.ReactiveBridge);
+    if (reactiveBridge == null || pipeline.get(NettyPipeline.WsCompressionHandler) != null) {
+      return;
+    }
+    // the extension handler reads the offers from the upgrade request, which has already been
+    // consumed by the time the handshake starts
+    DefaultFullHttpRequest upgradeRequest =
+        new DefaultFullHttpRequest(
+            HttpVersion.HTTP_1_1, HttpMethod.GET, request.getURI().getRawPath());
+    request.getHeaders().forEach((name, values) -> upgradeRequest.headers().add(name, values));
+
+    WebSocketServerExtensionHandler compressionHandler =
+        new WebSocketServerExtensionHandler(new PreferredPerMessageDeflateHandshaker(options));
+    try {
+      compressionHandler.channelRead(reactiveBridge, upgradeRequest);
+      if (pipeline.get(NettyPipeline.CompressionHandler) != null) {
+        pipeline.remove(NettyPipeline.CompressionHandler);
+      }
+      pipeline.addBefore(
+          NettyPipeline.ReactiveBridge, NettyPipeline.WsCompressionHandler, compressionHandler);
+    } catch (Exception e) {
+      log.error("Cannot negotiate permessage-deflate for request {}", request.getId(), e);
+    }
+  }
+
+  /**
+   * Applies the server preferences to the client offer before handing it to Netty, which only
+   * honours the server window size and context takeover when the client asks for them.
+   */
+  static class PreferredPerMessageDeflateHandshaker implements WebSocketServerExtensionHandshaker {
+
+    private final PerMessageDeflateOptions options;
+    private final WebSocketServerExtensionHandshaker delegate;
+
+    PreferredPerMessageDeflateHandshaker(PerMessageDeflateOptions options) {
+      this.options = options;
+      this.delegate =
+          new PerMessageDeflateServerExtensionHandshaker(
+              options.getCompressionLevel(),
+              true,
+              options.getClientMaxWindowBits(),
+              true,
+              options.isClientNoContextTakeover(),
+              filterProvider(options.getThreshold()));
+    }
+
+    @Override
+    public WebSocketServerExtension handshakeExtension(WebSocketExtensionData extensionData) {
+      if (!PERMESSAGE_DEFLATE.equals(extensionData.name())) {
+        return null;
+      }
+      Map<String, String> parameters = new HashMap<>(extensionData.parameters());
+      String serverWindowBits = parameters.get(SERVER_MAX_WINDOW_BITS);
+      if (serverWindowBits != null) {
+        try {
+          int offered = Integer.parseInt(serverWindowBits.trim());
+          parameters.put(
+              SERVER_MAX_WINDOW_BITS,
+              String.valueOf(Math.min(offered, options.getServerMaxWindowBits())));
+        } catch (NumberFormatException e) {
+          return null;
+        }
+      }
+      if (options.isServerNoContextTakeover()) {
+        parameters.put(SERVER_NO_CONTEXT_TAKEOVER, null);
+      }
+      return delegate.handshakeExtension(
+          new WebSocketExtensionData(extensionData.name(), parameters));
+    }
+
+    private static WebSocketExtensionFilterProvider filterProvider(int threshold) {
+      if (threshold <= 0) {
+        return WebSocketExtensionFilterProvider.DEFAULT;
+      }
+      WebSocketExtensionFilter encoderFilter = frame -> isSmallMessage(frame, threshold);
+      return new WebSocketExtensionFilterProvider() {
+        @Override
+        public WebSocketExtensionFilter encoderFilter() {
+          return encoderFilter;
+        }
+
+        @Override
+        public WebSocketExtensionFilter decoderFilter() {
+          return WebSocketExtensionFilter.NEVER_SKIP;
+        }
+      };
+    }
+
+    private static boolean isSmallMessage(WebSocketFrame frame, int threshold) {
+      // fragments of a message must all be compressed once the first one was
+      return !(frame instanceof ContinuationWebSocketFrame)
+          && frame.isFinalFragment()
+          && frame.content().readableBytes() < threshold;
+    }
+  }
+}
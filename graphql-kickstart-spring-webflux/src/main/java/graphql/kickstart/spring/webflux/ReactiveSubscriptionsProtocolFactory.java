@@ -1,6 +1,8 @@
 package graphql.kickstart.spring.webflux;
 
 import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Consumer;
 import org.springframework.web.reactive.socket.WebSocketSession;
 
@@ -9,4 +11,9 @@ public interface ReactiveSubscriptionsProtocolFactory {
   Consumer<String> createConsumer(SubscriptionSession session);
 
   SubscriptionSession createSession(WebSocketSession session);
+
+  /** @return the subprotocols the factory creates sessions for, in order of preference */
+  default List<String> getSubProtocols() {
+    return Collections.singletonList("graphql-ws");
+  }
 }
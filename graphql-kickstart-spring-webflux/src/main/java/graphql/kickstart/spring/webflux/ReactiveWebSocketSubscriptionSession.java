@@ -8,7 +8,7 @@ import org.springframework.web.reactive.socket.WebSocketSession;
 public class ReactiveWebSocketSubscriptionSession extends DefaultSubscriptionSession {
 
   private final WebSocketSession webSocketSession;
-  private boolean opened = true;
+  private volatile boolean opened = true;
 
   public ReactiveWebSocketSubscriptionSession(
       GraphQLSubscriptionMapper mapper, WebSocketSession webSocketSession) {
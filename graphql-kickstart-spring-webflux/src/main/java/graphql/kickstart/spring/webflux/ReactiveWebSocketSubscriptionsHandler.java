@@ -1,49 +1,297 @@
 package graphql.kickstart.spring.webflux;
 
-import static java.util.Collections.singletonList;
-
 import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import graphql.kickstart.spring.subscriptions.BinaryFrameCodec;
+import graphql.kickstart.spring.subscriptions.FrameCoalescingOptions;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class ReactiveWebSocketSubscriptionsHandler implements WebSocketHandler {
+public class ReactiveWebSocketSubscriptionsHandler
+    implements WebSocketHandler,
+        SmartLifecycle,
+        ApplicationListener<ContextClosedEvent>,
+        ApplicationContextAware {
+
+  private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 512;
 
   private final ReactiveSubscriptionsProtocolFactory subscriptionProtocolFactory;
+  private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+  private SubscriptionDrainOptions drainOptions = SubscriptionDrainOptions.builder().build();
+  private SubscriptionAdmission admission;
+  private FrameCoalescingOptions coalescingOptions = FrameCoalescingOptions.builder().build();
+  private ApplicationContext applicationContext;
+  private volatile boolean running;
+  private volatile boolean draining;
+
+  @Autowired(required = false)
+  public void setDrainOptions(SubscriptionDrainOptions drainOptions) {
+    this.drainOptions = drainOptions;
+  }
+
+  @Autowired(required = false)
+  public void setAdmission(SubscriptionAdmission admission) {
+    this.admission = admission;
+  }
+
+  @Autowired(required = false)
+  public void setCoalescingOptions(FrameCoalescingOptions coalescingOptions) {
+    this.coalescingOptions = coalescingOptions;
+  }
+
+  @Override
+  public void setApplicationContext(ApplicationContext applicationContext) {
+    this.applicationContext = applicationContext;
+  }
 
   @Override
   public List<String> getSubProtocols() {
-    return singletonList("graphql-ws");
+    return subscriptionProtocolFactory.getSubProtocols();
   }
 
   @Override
   public Mono<Void> handle(WebSocketSession webSocketSession) {
+    if (draining) {
+      return webSocketSession.close(CloseStatus.SERVICE_RESTARTED);
+    }
+    if (admission != null && !admission.tryAcquireSession()) {
+      log.debug(
+          "Rejecting session {}, the session limit has been reached", webSocketSession.getId());
+      return webSocketSession.close(CloseStatus.SERVICE_OVERLOAD);
+    }
     SubscriptionSession subscriptionSession =
         subscriptionProtocolFactory.createSession(webSocketSession);
     Consumer<String> consumer = subscriptionProtocolFactory.createConsumer(subscriptionSession);
+    BinaryFrameCodec frameCodec =
+        subscriptionSession instanceof FramedSubscriptionSession
+            ? ((FramedSubscriptionSession) subscriptionSession).getFrameCodec()
+            : null;
+    Connection connection = new Connection(webSocketSession, subscriptionSession);
+    connections.put(webSocketSession.getId(), connection);
+    if (draining) {
+      // shutdown started while this connection was being registered
+      drain(connection).subscribe();
+    }
 
     Mono<Void> input =
         webSocketSession
             .receive()
-            .map(WebSocketMessage::getPayloadAsText)
+            .map(message -> payloadAsText(message, frameCodec))
             .doOnNext(consumer)
             .doFinally(type -> subscriptionSession.close(null))
             .then();
 
     Mono<Void> sender =
-        webSocketSession.send(
-            Flux.from(subscriptionSession.getPublisher()).map(webSocketSession::textMessage));
+        webSocketSession
+            .send(outbound(webSocketSession, subscriptionSession))
+            .then(
+                Mono.defer(
+                    () ->
+                        connection.isDraining()
+                            ? webSocketSession.close(CloseStatus.SERVICE_RESTARTED)
+                            : Mono.empty()));
+
+    return Mono.zip(input, sender)
+        .then()
+        .doFinally(
+            type -> {
+              connections.remove(webSocketSession.getId());
+              if (admission != null) {
+                admission.releaseSession();
+              }
+              connection.closed.tryEmitEmpty();
+            });
+  }
+
+  private static String payloadAsText(WebSocketMessage message, BinaryFrameCodec frameCodec) {
+    if (frameCodec == null || message.getType() != WebSocketMessage.Type.BINARY) {
+      return message.getPayloadAsText();
+    }
+    try {
+      return frameCodec.decode(message.getPayload().asInputStream());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot decode " + frameCodec.getSubProtocol() + " frame", e);
+    }
+  }
+
+  private Publisher<WebSocketMessage> outbound(
+      WebSocketSession webSocketSession, SubscriptionSession subscriptionSession) {
+    Flux<WebSocketMessage> messages =
+        subscriptionSession instanceof FramedSubscriptionSession
+            ? Flux.from(((FramedSubscriptionSession) subscriptionSession).getMessages())
+            : Flux.from(subscriptionSession.getPublisher()).map(webSocketSession::textMessage);
+    if (!coalescingOptions.isEnabled()) {
+      return messages;
+    }
+    // the messages of a burst reach the connection back to back and are flushed together
+    return messages
+        .bufferTimeout(coalescingOptions.getMaxMessages(), coalescingOptions.getWindow())
+        .onBackpressureBuffer()
+        .concatMapIterable(Function.identity());
+  }
+
+  public int getSessionCount() {
+    return connections.size();
+  }
+
+  @Override
+  public void start() {
+    draining = false;
+    running = true;
+  }
+
+  /**
+   * Drains the sessions as the context closes. The event is published before any lifecycle is
+   * stopped, the lifecycles of the web server, stopped first, would drop the connections otherwise.
+   */
+  @Override
+  public void onApplicationEvent(ContextClosedEvent event) {
+    if (event.getApplicationContext() == applicationContext) {
+      stop();
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (draining) {
+      return;
+    }
+    CountDownLatch latch = new CountDownLatch(1);
+    stop(latch::countDown);
+    try {
+      latch.await(
+          drainOptions.getWindow().plus(drainOptions.getFlushTimeout()).toMillis(),
+          TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Refuses new connections and subscriptions, then closes the existing sessions in batches spread
+   * randomly over the drain window so that clients do not all reconnect at the same time.
+   */
+  @Override
+  public void stop(Runnable callback) {
+    if (draining && !running) {
+      callback.run();
+      return;
+    }
+    draining = true;
+    List<Connection> pending = new ArrayList<>(connections.values());
+    pending.forEach(Connection::stopAccepting);
+    Collections.shuffle(pending);
+
+    int batchSize = Math.max(1, drainOptions.getBatchSize());
+    int batches = (pending.size() + batchSize - 1) / batchSize;
+    long slotNanos = batches == 0 ? 0 : drainOptions.getWindow().toNanos() / batches;
+    log.info("Draining {} websocket sessions in {} batches", pending.size(), batches);
+
+    Flux.range(0, batches)
+        .flatMap(
+            batch ->
+                Mono.delay(Duration.ofNanos(batch * slotNanos + jitter(slotNanos)))
+                    .thenMany(
+                        Flux.fromIterable(
+                            pending.subList(
+                                batch * batchSize,
+                                Math.min(pending.size(), (batch + 1) * batchSize))))
+                    .flatMap(this::drain))
+        .then()
+        .doFinally(
+            type -> {
+              running = false;
+              callback.run();
+            })
+        .subscribe();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+
+  private Mono<Void> drain(Connection connection) {
+    if (connection.draining.compareAndSet(false, true)) {
+      if (connection.subscriptionSession instanceof DrainableSubscriptionSession
+          && drainOptions.getMode() == SubscriptionDrainOptions.Mode.COMPLETE) {
+        ((DrainableSubscriptionSession) connection.subscriptionSession).completeAll();
+      }
+      // completes the outbound stream once the queued messages have been written
+      connection.subscriptionSession.close("Service restart");
+    }
+    return connection
+        .closed
+        .asMono()
+        .timeout(drainOptions.getFlushTimeout())
+        .onErrorResume(e -> forceClose(connection));
+  }
+
+  private Mono<Void> forceClose(Connection connection) {
+    log.debug("Session {} did not drain in time, closing it", connection.webSocketSession.getId());
+    return connection
+        .webSocketSession
+        .close(CloseStatus.SERVICE_RESTARTED)
+        .onErrorResume(e -> Mono.empty());
+  }
+
+  private static long jitter(long slotNanos) {
+    return slotNanos > 0 ? ThreadLocalRandom.current().nextLong(slotNanos) : 0;
+  }
+
+  @RequiredArgsConstructor
+  private static class Connection {
+
+    private final WebSocketSession webSocketSession;
+    private final SubscriptionSession subscriptionSession;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Sinks.Empty<Void> closed = Sinks.empty();
+
+    boolean isDraining() {
+      return draining.get();
+    }
 
-    return Mono.zip(input, sender).then();
+    void stopAccepting() {
+      if (subscriptionSession instanceof DrainableSubscriptionSession) {
+        ((DrainableSubscriptionSession) subscriptionSession).stopAccepting();
+      }
+    }
   }
 }
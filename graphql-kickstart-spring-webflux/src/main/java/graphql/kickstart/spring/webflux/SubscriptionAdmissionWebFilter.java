@@ -0,0 +1,34 @@
+package graphql.kickstart.spring.webflux;
+
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Answers websocket handshakes on the subscriptions path with {@code 503 Service Unavailable} once
+ * the node has reached its session limit, so that clients are rejected before the upgrade.
+ */
+@RequiredArgsConstructor
+public class SubscriptionAdmissionWebFilter implements WebFilter {
+
+  private final String path;
+  private final SubscriptionAdmission admission;
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    if (!admission.hasSessionCapacity() && isHandshake(exchange)) {
+      exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+      return exchange.getResponse().setComplete();
+    }
+    return chain.filter(exchange);
+  }
+
+  private boolean isHandshake(ServerWebExchange exchange) {
+    return "websocket".equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade())
+        && path.equals(exchange.getRequest().getPath().pathWithinApplication().value());
+  }
+}
@@ -0,0 +1,26 @@
+package graphql.kickstart.spring.webflux;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** How {@link ReactiveWebSocketSubscriptionsHandler} winds down its sessions on shutdown. */
+@Value
+@Builder
+public class SubscriptionDrainOptions {
+
+  public enum Mode {
+    /** Close the connection with 1012 (service restart) so clients reconnect elsewhere. */
+    CLOSE,
+    /** Send complete for every active subscription before closing the connection with 1012. */
+    COMPLETE
+  }
+
+  @Builder.Default Mode mode = Mode.CLOSE;
+  /** Period over which the sessions are drained in batches. */
+  @Builder.Default Duration window = Duration.ofSeconds(10);
+  /** Maximum number of sessions drained at once. */
+  @Builder.Default int batchSize = 100;
+  /** How long to wait for messages already queued to be written before closing anyway. */
+  @Builder.Default Duration flushTimeout = Duration.ofSeconds(5);
+}
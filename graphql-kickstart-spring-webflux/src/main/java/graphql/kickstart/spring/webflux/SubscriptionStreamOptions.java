@@ -0,0 +1,17 @@
+package graphql.kickstart.spring.webflux;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** How {@link GraphQLController} streams subscriptions over plain HTTP responses. */
+@Value
+@Builder
+public class SubscriptionStreamOptions {
+
+  /**
+   * Interval at which heartbeats are written, so that proxies keep the response open. Zero disables
+   * heartbeats.
+   */
+  @Builder.Default Duration heartbeatInterval = Duration.ofSeconds(15);
+}
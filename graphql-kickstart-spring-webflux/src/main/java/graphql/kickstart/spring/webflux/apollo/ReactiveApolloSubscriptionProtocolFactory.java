@@ -7,19 +7,32 @@ import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionMapper;
 import graphql.kickstart.execution.subscriptions.SubscriptionSession;
 import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionConnectionListener;
 import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionProtocolFactory;
+import graphql.kickstart.spring.subscriptions.AdmissionControlledSubscriptionConsumer;
+import graphql.kickstart.spring.subscriptions.BinaryFrameCodec;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import graphql.kickstart.spring.subscriptions.SubscriptionLimits;
 import graphql.kickstart.spring.webflux.ReactiveSubscriptionsProtocolFactory;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import org.springframework.web.reactive.socket.WebSocketSession;
 
 public class ReactiveApolloSubscriptionProtocolFactory extends ApolloSubscriptionProtocolFactory
     implements ReactiveSubscriptionsProtocolFactory {
 
+  private final SubscriptionAdmission admission;
+  private final Map<String, BinaryFrameCodec> frameCodecs = new LinkedHashMap<>();
+
   public ReactiveApolloSubscriptionProtocolFactory(
       GraphQLObjectMapper objectMapper,
       GraphQLSubscriptionInvocationInputFactory invocationInputFactory,
       GraphQLInvoker graphQLInvoker) {
     super(objectMapper, invocationInputFactory, graphQLInvoker);
+    this.admission = null;
   }
 
   public ReactiveApolloSubscriptionProtocolFactory(
@@ -28,6 +41,7 @@ public class ReactiveApolloSubscriptionProtocolFactory extends ApolloSubscriptio
       GraphQLInvoker graphQLInvoker,
       Duration keepAliveInterval) {
     super(objectMapper, invocationInputFactory, graphQLInvoker, keepAliveInterval);
+    this.admission = null;
   }
 
   public ReactiveApolloSubscriptionProtocolFactory(
@@ -36,6 +50,7 @@ public class ReactiveApolloSubscriptionProtocolFactory extends ApolloSubscriptio
       GraphQLInvoker graphQLInvoker,
       Collection<ApolloSubscriptionConnectionListener> connectionListeners) {
     super(objectMapper, invocationInputFactory, graphQLInvoker, connectionListeners);
+    this.admission = null;
   }
 
   public ReactiveApolloSubscriptionProtocolFactory(
@@ -50,11 +65,68 @@ public class ReactiveApolloSubscriptionProtocolFactory extends ApolloSubscriptio
         graphQLInvoker,
         connectionListeners,
         keepAliveInterval);
+    this.admission = null;
+  }
+
+  /**
+   * Creates a factory checking every subscription start against the given admission. Keep-alive
+   * messages are left to the connection listeners.
+   */
+  public ReactiveApolloSubscriptionProtocolFactory(
+      GraphQLObjectMapper objectMapper,
+      GraphQLSubscriptionInvocationInputFactory invocationInputFactory,
+      GraphQLInvoker graphQLInvoker,
+      SubscriptionAdmission admission,
+      Collection<ApolloSubscriptionConnectionListener> connectionListeners) {
+    super(objectMapper, invocationInputFactory, graphQLInvoker, connectionListeners, null);
+    this.admission = admission;
+  }
+
+  /**
+   * Additionally offers the subprotocols of the codecs, whose sessions exchange binary frames. A
+   * client offering several subprotocols gets the first one it lists that is supported.
+   */
+  public void setFrameCodecs(Collection<BinaryFrameCodec> codecs) {
+    frameCodecs.clear();
+    codecs.forEach(codec -> frameCodecs.put(codec.getSubProtocol(), codec));
+  }
+
+  @Override
+  public List<String> getSubProtocols() {
+    List<String> subProtocols = new ArrayList<>();
+    subProtocols.add(getProtocol());
+    subProtocols.addAll(frameCodecs.keySet());
+    return subProtocols;
+  }
+
+  @Override
+  public Consumer<String> createConsumer(SubscriptionSession session) {
+    if (admission == null || !admission.isLimitingSubscriptions()) {
+      return super.createConsumer(session);
+    }
+    return new AdmissionControlledSubscriptionConsumer(
+        session,
+        ((ReactiveApolloSubscriptionSession) session).getAdmission(),
+        getObjectMapper(),
+        super.createConsumer(session));
   }
 
   @Override
   public SubscriptionSession createSession(WebSocketSession session) {
+    GraphQLSubscriptionMapper mapper = new GraphQLSubscriptionMapper(getObjectMapper());
+    BinaryFrameCodec frameCodec =
+        session.getHandshakeInfo().getSubProtocol() == null
+            ? null
+            : frameCodecs.get(session.getHandshakeInfo().getSubProtocol());
+    if (admission == null && frameCodec == null) {
+      return new ReactiveApolloSubscriptionSession(mapper, session);
+    }
     return new ReactiveApolloSubscriptionSession(
-        new GraphQLSubscriptionMapper(getObjectMapper()), session);
+        mapper,
+        session,
+        admission == null
+            ? new SubscriptionAdmission(SubscriptionLimits.unlimited()).newSession()
+            : admission.newSession(),
+        frameCodec);
   }
 }
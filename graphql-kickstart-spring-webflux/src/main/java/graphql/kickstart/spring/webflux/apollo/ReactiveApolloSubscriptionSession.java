@@ -1,44 +1,338 @@
 package graphql.kickstart.spring.webflux.apollo;
 
+import graphql.ExecutionResult;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.NonNullableFieldWasNullException;
+import graphql.kickstart.execution.error.GenericGraphQLError;
 import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionMapper;
-import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionSession;
-import graphql.kickstart.spring.webflux.ReactiveWebSocketSubscriptionSession;
+import graphql.kickstart.execution.subscriptions.SessionSubscriptions;
+import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage.Type;
+import graphql.kickstart.spring.subscriptions.BinaryFrameCodec;
+import graphql.kickstart.spring.subscriptions.SessionAdmission;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import graphql.kickstart.spring.subscriptions.SubscriptionLimits;
+import graphql.kickstart.spring.subscriptions.SubscriptionSessionActivity;
+import graphql.kickstart.spring.subscriptions.delta.JsonPatchDeltaEncoder;
+import graphql.kickstart.spring.subscriptions.topics.ResumableSubscriptions;
+import graphql.kickstart.spring.webflux.DrainableSubscriptionSession;
+import graphql.kickstart.spring.webflux.FramedSubscriptionSession;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
 
-public class ReactiveApolloSubscriptionSession extends ApolloSubscriptionSession {
+/**
+ * Apollo session of a reactive websocket connection.
+ *
+ * <p>The session keeps a single registry of its subscriptions and a single outbound sink holding
+ * the encoded frames, which are wrapped into websocket messages only once the connection writes
+ * them. It implements the session itself instead of extending {@code ApolloSubscriptionSession} and
+ * wrapping a second {@code DefaultSubscriptionSession}, which would keep a second registry and
+ * publisher per connection.
+ */
+@Slf4j
+public class ReactiveApolloSubscriptionSession
+    implements SubscriptionSession,
+        SubscriptionSessionActivity,
+        DrainableSubscriptionSession,
+        FramedSubscriptionSession {
 
-  private final ReactiveWebSocketSubscriptionSession session;
+  private final GraphQLSubscriptionMapper mapper;
+  private final WebSocketSession webSocketSession;
+  private final SessionAdmission admission;
+  private final BinaryFrameCodec frameCodec;
+  // small queue segments, most connections only ever have a few messages in flight
+  private final Sinks.Many<byte[]> outbound =
+      Sinks.many().unicast().onBackpressureBuffer(Queues.<byte[]>unbounded(16).get());
+  private final ActiveSubscriptions subscriptions = new ActiveSubscriptions();
+  private volatile long lastSentNanos = System.nanoTime();
+  private volatile boolean accepting = true;
+  private volatile boolean open = true;
 
   public ReactiveApolloSubscriptionSession(
       GraphQLSubscriptionMapper mapper, WebSocketSession webSocketSession) {
-    super(mapper);
-    session = new ReactiveWebSocketSubscriptionSession(mapper, webSocketSession);
+    this(
+        mapper,
+        webSocketSession,
+        new SubscriptionAdmission(SubscriptionLimits.unlimited()).newSession());
+  }
+
+  public ReactiveApolloSubscriptionSession(
+      GraphQLSubscriptionMapper mapper,
+      WebSocketSession webSocketSession,
+      SessionAdmission admission) {
+    this(mapper, webSocketSession, admission, null);
+  }
+
+  /** Creates a session writing binary frames with the given codec, text frames if it is null. */
+  public ReactiveApolloSubscriptionSession(
+      GraphQLSubscriptionMapper mapper,
+      WebSocketSession webSocketSession,
+      SessionAdmission admission,
+      BinaryFrameCodec frameCodec) {
+    this.mapper = mapper;
+    this.webSocketSession = webSocketSession;
+    this.admission = admission;
+    this.frameCodec = frameCodec;
+  }
+
+  public SessionAdmission getAdmission() {
+    return admission;
+  }
+
+  @Override
+  public BinaryFrameCodec getFrameCodec() {
+    return frameCodec;
+  }
+
+  @Override
+  public Publisher<WebSocketMessage> getMessages() {
+    WebSocketMessage.Type type =
+        frameCodec == null ? WebSocketMessage.Type.TEXT : WebSocketMessage.Type.BINARY;
+    return outbound
+        .asFlux()
+        .map(frame -> new WebSocketMessage(type, webSocketSession.bufferFactory().wrap(frame)));
+  }
+
+  /** @return the outgoing messages as text, only meaningful for text sessions */
+  @Override
+  public Publisher<String> getPublisher() {
+    return outbound.asFlux().map(frame -> new String(frame, StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public void send(String message) {
+    emit(
+        frameCodec == null ? message.getBytes(StandardCharsets.UTF_8) : frameCodec.encode(message));
+  }
+
+  @Override
+  public void sendMessage(Object payload) {
+    emit(
+        frameCodec == null
+            ? mapper.serialize(payload).getBytes(StandardCharsets.UTF_8)
+            : frameCodec.encode(payload));
+    if (payload instanceof OperationMessage) {
+      OperationMessage message = (OperationMessage) payload;
+      if (message.getType() == Type.GQL_ERROR || message.getType() == Type.GQL_COMPLETE) {
+        admission.release(message.getId());
+      }
+    }
+  }
+
+  @Override
+  public void sendDataMessage(String id, Object payload) {
+    sendMessage(new OperationMessage(Type.GQL_DATA, id, payload));
+  }
+
+  @Override
+  public void sendErrorMessage(String id, Object payload) {
+    sendMessage(new OperationMessage(Type.GQL_ERROR, id, payload));
+  }
+
+  @Override
+  public void sendCompleteMessage(String id) {
+    sendMessage(new OperationMessage(Type.GQL_COMPLETE, id, null));
+  }
+
+  @Override
+  public long getLastSentNanos() {
+    return lastSentNanos;
+  }
+
+  @Override
+  public void subscribe(String id, Publisher<ExecutionResult> dataPublisher) {
+    if (!accepting) {
+      sendCompleteMessage(id);
+      return;
+    }
+    ResumableSubscriptions.resume(
+        dataPublisher, getUserProperties().get(ResumableSubscriptions.LAST_EVENT_ID), id);
+    dataPublisher.subscribe(
+        new ResultSubscriber(id, JsonPatchDeltaEncoder.forSession(getUserProperties())));
+  }
+
+  @Override
+  public void add(String id, Subscription subscription) {
+    subscriptions.add(id, subscription);
+  }
+
+  @Override
+  public void unsubscribe(String id) {
+    subscriptions.cancel(id);
+    admission.release(id);
+  }
+
+  @Override
+  public void stopAccepting() {
+    accepting = false;
+  }
+
+  @Override
+  public void completeAll() {
+    for (String id : subscriptions.getIds()) {
+      unsubscribe(id);
+      sendCompleteMessage(id);
+    }
   }
 
   @Override
   public boolean isOpen() {
-    return session.isOpen();
+    return open;
   }
 
   @Override
   public void close(String reason) {
-    super.close(reason);
-    session.close(reason);
+    log.debug("Closing subscription session {}", getId());
+    open = false;
+    subscriptions.close();
+    synchronized (outbound) {
+      outbound.tryEmitComplete();
+    }
   }
 
   @Override
   public Map<String, Object> getUserProperties() {
-    return session.getUserProperties();
+    return webSocketSession.getAttributes();
   }
 
   @Override
   public String getId() {
-    return session.getId();
+    return webSocketSession.getId();
+  }
+
+  @Override
+  public SessionSubscriptions getSubscriptions() {
+    return subscriptions;
   }
 
   @Override
   public WebSocketSession unwrap() {
-    return session.unwrap();
+    return webSocketSession;
+  }
+
+  @Override
+  public String toString() {
+    return getId();
+  }
+
+  /** Messages are sent from the threads of the subscriptions, the sink needs them serialized. */
+  private void emit(byte[] frame) {
+    Sinks.EmitResult result;
+    synchronized (outbound) {
+      result = outbound.tryEmitNext(frame);
+    }
+    if (result.isFailure() && result != Sinks.EmitResult.FAIL_TERMINATED) {
+      log.debug("Dropped message to session {}: {}", getId(), result);
+    }
+    lastSentNanos = System.nanoTime();
+  }
+
+  /** Keeps the subscriptions by operation id, so that they can be completed one by one. */
+  private static class ActiveSubscriptions extends SessionSubscriptions {
+
+    private final Map<String, Subscription> active = new ConcurrentHashMap<>();
+    private boolean closed;
+
+    @Override
+    public synchronized void add(String id, Subscription subscription) {
+      if (closed) {
+        throw new IllegalStateException("Websocket was already closed!");
+      }
+      active.put(id, subscription);
+    }
+
+    @Override
+    public void cancel(String id) {
+      Subscription subscription = active.remove(id);
+      if (subscription != null) {
+        subscription.cancel();
+      }
+    }
+
+    @Override
+    public synchronized void close() {
+      closed = true;
+      active.values().forEach(Subscription::cancel);
+      active.clear();
+    }
+
+    @Override
+    public int getSubscriptionCount() {
+      return active.size();
+    }
+
+    List<String> getIds() {
+      return new ArrayList<>(active.keySet());
+    }
+  }
+
+  /** Forwards the results of an operation as data messages, one at a time. */
+  private class ResultSubscriber implements Subscriber<ExecutionResult> {
+
+    private final String id;
+    private final JsonPatchDeltaEncoder delta;
+    private volatile Subscription subscription;
+
+    ResultSubscriber(String id, JsonPatchDeltaEncoder delta) {
+      this.id = id;
+      this.delta = delta;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(1);
+      add(id, subscription);
+    }
+
+    @Override
+    public void onNext(ExecutionResult executionResult) {
+      Map<String, Object> result = new HashMap<>();
+      result.put("data", executionResult.getData());
+      Object payload =
+          ResumableSubscriptions.withEventId(
+              result, ResumableSubscriptions.eventId(executionResult));
+      sendDataMessage(id, delta == null ? payload : delta.encode(mapper.serialize(payload)));
+      subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      log.error("Subscription error", throwable);
+      Map<String, Object> payload = new HashMap<>();
+      if (throwable.getCause() instanceof NonNullableFieldWasNullException) {
+        NonNullableFieldWasNullException e =
+            (NonNullableFieldWasNullException) throwable.getCause();
+        payload.put(
+            "errors",
+            Collections.singletonList(
+                GraphqlErrorBuilder.newError().message(e.getMessage()).path(e.getPath()).build()));
+      } else {
+        payload.put(
+            "errors", Collections.singletonList(new GenericGraphQLError(throwable.getMessage())));
+      }
+      unsubscribe(id);
+      sendErrorMessage(id, payload);
+    }
+
+    @Override
+    public void onComplete() {
+      unsubscribe(id);
+      sendCompleteMessage(id);
+    }
   }
 }
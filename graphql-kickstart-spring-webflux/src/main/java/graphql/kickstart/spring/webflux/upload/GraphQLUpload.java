@@ -0,0 +1,134 @@
+package graphql.kickstart.spring.webflux.upload;
+
+import graphql.schema.Coercing;
+import graphql.schema.CoercingParseLiteralException;
+import graphql.schema.CoercingParseValueException;
+import graphql.schema.CoercingSerializeException;
+import graphql.schema.GraphQLScalarType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.codec.multipart.Part;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A file sent with a multipart request, passed to the resolvers in place of its variable.
+ *
+ * <p>The content is read from where the part was stored, from memory for small parts and from the
+ * spool file otherwise, and is never buffered whole.
+ */
+@Slf4j
+public class GraphQLUpload {
+
+  /**
+   * {@code Upload} scalar taking the files of the multipart requests of {@link
+   * graphql.kickstart.spring.webflux.GraphQLController}, to be declared as a bean.
+   */
+  public static final GraphQLScalarType SCALAR =
+      GraphQLScalarType.newScalar()
+          .name("Upload")
+          .description("A file part in a multipart request")
+          .coercing(
+              new Coercing<GraphQLUpload, Void>() {
+                @Override
+                public Void serialize(Object dataFetcherResult) {
+                  throw new CoercingSerializeException("Upload is an input-only type");
+                }
+
+                @Override
+                public GraphQLUpload parseValue(Object input) {
+                  if (input instanceof GraphQLUpload) {
+                    return (GraphQLUpload) input;
+                  }
+                  throw new CoercingParseValueException(
+                      "Expected type "
+                          + GraphQLUpload.class.getName()
+                          + " but was "
+                          + (input == null ? "null" : input.getClass().getName()));
+                }
+
+                @Override
+                public GraphQLUpload parseLiteral(Object input) {
+                  throw new CoercingParseLiteralException(
+                      "Must use variables to specify Upload values");
+                }
+              })
+          .build();
+
+  private static final int PIPE_SIZE = 64 * 1024;
+
+  private final Part part;
+
+  public GraphQLUpload(Part part) {
+    this.part = part;
+  }
+
+  /**
+   * @return the name of the part in the request
+   */
+  public String getName() {
+    return part.name();
+  }
+
+  /**
+   * @return the file name sent by the client, null if the part is not a file
+   */
+  public String getFilename() {
+    return part instanceof FilePart ? ((FilePart) part).filename() : null;
+  }
+
+  public String getContentType() {
+    return part.headers().getContentType() == null
+        ? null
+        : part.headers().getContentType().toString();
+  }
+
+  public Part getPart() {
+    return part;
+  }
+
+  /**
+   * @return the content of the file, the buffers are to be released once consumed
+   */
+  public Flux<DataBuffer> getContent() {
+    return part.content();
+  }
+
+  /**
+   * @return a stream of the content of the file for blocking consumers, the content is written to
+   *     it from another thread as it is read
+   */
+  public InputStream getInputStream() throws IOException {
+    PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+    PipedOutputStream out = new PipedOutputStream(in);
+    DataBufferUtils.write(part.content(), out)
+        .subscribeOn(Schedulers.boundedElastic())
+        .doFinally(
+            signal -> {
+              try {
+                out.close();
+              } catch (IOException e) {
+                log.debug("Cannot close upload stream", e);
+              }
+            })
+        .subscribe(
+            DataBufferUtils::release, e -> log.debug("Cannot stream upload {}", getName(), e));
+    return in;
+  }
+
+  /** Writes the content of the file to the given file. */
+  public Mono<Void> transferTo(Path destination) {
+    if (part instanceof FilePart) {
+      return ((FilePart) part).transferTo(destination);
+    }
+    return DataBufferUtils.write(part.content(), destination);
+  }
+}
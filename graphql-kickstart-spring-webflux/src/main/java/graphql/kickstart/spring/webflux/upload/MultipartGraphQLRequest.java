@@ -0,0 +1,26 @@
+package graphql.kickstart.spring.webflux.upload;
+
+import graphql.kickstart.execution.GraphQLRequest;
+import java.util.List;
+import lombok.Getter;
+import org.springframework.http.codec.multipart.Part;
+
+/** The operations of a multipart request, with their files in place of their variables. */
+@Getter
+public class MultipartGraphQLRequest {
+
+  private final List<GraphQLRequest> requests;
+  private final boolean batched;
+  private final List<Part> parts;
+
+  MultipartGraphQLRequest(List<GraphQLRequest> requests, boolean batched, List<Part> parts) {
+    this.requests = requests;
+    this.batched = batched;
+    this.parts = parts;
+  }
+
+  /** Deletes the parts stored in memory or on disk. */
+  public void delete() {
+    MultipartRequestReader.delete(parts);
+  }
+}
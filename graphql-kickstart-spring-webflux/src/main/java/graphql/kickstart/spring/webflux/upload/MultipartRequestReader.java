@@ -0,0 +1,223 @@
+package graphql.kickstart.spring.webflux.upload;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import graphql.kickstart.execution.GraphQLRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.multipart.DefaultPartHttpMessageReader;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads requests following the GraphQL multipart request specification: an {@code operations} part
+ * holding the request or the batch of requests, a {@code map} part telling which variables the
+ * files go to, and a part per file.
+ *
+ * <p>The parts are stored as they arrive, in memory below the configured threshold and spooled to
+ * disk above it, the request body is never buffered whole. The stored parts are deleted by {@link
+ * MultipartGraphQLRequest#delete()} once the operations completed.
+ */
+@Slf4j
+public class MultipartRequestReader {
+
+  private static final String OPERATIONS = "operations";
+  private static final String MAP = "map";
+  private static final String VARIABLES = "variables";
+
+  private final GraphQLObjectMapper objectMapper;
+  private final UploadOptions options;
+  private final DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+
+  public MultipartRequestReader(GraphQLObjectMapper objectMapper, UploadOptions options) {
+    this.objectMapper = objectMapper;
+    this.options = options;
+    partReader.setMaxInMemorySize(options.getFileSizeThreshold());
+    partReader.setMaxDiskUsagePerPart(options.getMaxFileSize());
+    if (options.getLocation() != null) {
+      try {
+        partReader.setFileStorageDirectory(options.getLocation());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  public Mono<MultipartGraphQLRequest> read(ServerHttpRequest request) {
+    long maxRequestSize = options.getMaxRequestSize();
+    if (maxRequestSize >= 0 && request.getHeaders().getContentLength() > maxRequestSize) {
+      return Mono.error(tooLarge());
+    }
+    ServerHttpRequest limited = maxRequestSize < 0 ? request : new LimitedRequest(request);
+    return partReader
+        .read(ResolvableType.forClass(Part.class), limited, Collections.emptyMap())
+        .collectMap(Part::name)
+        .flatMap(
+            parts ->
+                toRequest(parts)
+                    .onErrorResume(
+                        e -> {
+                          delete(parts);
+                          return Mono.error(e);
+                        }));
+  }
+
+  private Mono<MultipartGraphQLRequest> toRequest(Map<String, Part> parts) {
+    Part operations = parts.get(OPERATIONS);
+    if (operations == null) {
+      return Mono.error(badRequest("Missing operations part", null));
+    }
+    Part map = parts.get(MAP);
+    return Mono.zip(
+        text(operations),
+        map == null ? Mono.just("{}") : text(map),
+        (json, mapJson) -> {
+          try {
+            return toRequest(json, mapJson, parts);
+          } catch (IOException e) {
+            throw badRequest("Invalid multipart request", e);
+          }
+        });
+  }
+
+  private MultipartGraphQLRequest toRequest(String json, String mapJson, Map<String, Part> parts)
+      throws IOException {
+    JsonNode operations = objectMapper.getJacksonMapper().readTree(json);
+    boolean batched = operations.isArray();
+    List<GraphQLRequest> requests = new ArrayList<>();
+    if (batched) {
+      for (JsonNode operation : operations) {
+        requests.add(toGraphQLRequest(operation));
+      }
+    } else {
+      requests.add(toGraphQLRequest(operations));
+    }
+    Map<String, List<String>> map =
+        objectMapper
+            .getJacksonMapper()
+            .readValue(mapJson, new TypeReference<Map<String, List<String>>>() {});
+    for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+      Part part = parts.get(entry.getKey());
+      if (part == null) {
+        throw badRequest("Missing file part " + entry.getKey(), null);
+      }
+      for (String path : entry.getValue()) {
+        put(requests, batched, path, new GraphQLUpload(part));
+      }
+    }
+    return new MultipartGraphQLRequest(requests, batched, new ArrayList<>(parts.values()));
+  }
+
+  private GraphQLRequest toGraphQLRequest(JsonNode operation) throws IOException {
+    GraphQLRequest request =
+        objectMapper.getJacksonMapper().treeToValue(operation, GraphQLRequest.class);
+    if (request.getQuery() == null) {
+      request.setQuery("");
+    }
+    if (request.getVariables() == null) {
+      request.setVariables(new HashMap<>());
+    }
+    return request;
+  }
+
+  /** Puts the upload at its object path, such as {@code variables.files.0}. */
+  @SuppressWarnings("unchecked")
+  private void put(List<GraphQLRequest> requests, boolean batched, String path, Object upload) {
+    String[] segments = path.split("\\.");
+    int start = batched ? 1 : 0;
+    try {
+      GraphQLRequest request = requests.get(batched ? Integer.parseInt(segments[0]) : 0);
+      if (segments.length < start + 2 || !VARIABLES.equals(segments[start])) {
+        throw badRequest("Invalid file path " + path, null);
+      }
+      Object container = request.getVariables();
+      for (int i = start + 1; i < segments.length - 1; i++) {
+        container =
+            container instanceof List
+                ? ((List<Object>) container).get(Integer.parseInt(segments[i]))
+                : ((Map<String, Object>) container).get(segments[i]);
+      }
+      String last = segments[segments.length - 1];
+      if (container instanceof List) {
+        ((List<Object>) container).set(Integer.parseInt(last), upload);
+      } else if (container instanceof Map) {
+        ((Map<String, Object>) container).put(last, upload);
+      } else {
+        throw badRequest("Invalid file path " + path, null);
+      }
+    } catch (IndexOutOfBoundsException | NumberFormatException e) {
+      throw badRequest("Invalid file path " + path, e);
+    }
+  }
+
+  private static Mono<String> text(Part part) {
+    return DataBufferUtils.join(part.content())
+        .map(
+            buffer -> {
+              String text = buffer.toString(UTF_8);
+              DataBufferUtils.release(buffer);
+              return text;
+            })
+        .defaultIfEmpty("");
+  }
+
+  static void delete(Map<String, Part> parts) {
+    delete(parts.values());
+  }
+
+  static void delete(Iterable<Part> parts) {
+    for (Part part : parts) {
+      part.delete()
+          .subscribe(null, e -> log.debug("Cannot delete multipart part {}", part.name(), e));
+    }
+  }
+
+  private static ResponseStatusException badRequest(String reason, Throwable cause) {
+    return new ResponseStatusException(HttpStatus.BAD_REQUEST, reason, cause);
+  }
+
+  private static ResponseStatusException tooLarge() {
+    return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Request too large");
+  }
+
+  /** Request failing once its body exceeds the maximum request size. */
+  private class LimitedRequest extends ServerHttpRequestDecorator {
+
+    LimitedRequest(ServerHttpRequest delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public Flux<DataBuffer> getBody() {
+      AtomicLong size = new AtomicLong();
+      return super.getBody()
+          .handle(
+              (buffer, sink) -> {
+                if (size.addAndGet(buffer.readableByteCount()) > options.getMaxRequestSize()) {
+                  DataBufferUtils.release(buffer);
+                  sink.error(tooLarge());
+                } else {
+                  sink.next(buffer);
+                }
+              });
+    }
+  }
+}
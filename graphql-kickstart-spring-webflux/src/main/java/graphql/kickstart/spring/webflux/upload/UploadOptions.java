@@ -0,0 +1,20 @@
+package graphql.kickstart.spring.webflux.upload;
+
+import java.nio.file.Path;
+import lombok.Builder;
+import lombok.Value;
+
+/** How {@link MultipartRequestReader} stores the parts of multipart requests. */
+@Value
+@Builder
+public class UploadOptions {
+
+  /** Size in bytes above which the content of a part is spooled to disk. */
+  @Builder.Default int fileSizeThreshold = 256 * 1024;
+  /** Directory the parts are spooled to, null for a new directory in the temporary directory. */
+  Path location;
+  /** Maximum size in bytes of a part, -1 for no limit. */
+  @Builder.Default long maxFileSize = -1;
+  /** Maximum size in bytes of a request, -1 for no limit. */
+  @Builder.Default long maxRequestSize = -1;
+}
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.module.kotlin.KotlinModule;
 import graphql.kickstart.execution.config.GraphQLSchemaProvider;
+import graphql.kickstart.spring.subscriptions.throttle.ThrottleDirective;
 import graphql.kickstart.tools.CoroutineContextProvider;
 import graphql.kickstart.tools.GraphQLResolver;
 import graphql.kickstart.tools.ObjectMapperConfigurer;
@@ -155,4 +156,15 @@ public class GraphQLJavaToolsAutoConfiguration {
             + "GraphQL specification and expectations of most clients, so use this option with caution");
     return new NoIntrospectionGraphqlFieldVisibility();
   }
+
+  @Configuration
+  @ConditionalOnClass(name = "reactor.core.publisher.Flux")
+  static class ThrottleDirectiveConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(name = "throttleDirective")
+    public SchemaDirective throttleDirective() {
+      return new SchemaDirective(ThrottleDirective.NAME, new ThrottleDirective());
+    }
+  }
 }
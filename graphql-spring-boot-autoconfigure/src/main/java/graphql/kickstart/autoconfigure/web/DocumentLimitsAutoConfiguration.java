@@ -0,0 +1,44 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.limits.DocumentLimitsInstrumentation;
+import graphql.kickstart.spring.limits.DocumentParser;
+import graphql.kickstart.spring.trusted.TrustedDocuments;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+@EnableConfigurationProperties(GraphQLParserProperties.class)
+public class DocumentLimitsAutoConfiguration {
+
+  /**
+   * Parser of the components reading documents before the execution, with its limits. With trusted
+   * documents it leaves alone the requests not executed from their text.
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public DocumentParser documentParser(
+      GraphQLParserProperties properties, ObjectProvider<TrustedDocuments> trustedDocuments) {
+    DocumentParser parser =
+        properties.isEnabled()
+            ? new DocumentParser(properties.toDocumentLimitsOptions())
+            : new DocumentParser();
+    TrustedDocuments trusted = trustedDocuments.getIfAvailable();
+    return trusted == null ? parser : trusted.parser(parser);
+  }
+
+  /** First of the instrumentations, the limits are meant to run before any other analysis. */
+  @Bean
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(value = "graphql.servlet.parser.enabled", havingValue = "true")
+  public DocumentLimitsInstrumentation documentLimitsInstrumentation(
+      GraphQLParserProperties properties) {
+    return new DocumentLimitsInstrumentation(properties.toDocumentLimitsOptions());
+  }
+}
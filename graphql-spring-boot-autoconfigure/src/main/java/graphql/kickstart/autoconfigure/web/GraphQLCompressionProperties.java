@@ -0,0 +1,32 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.compression.CompressionOptions;
+import java.util.zip.Deflater;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties("graphql.compression")
+public class GraphQLCompressionProperties {
+
+  /**
+   * Whether the responses of the GraphQL endpoint are compressed with gzip for the clients
+   * accepting it, independently of the compression of the server.
+   */
+  private boolean enabled = false;
+  /**
+   * Size below which responses are written uncompressed. {@code text/event-stream} and {@code
+   * multipart/mixed} responses are compressed regardless, and flushed part by part.
+   */
+  private DataSize minResponseSize = DataSize.ofKilobytes(2);
+  /** Deflate level, from 1 for the fastest to 9 for the smallest output, -1 for the default. */
+  private int level = Deflater.DEFAULT_COMPRESSION;
+
+  public CompressionOptions toCompressionOptions() {
+    return CompressionOptions.builder()
+        .minResponseSize((int) minResponseSize.toBytes())
+        .level(level)
+        .build();
+  }
+}
@@ -4,6 +4,8 @@ import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrume
 import graphql.kickstart.execution.BatchedDataLoaderGraphQLBuilder;
 import graphql.kickstart.execution.GraphQLInvoker;
 import graphql.kickstart.execution.config.GraphQLBuilder;
+import graphql.kickstart.spring.coalescing.CoalescingGraphQLInvoker;
+import graphql.kickstart.spring.coalescing.QueryCoalescer;
 import java.util.function.Supplier;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -17,7 +19,12 @@ public class GraphQLInvokerAutoConfiguration {
   @ConditionalOnMissingBean
   public GraphQLInvoker graphQLInvoker(
       GraphQLBuilder graphQLBuilder,
-      BatchedDataLoaderGraphQLBuilder batchedDataLoaderGraphQLBuilder) {
+      BatchedDataLoaderGraphQLBuilder batchedDataLoaderGraphQLBuilder,
+      @Autowired(required = false) QueryCoalescer queryCoalescer) {
+    if (queryCoalescer != null) {
+      return new CoalescingGraphQLInvoker(
+          graphQLBuilder, batchedDataLoaderGraphQLBuilder, queryCoalescer);
+    }
     return new GraphQLInvoker(graphQLBuilder, batchedDataLoaderGraphQLBuilder);
   }
 
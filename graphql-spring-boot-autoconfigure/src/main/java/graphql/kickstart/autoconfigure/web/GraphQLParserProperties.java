@@ -0,0 +1,46 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.limits.DocumentLimitsOptions;
+import graphql.parser.ParserOptions;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("graphql.servlet.parser")
+public class GraphQLParserProperties {
+
+  /**
+   * Whether the documents and variables of the requests are checked against the limits before being
+   * parsed and validated. Limits of zero or less are unlimited.
+   */
+  private boolean enabled = false;
+  /** Maximum number of grammar tokens of a document. */
+  private int maxTokens = ParserOptions.MAX_QUERY_TOKENS;
+  /** Maximum number of whitespace tokens of a document. */
+  private int maxWhitespaceTokens = ParserOptions.MAX_WHITESPACE_TOKENS;
+  /** Maximum number of characters of a document. */
+  private int maxCharacters = 1_000_000;
+  /** Maximum size of a document in UTF-8 bytes. */
+  private int maxDocumentBytes;
+  /** Maximum number of aliased fields of a document. */
+  private int maxAliases;
+  /** Maximum number of times a field is selected in the same selection set. */
+  private int maxFieldDuplication;
+  /** Maximum number of directives of a field. */
+  private int maxDirectivesPerField;
+  /** Maximum size of the variables of a request, measured as their JSON representation. */
+  private int maxVariablesBytes;
+
+  public DocumentLimitsOptions toDocumentLimitsOptions() {
+    return DocumentLimitsOptions.builder()
+        .maxTokens(maxTokens)
+        .maxWhitespaceTokens(maxWhitespaceTokens)
+        .maxCharacters(maxCharacters)
+        .maxDocumentBytes(maxDocumentBytes)
+        .maxAliases(maxAliases)
+        .maxFieldDuplication(maxFieldDuplication)
+        .maxDirectivesPerField(maxDirectivesPerField)
+        .maxVariablesBytes(maxVariablesBytes)
+        .build();
+  }
+}
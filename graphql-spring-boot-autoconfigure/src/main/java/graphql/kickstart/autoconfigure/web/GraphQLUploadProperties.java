@@ -0,0 +1,27 @@
+package graphql.kickstart.autoconfigure.web;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Storage of the files of multipart requests, for the servlet and the reactive controller. Once any
+ * of them is set, the settings apply to the servlet instead of the multipart config of the
+ * application.
+ */
+@Data
+@ConfigurationProperties("graphql.servlet.upload")
+public class GraphQLUploadProperties {
+
+  /** Size above which the content of a file is written to disk instead of kept in memory. */
+  private DataSize fileSizeThreshold = DataSize.ofKilobytes(256);
+  /**
+   * Directory the files are written to, by default the temporary directory of the servlet container
+   * or a new temporary directory for the reactive controller.
+   */
+  private String location = "";
+  /** Maximum size of a file, unlimited if negative. */
+  private DataSize maxFileSize = DataSize.ofBytes(-1);
+  /** Maximum size of a multipart request, unlimited if negative. */
+  private DataSize maxRequestSize = DataSize.ofBytes(-1);
+}
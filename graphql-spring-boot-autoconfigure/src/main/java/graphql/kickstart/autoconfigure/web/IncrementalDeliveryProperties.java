@@ -0,0 +1,15 @@
+package graphql.kickstart.autoconfigure.web;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("graphql.incremental-delivery")
+public class IncrementalDeliveryProperties {
+
+  /**
+   * Whether queries with {@code @defer} or {@code @stream} are answered as {@code multipart/mixed}
+   * to clients accepting it.
+   */
+  private boolean enabled = false;
+}
@@ -0,0 +1,34 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.live.LiveQueryInstrumentation;
+import graphql.kickstart.spring.live.LiveQueryOptions;
+import graphql.kickstart.spring.live.LiveQueryRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnClass(name = "reactor.core.publisher.Flux")
+@ConditionalOnProperty(value = "graphql.live-queries.enabled", havingValue = "true")
+@EnableConfigurationProperties(LiveQueryProperties.class)
+public class LiveQueryAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public LiveQueryRegistry liveQueryRegistry(LiveQueryProperties properties) {
+    return new LiveQueryRegistry(
+        LiveQueryOptions.builder()
+            .debounce(properties.getDebounce())
+            .coalesce(properties.isCoalesce())
+            .build());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public LiveQueryInstrumentation liveQueryInstrumentation(LiveQueryRegistry registry) {
+    return registry.getInstrumentation();
+  }
+}
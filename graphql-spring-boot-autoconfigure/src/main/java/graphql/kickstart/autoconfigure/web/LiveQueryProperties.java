@@ -0,0 +1,20 @@
+package graphql.kickstart.autoconfigure.web;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("graphql.live-queries")
+public class LiveQueryProperties {
+
+  /** Whether queries marked with {@code @live} are streamed and executed again on invalidation. */
+  private boolean enabled = false;
+  /** Delay between the first invalidation of a live query and its execution. */
+  private Duration debounce = Duration.ofMillis(50);
+  /**
+   * Whether live queries with the same document and variables share their executions, which run
+   * with the context of the first client. Only enable it when results do not depend on the client.
+   */
+  private boolean coalesce = false;
+}
@@ -0,0 +1,60 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.autoconfigure.web.servlet.RequestHeadersDiscriminator;
+import graphql.kickstart.spring.coalescing.QueryCoalescer;
+import graphql.kickstart.spring.coalescing.QueryCoalescingDiscriminator;
+import graphql.kickstart.spring.limits.DocumentParser;
+import graphql.kickstart.spring.webflux.ExchangeHeadersDiscriminator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(value = "graphql.query-coalescing.enabled", havingValue = "true")
+@EnableConfigurationProperties(QueryCoalescingProperties.class)
+public class QueryCoalescingAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public QueryCoalescer queryCoalescer(
+      QueryCoalescingDiscriminator discriminator,
+      QueryCoalescingProperties properties,
+      ObjectProvider<DocumentParser> documentParser) {
+    return new QueryCoalescer(
+        discriminator,
+        documentParser.getIfAvailable(DocumentParser::new),
+        properties.getMaxDocuments());
+  }
+
+  @Configuration
+  @ConditionalOnWebApplication(type = Type.SERVLET)
+  @ConditionalOnClass(name = "javax.servlet.http.HttpServletRequest")
+  static class ServletDiscriminatorConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public QueryCoalescingDiscriminator queryCoalescingDiscriminator(
+        QueryCoalescingProperties properties) {
+      return new RequestHeadersDiscriminator(properties.getDiscriminatorHeaders());
+    }
+  }
+
+  @Configuration
+  @ConditionalOnWebApplication(type = Type.REACTIVE)
+  @ConditionalOnClass(name = "graphql.kickstart.spring.webflux.GraphQLController")
+  static class ReactiveDiscriminatorConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public QueryCoalescingDiscriminator queryCoalescingDiscriminator(
+        QueryCoalescingProperties properties) {
+      return new ExchangeHeadersDiscriminator(properties.getDiscriminatorHeaders());
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package graphql.kickstart.autoconfigure.web;
+
+import java.util.Arrays;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("graphql.query-coalescing")
+public class QueryCoalescingProperties {
+
+  /**
+   * Whether identical queries executing at the same time share a single execution. Mutations,
+   * subscriptions and live queries are never shared.
+   */
+  private boolean enabled = false;
+  /**
+   * Request headers identifying the caller, queries are only shared between callers sending the
+   * same values.
+   */
+  private List<String> discriminatorHeaders = Arrays.asList("Authorization", "Cookie");
+  /** Number of normalized query documents kept in memory. */
+  private int maxDocuments = 1000;
+}
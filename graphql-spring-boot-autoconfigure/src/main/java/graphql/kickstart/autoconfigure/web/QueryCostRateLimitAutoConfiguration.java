@@ -0,0 +1,71 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.kickstart.autoconfigure.web.servlet.RequestRateLimitKeyResolver;
+import graphql.kickstart.spring.ratelimit.QueryCostRateLimitInstrumentation;
+import graphql.kickstart.spring.ratelimit.QueryCostRateLimitOptions;
+import graphql.kickstart.spring.ratelimit.QueryCostRateLimiter;
+import graphql.kickstart.spring.ratelimit.RateLimitKeyResolver;
+import graphql.kickstart.spring.webflux.ExchangeRateLimitKeyResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(value = "graphql.query-cost-rate-limit.enabled", havingValue = "true")
+@EnableConfigurationProperties(QueryCostRateLimitProperties.class)
+public class QueryCostRateLimitAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public QueryCostRateLimiter queryCostRateLimiter(QueryCostRateLimitProperties properties) {
+    return new QueryCostRateLimiter(
+        QueryCostRateLimitOptions.builder()
+            .capacity(properties.getCapacity())
+            .refillPerSecond(properties.getRefillPerSecond())
+            .stripes(properties.getStripes())
+            .sweepInterval(properties.getSweepInterval())
+            .build());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public QueryCostRateLimitInstrumentation queryCostRateLimitInstrumentation(
+      QueryCostRateLimiter limiter,
+      RateLimitKeyResolver keyResolver,
+      @Autowired(required = false) FieldComplexityCalculator fieldComplexityCalculator) {
+    return fieldComplexityCalculator == null
+        ? new QueryCostRateLimitInstrumentation(limiter, keyResolver)
+        : new QueryCostRateLimitInstrumentation(limiter, keyResolver, fieldComplexityCalculator);
+  }
+
+  @Configuration
+  @ConditionalOnWebApplication(type = Type.SERVLET)
+  @ConditionalOnClass(name = "javax.servlet.http.HttpServletRequest")
+  static class ServletKeyResolverConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RateLimitKeyResolver rateLimitKeyResolver(QueryCostRateLimitProperties properties) {
+      return new RequestRateLimitKeyResolver(properties.getKey(), properties.getHeader());
+    }
+  }
+
+  @Configuration
+  @ConditionalOnWebApplication(type = Type.REACTIVE)
+  @ConditionalOnClass(name = "graphql.kickstart.spring.webflux.GraphQLController")
+  static class ReactiveKeyResolverConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RateLimitKeyResolver rateLimitKeyResolver(QueryCostRateLimitProperties properties) {
+      return new ExchangeRateLimitKeyResolver(properties.getKey(), properties.getHeader());
+    }
+  }
+}
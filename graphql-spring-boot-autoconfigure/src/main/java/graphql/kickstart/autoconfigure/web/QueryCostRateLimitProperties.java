@@ -0,0 +1,32 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.ratelimit.RateLimitKey;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("graphql.query-cost-rate-limit")
+public class QueryCostRateLimitProperties {
+
+  /**
+   * Whether the complexity of the queries is charged to a budget per client, rejecting the queries
+   * of the clients that spent it.
+   */
+  private boolean enabled = false;
+  /**
+   * Complexity a client may spend at once. Queries of a higher complexity are always rejected, it
+   * should not be lower than graphql.servlet.max-query-complexity.
+   */
+  private long capacity = 1000;
+  /** Complexity given back to every client per second. */
+  private long refillPerSecond = 100;
+  /** What identifies a client. */
+  private RateLimitKey key = RateLimitKey.IP;
+  /** Header identifying a client when the key is HEADER. */
+  private String header = "X-API-Key";
+  /** Number of stripes the clients are spread over. */
+  private int stripes = 64;
+  /** Minimum delay between two sweeps of the clients that have their full budget again. */
+  private Duration sweepInterval = Duration.ofMinutes(1);
+}
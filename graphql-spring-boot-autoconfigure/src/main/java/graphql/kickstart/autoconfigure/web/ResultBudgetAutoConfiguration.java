@@ -0,0 +1,21 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.limits.ResultBudgetInstrumentation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(value = "graphql.servlet.result-budget.enabled", havingValue = "true")
+@EnableConfigurationProperties(ResultBudgetProperties.class)
+public class ResultBudgetAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public ResultBudgetInstrumentation resultBudgetInstrumentation(
+      ResultBudgetProperties properties) {
+    return new ResultBudgetInstrumentation(properties.toResultBudgetOptions());
+  }
+}
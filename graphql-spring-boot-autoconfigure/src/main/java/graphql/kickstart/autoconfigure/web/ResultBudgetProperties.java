@@ -0,0 +1,25 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.limits.ResultBudgetOptions;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties("graphql.servlet.result-budget")
+public class ResultBudgetProperties {
+
+  /**
+   * Whether the executions whose result grows over the budget are aborted. Budgets of zero or less
+   * are unlimited.
+   */
+  private boolean enabled = false;
+  /** Maximum number of fields and list items of a result. */
+  private long maxNodes = 100_000;
+  /** Maximum size of a result, estimated as its JSON representation. */
+  private DataSize maxBytes = DataSize.ofMegabytes(16);
+
+  public ResultBudgetOptions toResultBudgetOptions() {
+    return ResultBudgetOptions.builder().maxNodes(maxNodes).maxBytes(maxBytes.toBytes()).build();
+  }
+}
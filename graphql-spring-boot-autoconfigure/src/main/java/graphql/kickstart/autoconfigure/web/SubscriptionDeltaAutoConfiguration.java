@@ -0,0 +1,23 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionConnectionListener;
+import graphql.kickstart.spring.subscriptions.delta.DeltaConnectionListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnClass(ApolloSubscriptionConnectionListener.class)
+@ConditionalOnProperty(value = "graphql.subscriptions.delta.enabled", havingValue = "true")
+@EnableConfigurationProperties(SubscriptionDeltaProperties.class)
+public class SubscriptionDeltaAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public DeltaConnectionListener deltaConnectionListener(SubscriptionDeltaProperties properties) {
+    return new DeltaConnectionListener(properties.getSnapshotInterval());
+  }
+}
@@ -0,0 +1,14 @@
+package graphql.kickstart.autoconfigure.web;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("graphql.subscriptions.delta")
+public class SubscriptionDeltaProperties {
+
+  /** Whether clients may negotiate JSON Patch deltas of their subscription payloads. */
+  private boolean enabled = false;
+  /** Number of data messages of a subscription between two full payloads. */
+  private int snapshotInterval = 20;
+}
@@ -0,0 +1,78 @@
+package graphql.kickstart.autoconfigure.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.kickstart.spring.subscriptions.bus.JacksonSubscriptionEventCodec;
+import graphql.kickstart.spring.subscriptions.bus.LocalSubscriptionEventBus;
+import graphql.kickstart.spring.subscriptions.bus.SubscriptionEventBus;
+import graphql.kickstart.spring.subscriptions.bus.SubscriptionEventCodec;
+import graphql.kickstart.spring.subscriptions.bus.TcpEventBusOptions;
+import graphql.kickstart.spring.subscriptions.bus.TcpSubscriptionEventBus;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@AutoConfigureAfter(JacksonAutoConfiguration.class)
+@EnableConfigurationProperties(SubscriptionEventBusProperties.class)
+public class SubscriptionEventBusAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean(SubscriptionEventBus.class)
+  @ConditionalOnProperty(
+      value = "graphql.subscriptions.event-bus.type",
+      havingValue = "local",
+      matchIfMissing = true)
+  public LocalSubscriptionEventBus localSubscriptionEventBus() {
+    return new LocalSubscriptionEventBus();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(value = "graphql.subscriptions.event-bus.type", havingValue = "tcp")
+  public SubscriptionEventCodec subscriptionEventCodec(ObjectProvider<ObjectMapper> objectMapper) {
+    return new JacksonSubscriptionEventCodec(objectMapper.getIfAvailable(ObjectMapper::new));
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  @ConditionalOnMissingBean(SubscriptionEventBus.class)
+  @ConditionalOnProperty(value = "graphql.subscriptions.event-bus.type", havingValue = "tcp")
+  public TcpSubscriptionEventBus tcpSubscriptionEventBus(
+      SubscriptionEventBusProperties properties, SubscriptionEventCodec codec) {
+    SubscriptionEventBusProperties.Tcp tcp = properties.getTcp();
+    return new TcpSubscriptionEventBus(
+        TcpEventBusOptions.builder()
+            .host(tcp.getHost())
+            .port(tcp.getPort())
+            .peers(toAddresses(tcp.getPeers()))
+            .maxBatchSize(tcp.getMaxBatchSize())
+            .maxBatchDelay(tcp.getMaxBatchDelay())
+            .maxQueuedEvents(tcp.getMaxQueuedEvents())
+            .maxFrameBytes((int) Math.min(Integer.MAX_VALUE, tcp.getMaxFrameSize().toBytes()))
+            .maxTopics(tcp.getMaxTopics())
+            .reconnectDelay(tcp.getReconnectDelay())
+            .build(),
+        codec);
+  }
+
+  private static List<InetSocketAddress> toAddresses(List<String> peers) {
+    return peers.stream()
+        .map(
+            peer -> {
+              int separator = peer.lastIndexOf(':');
+              if (separator < 0) {
+                throw new IllegalArgumentException("Event bus peer must be host:port: " + peer);
+              }
+              return InetSocketAddress.createUnresolved(
+                  peer.substring(0, separator), Integer.parseInt(peer.substring(separator + 1)));
+            })
+        .collect(Collectors.toList());
+  }
+}
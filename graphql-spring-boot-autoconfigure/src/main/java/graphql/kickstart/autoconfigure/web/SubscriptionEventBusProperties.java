@@ -0,0 +1,51 @@
+package graphql.kickstart.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties("graphql.subscriptions.event-bus")
+public class SubscriptionEventBusProperties {
+
+  public enum Type {
+    /** Events only reach the listeners on the publishing node. */
+    LOCAL,
+    /** Events are exchanged with the peers over TCP. */
+    TCP
+  }
+
+  private Type type = Type.LOCAL;
+
+  private Tcp tcp = new Tcp();
+
+  @Data
+  public static class Tcp {
+
+    /**
+     * Address to accept peer connections on, loopback by default. Connections are neither
+     * authenticated nor encrypted, bind to a private interface only reachable by the peers or
+     * tunnel the bus through TLS.
+     */
+    private String host = "127.0.0.1";
+    /** Port to accept peer connections on. */
+    private int port = 7979;
+    /** Nodes to receive events from, as host:port. */
+    private List<String> peers = new ArrayList<>();
+    /** Maximum number of events written to a peer in one frame. */
+    private int maxBatchSize = 256;
+    /** How long to wait for more events before writing a frame that is not full. */
+    private Duration maxBatchDelay = Duration.ofMillis(5);
+    /** Events queued per peer before further events for that peer are dropped. */
+    private int maxQueuedEvents = 10_000;
+    /** Maximum payload size of a frame accepted from a peer. */
+    private DataSize maxFrameSize = DataSize.ofMegabytes(16);
+    /** Maximum number of topics a peer may announce, its connection is closed beyond. */
+    private int maxTopics = 10_000;
+    /** Pause between attempts to connect to a peer. */
+    private Duration reconnectDelay = Duration.ofSeconds(1);
+  }
+}
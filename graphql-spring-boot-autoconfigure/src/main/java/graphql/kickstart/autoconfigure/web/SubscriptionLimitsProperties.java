@@ -0,0 +1,27 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.subscriptions.SubscriptionLimits;
+import lombok.Data;
+
+/** Admission limits shared by the servlet and reactive websocket endpoints. */
+@Data
+public class SubscriptionLimitsProperties {
+
+  /** Maximum number of concurrent websocket sessions on this node, 0 for no limit. */
+  private int maxSessions = 0;
+  /** Maximum number of active subscriptions on a single session, 0 for no limit. */
+  private int maxSubscriptionsPerSession = 0;
+  /** Subscriptions a single session may start per second, 0 for no limit. */
+  private double startsPerSecond = 0;
+  /** Subscriptions a session may start at once before the start rate applies. */
+  private int startBurst = 10;
+
+  public SubscriptionLimits toSubscriptionLimits() {
+    return SubscriptionLimits.builder()
+        .maxSessions(maxSessions)
+        .maxSubscriptionsPerSession(maxSubscriptionsPerSession)
+        .startsPerSecond(startsPerSecond)
+        .startBurst(startBurst)
+        .build();
+  }
+}
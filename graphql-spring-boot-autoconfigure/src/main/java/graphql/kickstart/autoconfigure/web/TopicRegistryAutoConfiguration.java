@@ -0,0 +1,50 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.subscriptions.topics.ResumableSubscriptionInstrumentation;
+import graphql.kickstart.spring.subscriptions.topics.ResumeConnectionListener;
+import graphql.kickstart.spring.subscriptions.topics.TopicRegistry;
+import graphql.kickstart.spring.subscriptions.topics.TopicRegistryOptions;
+import graphql.kickstart.spring.subscriptions.topics.TopicSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnClass(name = "reactor.core.publisher.Flux")
+@EnableConfigurationProperties(TopicRegistryProperties.class)
+public class TopicRegistryAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public TopicRegistry topicRegistry(
+      TopicRegistryProperties properties, ObjectProvider<TopicSource> topicSource) {
+    return new TopicRegistry(
+        TopicRegistryOptions.builder()
+            .stripes(properties.getStripes())
+            .replay(properties.getReplay())
+            .subscriberBuffer(properties.getSubscriberBuffer())
+            .overflow(properties.getOverflow())
+            .resumeEvents(properties.getResumeEvents())
+            .resumeMaxAge(properties.getResumeMaxAge())
+            .build(),
+        topicSource.getIfUnique());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnExpression("${graphql.subscriptions.topics.resume-events:0} > 0")
+  public ResumeConnectionListener resumeConnectionListener() {
+    return new ResumeConnectionListener();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnExpression("${graphql.subscriptions.topics.resume-events:0} > 0")
+  public ResumableSubscriptionInstrumentation resumableSubscriptionInstrumentation() {
+    return new ResumableSubscriptionInstrumentation();
+  }
+}
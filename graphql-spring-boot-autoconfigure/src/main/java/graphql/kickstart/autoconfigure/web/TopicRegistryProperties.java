@@ -0,0 +1,30 @@
+package graphql.kickstart.autoconfigure.web;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import reactor.core.publisher.BufferOverflowStrategy;
+
+@Data
+@ConfigurationProperties("graphql.subscriptions.topics")
+public class TopicRegistryProperties {
+
+  /** Number of locks guarding topic activation and teardown, rounded up to a power of two. */
+  private int stripes = 64;
+  /** Number of recent events of an active topic replayed to new subscribers, 0 to disable. */
+  private int replay = 16;
+  /** Number of events buffered per subscriber that has not requested them yet. */
+  private int subscriberBuffer = 256;
+  /**
+   * What happens once the buffer of a subscriber is full: fail the subscription, or drop its oldest
+   * or latest events.
+   */
+  private BufferOverflowStrategy overflow = BufferOverflowStrategy.ERROR;
+  /**
+   * Number of events kept per topic for clients resuming their subscriptions after a reconnect, 0
+   * to disable resuming.
+   */
+  private int resumeEvents = 0;
+  /** Age after which kept events are dropped, idle topics are kept as long for resuming. */
+  private Duration resumeMaxAge = Duration.ofMinutes(5);
+}
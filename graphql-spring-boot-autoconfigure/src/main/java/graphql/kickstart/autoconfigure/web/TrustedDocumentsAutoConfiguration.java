@@ -0,0 +1,60 @@
+package graphql.kickstart.autoconfigure.web;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.kickstart.autoconfigure.annotations.GraphQLAnnotationsAutoConfiguration;
+import graphql.kickstart.autoconfigure.tools.GraphQLJavaToolsAutoConfiguration;
+import graphql.kickstart.spring.trusted.TrustedDocumentRequestModule;
+import graphql.kickstart.spring.trusted.TrustedDocuments;
+import graphql.schema.GraphQLSchema;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(value = "graphql.trusted-documents.enabled", havingValue = "true")
+@ConditionalOnBean(GraphQLSchema.class)
+@AutoConfigureAfter({
+  GraphQLJavaToolsAutoConfiguration.class,
+  GraphQLAnnotationsAutoConfiguration.class
+})
+@EnableConfigurationProperties(TrustedDocumentsProperties.class)
+public class TrustedDocumentsAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public TrustedDocuments trustedDocuments(
+      GraphQLSchema schema, ObjectMapper objectMapper, TrustedDocumentsProperties properties)
+      throws IOException {
+    if (properties.getManifest() == null) {
+      throw new IllegalStateException(
+          "graphql.trusted-documents.manifest is required when trusted documents are enabled");
+    }
+    Map<String, String> manifest;
+    try (InputStream inputStream = properties.getManifest().getInputStream()) {
+      manifest = objectMapper.readValue(inputStream, new TypeReference<Map<String, String>>() {});
+    }
+    TrustedDocuments trustedDocuments =
+        new TrustedDocuments(schema, manifest, properties.isAllowUntrusted());
+    log.info(
+        "Loaded {} trusted documents from {}",
+        trustedDocuments.size(),
+        properties.getManifest().getDescription());
+    return trustedDocuments;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public TrustedDocumentRequestModule trustedDocumentRequestModule() {
+    return new TrustedDocumentRequestModule();
+  }
+}
@@ -0,0 +1,20 @@
+package graphql.kickstart.autoconfigure.web;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+@Data
+@ConfigurationProperties("graphql.trusted-documents")
+public class TrustedDocumentsProperties {
+
+  /** Whether only the documents of the manifest are executed. */
+  private boolean enabled = false;
+  /**
+   * Manifest of the trusted documents, a JSON object of the documents by id, for example {@code
+   * classpath:trusted-documents.json} or {@code file:/etc/graphql/trusted-documents.json}.
+   */
+  private Resource manifest;
+  /** Whether requests without document id are parsed and executed as usual. */
+  private boolean allowUntrusted = false;
+}
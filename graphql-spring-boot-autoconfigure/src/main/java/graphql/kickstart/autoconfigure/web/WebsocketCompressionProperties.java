@@ -0,0 +1,35 @@
+package graphql.kickstart.autoconfigure.web;
+
+import lombok.Data;
+
+/** permessage-deflate settings shared by the servlet and reactive websocket endpoints. */
+@Data
+public class WebsocketCompressionProperties {
+
+  public static final int MAX_WINDOW_BITS = 15;
+
+  /**
+   * Whether permessage-deflate may be negotiated. When not set on the servlet endpoint the
+   * container default applies.
+   */
+  private Boolean enabled;
+  /** Deflate compression level (0-9). Only applied by the reactive endpoint. */
+  private int compressionLevel = 6;
+  /**
+   * Upper bound for the server LZ77 sliding window (8-15). Applied when the client offers
+   * <tt>server_max_window_bits</tt>. Containers compressing with java.util.zip only support 15 and
+   * decline offers with a smaller window.
+   */
+  private int serverMaxWindowBits = MAX_WINDOW_BITS;
+  /** Sliding window requested from clients offering <tt>client_max_window_bits</tt> (8-15). */
+  private int clientMaxWindowBits = MAX_WINDOW_BITS;
+  /** Reset the server compression context after every message. */
+  private boolean serverNoContextTakeover = false;
+  /** Ask clients to reset their compression context after every message. */
+  private boolean clientNoContextTakeover = false;
+  /**
+   * Frames with a payload smaller than this number of bytes are sent uncompressed. Only applied by
+   * the reactive endpoint, JSR-356 offers no per message control.
+   */
+  private int threshold = 0;
+}
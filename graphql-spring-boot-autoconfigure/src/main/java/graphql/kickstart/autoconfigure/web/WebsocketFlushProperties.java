@@ -0,0 +1,22 @@
+package graphql.kickstart.autoconfigure.web;
+
+import graphql.kickstart.spring.subscriptions.FrameCoalescingOptions;
+import java.time.Duration;
+import lombok.Data;
+
+/** Outbound message coalescing shared by the servlet and reactive websocket endpoints. */
+@Data
+public class WebsocketFlushProperties {
+
+  /**
+   * How long the first message of a burst bound for a session waits for the next ones before they
+   * are written together, 0 to write every message on its own.
+   */
+  private Duration window = Duration.ZERO;
+  /** Number of messages written together without waiting for the window to end. */
+  private int maxMessages = 16;
+
+  public FrameCoalescingOptions toCoalescingOptions() {
+    return FrameCoalescingOptions.builder().window(window).maxMessages(maxMessages).build();
+  }
+}
@@ -0,0 +1,19 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
+
+@Data
+@ConfigurationProperties("graphql.webflux.execution")
+class GraphQLReactiveExecutionProperties {
+
+  /**
+   * Time after which an execution is cancelled and answered with an error, 0 to disable. If a
+   * duration suffix is not specified, millisecond will be used.
+   */
+  @DurationUnit(ChronoUnit.MILLIS)
+  private Duration timeout = Duration.ZERO;
+}
@@ -3,9 +3,15 @@ package graphql.kickstart.autoconfigure.web.reactive;
 import static graphql.kickstart.execution.GraphQLObjectMapper.newBuilder;
 import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
 
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
 import graphql.kickstart.autoconfigure.tools.GraphQLJavaToolsAutoConfiguration;
+import graphql.kickstart.autoconfigure.web.GraphQLCompressionProperties;
 import graphql.kickstart.autoconfigure.web.GraphQLInvokerAutoConfiguration;
+import graphql.kickstart.autoconfigure.web.GraphQLUploadProperties;
 import graphql.kickstart.autoconfigure.web.OnSchemaOrSchemaProviderBean;
+import graphql.kickstart.autoconfigure.web.WebsocketCompressionProperties;
 import graphql.kickstart.execution.GraphQLInvoker;
 import graphql.kickstart.execution.GraphQLObjectMapper;
 import graphql.kickstart.execution.config.DefaultGraphQLSchemaProvider;
@@ -15,21 +21,38 @@ import graphql.kickstart.execution.config.ObjectMapperProvider;
 import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionInvocationInputFactory;
 import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionConnectionListener;
 import graphql.kickstart.execution.subscriptions.apollo.KeepAliveSubscriptionConnectionListener;
+import graphql.kickstart.spring.cancellation.CancellationInstrumentation;
 import graphql.kickstart.spring.error.ErrorHandlerSupplier;
 import graphql.kickstart.spring.error.GraphQLErrorStartupListener;
+import graphql.kickstart.spring.subscriptions.BinaryFrameFormat;
+import graphql.kickstart.spring.subscriptions.FrameCoalescingOptions;
+import graphql.kickstart.spring.subscriptions.KeepAliveTimer;
+import graphql.kickstart.spring.subscriptions.KeepAliveTimerConnectionListener;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
 import graphql.kickstart.spring.webflux.DefaultGraphQLSpringWebfluxContextBuilder;
 import graphql.kickstart.spring.webflux.DefaultGraphQLSpringWebfluxRootObjectBuilder;
+import graphql.kickstart.spring.webflux.ExecutionOptions;
+import graphql.kickstart.spring.webflux.GraphQLCompressionWebFilter;
 import graphql.kickstart.spring.webflux.GraphQLController;
 import graphql.kickstart.spring.webflux.GraphQLSpringWebfluxContextBuilder;
 import graphql.kickstart.spring.webflux.GraphQLSpringWebfluxInvocationInputFactory;
 import graphql.kickstart.spring.webflux.GraphQLSpringWebfluxRootObjectBuilder;
+import graphql.kickstart.spring.webflux.PerMessageDeflateOptions;
+import graphql.kickstart.spring.webflux.PerMessageDeflateRequestUpgradeStrategy;
 import graphql.kickstart.spring.webflux.ReactiveSubscriptionsProtocolFactory;
 import graphql.kickstart.spring.webflux.ReactiveWebSocketSubscriptionsHandler;
+import graphql.kickstart.spring.webflux.SubscriptionAdmissionWebFilter;
+import graphql.kickstart.spring.webflux.SubscriptionDrainOptions;
+import graphql.kickstart.spring.webflux.SubscriptionStreamOptions;
 import graphql.kickstart.spring.webflux.apollo.ReactiveApolloSubscriptionProtocolFactory;
+import graphql.kickstart.spring.webflux.upload.UploadOptions;
 import graphql.schema.GraphQLSchema;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
@@ -37,17 +60,25 @@ import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
 import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
 import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
 import org.springframework.web.reactive.socket.server.support.WebSocketHandlerAdapter;
+import org.springframework.web.server.WebFilter;
 
 @Slf4j
 @Configuration
@@ -59,6 +90,13 @@ import org.springframework.web.reactive.socket.server.support.WebSocketHandlerAd
 @ConditionalOnWebApplication(type = REACTIVE)
 @Conditional(OnSchemaOrSchemaProviderBean.class)
 @AutoConfigureAfter({GraphQLJavaToolsAutoConfiguration.class, JacksonAutoConfiguration.class})
+@EnableConfigurationProperties({
+  GraphQLSubscriptionReactiveWebsocketProperties.class,
+  GraphQLSubscriptionReactiveHttpProperties.class,
+  GraphQLReactiveExecutionProperties.class,
+  GraphQLCompressionProperties.class,
+  GraphQLUploadProperties.class
+})
 public class GraphQLSpringWebfluxAutoConfiguration {
 
   @Bean
@@ -113,8 +151,21 @@ public class GraphQLSpringWebfluxAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean
-  public GraphQLBuilder graphQLBuilder() {
-    return new GraphQLBuilder();
+  public GraphQLBuilder graphQLBuilder(
+      @Autowired(required = false) List<Instrumentation> instrumentations,
+      @Autowired(required = false) PreparsedDocumentProvider preparsedDocumentProvider) {
+    GraphQLBuilder graphQLBuilder = new GraphQLBuilder();
+    if (instrumentations != null && !instrumentations.isEmpty()) {
+      graphQLBuilder.instrumentation(
+          () ->
+              instrumentations.size() == 1
+                  ? instrumentations.get(0)
+                  : new ChainedInstrumentation(instrumentations));
+    }
+    if (preparsedDocumentProvider != null) {
+      graphQLBuilder.preparsedDocumentProvider(() -> preparsedDocumentProvider);
+    }
+    return graphQLBuilder;
   }
 
   @Bean
@@ -123,6 +174,9 @@ public class GraphQLSpringWebfluxAutoConfiguration {
       GraphQLObjectMapper graphQLObjectMapper,
       GraphQLSubscriptionInvocationInputFactory invocationInputFactory,
       GraphQLInvoker graphQLInvoker,
+      SubscriptionAdmission subscriptionAdmission,
+      GraphQLSubscriptionReactiveWebsocketProperties properties,
+      ObjectProvider<KeepAliveTimer> keepAliveTimer,
       @Autowired(required = false)
           Collection<ApolloSubscriptionConnectionListener> connectionListeners) {
     Set<ApolloSubscriptionConnectionListener> listeners = new HashSet<>();
@@ -130,10 +184,110 @@ public class GraphQLSpringWebfluxAutoConfiguration {
       listeners.addAll(connectionListeners);
     }
     if (listeners.stream().noneMatch(KeepAliveSubscriptionConnectionListener.class::isInstance)) {
-      listeners.add(new KeepAliveSubscriptionConnectionListener());
+      keepAliveTimer.ifAvailable(
+          timer -> listeners.add(new KeepAliveTimerConnectionListener(timer)));
     }
-    return new ReactiveApolloSubscriptionProtocolFactory(
-        graphQLObjectMapper, invocationInputFactory, graphQLInvoker, listeners);
+    ReactiveApolloSubscriptionProtocolFactory factory =
+        new ReactiveApolloSubscriptionProtocolFactory(
+            graphQLObjectMapper,
+            invocationInputFactory,
+            graphQLInvoker,
+            subscriptionAdmission,
+            listeners);
+    factory.setFrameCodecs(
+        BinaryFrameFormat.createCodecs(
+            properties.getBinaryFormats(),
+            factory.getProtocol(),
+            graphQLObjectMapper.getJacksonMapper()));
+    return factory;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public SubscriptionAdmission subscriptionAdmission(
+      GraphQLSubscriptionReactiveWebsocketProperties properties) {
+    return new SubscriptionAdmission(properties.getLimits().toSubscriptionLimits());
+  }
+
+  @Bean(destroyMethod = "shutdown")
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(
+      value = "graphql.subscriptions.websocket.keep-alive-enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  public KeepAliveTimer keepAliveTimer(GraphQLSubscriptionReactiveWebsocketProperties properties) {
+    return new KeepAliveTimer(
+        Duration.ofSeconds(properties.getKeepAliveIntervalSeconds()),
+        Duration.ofMillis(properties.getKeepAliveTickMillis()));
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public SubscriptionDrainOptions subscriptionDrainOptions(
+      GraphQLSubscriptionReactiveWebsocketProperties properties) {
+    GraphQLSubscriptionReactiveWebsocketProperties.Shutdown shutdown = properties.getShutdown();
+    return SubscriptionDrainOptions.builder()
+        .mode(shutdown.getMode())
+        .window(shutdown.getDrainWindow())
+        .batchSize(shutdown.getBatchSize())
+        .flushTimeout(shutdown.getFlushTimeout())
+        .build();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public FrameCoalescingOptions frameCoalescingOptions(
+      GraphQLSubscriptionReactiveWebsocketProperties properties) {
+    return properties.getFlush().toCoalescingOptions();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public UploadOptions uploadOptions(GraphQLUploadProperties properties) {
+    return UploadOptions.builder()
+        .fileSizeThreshold((int) properties.getFileSizeThreshold().toBytes())
+        .location(properties.getLocation().isEmpty() ? null : Paths.get(properties.getLocation()))
+        .maxFileSize(properties.getMaxFileSize().toBytes())
+        .maxRequestSize(properties.getMaxRequestSize().toBytes())
+        .build();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public ExecutionOptions executionOptions(GraphQLReactiveExecutionProperties properties) {
+    return ExecutionOptions.builder().timeout(properties.getTimeout()).build();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public CancellationInstrumentation cancellationInstrumentation() {
+    return new CancellationInstrumentation();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public SubscriptionStreamOptions subscriptionStreamOptions(
+      GraphQLSubscriptionReactiveHttpProperties properties) {
+    return SubscriptionStreamOptions.builder()
+        .heartbeatInterval(properties.getHeartbeatInterval())
+        .build();
+  }
+
+  @Bean
+  public WebFilter subscriptionAdmissionWebFilter(
+      @Value("${graphql.subscriptions.url:subscriptions}") String path,
+      SubscriptionAdmission subscriptionAdmission) {
+    return new SubscriptionAdmissionWebFilter(
+        path.startsWith("/") ? path : "/" + path, subscriptionAdmission);
+  }
+
+  @Bean
+  @ConditionalOnProperty(value = "graphql.compression.enabled", havingValue = "true")
+  public WebFilter graphQLCompressionWebFilter(
+      @Value("${graphql.url:graphql}") String path,
+      GraphQLCompressionProperties compressionProperties) {
+    return new GraphQLCompressionWebFilter(
+        path.startsWith("/") ? path : "/" + path, compressionProperties.toCompressionOptions());
   }
 
   @Bean
@@ -154,4 +308,41 @@ public class GraphQLSpringWebfluxAutoConfiguration {
   WebSocketHandlerAdapter webSocketHandlerAdapter() {
     return new WebSocketHandlerAdapter();
   }
+
+  @Configuration
+  @ConditionalOnClass(name = "reactor.netty.http.server.HttpServer")
+  @ConditionalOnProperty(
+      value = "graphql.subscriptions.websocket.compression.enabled",
+      havingValue = "true")
+  static class ReactorNettyCompressionConfiguration {
+
+    /**
+     * Hands a compressing websocket service to WebFlux once the application turns out to run on
+     * Reactor Netty. Other servers keep negotiating compression the way they do by default.
+     */
+    @Bean
+    WebFluxConfigurer graphQLWebSocketCompressionConfigurer(
+        ObjectProvider<NettyReactiveWebServerFactory> nettyServerFactory,
+        GraphQLSubscriptionReactiveWebsocketProperties properties) {
+      return new WebFluxConfigurer() {
+        @Override
+        public WebSocketService getWebSocketService() {
+          if (nettyServerFactory.getIfAvailable() == null) {
+            return null;
+          }
+          WebsocketCompressionProperties compression = properties.getCompression();
+          return new HandshakeWebSocketService(
+              new PerMessageDeflateRequestUpgradeStrategy(
+                  PerMessageDeflateOptions.builder()
+                      .compressionLevel(compression.getCompressionLevel())
+                      .serverMaxWindowBits(compression.getServerMaxWindowBits())
+                      .clientMaxWindowBits(compression.getClientMaxWindowBits())
+                      .serverNoContextTakeover(compression.isServerNoContextTakeover())
+                      .clientNoContextTakeover(compression.isClientNoContextTakeover())
+                      .threshold(compression.getThreshold())
+                      .build()));
+        }
+      };
+    }
+  }
 }
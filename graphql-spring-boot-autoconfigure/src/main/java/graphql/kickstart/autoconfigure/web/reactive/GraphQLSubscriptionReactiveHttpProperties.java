@@ -0,0 +1,19 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
+
+@Data
+@ConfigurationProperties("graphql.subscriptions.http")
+class GraphQLSubscriptionReactiveHttpProperties {
+
+  /**
+   * Interval at which heartbeats are written to text/event-stream and multipart/mixed responses, 0
+   * to disable. If a duration suffix is not specified, second will be used.
+   */
+  @DurationUnit(ChronoUnit.SECONDS)
+  private Duration heartbeatInterval = Duration.ofSeconds(15);
+}
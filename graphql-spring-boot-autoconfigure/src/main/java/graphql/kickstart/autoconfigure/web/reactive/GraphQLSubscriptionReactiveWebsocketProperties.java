@@ -0,0 +1,67 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import graphql.kickstart.autoconfigure.web.SubscriptionLimitsProperties;
+import graphql.kickstart.autoconfigure.web.WebsocketCompressionProperties;
+import graphql.kickstart.autoconfigure.web.WebsocketFlushProperties;
+import graphql.kickstart.spring.subscriptions.BinaryFrameFormat;
+import graphql.kickstart.spring.webflux.SubscriptionDrainOptions;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+import org.springframework.boot.convert.DurationUnit;
+
+@Data
+@ConfigurationProperties("graphql.subscriptions.websocket")
+class GraphQLSubscriptionReactiveWebsocketProperties {
+
+  private boolean keepAliveEnabled = true;
+
+  private int keepAliveIntervalSeconds = 15;
+
+  /** Resolution of the timer sending keep-alive messages to all sessions. */
+  private int keepAliveTickMillis = 1000;
+
+  @NestedConfigurationProperty
+  private WebsocketCompressionProperties compression = new WebsocketCompressionProperties();
+
+  @NestedConfigurationProperty
+  private SubscriptionLimitsProperties limits = new SubscriptionLimitsProperties();
+
+  @NestedConfigurationProperty
+  private WebsocketFlushProperties flush = new WebsocketFlushProperties();
+
+  /**
+   * Binary formats offered as graphql-ws+format subprotocols, provided the Jackson data format is
+   * on the classpath.
+   */
+  private List<BinaryFrameFormat> binaryFormats =
+      new ArrayList<>(Arrays.asList(BinaryFrameFormat.values()));
+
+  private Shutdown shutdown = new Shutdown();
+
+  @Data
+  public static class Shutdown {
+
+    /** Send complete for every subscription before closing, or just close with 1012. */
+    private SubscriptionDrainOptions.Mode mode = SubscriptionDrainOptions.Mode.CLOSE;
+    /**
+     * Period over which the open sessions are closed in batches. If a duration suffix is not
+     * specified, second will be used.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration drainWindow = Duration.ofSeconds(10);
+    /** Maximum number of sessions closed at once. */
+    private int batchSize = 100;
+    /**
+     * How long to wait for queued messages to be written before closing a session anyway. If a
+     * duration suffix is not specified, second will be used.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration flushTimeout = Duration.ofSeconds(5);
+  }
+}
@@ -0,0 +1,130 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.websocket.CloseReason;
+import javax.websocket.CloseReason.CloseCodes;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends the messages of a websocket session through {@link javax.websocket.RemoteEndpoint.Async}
+ * from a bounded queue, so that the threads producing them never wait on a slow client. The queue
+ * is drained by the threads enqueueing messages and by the container completing sends, with a
+ * limited number of sends in progress.
+ */
+@Slf4j
+class AsyncMessageSender implements SendHandler {
+
+  private final Session session;
+  private final AsyncSendOptions options;
+  private final BlockingQueue<Object> queue;
+  private final AtomicInteger outstanding = new AtomicInteger();
+
+  AsyncMessageSender(Session session, AsyncSendOptions options) {
+    this.session = session;
+    this.options = options;
+    this.queue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+  }
+
+  /** Queues a text message or a binary frame. */
+  void send(Object message) {
+    if (!queue.offer(message) && !overflow(message)) {
+      return;
+    }
+    drain();
+  }
+
+  int getQueueSize() {
+    return queue.size();
+  }
+
+  @Override
+  public void onResult(SendResult result) {
+    if (!result.isOK()) {
+      log.debug("Cannot send message to session {}", session.getId(), result.getException());
+    }
+    outstanding.decrementAndGet();
+    drain();
+  }
+
+  /**
+   * @return whether the message was queued after all
+   */
+  private boolean overflow(Object message) {
+    switch (options.getOverflow()) {
+      case DROP:
+        log.debug("Outbound queue of session {} is full, dropping message", session.getId());
+        return false;
+      case BLOCK:
+        try {
+          if (queue.offer(message, options.getBlockTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+            return true;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        close();
+        return false;
+      default:
+        close();
+        return false;
+    }
+  }
+
+  private void drain() {
+    while (true) {
+      int current = outstanding.get();
+      if (current >= options.getMaxOutstanding()) {
+        return;
+      }
+      if (!outstanding.compareAndSet(current, current + 1)) {
+        continue;
+      }
+      Object message = queue.poll();
+      if (message == null) {
+        outstanding.decrementAndGet();
+        // a message queued while the slot was taken would otherwise wait for the next one
+        if (queue.isEmpty()) {
+          return;
+        }
+        continue;
+      }
+      write(message);
+    }
+  }
+
+  private void write(Object message) {
+    if (!session.isOpen()) {
+      queue.clear();
+      outstanding.decrementAndGet();
+      return;
+    }
+    try {
+      if (message instanceof byte[]) {
+        session.getAsyncRemote().sendBinary(ByteBuffer.wrap((byte[]) message), this);
+      } else {
+        session.getAsyncRemote().sendText((String) message, this);
+      }
+    } catch (RuntimeException e) {
+      log.error("Cannot send message to session {}", session.getId(), e);
+      outstanding.decrementAndGet();
+    }
+  }
+
+  private void close() {
+    log.warn("Outbound queue of session {} is full, closing it", session.getId());
+    queue.clear();
+    try {
+      session.close(new CloseReason(CloseCodes.TRY_AGAIN_LATER, "Outbound queue overflow"));
+    } catch (IOException e) {
+      log.error("Error closing websocket session: {}", session.getId(), e);
+    }
+  }
+}
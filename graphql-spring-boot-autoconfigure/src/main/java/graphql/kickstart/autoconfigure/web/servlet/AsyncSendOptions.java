@@ -0,0 +1,32 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** How servlet websocket sessions queue their messages for asynchronous sending. */
+@Value
+@Builder
+public class AsyncSendOptions {
+
+  public enum Overflow {
+    /** Drop the message that does not fit into the queue. */
+    DROP,
+    /** Close the session with 1013 (try again later). */
+    CLOSE,
+    /** Wait up to the block timeout for room in the queue, then close the session. */
+    BLOCK
+  }
+
+  /** Maximum number of messages queued per session. */
+  @Builder.Default int queueCapacity = 1024;
+  /**
+   * Maximum number of sends in progress per session. Containers such as Tomcat reject a send while
+   * another one is in progress, so only raise it for containers allowing concurrent sends.
+   */
+  @Builder.Default int maxOutstanding = 1;
+
+  @Builder.Default Overflow overflow = Overflow.CLOSE;
+  /** How long a producer waits for room in the queue with {@link Overflow#BLOCK}. */
+  @Builder.Default Duration blockTimeout = Duration.ofSeconds(1);
+}
@@ -0,0 +1,236 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import graphql.kickstart.spring.cancellation.CancellationToken;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Cancels the executions of the asynchronous requests whose client went away.
+ *
+ * <p>Every request gets a {@link CancellationToken}, which {@link
+ * ServletCancellationInstrumentation} puts in the context of its executions. The token is cancelled
+ * when the async context of the request errors or times out, and when writing or flushing the
+ * response fails, so that the pending field fetches and data loader calls are abandoned instead of
+ * completing for a closed connection.
+ */
+@Slf4j
+public class GraphQLAbandonedRequestFilter extends OncePerRequestFilter {
+
+  static final String TOKEN_ATTRIBUTE = CancellationToken.class.getName();
+
+  private final LongAdder disconnected = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    CancellationToken token = new CancellationToken();
+    request.setAttribute(TOKEN_ATTRIBUTE, token);
+    chain.doFilter(
+        new AbandonableRequest(request, token), new AbandonableResponse(response, token));
+  }
+
+  /** @return the number of requests abandoned as their client disconnected */
+  public long getDisconnectedCount() {
+    return disconnected.sum();
+  }
+
+  /** @return the number of requests abandoned as their async context timed out */
+  public long getTimedOutCount() {
+    return timedOut.sum();
+  }
+
+  private void disconnected(CancellationToken token, Throwable cause) {
+    if (token.cancel("Client disconnected")) {
+      disconnected.increment();
+      log.debug("Client disconnected, cancelled the execution", cause);
+    }
+  }
+
+  private void timedOut(CancellationToken token) {
+    if (token.cancel("Execution timed out")) {
+      timedOut.increment();
+    }
+  }
+
+  private class AbandonableRequest extends HttpServletRequestWrapper {
+
+    private final CancellationToken token;
+
+    AbandonableRequest(HttpServletRequest request, CancellationToken token) {
+      super(request);
+      this.token = token;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+      return listen(super.startAsync());
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+      return listen(super.startAsync(request, response));
+    }
+
+    private AsyncContext listen(AsyncContext asyncContext) {
+      asyncContext.addListener(
+          new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+              // completed normally, nothing left to cancel
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+              timedOut(token);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+              disconnected(token, event.getThrowable());
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+              event.getAsyncContext().addListener(this);
+            }
+          });
+      return asyncContext;
+    }
+  }
+
+  private class AbandonableResponse extends HttpServletResponseWrapper {
+
+    private final CancellationToken token;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    AbandonableResponse(HttpServletResponse response, CancellationToken token) {
+      super(response);
+      this.token = token;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (outputStream == null) {
+        outputStream = new AbandonableOutputStream(super.getOutputStream());
+      }
+      return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        writer = new AbandonableWriter(super.getWriter());
+      }
+      return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (writer != null) {
+        writer.flush();
+      }
+      try {
+        super.flushBuffer();
+      } catch (IOException e) {
+        disconnected(token, e);
+        throw e;
+      }
+    }
+
+    private class AbandonableWriter extends PrintWriter {
+
+      private final PrintWriter delegate;
+
+      AbandonableWriter(PrintWriter delegate) {
+        super(delegate);
+        this.delegate = delegate;
+      }
+
+      @Override
+      public void flush() {
+        super.flush();
+        if (delegate.checkError()) {
+          disconnected(token, null);
+        }
+      }
+    }
+
+    private class AbandonableOutputStream extends ServletOutputStream {
+
+      private final ServletOutputStream delegate;
+
+      AbandonableOutputStream(ServletOutputStream delegate) {
+        this.delegate = delegate;
+      }
+
+      @Override
+      public boolean isReady() {
+        return delegate.isReady();
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener) {
+        delegate.setWriteListener(writeListener);
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        try {
+          delegate.write(b);
+        } catch (IOException e) {
+          disconnected(token, e);
+          throw e;
+        }
+      }
+
+      @Override
+      public void write(byte[] bytes, int offset, int length) throws IOException {
+        try {
+          delegate.write(bytes, offset, length);
+        } catch (IOException e) {
+          disconnected(token, e);
+          throw e;
+        }
+      }
+
+      @Override
+      public void flush() throws IOException {
+        try {
+          delegate.flush();
+        } catch (IOException e) {
+          disconnected(token, e);
+          throw e;
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          delegate.close();
+        } catch (IOException e) {
+          disconnected(token, e);
+          throw e;
+        }
+      }
+    }
+  }
+}
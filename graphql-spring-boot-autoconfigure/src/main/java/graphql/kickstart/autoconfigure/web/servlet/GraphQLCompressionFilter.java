@@ -0,0 +1,368 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import graphql.kickstart.spring.compression.CompressionOptions;
+import graphql.kickstart.spring.compression.StreamingGzip;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Collections;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Gzip compression of the responses of the GraphQL servlet.
+ *
+ * <p>Responses are buffered up to the configured size and written uncompressed when they end before
+ * reaching it. {@code text/event-stream} and {@code multipart/mixed} responses are compressed from
+ * their first flush instead, and the deflater is flushed with every part so that the client can
+ * decode each part as it arrives.
+ *
+ * <p>Responses carrying a {@code Content-Encoding} already are left as they are, as are responses
+ * starting with the gzip magic number: a {@code GraphQLResponseCacheManager} may keep a compressed
+ * variant of its responses for the clients accepting gzip, which is then written as it is with the
+ * header it lacks.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class GraphQLCompressionFilter extends OncePerRequestFilter {
+
+  private final CompressionOptions options;
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (!StreamingGzip.isAccepted(
+        Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING)))) {
+      chain.doFilter(request, response);
+      return;
+    }
+    CompressingResponse compressingResponse = new CompressingResponse(response);
+    CompressingRequest compressingRequest = new CompressingRequest(request, compressingResponse);
+    chain.doFilter(compressingRequest, compressingResponse);
+    // asynchronous responses are finished when their async context completes
+    if (compressingRequest.asyncContext == null) {
+      compressingResponse.finish();
+    }
+  }
+
+  /** Request handing out an async context that finishes the response before completing it. */
+  private static class CompressingRequest extends HttpServletRequestWrapper {
+
+    private final CompressingResponse response;
+    private volatile AsyncContext asyncContext;
+
+    CompressingRequest(HttpServletRequest request, CompressingResponse response) {
+      super(request);
+      this.response = response;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+      return startAsync(this, response);
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+      asyncContext = new FinishingAsyncContext(super.startAsync(request, response), this.response);
+      return asyncContext;
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+      return asyncContext == null ? super.getAsyncContext() : asyncContext;
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class FinishingAsyncContext implements AsyncContext {
+
+    private final AsyncContext delegate;
+    private final CompressingResponse response;
+
+    @Override
+    public void complete() {
+      try {
+        response.finish();
+      } catch (IOException e) {
+        log.debug("Cannot finish compressed response", e);
+      }
+      delegate.complete();
+    }
+
+    @Override
+    public ServletRequest getRequest() {
+      return delegate.getRequest();
+    }
+
+    @Override
+    public ServletResponse getResponse() {
+      return delegate.getResponse();
+    }
+
+    @Override
+    public boolean hasOriginalRequestAndResponse() {
+      return delegate.hasOriginalRequestAndResponse();
+    }
+
+    @Override
+    public void dispatch() {
+      delegate.dispatch();
+    }
+
+    @Override
+    public void dispatch(String path) {
+      delegate.dispatch(path);
+    }
+
+    @Override
+    public void dispatch(ServletContext context, String path) {
+      delegate.dispatch(context, path);
+    }
+
+    @Override
+    public void start(Runnable run) {
+      delegate.start(run);
+    }
+
+    @Override
+    public void addListener(AsyncListener listener) {
+      delegate.addListener(listener);
+    }
+
+    @Override
+    public void addListener(
+        AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+      delegate.addListener(listener, servletRequest, servletResponse);
+    }
+
+    @Override
+    public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+      return delegate.createListener(clazz);
+    }
+
+    @Override
+    public void setTimeout(long timeout) {
+      delegate.setTimeout(timeout);
+    }
+
+    @Override
+    public long getTimeout() {
+      return delegate.getTimeout();
+    }
+  }
+
+  /**
+   * Response buffering its content until it decides whether to compress it. The content length set
+   * by the servlet is only passed on when the content is written uncompressed.
+   */
+  private class CompressingResponse extends HttpServletResponseWrapper {
+
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private Long contentLength;
+    private StreamingGzip gzip;
+    private boolean decided;
+    private boolean finished;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CompressingResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+      if (outputStream == null) {
+        outputStream = new CompressingOutputStream();
+      }
+      return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+      }
+      return writer;
+    }
+
+    @Override
+    public void setContentLength(int length) {
+      setContentLengthLong(length);
+    }
+
+    @Override
+    public synchronized void setContentLengthLong(long length) {
+      if (decided && gzip == null) {
+        super.setContentLengthLong(length);
+      } else {
+        contentLength = length;
+      }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+      if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+        setContentLengthLong(Long.parseLong(value));
+      } else {
+        super.setHeader(name, value);
+      }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+        setContentLengthLong(Long.parseLong(value));
+      } else {
+        super.addHeader(name, value);
+      }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (writer != null) {
+        writer.flush();
+      }
+      flush();
+    }
+
+    @Override
+    public synchronized void resetBuffer() {
+      super.resetBuffer();
+      if (!decided) {
+        buffer.reset();
+      }
+    }
+
+    @Override
+    public synchronized void reset() {
+      super.reset();
+      if (!decided) {
+        buffer.reset();
+        contentLength = null;
+      }
+    }
+
+    synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+      if (!decided) {
+        if (buffer.size() == 0 && StreamingGzip.isCompressed(bytes, offset, length)) {
+          super.setHeader(HttpHeaders.CONTENT_ENCODING, StreamingGzip.GZIP);
+          decide(false);
+        } else {
+          buffer.write(bytes, offset, length);
+          if (buffer.size() >= options.getMinResponseSize()) {
+            decide(true);
+          }
+          return;
+        }
+      }
+      if (gzip == null) {
+        super.getOutputStream().write(bytes, offset, length);
+      } else {
+        super.getOutputStream().write(gzip.write(bytes, offset, length));
+      }
+    }
+
+    /** Flushes streamed responses part by part, other responses are only flushed at their end. */
+    synchronized void flush() throws IOException {
+      if (!decided && StreamingGzip.isStreaming(getContentType())) {
+        decide(true);
+      }
+      if (decided) {
+        if (gzip != null) {
+          super.getOutputStream().write(gzip.flush());
+        }
+        super.flushBuffer();
+      }
+    }
+
+    synchronized void finish() throws IOException {
+      if (finished) {
+        return;
+      }
+      if (writer != null) {
+        writer.flush();
+      }
+      if (!decided) {
+        decide(buffer.size() >= options.getMinResponseSize());
+      }
+      finished = true;
+      if (gzip != null) {
+        super.getOutputStream().write(gzip.finish());
+      }
+    }
+
+    private void decide(boolean compress) throws IOException {
+      decided = true;
+      if (compress && !isCommitted() && getHeader(HttpHeaders.CONTENT_ENCODING) == null) {
+        super.setHeader(HttpHeaders.CONTENT_ENCODING, StreamingGzip.GZIP);
+        gzip = new StreamingGzip(options.getLevel());
+      } else if (contentLength != null) {
+        super.setContentLengthLong(contentLength);
+      }
+      byte[] buffered = buffer.toByteArray();
+      buffer = null;
+      if (buffered.length > 0) {
+        write(buffered, 0, buffered.length);
+      }
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+      @Override
+      public boolean isReady() {
+        try {
+          return CompressingResponse.super.getOutputStream().isReady();
+        } catch (IOException e) {
+          return false;
+        }
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener) {
+        try {
+          CompressingResponse.super.getOutputStream().setWriteListener(writeListener);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] bytes, int offset, int length) throws IOException {
+        CompressingResponse.this.write(bytes, offset, length);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        CompressingResponse.this.flush();
+      }
+
+      @Override
+      public void close() throws IOException {
+        finish();
+      }
+    }
+  }
+}
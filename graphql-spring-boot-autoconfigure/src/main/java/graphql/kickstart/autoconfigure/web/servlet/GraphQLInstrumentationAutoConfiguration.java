@@ -3,10 +3,20 @@ package graphql.kickstart.autoconfigure.web.servlet;
 import graphql.analysis.MaxQueryComplexityInstrumentation;
 import graphql.analysis.MaxQueryDepthInstrumentation;
 import graphql.execution.instrumentation.tracing.TracingInstrumentation;
+import graphql.kickstart.autoconfigure.web.QueryCoalescingAutoConfiguration;
+import graphql.kickstart.autoconfigure.web.QueryCostRateLimitAutoConfiguration;
+import graphql.kickstart.autoconfigure.web.reactive.GraphQLSpringWebfluxAutoConfiguration;
+import graphql.kickstart.autoconfigure.web.servlet.metrics.AbandonedRequestMetrics;
+import graphql.kickstart.autoconfigure.web.servlet.metrics.KeepAliveTimerMetrics;
 import graphql.kickstart.autoconfigure.web.servlet.metrics.MetricsInstrumentation;
+import graphql.kickstart.autoconfigure.web.servlet.metrics.QueryCoalescingMetrics;
+import graphql.kickstart.autoconfigure.web.servlet.metrics.QueryCostRateLimitMetrics;
 import graphql.kickstart.autoconfigure.web.servlet.metrics.TracingNoResolversInstrumentation;
 import graphql.kickstart.autoconfigure.web.servlet.metrics.WebsocketMetrics;
 import graphql.kickstart.servlet.GraphQLWebsocketServlet;
+import graphql.kickstart.spring.coalescing.QueryCoalescer;
+import graphql.kickstart.spring.ratelimit.QueryCostRateLimiter;
+import graphql.kickstart.spring.subscriptions.KeepAliveTimer;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
@@ -28,7 +38,10 @@ import org.springframework.context.annotation.Configuration;
 @AutoConfigureAfter({
   MetricsAutoConfiguration.class,
   SimpleMetricsExportAutoConfiguration.class,
-  GraphQLWebsocketAutoConfiguration.class
+  GraphQLWebsocketAutoConfiguration.class,
+  GraphQLSpringWebfluxAutoConfiguration.class,
+  QueryCoalescingAutoConfiguration.class,
+  QueryCostRateLimitAutoConfiguration.class
 })
 @EnableConfigurationProperties(GraphQLServletProperties.class)
 @ConditionalOnProperty(
@@ -89,4 +102,40 @@ public class GraphQLInstrumentationAutoConfiguration {
       MeterRegistry meterRegistry, GraphQLWebsocketServlet websocketServlet) {
     return new WebsocketMetrics(meterRegistry, websocketServlet);
   }
+
+  @Bean
+  @ConditionalOnProperty(value = "graphql.servlet.actuator-metrics", havingValue = "true")
+  @ConditionalOnBean({MeterRegistry.class, KeepAliveTimer.class})
+  @ConditionalOnMissingBean
+  public KeepAliveTimerMetrics keepAliveTimerMetrics(
+      MeterRegistry meterRegistry, KeepAliveTimer keepAliveTimer) {
+    return new KeepAliveTimerMetrics(meterRegistry, keepAliveTimer);
+  }
+
+  @Bean
+  @ConditionalOnProperty(value = "graphql.servlet.actuator-metrics", havingValue = "true")
+  @ConditionalOnBean({MeterRegistry.class, QueryCoalescer.class})
+  @ConditionalOnMissingBean
+  public QueryCoalescingMetrics queryCoalescingMetrics(
+      MeterRegistry meterRegistry, QueryCoalescer queryCoalescer) {
+    return new QueryCoalescingMetrics(meterRegistry, queryCoalescer);
+  }
+
+  @Bean
+  @ConditionalOnProperty(value = "graphql.servlet.actuator-metrics", havingValue = "true")
+  @ConditionalOnBean({MeterRegistry.class, QueryCostRateLimiter.class})
+  @ConditionalOnMissingBean
+  public QueryCostRateLimitMetrics queryCostRateLimitMetrics(
+      MeterRegistry meterRegistry, QueryCostRateLimiter limiter) {
+    return new QueryCostRateLimitMetrics(meterRegistry, limiter);
+  }
+
+  @Bean
+  @ConditionalOnProperty(value = "graphql.servlet.actuator-metrics", havingValue = "true")
+  @ConditionalOnBean({MeterRegistry.class, GraphQLAbandonedRequestFilter.class})
+  @ConditionalOnMissingBean
+  public AbandonedRequestMetrics abandonedRequestMetrics(
+      MeterRegistry meterRegistry, GraphQLAbandonedRequestFilter filter) {
+    return new AbandonedRequestMetrics(meterRegistry, filter);
+  }
 }
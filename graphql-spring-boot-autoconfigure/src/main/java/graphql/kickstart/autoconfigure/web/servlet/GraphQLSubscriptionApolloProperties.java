@@ -10,4 +10,7 @@ class GraphQLSubscriptionApolloProperties {
   private boolean keepAliveEnabled = true;
 
   private int keepAliveIntervalSeconds = 15;
+
+  /** Resolution of the timer sending keep-alive messages to all sessions. */
+  private int keepAliveTickMillis = 1000;
 }
@@ -1,11 +1,65 @@
 package graphql.kickstart.autoconfigure.web.servlet;
 
+import graphql.kickstart.autoconfigure.web.SubscriptionLimitsProperties;
+import graphql.kickstart.autoconfigure.web.WebsocketCompressionProperties;
+import graphql.kickstart.autoconfigure.web.WebsocketFlushProperties;
+import graphql.kickstart.spring.subscriptions.BinaryFrameFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
 @Data
 @ConfigurationProperties("graphql.servlet.subscriptions.websocket")
 class GraphQLSubscriptionWebsocketProperties {
 
   private String path = "/subscriptions";
+
+  @NestedConfigurationProperty
+  private WebsocketCompressionProperties compression = new WebsocketCompressionProperties();
+
+  @NestedConfigurationProperty
+  private SubscriptionLimitsProperties limits = new SubscriptionLimitsProperties();
+
+  @NestedConfigurationProperty
+  private WebsocketFlushProperties flush = new WebsocketFlushProperties();
+
+  /**
+   * Binary formats offered as graphql-ws+format subprotocols, provided the Jackson data format is
+   * on the classpath.
+   */
+  private List<BinaryFrameFormat> binaryFormats =
+      new ArrayList<>(Arrays.asList(BinaryFrameFormat.values()));
+
+  private AsyncSend asyncSend = new AsyncSend();
+
+  @Data
+  public static class AsyncSend {
+
+    /**
+     * Send the messages of every session asynchronously from a bounded queue, so that slow clients
+     * never block the threads publishing events. Replaces the flush window when enabled.
+     */
+    private boolean enabled = false;
+    /** Maximum number of messages queued per session. */
+    private int queueCapacity = 1024;
+    /** Maximum number of sends in progress per session, Tomcat only allows one. */
+    private int maxOutstanding = 1;
+    /** What happens to messages that do not fit into the queue of their session. */
+    private AsyncSendOptions.Overflow overflow = AsyncSendOptions.Overflow.CLOSE;
+    /** How long a publisher waits for room in the queue with the BLOCK overflow policy. */
+    private Duration blockTimeout = Duration.ofSeconds(1);
+
+    AsyncSendOptions toAsyncSendOptions() {
+      return AsyncSendOptions.builder()
+          .queueCapacity(queueCapacity)
+          .maxOutstanding(maxOutstanding)
+          .overflow(overflow)
+          .blockTimeout(blockTimeout)
+          .build();
+    }
+  }
 }
@@ -30,7 +30,10 @@ import graphql.execution.instrumentation.ChainedInstrumentation;
 import graphql.execution.instrumentation.Instrumentation;
 import graphql.execution.preparsed.PreparsedDocumentProvider;
 import graphql.kickstart.autoconfigure.tools.GraphQLJavaToolsAutoConfiguration;
+import graphql.kickstart.autoconfigure.web.GraphQLCompressionProperties;
 import graphql.kickstart.autoconfigure.web.GraphQLInvokerAutoConfiguration;
+import graphql.kickstart.autoconfigure.web.GraphQLUploadProperties;
+import graphql.kickstart.autoconfigure.web.IncrementalDeliveryProperties;
 import graphql.kickstart.autoconfigure.web.OnSchemaOrSchemaProviderBean;
 import graphql.kickstart.autoconfigure.web.servlet.metrics.MetricsInstrumentation;
 import graphql.kickstart.execution.GraphQLInvoker;
@@ -56,6 +59,7 @@ import graphql.kickstart.servlet.input.BatchInputPreProcessor;
 import graphql.kickstart.servlet.input.GraphQLInvocationInputFactory;
 import graphql.kickstart.spring.error.ErrorHandlerSupplier;
 import graphql.kickstart.spring.error.GraphQLErrorStartupListener;
+import graphql.kickstart.spring.limits.DocumentParser;
 import graphql.schema.GraphQLSchema;
 import java.time.Duration;
 import java.util.Arrays;
@@ -72,6 +76,7 @@ import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -81,11 +86,15 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplicat
 import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.cors.CorsConfiguration;
@@ -108,7 +117,13 @@ import org.springframework.web.util.UrlPathHelper;
     havingValue = "true",
     matchIfMissing = true)
 @AutoConfigureAfter({GraphQLJavaToolsAutoConfiguration.class, JacksonAutoConfiguration.class})
-@EnableConfigurationProperties({GraphQLServletProperties.class, AsyncServletProperties.class})
+@EnableConfigurationProperties({
+  GraphQLServletProperties.class,
+  AsyncServletProperties.class,
+  IncrementalDeliveryProperties.class,
+  GraphQLCompressionProperties.class,
+  GraphQLUploadProperties.class
+})
 public class GraphQLWebAutoConfiguration {
 
   public static final String QUERY_EXECUTION_STRATEGY = "queryExecutionStrategy";
@@ -349,22 +364,83 @@ public class GraphQLWebAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean
-  public GraphQLHttpServlet graphQLHttpServlet(GraphQLConfiguration graphQLConfiguration) {
+  public GraphQLHttpServlet graphQLHttpServlet(
+      GraphQLConfiguration graphQLConfiguration,
+      IncrementalDeliveryProperties incrementalDeliveryProperties,
+      ObjectProvider<DocumentParser> documentParser) {
+    if (incrementalDeliveryProperties.isEnabled()) {
+      return new IncrementalGraphQLHttpServlet(
+          graphQLConfiguration, documentParser.getIfAvailable(DocumentParser::new));
+    }
     return GraphQLHttpServlet.with(graphQLConfiguration);
   }
 
   @Bean
   public ServletRegistrationBean<AbstractGraphQLHttpServlet> graphQLServletRegistrationBean(
       AbstractGraphQLHttpServlet servlet,
-      @Autowired(required = false) MultipartConfigElement multipartConfigElement) {
+      @Autowired(required = false) MultipartConfigElement multipartConfigElement,
+      GraphQLUploadProperties uploadProperties,
+      Environment environment) {
     ServletRegistrationBean<AbstractGraphQLHttpServlet> registration =
         new ServletRegistrationBean<>(servlet, graphQLServletProperties.getServletMapping());
-    if (multipartConfigElement != null) {
+    // Boot always defines a multipart config for spring.servlet.multipart.*, the upload settings
+    // of the servlet take precedence over it once any of them is set
+    if (multipartConfigElement != null && !isUploadConfigured(environment)) {
       registration.setMultipartConfig(multipartConfigElement);
     } else {
-      registration.setMultipartConfig(new MultipartConfigElement(""));
+      registration.setMultipartConfig(
+          new MultipartConfigElement(
+              uploadProperties.getLocation(),
+              uploadProperties.getMaxFileSize().toBytes(),
+              uploadProperties.getMaxRequestSize().toBytes(),
+              (int) uploadProperties.getFileSizeThreshold().toBytes()));
     }
     registration.setAsyncSupported(asyncServletProperties.isEnabled());
     return registration;
   }
+
+  private static boolean isUploadConfigured(Environment environment) {
+    return Binder.get(environment)
+        .bind("graphql.servlet.upload", Bindable.mapOf(String.class, String.class))
+        .isBound();
+  }
+
+  @Bean
+  @ConditionalOnProperty(value = "graphql.compression.enabled", havingValue = "true")
+  public FilterRegistrationBean<GraphQLCompressionFilter> graphQLCompressionFilterRegistrationBean(
+      ServletRegistrationBean<AbstractGraphQLHttpServlet> graphQLServletRegistrationBean,
+      GraphQLCompressionProperties compressionProperties) {
+    FilterRegistrationBean<GraphQLCompressionFilter> registration =
+        new FilterRegistrationBean<>(
+            new GraphQLCompressionFilter(compressionProperties.toCompressionOptions()),
+            graphQLServletRegistrationBean);
+    registration.setAsyncSupported(asyncServletProperties.isEnabled());
+    return registration;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "graphql.servlet.async", name = "enabled", havingValue = "true")
+  public GraphQLAbandonedRequestFilter graphQLAbandonedRequestFilter() {
+    return new GraphQLAbandonedRequestFilter();
+  }
+
+  @Bean
+  @ConditionalOnBean(GraphQLAbandonedRequestFilter.class)
+  public FilterRegistrationBean<GraphQLAbandonedRequestFilter>
+      graphQLAbandonedRequestFilterRegistrationBean(
+          ServletRegistrationBean<AbstractGraphQLHttpServlet> graphQLServletRegistrationBean,
+          GraphQLAbandonedRequestFilter filter) {
+    FilterRegistrationBean<GraphQLAbandonedRequestFilter> registration =
+        new FilterRegistrationBean<>(filter, graphQLServletRegistrationBean);
+    registration.setAsyncSupported(true);
+    return registration;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "graphql.servlet.async", name = "enabled", havingValue = "true")
+  public ServletCancellationInstrumentation servletCancellationInstrumentation() {
+    return new ServletCancellationInstrumentation();
+  }
 }
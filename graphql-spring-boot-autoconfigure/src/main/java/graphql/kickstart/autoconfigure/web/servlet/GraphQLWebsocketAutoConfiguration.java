@@ -5,16 +5,27 @@ import graphql.kickstart.autoconfigure.web.OnSchemaOrSchemaProviderBean;
 import graphql.kickstart.execution.GraphQLInvoker;
 import graphql.kickstart.execution.GraphQLObjectMapper;
 import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionInvocationInputFactory;
+import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionMapper;
 import graphql.kickstart.execution.subscriptions.SubscriptionConnectionListener;
-import graphql.kickstart.execution.subscriptions.apollo.KeepAliveSubscriptionConnectionListener;
+import graphql.kickstart.execution.subscriptions.SubscriptionProtocolFactory;
+import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionConnectionListener;
 import graphql.kickstart.servlet.GraphQLWebsocketServlet;
+import graphql.kickstart.servlet.subscriptions.FallbackSubscriptionProtocolFactory;
+import graphql.kickstart.spring.subscriptions.BatchFlushTimer;
+import graphql.kickstart.spring.subscriptions.BinaryFrameFormat;
+import graphql.kickstart.spring.subscriptions.KeepAliveTimer;
+import graphql.kickstart.spring.subscriptions.KeepAliveTimerConnectionListener;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Optional;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.websocket.server.ServerContainer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -56,29 +67,98 @@ public class GraphQLWebsocketAutoConfiguration {
       GraphQLSubscriptionInvocationInputFactory invocationInputFactory,
       GraphQLInvoker graphQLInvoker,
       GraphQLObjectMapper graphQLObjectMapper,
+      SubscriptionAdmission subscriptionAdmission,
+      ObjectProvider<KeepAliveTimer> keepAliveTimer,
+      ObjectProvider<BatchFlushTimer> flushTimer,
       @Autowired(required = false) Collection<SubscriptionConnectionListener> connectionListeners) {
     Set<SubscriptionConnectionListener> listeners = new HashSet<>();
     if (connectionListeners != null) {
       listeners.addAll(connectionListeners);
     }
-    keepAliveListener().ifPresent(listeners::add);
-    return new GraphQLWebsocketServlet(
-        graphQLInvoker, invocationInputFactory, graphQLObjectMapper, listeners);
+    keepAliveTimer.ifAvailable(timer -> listeners.add(new KeepAliveTimerConnectionListener(timer)));
+    List<ApolloSubscriptionConnectionListener> apolloListeners =
+        listeners.stream()
+            .filter(ApolloSubscriptionConnectionListener.class::isInstance)
+            .map(ApolloSubscriptionConnectionListener.class::cast)
+            .collect(Collectors.toList());
+    List<SubscriptionProtocolFactory> protocolFactories = new ArrayList<>();
+    protocolFactories.add(
+        new GraphQLWsApolloSubscriptionProtocolFactory(
+            graphQLObjectMapper,
+            invocationInputFactory,
+            graphQLInvoker,
+            apolloListeners,
+            subscriptionAdmission));
+    BinaryFrameFormat.createCodecs(
+            websocketProperties.getBinaryFormats(),
+            protocolFactories.get(0).getProtocol(),
+            graphQLObjectMapper.getJacksonMapper())
+        .forEach(
+            codec ->
+                protocolFactories.add(
+                    new GraphQLWsApolloSubscriptionProtocolFactory(
+                        graphQLObjectMapper,
+                        invocationInputFactory,
+                        graphQLInvoker,
+                        apolloListeners,
+                        subscriptionAdmission,
+                        codec)));
+    AsyncSendOptions asyncSendOptions =
+        websocketProperties.getAsyncSend().isEnabled()
+            ? websocketProperties.getAsyncSend().toAsyncSendOptions()
+            : null;
+    for (SubscriptionProtocolFactory protocolFactory : protocolFactories) {
+      GraphQLWsApolloSubscriptionProtocolFactory factory =
+          (GraphQLWsApolloSubscriptionProtocolFactory) protocolFactory;
+      flushTimer.ifAvailable(factory::setFlushTimer);
+      factory.setAsyncSendOptions(asyncSendOptions);
+    }
+    return new GraphQLWsWebsocketServlet(
+        graphQLInvoker,
+        invocationInputFactory,
+        graphQLObjectMapper,
+        protocolFactories,
+        new FallbackSubscriptionProtocolFactory(
+            new GraphQLSubscriptionMapper(graphQLObjectMapper),
+            invocationInputFactory,
+            graphQLInvoker),
+        subscriptionAdmission);
   }
 
-  private Optional<SubscriptionConnectionListener> keepAliveListener() {
-    if (apolloProperties.isKeepAliveEnabled()) {
-      return Optional.of(
-          new KeepAliveSubscriptionConnectionListener(
-              Duration.ofSeconds(apolloProperties.getKeepAliveIntervalSeconds())));
-    }
-    return Optional.empty();
+  @Bean
+  @ConditionalOnMissingBean
+  public SubscriptionAdmission subscriptionAdmission() {
+    return new SubscriptionAdmission(websocketProperties.getLimits().toSubscriptionLimits());
+  }
+
+  @Bean(destroyMethod = "shutdown")
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty("graphql.servlet.subscriptions.websocket.flush.window")
+  public BatchFlushTimer websocketFlushTimer() {
+    return new BatchFlushTimer(websocketProperties.getFlush().toCoalescingOptions());
+  }
+
+  @Bean(destroyMethod = "shutdown")
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(
+      value = "graphql.servlet.subscriptions.apollo.keep-alive-enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  public KeepAliveTimer keepAliveTimer() {
+    return new KeepAliveTimer(
+        Duration.ofSeconds(apolloProperties.getKeepAliveIntervalSeconds()),
+        Duration.ofMillis(apolloProperties.getKeepAliveTickMillis()));
   }
 
   @Bean
   @ConditionalOnClass(ServerContainer.class)
-  public ServerEndpointRegistration serverEndpointRegistration(GraphQLWebsocketServlet servlet) {
-    return new GraphQLWsServerEndpointRegistration(websocketProperties.getPath(), servlet);
+  public ServerEndpointRegistration serverEndpointRegistration(
+      GraphQLWebsocketServlet servlet, SubscriptionAdmission subscriptionAdmission) {
+    return new GraphQLWsServerEndpointRegistration(
+        websocketProperties.getPath(),
+        servlet,
+        websocketProperties.getCompression(),
+        subscriptionAdmission);
   }
 
   @Bean
@@ -0,0 +1,326 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import graphql.ExecutionResult;
+import graphql.kickstart.execution.GraphQLInvoker;
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionInvocationInputFactory;
+import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionMapper;
+import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import graphql.kickstart.execution.subscriptions.apollo.ApolloSubscriptionConnectionListener;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage;
+import graphql.kickstart.execution.subscriptions.apollo.OperationMessage.Type;
+import graphql.kickstart.servlet.apollo.ApolloWebSocketSubscriptionProtocolFactory;
+import graphql.kickstart.servlet.apollo.ApolloWebSocketSubscriptionSession;
+import graphql.kickstart.spring.subscriptions.AdmissionControlledSubscriptionConsumer;
+import graphql.kickstart.spring.subscriptions.BatchFlushTimer;
+import graphql.kickstart.spring.subscriptions.BinaryFrameCodec;
+import graphql.kickstart.spring.subscriptions.SessionAdmission;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import graphql.kickstart.spring.subscriptions.SubscriptionSessionActivity;
+import graphql.kickstart.spring.subscriptions.delta.JsonPatchDeltaEncoder;
+import graphql.kickstart.spring.subscriptions.topics.ResumableSubscriptions;
+import graphql.kickstart.spring.subscriptions.topics.ResumableTopicPublisher;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import javax.websocket.CloseReason;
+import javax.websocket.CloseReason.CloseCodes;
+import javax.websocket.MessageHandler;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Apollo protocol factory creating sessions that keep track of their outbound activity and of the
+ * subscriptions admitted on them. Given a {@link BinaryFrameCodec} the factory serves the binary
+ * variant of the protocol named by the codec instead. Given a {@link BatchFlushTimer} the sessions
+ * batch their writes and flush them once per coalescing window. Given {@link AsyncSendOptions} the
+ * sessions send asynchronously from a bounded queue instead.
+ */
+@Slf4j
+public class GraphQLWsApolloSubscriptionProtocolFactory
+    extends ApolloWebSocketSubscriptionProtocolFactory {
+
+  private final SubscriptionAdmission admission;
+  private final BinaryFrameCodec frameCodec;
+  private BatchFlushTimer flushTimer;
+  private AsyncSendOptions asyncSendOptions;
+
+  public GraphQLWsApolloSubscriptionProtocolFactory(
+      GraphQLObjectMapper objectMapper,
+      GraphQLSubscriptionInvocationInputFactory invocationInputFactory,
+      GraphQLInvoker graphQLInvoker,
+      Collection<ApolloSubscriptionConnectionListener> connectionListeners,
+      SubscriptionAdmission admission) {
+    this(
+        objectMapper, invocationInputFactory, graphQLInvoker, connectionListeners, admission, null);
+  }
+
+  public GraphQLWsApolloSubscriptionProtocolFactory(
+      GraphQLObjectMapper objectMapper,
+      GraphQLSubscriptionInvocationInputFactory invocationInputFactory,
+      GraphQLInvoker graphQLInvoker,
+      Collection<ApolloSubscriptionConnectionListener> connectionListeners,
+      SubscriptionAdmission admission,
+      BinaryFrameCodec frameCodec) {
+    // keep-alive messages are sent by the connection listeners, never by a runner per session
+    super(objectMapper, invocationInputFactory, graphQLInvoker, connectionListeners, null);
+    this.admission = admission;
+    this.frameCodec = frameCodec;
+  }
+
+  public void setFlushTimer(BatchFlushTimer flushTimer) {
+    this.flushTimer = flushTimer;
+  }
+
+  public void setAsyncSendOptions(AsyncSendOptions asyncSendOptions) {
+    this.asyncSendOptions = asyncSendOptions;
+  }
+
+  @Override
+  public String getProtocol() {
+    return frameCodec == null ? super.getProtocol() : frameCodec.getSubProtocol();
+  }
+
+  @Override
+  public Consumer<String> createConsumer(SubscriptionSession session) {
+    Consumer<String> consumer =
+        admission.isLimitingSubscriptions()
+            ? new AdmissionControlledSubscriptionConsumer(
+                session,
+                ((GraphQLWsApolloSubscriptionSession) session).admission,
+                getObjectMapper(),
+                super.createConsumer(session))
+            : super.createConsumer(session);
+    if (frameCodec != null) {
+      Session webSocketSession = ((GraphQLWsApolloSubscriptionSession) session).unwrap();
+      webSocketSession.addMessageHandler(
+          byte[].class,
+          (MessageHandler.Whole<byte[]>) frame -> onFrame(webSocketSession, frame, consumer));
+    }
+    return consumer;
+  }
+
+  private void onFrame(Session session, byte[] frame, Consumer<String> consumer) {
+    try {
+      consumer.accept(frameCodec.decode(new ByteArrayInputStream(frame)));
+    } catch (Exception e) {
+      log.error("Error executing websocket query for session: {}", session.getId(), e);
+      try {
+        session.close(new CloseReason(CloseCodes.UNEXPECTED_CONDITION, "Internal Server Error"));
+      } catch (IOException closeException) {
+        log.error("Error closing websocket session: {}", session.getId(), closeException);
+      }
+    }
+  }
+
+  @Override
+  public SubscriptionSession createSession(Session session) {
+    return new GraphQLWsApolloSubscriptionSession(
+        new GraphQLSubscriptionMapper(getObjectMapper()),
+        session,
+        admission.newSession(),
+        frameCodec,
+        asyncSendOptions != null || flushTimer == null || !flushTimer.getOptions().isEnabled()
+            ? null
+            : flushTimer,
+        asyncSendOptions == null ? null : new AsyncMessageSender(session, asyncSendOptions));
+  }
+
+  static class GraphQLWsApolloSubscriptionSession extends ApolloWebSocketSubscriptionSession
+      implements SubscriptionSessionActivity {
+
+    private final GraphQLSubscriptionMapper mapper;
+    private final SessionAdmission admission;
+    private final BinaryFrameCodec frameCodec;
+    private final BatchFlushTimer flushTimer;
+    private final AsyncMessageSender sender;
+    // event id of the result being sent, by operation id
+    private final Map<String, Object> eventIds = new ConcurrentHashMap<>();
+    private final Map<String, JsonPatchDeltaEncoder> deltas = new ConcurrentHashMap<>();
+    private volatile long lastSentNanos = System.nanoTime();
+    // guarded by the monitor of the session
+    private int unflushed;
+    private boolean flushScheduled;
+
+    GraphQLWsApolloSubscriptionSession(
+        GraphQLSubscriptionMapper mapper,
+        Session session,
+        SessionAdmission admission,
+        BinaryFrameCodec frameCodec,
+        BatchFlushTimer flushTimer,
+        AsyncMessageSender sender) {
+      super(mapper, session);
+      this.mapper = mapper;
+      this.admission = admission;
+      this.frameCodec = frameCodec;
+      this.flushTimer = flushTimer;
+      this.sender = sender;
+      if (flushTimer != null) {
+        try {
+          session.getBasicRemote().setBatchingAllowed(true);
+        } catch (IOException e) {
+          log.error("Cannot enable batching on session {}", session.getId(), e);
+        }
+      }
+    }
+
+    @Override
+    public void send(String message) {
+      if (frameCodec != null) {
+        write(frameCodec.encode(message));
+      } else if (flushTimer != null || sender != null) {
+        write(message);
+      } else {
+        super.send(message);
+      }
+      lastSentNanos = System.nanoTime();
+    }
+
+    @Override
+    public void sendMessage(Object payload) {
+      if (frameCodec == null) {
+        super.sendMessage(payload);
+      } else {
+        write(frameCodec.encode(payload));
+        lastSentNanos = System.nanoTime();
+      }
+      if (payload instanceof OperationMessage) {
+        OperationMessage message = (OperationMessage) payload;
+        if (message.getType() == Type.GQL_ERROR || message.getType() == Type.GQL_COMPLETE) {
+          admission.release(message.getId());
+        }
+      }
+    }
+
+    @Override
+    public void subscribe(String id, Publisher<ExecutionResult> dataPublisher) {
+      ResumableTopicPublisher resumable =
+          ResumableSubscriptions.resume(
+              dataPublisher, getUserProperties().get(ResumableSubscriptions.LAST_EVENT_ID), id);
+      JsonPatchDeltaEncoder delta = JsonPatchDeltaEncoder.forSession(getUserProperties());
+      if (delta != null) {
+        deltas.put(id, delta);
+      }
+      super.subscribe(id, resumable == null ? dataPublisher : withEventIds(id, dataPublisher));
+    }
+
+    /**
+     * The subscriber of the protocol only sends the data of a result, the event id of the result is
+     * handed to {@link #sendDataMessage}, which the subscriber calls while the result is delivered.
+     */
+    private Publisher<ExecutionResult> withEventIds(
+        String id, Publisher<ExecutionResult> dataPublisher) {
+      return subscriber ->
+          dataPublisher.subscribe(
+              new Subscriber<ExecutionResult>() {
+                @Override
+                public void onSubscribe(Subscription subscription) {
+                  subscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(ExecutionResult result) {
+                  Object eventId = ResumableSubscriptions.eventId(result);
+                  if (eventId != null) {
+                    eventIds.put(id, eventId);
+                  }
+                  try {
+                    subscriber.onNext(result);
+                  } finally {
+                    eventIds.remove(id);
+                  }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                  subscriber.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                  subscriber.onComplete();
+                }
+              });
+    }
+
+    @Override
+    public void sendDataMessage(String id, Object payload) {
+      payload = ResumableSubscriptions.withEventId(payload, eventIds.get(id));
+      JsonPatchDeltaEncoder delta = deltas.get(id);
+      super.sendDataMessage(id, delta == null ? payload : delta.encode(mapper.serialize(payload)));
+    }
+
+    @Override
+    public void unsubscribe(String id) {
+      super.unsubscribe(id);
+      deltas.remove(id);
+      admission.release(id);
+    }
+
+    @Override
+    public long getLastSentNanos() {
+      return lastSentNanos;
+    }
+
+    /**
+     * Binary frames and batched or asynchronous writes bypass the text publisher of the session,
+     * blocking writes are serialized here instead as the container rejects concurrent ones.
+     */
+    private void write(Object frame) {
+      if (sender != null) {
+        sender.send(frame);
+      } else {
+        writeBlocking(frame);
+      }
+    }
+
+    private synchronized void writeBlocking(Object frame) {
+      Session session = unwrap();
+      if (!session.isOpen()) {
+        return;
+      }
+      try {
+        RemoteEndpoint.Basic remote = session.getBasicRemote();
+        if (frame instanceof byte[]) {
+          remote.sendBinary(ByteBuffer.wrap((byte[]) frame));
+        } else {
+          remote.sendText((String) frame);
+        }
+        if (flushTimer != null) {
+          if (++unflushed >= flushTimer.getOptions().getMaxMessages()) {
+            flush();
+          } else if (!flushScheduled) {
+            flushScheduled = true;
+            flushTimer.schedule(this::flushBatch);
+          }
+        }
+      } catch (IOException e) {
+        log.error("Cannot send message to session {}", session.getId(), e);
+      }
+    }
+
+    private synchronized void flushBatch() {
+      flushScheduled = false;
+      try {
+        flush();
+      } catch (IOException e) {
+        log.error("Cannot flush messages to session {}", unwrap().getId(), e);
+      }
+    }
+
+    private void flush() throws IOException {
+      if (unflushed > 0 && unwrap().isOpen()) {
+        unflushed = 0;
+        unwrap().getBasicRemote().flushBatch();
+      }
+    }
+  }
+}
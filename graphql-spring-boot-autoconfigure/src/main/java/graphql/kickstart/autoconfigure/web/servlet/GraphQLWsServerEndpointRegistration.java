@@ -1,28 +1,142 @@
 package graphql.kickstart.autoconfigure.web.servlet;
 
+import graphql.kickstart.autoconfigure.web.WebsocketCompressionProperties;
 import graphql.kickstart.servlet.GraphQLWebsocketServlet;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.websocket.Extension;
 import javax.websocket.HandshakeResponse;
 import javax.websocket.server.HandshakeRequest;
 import javax.websocket.server.ServerEndpointConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import org.springframework.context.Lifecycle;
+import org.springframework.util.StringUtils;
 import org.springframework.web.socket.server.standard.ServerEndpointRegistration;
 
 /** @author Andrew Potter */
 public class GraphQLWsServerEndpointRegistration extends ServerEndpointRegistration
     implements Lifecycle {
 
+  static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+  static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+  static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+  static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+  static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
   private final GraphQLWebsocketServlet servlet;
+  private final WebsocketCompressionProperties compression;
+  private final SubscriptionAdmission admission;
 
   public GraphQLWsServerEndpointRegistration(String path, GraphQLWebsocketServlet servlet) {
+    this(path, servlet, new WebsocketCompressionProperties());
+  }
+
+  public GraphQLWsServerEndpointRegistration(
+      String path, GraphQLWebsocketServlet servlet, WebsocketCompressionProperties compression) {
+    this(path, servlet, compression, null);
+  }
+
+  public GraphQLWsServerEndpointRegistration(
+      String path,
+      GraphQLWebsocketServlet servlet,
+      WebsocketCompressionProperties compression,
+      SubscriptionAdmission admission) {
     super(path, servlet);
     this.servlet = servlet;
+    this.compression = compression;
+    this.admission = admission;
+  }
+
+  /**
+   * Refuses the handshake once the node has reached its session limit. JSR-356 offers no way to
+   * answer with a status of choice, the container responds with 403.
+   */
+  @Override
+  public boolean checkOrigin(String originHeaderValue) {
+    if (admission != null && !admission.hasSessionCapacity()) {
+      return false;
+    }
+    return super.checkOrigin(originHeaderValue);
   }
 
+  /**
+   * Hands the requested subprotocols to the servlet one by one, clients list them in a single comma
+   * separated header and the servlet would only match a header holding just one of them.
+   */
   @Override
   public void modifyHandshake(
       ServerEndpointConfig sec, HandshakeRequest request, HandshakeResponse response) {
     super.modifyHandshake(sec, request, response);
-    servlet.modifyHandshake(sec, request, response);
+    servlet.modifyHandshake(sec, new SubProtocolHandshakeRequest(request), response);
+  }
+
+  /**
+   * Applies the configured permessage-deflate settings to the client offers before the container
+   * negotiates them. Leaves the offers untouched when compression has not been configured.
+   */
+  @Override
+  public List<Extension> getNegotiatedExtensions(
+      List<Extension> installed, List<Extension> requested) {
+    if (compression.getEnabled() == null) {
+      return super.getNegotiatedExtensions(installed, requested);
+    }
+    List<Extension> offers =
+        requested.stream()
+            .filter(it -> compression.getEnabled() || !PERMESSAGE_DEFLATE.equals(it.getName()))
+            .map(it -> PERMESSAGE_DEFLATE.equals(it.getName()) ? withPreferences(it) : it)
+            .collect(Collectors.toList());
+    return super.getNegotiatedExtensions(installed, offers);
+  }
+
+  private Extension withPreferences(Extension offer) {
+    List<Extension.Parameter> parameters = new ArrayList<>();
+    for (Extension.Parameter parameter : offer.getParameters()) {
+      if (SERVER_MAX_WINDOW_BITS.equals(parameter.getName())) {
+        parameters.add(limitWindowBits(parameter, compression.getServerMaxWindowBits()));
+      } else if (CLIENT_MAX_WINDOW_BITS.equals(parameter.getName())) {
+        parameters.add(limitWindowBits(parameter, compression.getClientMaxWindowBits()));
+      } else {
+        parameters.add(parameter);
+      }
+    }
+    if (compression.isServerNoContextTakeover()
+        && !contains(parameters, SERVER_NO_CONTEXT_TAKEOVER)) {
+      parameters.add(new WebsocketExtensionParameter(SERVER_NO_CONTEXT_TAKEOVER, null));
+    }
+    if (compression.isClientNoContextTakeover()
+        && !contains(parameters, CLIENT_NO_CONTEXT_TAKEOVER)) {
+      parameters.add(new WebsocketExtensionParameter(CLIENT_NO_CONTEXT_TAKEOVER, null));
+    }
+    return new WebsocketExtension(offer.getName(), parameters);
+  }
+
+  private Extension.Parameter limitWindowBits(Extension.Parameter parameter, int maxWindowBits) {
+    if (maxWindowBits >= WebsocketCompressionProperties.MAX_WINDOW_BITS) {
+      return parameter;
+    }
+    int offered = WebsocketCompressionProperties.MAX_WINDOW_BITS;
+    if (parameter.getValue() != null) {
+      try {
+        offered = Integer.parseInt(parameter.getValue().trim());
+      } catch (NumberFormatException e) {
+        // let the container reject the malformed offer
+        return parameter;
+      }
+    }
+    return new WebsocketExtensionParameter(
+        parameter.getName(), String.valueOf(Math.min(offered, maxWindowBits)));
+  }
+
+  private boolean contains(List<Extension.Parameter> parameters, String name) {
+    return parameters.stream().anyMatch(it -> name.equals(it.getName()));
   }
 
   @Override
@@ -39,4 +153,70 @@ public class GraphQLWsServerEndpointRegistration extends ServerEndpointRegistrat
   public boolean isRunning() {
     return !servlet.isShutDown();
   }
+
+  @RequiredArgsConstructor
+  static class SubProtocolHandshakeRequest implements HandshakeRequest {
+
+    private final HandshakeRequest request;
+
+    @Override
+    public Map<String, List<String>> getHeaders() {
+      List<String> protocols = request.getHeaders().get(SEC_WEBSOCKET_PROTOCOL);
+      if (protocols == null) {
+        return request.getHeaders();
+      }
+      Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      headers.putAll(request.getHeaders());
+      headers.put(
+          SEC_WEBSOCKET_PROTOCOL,
+          protocols.stream()
+              .flatMap(it -> Arrays.stream(StringUtils.commaDelimitedListToStringArray(it)))
+              .map(String::trim)
+              .filter(it -> !it.isEmpty())
+              .collect(Collectors.toList()));
+      return headers;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+      return request.getUserPrincipal();
+    }
+
+    @Override
+    public URI getRequestURI() {
+      return request.getRequestURI();
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+      return request.isUserInRole(role);
+    }
+
+    @Override
+    public Object getHttpSession() {
+      return request.getHttpSession();
+    }
+
+    @Override
+    public Map<String, List<String>> getParameterMap() {
+      return request.getParameterMap();
+    }
+
+    @Override
+    public String getQueryString() {
+      return request.getQueryString();
+    }
+  }
+
+  @Value
+  static class WebsocketExtension implements Extension {
+    String name;
+    List<Parameter> parameters;
+  }
+
+  @Value
+  static class WebsocketExtensionParameter implements Extension.Parameter {
+    String name;
+    String value;
+  }
 }
@@ -0,0 +1,78 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import graphql.kickstart.execution.GraphQLInvoker;
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionInvocationInputFactory;
+import graphql.kickstart.execution.subscriptions.SubscriptionProtocolFactory;
+import graphql.kickstart.servlet.GraphQLWebsocketServlet;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import java.io.IOException;
+import java.util.List;
+import javax.websocket.CloseReason;
+import javax.websocket.CloseReason.CloseCodes;
+import javax.websocket.EndpointConfig;
+import javax.websocket.Session;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Websocket endpoint claiming a slot from the {@link SubscriptionAdmission} for every session.
+ * Handshakes are already refused by the endpoint registration when the node is full, sessions
+ * losing the race for the last slot are closed with {@code 1013 Try Again Later}.
+ */
+@Slf4j
+public class GraphQLWsWebsocketServlet extends GraphQLWebsocketServlet {
+
+  private static final String ADMITTED_KEY =
+      GraphQLWsWebsocketServlet.class.getName() + ".admitted";
+
+  @Getter private final SubscriptionAdmission admission;
+
+  public GraphQLWsWebsocketServlet(
+      GraphQLInvoker graphQLInvoker,
+      GraphQLSubscriptionInvocationInputFactory invocationInputFactory,
+      GraphQLObjectMapper graphQLObjectMapper,
+      List<SubscriptionProtocolFactory> subscriptionProtocolFactories,
+      SubscriptionProtocolFactory fallbackSubscriptionProtocolFactory,
+      SubscriptionAdmission admission) {
+    super(
+        graphQLInvoker,
+        invocationInputFactory,
+        graphQLObjectMapper,
+        subscriptionProtocolFactories,
+        fallbackSubscriptionProtocolFactory);
+    this.admission = admission;
+  }
+
+  @Override
+  public void onOpen(Session session, EndpointConfig endpointConfig) {
+    if (!admission.tryAcquireSession()) {
+      log.debug("Rejecting session {}, the session limit has been reached", session.getId());
+      try {
+        session.close(new CloseReason(CloseCodes.TRY_AGAIN_LATER, "Too many sessions"));
+      } catch (IOException e) {
+        log.debug("Error closing rejected session {}", session.getId(), e);
+      }
+      return;
+    }
+    session.getUserProperties().put(ADMITTED_KEY, Boolean.TRUE);
+    try {
+      super.onOpen(session, endpointConfig);
+    } catch (RuntimeException e) {
+      release(session);
+      throw e;
+    }
+  }
+
+  @Override
+  public void onClose(Session session, CloseReason closeReason) {
+    super.onClose(session, closeReason);
+    release(session);
+  }
+
+  private void release(Session session) {
+    if (session.getUserProperties().remove(ADMITTED_KEY) != null) {
+      admission.releaseSession();
+    }
+  }
+}
@@ -0,0 +1,343 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.kickstart.execution.GraphQLRequest;
+import graphql.kickstart.execution.error.GenericGraphQLError;
+import graphql.kickstart.execution.input.GraphQLSingleInvocationInput;
+import graphql.kickstart.servlet.GraphQLConfiguration;
+import graphql.kickstart.servlet.GraphQLHttpServlet;
+import graphql.kickstart.spring.cancellation.CancellationToken;
+import graphql.kickstart.spring.incremental.IncrementalPayloads;
+import graphql.kickstart.spring.incremental.IncrementalQuery;
+import graphql.kickstart.spring.limits.DocumentParser;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StreamUtils;
+
+/**
+ * GraphQL servlet answering queries with {@code @defer} or {@code @stream} as {@code
+ * multipart/mixed} when the client accepts it: the initial payload is flushed as soon as it is
+ * executed and the deferred parts follow together once the deferred query is. Any other request is
+ * handled as usual.
+ */
+@Slf4j
+public class IncrementalGraphQLHttpServlet extends GraphQLHttpServlet {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String APPLICATION_GRAPHQL = "application/graphql";
+
+  private final transient GraphQLConfiguration configuration;
+  private final transient DocumentParser documentParser;
+
+  public IncrementalGraphQLHttpServlet(
+      GraphQLConfiguration configuration, DocumentParser documentParser) {
+    this.configuration = configuration;
+    this.documentParser = documentParser;
+  }
+
+  @Override
+  protected GraphQLConfiguration getConfiguration() {
+    return configuration;
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+    GraphQLRequest graphQLRequest = null;
+    if (isAccepted(request) && request.getParameter("query") != null) {
+      try {
+        graphQLRequest =
+            new GraphQLRequest(
+                request.getParameter("query"),
+                request.getParameter("variables") == null
+                    ? Collections.emptyMap()
+                    : configuration
+                        .getObjectMapper()
+                        .deserializeVariables(request.getParameter("variables")),
+                Collections.emptyMap(),
+                request.getParameter("operationName"));
+      } catch (RuntimeException e) {
+        log.debug("Cannot read incremental request, handling it as usual", e);
+      }
+    }
+    if (!execute(graphQLRequest, request, response)) {
+      super.doGet(request, response);
+    }
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest request, HttpServletResponse response) {
+    String contentType = request.getContentType();
+    if (!isAccepted(request)
+        || (contentType != null && contentType.startsWith("multipart/form-data"))) {
+      super.doPost(request, response);
+      return;
+    }
+    byte[] body;
+    try {
+      body = StreamUtils.copyToByteArray(request.getInputStream());
+    } catch (IOException e) {
+      log.error("Cannot read request body", e);
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+    GraphQLRequest graphQLRequest = null;
+    try {
+      if (contentType != null && contentType.startsWith(APPLICATION_GRAPHQL)) {
+        graphQLRequest =
+            GraphQLRequest.createQueryOnlyRequest(new String(body, StandardCharsets.UTF_8));
+      } else if (isSingleQuery(body)) {
+        graphQLRequest =
+            configuration.getObjectMapper().readGraphQLRequest(new ByteArrayInputStream(body));
+      }
+    } catch (IOException e) {
+      log.debug("Cannot read incremental request, handling it as usual", e);
+    }
+    if (!execute(graphQLRequest, request, response)) {
+      super.doPost(new CachedBodyRequest(request, body), response);
+    }
+  }
+
+  /**
+   * @return whether the request was a query with deferred parts and has been answered
+   */
+  private boolean execute(
+      GraphQLRequest graphQLRequest, HttpServletRequest request, HttpServletResponse response) {
+    IncrementalQuery query =
+        graphQLRequest == null
+            ? null
+            : IncrementalQuery.split(
+                graphQLRequest.getQuery(),
+                graphQLRequest.getOperationName(),
+                graphQLRequest.getVariables(),
+                graphQLRequest.getExtensions(),
+                documentParser);
+    if (query == null) {
+      return false;
+    }
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType(IncrementalPayloads.CONTENT_TYPE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    AsyncContext asyncContext = null;
+    if (request.isAsyncSupported()) {
+      asyncContext = request.startAsync(request, response);
+      asyncContext.setTimeout(configuration.getAsyncTimeout());
+    }
+    PartWriter writer = new PartWriter(response, query);
+    // the deferred query executes concurrently with the initial one, and is written after it. Its
+    // token is cancelled with the one of the request or once the initial payload ends the response
+    CancellationToken deferredToken = new CancellationToken();
+    CompletableFuture<ExecutionResult> deferred =
+        invoke(graphQLRequest, query.getDeferredQuery(), request, response, deferredToken);
+    AsyncContext context = asyncContext;
+    CompletableFuture<Void> done =
+        invoke(graphQLRequest, query.getInitialQuery(), request, response, null)
+            .handle(
+                (result, error) -> {
+                  if (!writer.writeInitial(result == null ? failure(error) : result)) {
+                    deferredToken.cancel("The initial payload of the query ended the response");
+                  }
+                  return deferred;
+                })
+            .thenCompose(execution -> execution)
+            .handle(
+                (result, error) -> {
+                  writer.writeDeferred(result == null ? failure(error) : result);
+                  return (Void) null;
+                })
+            .whenComplete(
+                (nothing, error) -> {
+                  if (error != null) {
+                    log.error("Cannot write incremental response", error);
+                  }
+                  writer.end();
+                  if (context != null) {
+                    context.complete();
+                  }
+                });
+    if (context == null) {
+      done.join();
+    }
+    return true;
+  }
+
+  private CompletableFuture<ExecutionResult> invoke(
+      GraphQLRequest graphQLRequest,
+      String query,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      CancellationToken token) {
+    GraphQLRequest partRequest =
+        new GraphQLRequest(
+            query,
+            graphQLRequest.getVariables(),
+            graphQLRequest.getExtensions(),
+            graphQLRequest.getOperationName());
+    try {
+      GraphQLSingleInvocationInput invocationInput =
+          configuration.getInvocationInputFactory().create(partRequest, request, response);
+      if (token != null) {
+        invocationInput.getExecutionInput().getGraphQLContext().put(CancellationToken.class, token);
+        Object requestToken = request.getAttribute(GraphQLAbandonedRequestFilter.TOKEN_ATTRIBUTE);
+        if (requestToken instanceof CancellationToken) {
+          ((CancellationToken) requestToken)
+              .onCancel(() -> token.cancel(((CancellationToken) requestToken).getReason()));
+        }
+      }
+      return configuration.getGraphQLInvoker().executeAsync(invocationInput);
+    } catch (RuntimeException e) {
+      CompletableFuture<ExecutionResult> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+  }
+
+  /** The result reporting a failed execution, as the payload in place of its result. */
+  private static ExecutionResult failure(Throwable error) {
+    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+    log.error("Error executing incremental GraphQL query", cause);
+    return new ExecutionResultImpl(new GenericGraphQLError(cause.getMessage()));
+  }
+
+  private static boolean isAccepted(HttpServletRequest request) {
+    return IncrementalPayloads.isAccepted(Collections.list(request.getHeaders("Accept")));
+  }
+
+  private static boolean isSingleQuery(byte[] body) {
+    for (byte b : body) {
+      if (!Character.isWhitespace(b)) {
+        return b == '{';
+      }
+    }
+    return false;
+  }
+
+  /** Writes the initial payload, then the payload of the deferred parts. */
+  private class PartWriter {
+
+    private final HttpServletResponse response;
+    private final IncrementalQuery query;
+    private boolean hasNext;
+    private boolean ended;
+
+    PartWriter(HttpServletResponse response, IncrementalQuery query) {
+      this.response = response;
+      this.query = query;
+    }
+
+    /**
+     * @return whether the deferred parts are still to be written
+     */
+    synchronized boolean writeInitial(ExecutionResult result) {
+      Map<String, Object> specification = specification(result);
+      // without data the document failed validation or the execution failed, the parts have
+      // nothing to add
+      hasNext = specification.get("data") != null;
+      write(IncrementalPayloads.initial(specification, query.getParts(), hasNext));
+      return hasNext && !ended;
+    }
+
+    synchronized void writeDeferred(ExecutionResult result) {
+      if (hasNext) {
+        hasNext = false;
+        write(IncrementalPayloads.subsequent(query.getParts(), specification(result)));
+      }
+    }
+
+    synchronized void end() {
+      if (!ended) {
+        ended = true;
+        try {
+          response.getWriter().write(IncrementalPayloads.end());
+          response.flushBuffer();
+        } catch (IOException e) {
+          log.debug("Cannot end incremental response", e);
+        }
+      }
+    }
+
+    private Map<String, Object> specification(ExecutionResult result) {
+      return configuration.getObjectMapper().createResultFromExecutionResult(result);
+    }
+
+    private void write(Map<String, Object> payload) {
+      if (ended) {
+        return;
+      }
+      try {
+        PrintWriter out = response.getWriter();
+        out.write(
+            IncrementalPayloads.part(
+                configuration.getObjectMapper().getJacksonMapper().writeValueAsString(payload)));
+        response.flushBuffer();
+      } catch (IOException e) {
+        log.debug("Cannot write incremental payload", e);
+        ended = true;
+      }
+    }
+  }
+
+  /** Request whose body has been read already. */
+  private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    CachedBodyRequest(HttpServletRequest request, byte[] body) {
+      super(request);
+      this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      ByteArrayInputStream in = new ByteArrayInputStream(body);
+      return new ServletInputStream() {
+        @Override
+        public boolean isFinished() {
+          return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          // the whole body is available already
+          try {
+            readListener.onDataAvailable();
+            readListener.onAllDataRead();
+          } catch (IOException e) {
+            readListener.onError(e);
+          }
+        }
+
+        @Override
+        public int read() {
+          return in.read();
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import graphql.ExecutionInput;
+import graphql.kickstart.spring.cancellation.CancellationToken;
+import graphql.kickstart.spring.coalescing.QueryCoalescingDiscriminator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+
+/** Discriminates the HTTP queries by the values of the headers carrying the credentials. */
+@RequiredArgsConstructor
+public class RequestHeadersDiscriminator implements QueryCoalescingDiscriminator {
+
+  private final List<String> headers;
+
+  @Override
+  public Object discriminate(ExecutionInput executionInput) {
+    HttpServletRequest request = executionInput.getGraphQLContext().get(HttpServletRequest.class);
+    if (request == null) {
+      return null;
+    }
+    List<List<String>> values = new ArrayList<>(headers.size());
+    for (String header : headers) {
+      values.add(Collections.list(request.getHeaders(header)));
+    }
+    return values;
+  }
+
+  /** The token of the request, the execution puts it in its context only once it started. */
+  @Override
+  public CancellationToken cancellationToken(ExecutionInput executionInput) {
+    HttpServletRequest request = executionInput.getGraphQLContext().get(HttpServletRequest.class);
+    Object token =
+        request == null
+            ? null
+            : request.getAttribute(GraphQLAbandonedRequestFilter.TOKEN_ATTRIBUTE);
+    return token instanceof CancellationToken ? (CancellationToken) token : null;
+  }
+}
@@ -0,0 +1,47 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import graphql.ExecutionInput;
+import graphql.kickstart.spring.ratelimit.RateLimitKey;
+import graphql.kickstart.spring.ratelimit.RateLimitKeyResolver;
+import java.security.Principal;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+
+/** Identifies the clients of the HTTP queries, the queries over websockets are not limited. */
+@RequiredArgsConstructor
+public class RequestRateLimitKeyResolver implements RateLimitKeyResolver {
+
+  private final RateLimitKey key;
+  private final String header;
+
+  @Override
+  public Object resolve(ExecutionInput executionInput) {
+    HttpServletRequest request = executionInput.getGraphQLContext().get(HttpServletRequest.class);
+    if (request == null) {
+      return null;
+    }
+    if (key == RateLimitKey.PRINCIPAL) {
+      Principal principal = request.getUserPrincipal();
+      if (principal != null) {
+        return "principal:" + principal.getName();
+      }
+    } else if (key == RateLimitKey.HEADER) {
+      String value = request.getHeader(header);
+      if (value != null) {
+        return "header:" + value;
+      }
+    }
+    return "ip:" + request.getRemoteAddr();
+  }
+
+  @Override
+  public void rejected(ExecutionInput executionInput, long retryAfterSeconds) {
+    HttpServletResponse response =
+        executionInput.getGraphQLContext().get(HttpServletResponse.class);
+    if (response != null && !response.isCommitted()) {
+      response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+  }
+}
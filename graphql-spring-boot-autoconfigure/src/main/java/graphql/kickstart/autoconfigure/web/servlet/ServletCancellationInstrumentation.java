@@ -0,0 +1,32 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.kickstart.spring.cancellation.CancellationInstrumentation;
+import graphql.kickstart.spring.cancellation.CancellationToken;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Puts the {@link CancellationToken} given to the request by {@link GraphQLAbandonedRequestFilter}
+ * in the context of its executions, where the data fetchers can observe it too.
+ */
+public class ServletCancellationInstrumentation extends CancellationInstrumentation {
+
+  @Override
+  public ExecutionInput instrumentExecutionInput(
+      ExecutionInput executionInput,
+      InstrumentationExecutionParameters parameters,
+      InstrumentationState state) {
+    GraphQLContext context = executionInput.getGraphQLContext();
+    HttpServletRequest request = context.get(HttpServletRequest.class);
+    if (request != null && !context.hasKey(CancellationToken.class)) {
+      Object token = request.getAttribute(GraphQLAbandonedRequestFilter.TOKEN_ATTRIBUTE);
+      if (token instanceof CancellationToken) {
+        context.put(CancellationToken.class, token);
+      }
+    }
+    return super.instrumentExecutionInput(executionInput, parameters, state);
+  }
+}
@@ -0,0 +1,24 @@
+package graphql.kickstart.autoconfigure.web.servlet.metrics;
+
+import graphql.kickstart.autoconfigure.web.servlet.GraphQLAbandonedRequestFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class AbandonedRequestMetrics {
+
+  public AbandonedRequestMetrics(
+      MeterRegistry meterRegistry, GraphQLAbandonedRequestFilter filter) {
+    FunctionCounter.builder(
+            "graphql.requests.abandoned",
+            filter,
+            GraphQLAbandonedRequestFilter::getDisconnectedCount)
+        .description("Executions cancelled as their request was abandoned")
+        .tag("reason", "disconnect")
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "graphql.requests.abandoned", filter, GraphQLAbandonedRequestFilter::getTimedOutCount)
+        .description("Executions cancelled as their request was abandoned")
+        .tag("reason", "timeout")
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,23 @@
+package graphql.kickstart.autoconfigure.web.servlet.metrics;
+
+import graphql.kickstart.spring.subscriptions.KeepAliveTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+
+public class KeepAliveTimerMetrics {
+
+  public KeepAliveTimerMetrics(MeterRegistry meterRegistry, KeepAliveTimer keepAliveTimer) {
+    Gauge.builder(
+            "graphql.websocket.keepalive.tick.lag",
+            keepAliveTimer,
+            timer -> timer.getTickLag().toNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1))
+        .description("Delay of the last keep-alive timer tick behind its deadline")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+    Gauge.builder(
+            "graphql.websocket.keepalive.sessions", keepAliveTimer, KeepAliveTimer::getSessionCount)
+        .description("Websocket sessions kept alive by the keep-alive timer")
+        .register(meterRegistry);
+  }
+}
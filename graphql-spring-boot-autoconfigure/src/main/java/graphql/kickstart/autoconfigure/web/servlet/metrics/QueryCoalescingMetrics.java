@@ -0,0 +1,32 @@
+package graphql.kickstart.autoconfigure.web.servlet.metrics;
+
+import graphql.kickstart.spring.coalescing.QueryCoalescer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class QueryCoalescingMetrics {
+
+  public QueryCoalescingMetrics(MeterRegistry meterRegistry, QueryCoalescer coalescer) {
+    FunctionCounter.builder(
+            "graphql.coalescing.executions", coalescer, QueryCoalescer::getExecutionCount)
+        .description("Queries executed")
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "graphql.coalescing.coalesced", coalescer, QueryCoalescer::getCoalescedCount)
+        .description("Queries answered with the result of an identical execution in flight")
+        .register(meterRegistry);
+    Gauge.builder("graphql.coalescing.ratio", coalescer, QueryCoalescingMetrics::ratio)
+        .description("Share of the queries answered with the result of an identical execution")
+        .register(meterRegistry);
+    Gauge.builder("graphql.coalescing.inflight", coalescer, QueryCoalescer::getInFlightCount)
+        .description("Executions shared by identical queries currently in flight")
+        .register(meterRegistry);
+  }
+
+  private static double ratio(QueryCoalescer coalescer) {
+    long coalesced = coalescer.getCoalescedCount();
+    long total = coalesced + coalescer.getExecutionCount();
+    return total == 0 ? 0 : coalesced / (double) total;
+  }
+}
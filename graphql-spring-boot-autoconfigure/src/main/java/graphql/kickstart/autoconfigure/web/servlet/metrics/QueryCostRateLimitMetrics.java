@@ -0,0 +1,19 @@
+package graphql.kickstart.autoconfigure.web.servlet.metrics;
+
+import graphql.kickstart.spring.ratelimit.QueryCostRateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class QueryCostRateLimitMetrics {
+
+  public QueryCostRateLimitMetrics(MeterRegistry meterRegistry, QueryCostRateLimiter limiter) {
+    FunctionCounter.builder(
+            "graphql.ratelimit.rejected", limiter, QueryCostRateLimiter::getRejectedCount)
+        .description("Queries rejected as their client spent its budget")
+        .register(meterRegistry);
+    Gauge.builder("graphql.ratelimit.clients", limiter, QueryCostRateLimiter::getClientCount)
+        .description("Clients tracked for having spent part of their budget recently")
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,76 @@
+package graphql.kickstart.autoconfigure.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.kickstart.tools.GraphQLQueryResolver;
+import graphql.kickstart.tools.GraphQLSubscriptionResolver;
+import graphql.schema.GraphQLSchema;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+class ThrottleDirectiveTest extends AbstractAutoConfigurationTest {
+
+  public ThrottleDirectiveTest() {
+    super(GraphQLJavaToolsAutoConfiguration.class);
+  }
+
+  @AfterEach
+  public void clear() {
+    System.clearProperty("graphql.tools.schemaLocationPattern");
+  }
+
+  @Test
+  void conflatesBurstsToTheLatestEvent() {
+    assertThat(subscribe("subscription { latest }", "latest")).containsExactly(1, 100);
+  }
+
+  @Test
+  void keepsTheFirstEventOfAnInterval() {
+    assertThat(subscribe("subscription { first }", "first")).containsExactly(1);
+  }
+
+  private List<Object> subscribe(String query, String field) {
+    System.setProperty(
+        "graphql.tools.schemaLocationPattern", "graphql/throttle-directive-test.graphql");
+    load(BaseConfiguration.class);
+    GraphQL graphQL = GraphQL.newGraphQL(getContext().getBean(GraphQLSchema.class)).build();
+    Publisher<ExecutionResult> results = graphQL.execute(query).getData();
+    return Flux.from(results)
+        .map(result -> result.<Map<String, Object>>getData().get(field))
+        .collectList()
+        .block(Duration.ofSeconds(5));
+  }
+
+  @Configuration
+  static class BaseConfiguration {
+
+    @Component
+    public static class Query implements GraphQLQueryResolver {
+
+      String ping() {
+        return "pong";
+      }
+    }
+
+    @Component
+    public static class Subscription implements GraphQLSubscriptionResolver {
+
+      Publisher<Integer> latest() {
+        return Flux.range(1, 100);
+      }
+
+      Publisher<Integer> first() {
+        return Flux.range(1, 100);
+      }
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@DirtiesContext
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "spring.main.web-application-type=reactive",
+      "graphql.tools.schema-location-pattern=schema.graphqls"
+    })
+class BinaryFramingTest {
+
+  private static final ObjectMapper CBOR = new ObjectMapper(new CBORFactory());
+
+  @LocalServerPort private int port;
+
+  @TestConfiguration
+  static class NettyServerConfiguration {
+
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+      return new NettyReactiveWebServerFactory();
+    }
+
+    // the servlet containers on the test classpath would be picked for the upgrade otherwise
+    @Bean
+    WebFluxConfigurer reactorNettyWebSocketConfigurer() {
+      return new WebFluxConfigurer() {
+        @Override
+        public WebSocketService getWebSocketService() {
+          return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+        }
+      };
+    }
+  }
+
+  @Test
+  void exchangesCborFramesOnCborSubProtocol() {
+    AtomicReference<String> subProtocol = new AtomicReference<>();
+    AtomicReference<JsonNode> data = new AtomicReference<>();
+
+    execute(
+        "graphql-ws+cbor",
+        session -> {
+          subProtocol.set(session.getHandshakeInfo().getSubProtocol());
+          return session
+              .send(
+                  Flux.just(
+                          "{\"type\":\"connection_init\"}",
+                          "{\"type\":\"start\",\"id\":\"1\","
+                              + "\"payload\":{\"query\":\"subscription { hello }\"}}")
+                      .map(json -> binaryMessage(session, json)))
+              .thenMany(session.receive())
+              .filter(message -> message.getType() == WebSocketMessage.Type.BINARY)
+              .map(BinaryFramingTest::decode)
+              .filter(message -> "data".equals(message.path("type").asText()))
+              .next()
+              .doOnNext(data::set)
+              .then(session.close());
+        });
+
+    assertThat(subProtocol.get()).isEqualTo("graphql-ws+cbor");
+    assertThat(data.get().path("id").asText()).isEqualTo("1");
+    assertThat(data.get().path("payload").path("data").path("hello").asInt()).isZero();
+  }
+
+  @Test
+  void keepsTextFramesOnPlainSubProtocol() {
+    AtomicReference<WebSocketMessage.Type> type = new AtomicReference<>();
+
+    execute(
+        "graphql-ws",
+        session ->
+            session
+                .send(Mono.just(session.textMessage("{\"type\":\"connection_init\"}")))
+                .thenMany(session.receive())
+                .next()
+                .doOnNext(message -> type.set(message.getType()))
+                .then(session.close()));
+
+    assertThat(type.get()).isEqualTo(WebSocketMessage.Type.TEXT);
+  }
+
+  private void execute(String subProtocol, WebSocketHandler handler) {
+    new ReactorNettyWebSocketClient()
+        .execute(
+            URI.create("ws://localhost:" + port + "/subscriptions"),
+            new WebSocketHandler() {
+              @Override
+              public List<String> getSubProtocols() {
+                return Collections.singletonList(subProtocol);
+              }
+
+              @Override
+              public Mono<Void> handle(WebSocketSession session) {
+                return handler.handle(session);
+              }
+            })
+        .block(Duration.ofSeconds(10));
+  }
+
+  private static WebSocketMessage binaryMessage(WebSocketSession session, String json) {
+    try {
+      byte[] frame = CBOR.writeValueAsBytes(new ObjectMapper().readTree(json));
+      return session.binaryMessage(factory -> factory.wrap(frame));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static JsonNode decode(WebSocketMessage message) {
+    try {
+      return CBOR.readTree(message.getPayload().asInputStream());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@DirtiesContext
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "spring.main.web-application-type=reactive",
+      "graphql.tools.schema-location-pattern=schema.graphqls",
+      "graphql.subscriptions.websocket.flush.window=500ms",
+      "graphql.subscriptions.websocket.flush.max-messages=16"
+    })
+class FrameCoalescingTest {
+
+  private static final int SUBSCRIPTIONS = 4;
+  /** Flushes of the server connections, counted at the head of their pipelines. */
+  private static final AtomicInteger flushes = new AtomicInteger();
+
+  @LocalServerPort private int port;
+
+  @TestConfiguration
+  static class NettyServerConfiguration {
+
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+      NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+      factory.addServerCustomizers(
+          server ->
+              server.doOnConnection(
+                  connection ->
+                      connection
+                          .channel()
+                          .pipeline()
+                          .addFirst(
+                              new ChannelOutboundHandlerAdapter() {
+                                @Override
+                                public void flush(ChannelHandlerContext ctx) {
+                                  flushes.incrementAndGet();
+                                  ctx.flush();
+                                }
+                              })));
+      return factory;
+    }
+
+    // the servlet containers on the test classpath would be picked for the upgrade otherwise
+    @Bean
+    WebFluxConfigurer reactorNettyWebSocketConfigurer() {
+      return new WebFluxConfigurer() {
+        @Override
+        public WebSocketService getWebSocketService() {
+          return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+        }
+      };
+    }
+  }
+
+  @Test
+  void flushesTheMessagesOfAWindowTogether() {
+    List<String> messages = new CopyOnWriteArrayList<>();
+    CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+    AtomicInteger dataFlushes = new AtomicInteger();
+
+    new ReactorNettyWebSocketClient()
+        .execute(
+            URI.create("ws://localhost:" + port + "/subscriptions"),
+            session -> {
+              Mono<Void> input =
+                  session
+                      .receive()
+                      .map(WebSocketMessage::getPayloadAsText)
+                      .filter(message -> !message.contains("\"ka\""))
+                      .doOnNext(
+                          message -> {
+                            if (message.contains("connection_ack")) {
+                              flushes.set(0);
+                              acknowledged.complete(null);
+                            } else if (messages.add(message) && messages.size() == SUBSCRIPTIONS) {
+                              // before the close handshake flushes on its own
+                              dataFlushes.set(flushes.get());
+                            }
+                          })
+                      .take(1L + SUBSCRIPTIONS)
+                      .then();
+              // their first events are as far apart as the starts, well within a single window
+              Mono<Void> output =
+                  session.send(
+                      Flux.concat(
+                              Mono.just("{\"type\":\"connection_init\"}"),
+                              Mono.fromFuture(acknowledged)
+                                  .thenMany(
+                                      Flux.interval(Duration.ofMillis(20)).take(SUBSCRIPTIONS))
+                                  .map(
+                                      id ->
+                                          "{\"type\":\"start\",\"id\":\""
+                                              + id
+                                              + "\",\"payload\":{\"query\":\"subscription { hello"
+                                              + " }\"}}"))
+                          .map(session::textMessage));
+              return Mono.when(input, output).then(session.close());
+            })
+        .block(Duration.ofSeconds(10));
+
+    assertThat(messages).hasSize(SUBSCRIPTIONS);
+    assertThat(messages.get(0)).contains("\"type\":\"data\"").contains("\"id\":\"0\"");
+    assertThat(messages.get(SUBSCRIPTIONS - 1)).contains("\"id\":\"" + (SUBSCRIPTIONS - 1) + "\"");
+    // every event would be flushed on its own without the window
+    assertThat(dataFlushes.get()).isLessThanOrEqualTo(2);
+  }
+}
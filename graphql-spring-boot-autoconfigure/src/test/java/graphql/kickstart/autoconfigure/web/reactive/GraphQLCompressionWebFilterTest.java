@@ -0,0 +1,173 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.kickstart.spring.compression.CompressionOptions;
+import graphql.kickstart.spring.webflux.GraphQLCompressionWebFilter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class GraphQLCompressionWebFilterTest {
+
+  private static final String LARGE =
+      "{\"data\":{\"items\":[" + String.join(",", Collections.nCopies(50, "1")) + "]}}";
+
+  @Test
+  void writes_small_responses_uncompressed() {
+    String json = "{\"data\":{\"hello\":\"world\"}}";
+
+    EntityExchangeResult<byte[]> result = post(json(json), "gzip");
+
+    assertThat(result.getResponseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+    assertThat(result.getResponseHeaders().getFirst(HttpHeaders.VARY))
+        .isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+    assertThat(new String(result.getResponseBody(), UTF_8)).isEqualTo(json);
+  }
+
+  @Test
+  void compresses_large_responses() throws IOException {
+    EntityExchangeResult<byte[]> result = post(json(LARGE), "gzip, deflate");
+
+    assertThat(result.getResponseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+        .isEqualTo("gzip");
+    assertThat(gunzip(result.getResponseBody())).isEqualTo(LARGE);
+  }
+
+  @Test
+  void leaves_responses_alone_when_gzip_is_refused_explicitly() {
+    EntityExchangeResult<byte[]> result = post(json(LARGE), "*;q=0.5, gzip;q=0");
+
+    assertThat(result.getResponseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+    assertThat(new String(result.getResponseBody(), UTF_8)).isEqualTo(LARGE);
+  }
+
+  @Test
+  void leaves_encoded_responses_alone() {
+    EntityExchangeResult<byte[]> result =
+        post(
+            request ->
+                ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.CONTENT_ENCODING, "br")
+                    .bodyValue(LARGE),
+            "gzip, br");
+
+    assertThat(result.getResponseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("br");
+    assertThat(new String(result.getResponseBody(), UTF_8)).isEqualTo(LARGE);
+  }
+
+  @Test
+  void compresses_every_event_of_a_stream_on_its_own() throws IOException {
+    EntityExchangeResult<byte[]> result =
+        post(
+            request ->
+                ServerResponse.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(
+                        Flux.just("1", "2", "3")
+                            .map(
+                                n ->
+                                    ServerSentEvent.builder("{\"data\":{\"n\":" + n + "}}")
+                                        .build()),
+                        ServerSentEvent.class),
+            "gzip");
+
+    assertThat(result.getResponseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+        .isEqualTo("gzip");
+    // the deflater is flushed after every event, each one ends with an empty stored block
+    assertThat(flushes(result.getResponseBody())).isEqualTo(3);
+    assertThat(gunzip(result.getResponseBody()))
+        .isEqualTo(
+            "data:{\"data\":{\"n\":1}}\n\n"
+                + "data:{\"data\":{\"n\":2}}\n\n"
+                + "data:{\"data\":{\"n\":3}}\n\n");
+  }
+
+  @Test
+  void compresses_every_part_of_a_multipart_response_on_its_own() throws IOException {
+    String[] parts = {
+      "\r\n---\r\n{\"data\":{}}", "\r\n---\r\n{\"hasNext\":false}", "\r\n-----\r\n"
+    };
+
+    EntityExchangeResult<byte[]> result =
+        post(
+            request ->
+                ServerResponse.ok()
+                    .contentType(MediaType.parseMediaType("multipart/mixed; boundary=\"-\""))
+                    .body(
+                        (response, context) ->
+                            response.writeAndFlushWith(
+                                Flux.just(parts)
+                                    .map(
+                                        part ->
+                                            Mono.just(
+                                                response
+                                                    .bufferFactory()
+                                                    .wrap(part.getBytes(UTF_8)))))),
+            "gzip");
+
+    assertThat(result.getResponseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+        .isEqualTo("gzip");
+    assertThat(flushes(result.getResponseBody())).isEqualTo(parts.length);
+    assertThat(gunzip(result.getResponseBody())).isEqualTo(String.join("", parts));
+  }
+
+  private static HandlerFunction<ServerResponse> json(String json) {
+    return request -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(json);
+  }
+
+  private static EntityExchangeResult<byte[]> post(
+      HandlerFunction<ServerResponse> handler, String acceptEncoding) {
+    return WebTestClient.bindToRouterFunction(
+            RouterFunctions.route().POST("/graphql", handler).build())
+        .webFilter(
+            new GraphQLCompressionWebFilter(
+                "/graphql", CompressionOptions.builder().minResponseSize(64).build()))
+        .build()
+        .post()
+        .uri("/graphql")
+        .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(byte[].class)
+        .returnResult();
+  }
+
+  /** Counts the sync flush markers of a deflate stream. */
+  private static int flushes(byte[] bytes) {
+    int flushes = 0;
+    for (int i = 0; i + 3 < bytes.length; i++) {
+      if (bytes[i] == 0 && bytes[i + 1] == 0 && bytes[i + 2] == -1 && bytes[i + 3] == -1) {
+        flushes++;
+      }
+    }
+    return flushes;
+  }
+
+  private static String gunzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      byte[] buffer = new byte[4096];
+      for (int read; (read = in.read(buffer)) != -1; ) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return out.toString("UTF-8");
+  }
+}
@@ -0,0 +1,142 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import graphql.kickstart.execution.GraphQLRequest;
+import graphql.kickstart.spring.webflux.upload.GraphQLUpload;
+import graphql.kickstart.spring.webflux.upload.MultipartGraphQLRequest;
+import graphql.kickstart.spring.webflux.upload.MultipartRequestReader;
+import graphql.kickstart.spring.webflux.upload.UploadOptions;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+class MultipartUploadTest {
+
+  private static final String CONTENT = String.join("", Collections.nCopies(1000, "content "));
+
+  @TempDir Path spool;
+
+  private final GraphQLObjectMapper objectMapper = GraphQLObjectMapper.newBuilder().build();
+
+  @Test
+  void puts_the_files_in_place_of_their_variables() throws IOException {
+    MultipartRequestReader reader =
+        new MultipartRequestReader(
+            objectMapper, UploadOptions.builder().fileSizeThreshold(1024).location(spool).build());
+
+    MultipartGraphQLRequest multipart =
+        reader
+            .read(
+                request(
+                    "{\"query\":\"mutation($file: Upload!, $files: [Upload!]!)"
+                        + " { upload(file: $file, files: $files) }\","
+                        + "\"variables\":{\"file\":null,\"files\":[null,null]}}",
+                    "{\"0\":[\"variables.file\",\"variables.files.1\"],\"1\":[\"variables.files.0\"]}"))
+            .block(Duration.ofSeconds(10));
+
+    assertThat(multipart.isBatched()).isFalse();
+    GraphQLRequest request = multipart.getRequests().get(0);
+    GraphQLUpload file = (GraphQLUpload) request.getVariables().get("file");
+    List<?> files = (List<?>) request.getVariables().get("files");
+    assertThat(file.getFilename()).isEqualTo("large.txt");
+    assertThat(((GraphQLUpload) files.get(1)).getName()).isEqualTo("0");
+    assertThat(((GraphQLUpload) files.get(0)).getFilename()).isEqualTo("small.txt");
+    // the large file was spooled to disk
+    try (Stream<Path> spooled = Files.list(spool)) {
+      assertThat(spooled.count()).isPositive();
+    }
+
+    String content =
+        DataBufferUtils.join(file.getContent())
+            .map(
+                buffer -> {
+                  String text = buffer.toString(UTF_8);
+                  DataBufferUtils.release(buffer);
+                  return text;
+                })
+            .block(Duration.ofSeconds(10));
+    assertThat(content).isEqualTo(CONTENT);
+    try (InputStream in = ((GraphQLUpload) files.get(0)).getInputStream()) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[256];
+      for (int read; (read = in.read(buffer)) != -1; ) {
+        out.write(buffer, 0, read);
+      }
+      assertThat(out.toString("UTF-8")).isEqualTo("small");
+    }
+    multipart.delete();
+  }
+
+  @Test
+  void reads_batched_operations() {
+    MultipartRequestReader reader =
+        new MultipartRequestReader(objectMapper, UploadOptions.builder().build());
+
+    MultipartGraphQLRequest multipart =
+        reader
+            .read(
+                request(
+                    "[{\"query\":\"{ a }\"},{\"query\":\"mutation($f: Upload) { b(f: $f) }\","
+                        + "\"variables\":{\"f\":null}}]",
+                    "{\"1\":[\"1.variables.f\"]}"))
+            .block(Duration.ofSeconds(10));
+
+    assertThat(multipart.isBatched()).isTrue();
+    assertThat(multipart.getRequests()).hasSize(2);
+    assertThat(multipart.getRequests().get(1).getVariables().get("f"))
+        .isInstanceOf(GraphQLUpload.class);
+  }
+
+  @Test
+  void rejects_requests_above_the_maximum_size() {
+    MultipartRequestReader reader =
+        new MultipartRequestReader(
+            objectMapper, UploadOptions.builder().maxRequestSize(2048).build());
+
+    assertThatThrownBy(
+            () -> reader.read(request("{\"query\":\"{ a }\"}", "{}")).block(Duration.ofSeconds(10)))
+        .isInstanceOfSatisfying(
+            ResponseStatusException.class,
+            e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+  }
+
+  private MockServerHttpRequest request(String operations, String map) {
+    String body =
+        part("operations", null, operations)
+            + part("map", null, map)
+            + part("0", "large.txt", CONTENT)
+            + part("1", "small.txt", "small")
+            + "--boundary--\r\n";
+    return MockServerHttpRequest.post("/graphql")
+        .header("Content-Type", "multipart/form-data; boundary=boundary")
+        .body(body);
+  }
+
+  private String part(String name, String filename, String content) {
+    return "--boundary\r\nContent-Disposition: form-data; name=\""
+        + name
+        + "\""
+        + (filename == null ? "" : "; filename=\"" + filename + "\"")
+        + "\r\n"
+        + (filename == null ? "" : "Content-Type: text/plain\r\n")
+        + "\r\n"
+        + content
+        + "\r\n";
+  }
+}
@@ -0,0 +1,119 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@DirtiesContext
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "spring.main.web-application-type=reactive",
+      "graphql.tools.schema-location-pattern=schema.graphqls",
+      "graphql.subscriptions.websocket.limits.max-sessions=1",
+      "graphql.subscriptions.websocket.limits.max-subscriptions-per-session=1"
+    })
+class SubscriptionAdmissionTest {
+
+  private static final String START =
+      "{\"type\":\"start\",\"id\":\"%s\",\"payload\":{\"query\":\"subscription { hello }\"}}";
+
+  @LocalServerPort private int port;
+  @Autowired private SubscriptionAdmission admission;
+
+  @TestConfiguration
+  static class NettyServerConfiguration {
+
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+      return new NettyReactiveWebServerFactory();
+    }
+
+    // the servlet containers on the test classpath would be picked for the upgrade otherwise
+    @Bean
+    WebFluxConfigurer reactorNettyWebSocketConfigurer() {
+      return new WebFluxConfigurer() {
+        @Override
+        public WebSocketService getWebSocketService() {
+          return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+        }
+      };
+    }
+  }
+
+  @Test
+  void rejectsSubscriptionsAboveSessionLimit() {
+    AtomicReference<String> error = new AtomicReference<>();
+
+    new ReactorNettyWebSocketClient()
+        .execute(
+            uri(),
+            session ->
+                session
+                    .send(
+                        Flux.just(
+                                "{\"type\":\"connection_init\"}",
+                                String.format(START, "1"),
+                                String.format(START, "2"))
+                            .map(session::textMessage))
+                    .thenMany(session.receive().map(WebSocketMessage::getPayloadAsText))
+                    .filter(message -> message.contains("\"error\""))
+                    .next()
+                    .doOnNext(error::set)
+                    .then(session.close()))
+        .block(Duration.ofSeconds(10));
+
+    assertThat(error.get())
+        .contains("\"id\":\"2\"")
+        .contains("Too many active subscriptions on this connection");
+  }
+
+  @Test
+  void refusesHandshakeAboveNodeLimit() {
+    AtomicReference<Throwable> rejection = new AtomicReference<>();
+
+    new ReactorNettyWebSocketClient()
+        .execute(
+            uri(),
+            session ->
+                new ReactorNettyWebSocketClient()
+                    .execute(uri(), other -> other.close())
+                    .doOnError(rejection::set)
+                    .onErrorResume(e -> Mono.empty())
+                    .then(session.close()))
+        .block(Duration.ofSeconds(10));
+
+    assertThat(rejection.get()).hasMessageContaining("503");
+  }
+
+  @BeforeEach
+  void awaitClosedSessions() throws InterruptedException {
+    for (int i = 0; i < 100 && admission.getSessionCount() > 0; i++) {
+      Thread.sleep(50);
+    }
+  }
+
+  private URI uri() {
+    return URI.create("ws://localhost:" + port + "/subscriptions");
+  }
+}
@@ -0,0 +1,102 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.kickstart.spring.webflux.ReactiveWebSocketSubscriptionsHandler;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class SubscriptionDrainTest {
+
+  /** Own application, as the test closes it and the context of a test must outlive the test. */
+  @Configuration
+  @EnableAutoConfiguration
+  @Import({HelloQuery.class, MySubscriptionResolver.class})
+  static class DrainApplication {
+
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+      return new NettyReactiveWebServerFactory();
+    }
+
+    // the servlet containers on the test classpath would be picked for the upgrade otherwise
+    @Bean
+    WebFluxConfigurer reactorNettyWebSocketConfigurer() {
+      return new WebFluxConfigurer() {
+        @Override
+        public WebSocketService getWebSocketService() {
+          return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+        }
+      };
+    }
+  }
+
+  @Test
+  void closesSessionsWithServiceRestartWhenTheContextCloses() throws Exception {
+    ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(DrainApplication.class)
+            .web(WebApplicationType.REACTIVE)
+            // as arguments, which take precedence over the system properties left by other tests
+            .run(
+                "--server.port=0",
+                "--server.shutdown=graceful",
+                "--graphql.tools.schema-location-pattern=schema.graphqls",
+                "--graphql.subscriptions.websocket.shutdown.drain-window=200ms");
+    int port = ((ReactiveWebServerApplicationContext) context).getWebServer().getPort();
+    ReactiveWebSocketSubscriptionsHandler handler =
+        context.getBean(ReactiveWebSocketSubscriptionsHandler.class);
+    AtomicReference<CloseStatus> closeStatus = new AtomicReference<>();
+    CompletableFuture<Void> closed = new CompletableFuture<>();
+
+    new ReactorNettyWebSocketClient()
+        .execute(
+            URI.create("ws://localhost:" + port + "/subscriptions"),
+            session ->
+                session
+                    .send(Mono.just(session.textMessage("{\"type\":\"connection_init\"}")))
+                    .thenMany(session.receive().map(WebSocketMessage::getPayloadAsText))
+                    .filter(message -> message.contains("connection_ack"))
+                    .doOnNext(
+                        ack ->
+                            Schedulers.boundedElastic()
+                                .schedule(
+                                    () -> {
+                                      context.close();
+                                      closed.complete(null);
+                                    }))
+                    .then(session.closeStatus())
+                    .doOnNext(closeStatus::set)
+                    .then())
+        .block(Duration.ofSeconds(10));
+    // the close frame arrives while the context is still closing
+    closed.get(10, TimeUnit.SECONDS);
+
+    // the web server stops before the lifecycles of lower phases and drops the connections, no
+    // close frame would be received if the sessions were drained as a lifecycle
+    assertThat(closeStatus.get()).isEqualTo(CloseStatus.SERVICE_RESTARTED);
+    assertThat(handler.isRunning()).isFalse();
+    assertThat(handler.getSessionCount()).isZero();
+  }
+}
@@ -0,0 +1,118 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "spring.main.web-application-type=reactive",
+      "graphql.tools.schema-location-pattern=schema.graphqls",
+      "graphql.subscriptions.http.heartbeat-interval=200ms"
+    })
+class SubscriptionStreamTest {
+
+  private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT_TYPE =
+      new ParameterizedTypeReference<ServerSentEvent<String>>() {};
+
+  @Autowired private WebTestClient webTestClient;
+
+  @Test
+  void streamsQueryResultAsServerSentEvents() {
+    List<ServerSentEvent<String>> events =
+        webTestClient
+            .post()
+            .uri("/graphql")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .bodyValue("{\"query\":\"{ hello }\"}")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(EVENT_TYPE)
+            .getResponseBody()
+            .filter(event -> event.comment() == null)
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+    assertThat(events).hasSize(2);
+    assertThat(events.get(0).event()).isEqualTo("next");
+    assertThat(events.get(0).data()).isEqualTo("{\"data\":{\"hello\":\"Hello world\"}}");
+    assertThat(events.get(1).event()).isEqualTo("complete");
+  }
+
+  @Test
+  void streamsSubscriptionEventsWithHeartbeats() {
+    List<ServerSentEvent<String>> events =
+        webTestClient
+            .post()
+            .uri("/graphql")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .bodyValue("{\"query\":\"subscription { hello }\"}")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(EVENT_TYPE)
+            .getResponseBody()
+            .filter(event -> event.comment() == null)
+            .take(2)
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+    assertThat(events)
+        .extracting(ServerSentEvent::data)
+        .containsExactly("{\"data\":{\"hello\":0}}", "{\"data\":{\"hello\":1}}");
+  }
+
+  @Test
+  void streamsQueryResultAsMultipartMixed() {
+    String body =
+        webTestClient
+            .post()
+            .uri("/graphql")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.MULTIPART_MIXED)
+            .bodyValue("{\"query\":\"{ hello }\"}")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.MULTIPART_MIXED)
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+
+    assertThat(body)
+        .contains(
+            "\r\n---\r\nContent-Type: application/json; charset=utf-8\r\n\r\n"
+                + "{\"data\":{\"hello\":\"Hello world\"}}")
+        .endsWith("\r\n-----\r\n");
+  }
+
+  @Test
+  void keepsAnsweringJsonByDefault() {
+    webTestClient
+        .post()
+        .uri("/graphql")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue("{\"query\":\"{ hello }\"}")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+        .expectBody()
+        .jsonPath("$.data.hello")
+        .isEqualTo("Hello world");
+  }
+}
@@ -0,0 +1,89 @@
+package graphql.kickstart.autoconfigure.web.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.WebsocketClientSpec;
+
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "spring.main.web-application-type=reactive",
+      "graphql.tools.schema-location-pattern=schema.graphqls",
+      "graphql.subscriptions.websocket.compression.enabled=true",
+      "graphql.subscriptions.websocket.compression.server-no-context-takeover=true",
+      "graphql.subscriptions.websocket.compression.threshold=64"
+    })
+class WebsocketCompressionTest {
+
+  @LocalServerPort private int port;
+
+  @TestConfiguration
+  static class NettyServerConfiguration {
+
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+      return new NettyReactiveWebServerFactory();
+    }
+  }
+
+  @Test
+  void negotiatesPerMessageDeflate() {
+    ReactorNettyWebSocketClient client =
+        new ReactorNettyWebSocketClient(
+            HttpClient.create(), () -> WebsocketClientSpec.builder().compress(true));
+    AtomicReference<HttpHeaders> handshakeHeaders = new AtomicReference<>();
+
+    client
+        .execute(
+            URI.create("ws://localhost:" + port + "/subscriptions"),
+            session -> {
+              handshakeHeaders.set(session.getHandshakeInfo().getHeaders());
+              return session.close();
+            })
+        .block(Duration.ofSeconds(10));
+
+    assertThat(handshakeHeaders.get().getFirst("Sec-WebSocket-Extensions"))
+        .contains("permessage-deflate")
+        .contains("server_no_context_takeover");
+  }
+
+  @Test
+  void exchangesMessagesOverCompressedSession() {
+    ReactorNettyWebSocketClient client =
+        new ReactorNettyWebSocketClient(
+            HttpClient.create(), () -> WebsocketClientSpec.builder().compress(true));
+    AtomicReference<String> reply = new AtomicReference<>();
+
+    client
+        .execute(
+            URI.create("ws://localhost:" + port + "/subscriptions"),
+            session ->
+                session
+                    .send(Mono.just(session.textMessage("{\"type\":\"connection_init\"}")))
+                    .thenMany(
+                        session
+                            .receive()
+                            .map(WebSocketMessage::getPayloadAsText)
+                            .filter(message -> message.contains("connection_ack"))
+                            .take(1))
+                    .doOnNext(reply::set)
+                    .then())
+        .block(Duration.ofSeconds(10));
+
+    assertThat(reply.get()).contains("connection_ack");
+  }
+}
@@ -0,0 +1,81 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import graphql.kickstart.autoconfigure.web.servlet.AsyncSendOptions.Overflow;
+import java.io.IOException;
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+class AsyncMessageSenderTest {
+
+  private final Session session = mock(Session.class);
+  private final RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+
+  @BeforeEach
+  void setUp() {
+    when(session.isOpen()).thenReturn(true);
+    when(session.getAsyncRemote()).thenReturn(remote);
+  }
+
+  @Test
+  void sendsOneMessageAtATimeInOrder() {
+    AsyncMessageSender sender = sender(Overflow.CLOSE);
+
+    sender.send("first");
+    sender.send("second");
+    verify(remote, never()).sendText("second", sender);
+    assertThat(sender.getQueueSize()).isOne();
+
+    sender.onResult(new SendResult());
+    InOrder order = inOrder(remote);
+    order.verify(remote).sendText("first", sender);
+    order.verify(remote).sendText("second", sender);
+    assertThat(sender.getQueueSize()).isZero();
+  }
+
+  @Test
+  void dropsMessagesOverflowingTheQueue() throws IOException {
+    AsyncMessageSender sender = sender(Overflow.DROP);
+
+    sender.send("sending");
+    sender.send("queued");
+    sender.send("dropped");
+    sender.onResult(new SendResult());
+    sender.onResult(new SendResult());
+
+    verify(remote, never()).sendText("dropped", sender);
+    verify(session, never()).close(any(CloseReason.class));
+  }
+
+  @Test
+  void closesTheSessionOnOverflow() throws IOException {
+    AsyncMessageSender sender = sender(Overflow.CLOSE);
+
+    sender.send("sending");
+    sender.send("queued");
+    sender.send("overflow");
+
+    verify(session).close(any(CloseReason.class));
+    assertThat(sender.getQueueSize()).isZero();
+    sender.onResult(new SendResult());
+    verify(remote).sendText(anyString(), any());
+  }
+
+  private AsyncMessageSender sender(Overflow overflow) {
+    return new AsyncMessageSender(
+        session, AsyncSendOptions.builder().queueCapacity(1).overflow(overflow).build());
+  }
+}
@@ -0,0 +1,76 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import graphql.kickstart.autoconfigure.web.servlet.GraphQLWsApolloSubscriptionProtocolFactory.GraphQLWsApolloSubscriptionSession;
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionMapper;
+import graphql.kickstart.spring.subscriptions.BatchFlushTimer;
+import graphql.kickstart.spring.subscriptions.FrameCoalescingOptions;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import graphql.kickstart.spring.subscriptions.SubscriptionLimits;
+import java.io.IOException;
+import java.time.Duration;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchedWebsocketWritesTest {
+
+  private final Session session = mock(Session.class);
+  private final RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+  private final BatchFlushTimer flushTimer =
+      new BatchFlushTimer(
+          FrameCoalescingOptions.builder().window(Duration.ofMillis(100)).maxMessages(3).build());
+  private GraphQLWsApolloSubscriptionSession subscriptionSession;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    when(session.isOpen()).thenReturn(true);
+    when(session.getBasicRemote()).thenReturn(remote);
+    subscriptionSession =
+        new GraphQLWsApolloSubscriptionSession(
+            new GraphQLSubscriptionMapper(GraphQLObjectMapper.newBuilder().build()),
+            session,
+            new SubscriptionAdmission(SubscriptionLimits.unlimited()).newSession(),
+            null,
+            flushTimer,
+            null);
+    verify(remote).setBatchingAllowed(true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    flushTimer.shutdown();
+  }
+
+  @Test
+  void flushesTheBatchOnceTheWindowEnds() throws IOException {
+    subscriptionSession.send("first");
+    subscriptionSession.send("second");
+
+    verify(remote).sendText("first");
+    verify(remote).sendText("second");
+    verify(remote, never()).flushBatch();
+    verify(remote, timeout(1000).times(1)).flushBatch();
+    verify(remote, after(300).times(1)).flushBatch();
+  }
+
+  @Test
+  void flushesAFullBatchWithoutWaiting() throws IOException {
+    subscriptionSession.send("first");
+    subscriptionSession.send("second");
+    subscriptionSession.send("third");
+
+    verify(remote).flushBatch();
+    // the window of the first message ends with nothing left to flush
+    verify(remote, after(300).times(1)).flushBatch();
+  }
+}
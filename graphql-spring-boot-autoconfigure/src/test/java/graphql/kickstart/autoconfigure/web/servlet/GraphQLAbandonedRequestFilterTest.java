@@ -0,0 +1,91 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import graphql.kickstart.spring.cancellation.CancellationToken;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class GraphQLAbandonedRequestFilterTest {
+
+  private final GraphQLAbandonedRequestFilter filter = new GraphQLAbandonedRequestFilter();
+  private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  @Test
+  void leaves_completed_requests_alone() throws ServletException, IOException {
+    filter.doFilter(request, response, (req, res) -> res.getWriter().write("{\"data\":{}}"));
+
+    assertThat(token().isCancelled()).isFalse();
+    assertThat(response.getContentAsString()).isEqualTo("{\"data\":{}}");
+    assertThat(filter.getDisconnectedCount()).isZero();
+  }
+
+  @Test
+  void cancels_when_writing_the_response_fails() throws ServletException, IOException {
+    HttpServletResponseWrapper closed =
+        new HttpServletResponseWrapper(response) {
+          @Override
+          public ServletOutputStream getOutputStream() {
+            return new ClosedOutputStream();
+          }
+        };
+
+    assertThatThrownBy(
+            () -> filter.doFilter(request, closed, (req, res) -> res.getOutputStream().write(1)))
+        .isInstanceOf(IOException.class);
+
+    assertThat(token().isCancelled()).isTrue();
+    assertThat(filter.getDisconnectedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void cancels_when_the_async_context_errors_or_times_out() throws ServletException, IOException {
+    request.setAsyncSupported(true);
+    AtomicReference<AsyncContext> asyncContext = new AtomicReference<>();
+
+    filter.doFilter(request, response, (req, res) -> asyncContext.set(req.startAsync(req, res)));
+    for (AsyncListener listener : ((MockAsyncContext) asyncContext.get()).getListeners()) {
+      listener.onError(new AsyncEvent(asyncContext.get(), new IOException("Broken pipe")));
+      listener.onTimeout(new AsyncEvent(asyncContext.get()));
+    }
+
+    assertThat(token().getReason()).isEqualTo("Client disconnected");
+    assertThat(filter.getDisconnectedCount()).isEqualTo(1);
+    assertThat(filter.getTimedOutCount()).isZero();
+  }
+
+  private CancellationToken token() {
+    return (CancellationToken) request.getAttribute(GraphQLAbandonedRequestFilter.TOKEN_ATTRIBUTE);
+  }
+
+  private static class ClosedOutputStream extends ServletOutputStream {
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      // not used
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      throw new IOException("Broken pipe");
+    }
+  }
+}
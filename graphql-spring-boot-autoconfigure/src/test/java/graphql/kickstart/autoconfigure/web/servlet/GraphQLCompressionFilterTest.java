@@ -0,0 +1,130 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.kickstart.spring.compression.CompressionOptions;
+import graphql.kickstart.spring.compression.StreamingGzip;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class GraphQLCompressionFilterTest {
+
+  private final GraphQLCompressionFilter filter =
+      new GraphQLCompressionFilter(CompressionOptions.builder().minResponseSize(64).build());
+  private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  @Test
+  void writes_small_responses_uncompressed() throws ServletException, IOException {
+    request.addHeader("Accept-Encoding", "gzip");
+    String json = "{\"data\":{\"hello\":\"world\"}}";
+
+    filter.doFilter(request, response, json(json));
+
+    assertThat(response.getHeader("Content-Encoding")).isNull();
+    assertThat(response.getContentLength()).isEqualTo(json.length());
+    assertThat(response.getContentAsString()).isEqualTo(json);
+    assertThat(response.getHeader("Vary")).isEqualTo("Accept-Encoding");
+  }
+
+  @Test
+  void compresses_large_responses() throws ServletException, IOException {
+    request.addHeader("Accept-Encoding", "gzip, deflate");
+    String json = "{\"data\":{\"items\":[" + String.join(",", Collections.nCopies(50, "1")) + "]}}";
+
+    filter.doFilter(request, response, json(json));
+
+    assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+    assertThat(response.getHeader("Content-Length")).isNull();
+    assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(json);
+  }
+
+  @Test
+  void leaves_responses_alone_for_clients_not_accepting_gzip()
+      throws ServletException, IOException {
+    String json = "{\"data\":{\"items\":[" + String.join(",", Collections.nCopies(50, "1")) + "]}}";
+
+    filter.doFilter(request, response, json(json));
+
+    assertThat(response.getHeader("Content-Encoding")).isNull();
+    assertThat(response.getContentAsString()).isEqualTo(json);
+  }
+
+  @Test
+  void flushes_streamed_parts_as_they_are_written() throws ServletException, IOException {
+    request.addHeader("Accept-Encoding", "gzip");
+    ByteArrayOutputStream flushed = new ByteArrayOutputStream();
+
+    filter.doFilter(
+        request,
+        response,
+        (req, res) -> {
+          res.setContentType("text/event-stream");
+          PrintWriter writer = res.getWriter();
+          writer.write("data: {\"data\":{\"n\":1}}\n\n");
+          writer.flush();
+          flushed.write(response.getContentAsByteArray());
+          writer.write("data: {\"data\":{\"n\":2}}\n\n");
+          writer.flush();
+        });
+
+    assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+    assertThat(flushed.size()).isPositive();
+    assertThat(gunzip(response.getContentAsByteArray()))
+        .isEqualTo("data: {\"data\":{\"n\":1}}\n\ndata: {\"data\":{\"n\":2}}\n\n");
+  }
+
+  @Test
+  void writes_precompressed_responses_as_they_are() throws ServletException, IOException {
+    request.addHeader("Accept-Encoding", "gzip");
+    StreamingGzip gzip = new StreamingGzip(6);
+    byte[] json = "{\"data\":{}}".getBytes(UTF_8);
+    ByteArrayOutputStream cached = new ByteArrayOutputStream();
+    cached.write(gzip.write(json, 0, json.length));
+    cached.write(gzip.finish());
+
+    filter.doFilter(
+        request,
+        response,
+        (req, res) -> {
+          res.setContentType("application/json");
+          res.setContentLength(cached.size());
+          res.getOutputStream().write(cached.toByteArray());
+        });
+
+    assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+    assertThat(response.getContentLength()).isEqualTo(cached.size());
+    assertThat(response.getContentAsByteArray()).isEqualTo(cached.toByteArray());
+  }
+
+  private FilterChain json(String json) {
+    return (req, res) -> {
+      byte[] bytes = json.getBytes(UTF_8);
+      res.setContentType("application/json");
+      res.setContentLength(bytes.length);
+      res.getOutputStream().write(bytes);
+      res.getOutputStream().flush();
+    };
+  }
+
+  private String gunzip(byte[] compressed) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      byte[] buffer = new byte[4096];
+      for (int read; (read = in.read(buffer)) != -1; ) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return out.toString("UTF-8");
+  }
+}
@@ -0,0 +1,94 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.kickstart.servlet.GraphQLConfiguration;
+import graphql.kickstart.spring.cancellation.CancellationToken;
+import graphql.kickstart.spring.limits.DocumentParser;
+import graphql.schema.DataFetcher;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class IncrementalGraphQLHttpServletTest {
+
+  private static final String QUERY =
+      "{\"query\":\"{ greeting ...Slow @defer } fragment Slow on Query { slow }\"}";
+
+  private final AtomicReference<String> cancelled = new AtomicReference<>();
+  private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  @Test
+  void cancels_the_deferred_query_when_the_initial_execution_fails()
+      throws UnsupportedEncodingException {
+    servlet(
+            env -> {
+              throw new IllegalStateException("greeting failed");
+            })
+        .doPost(request(), response);
+
+    assertThat(cancelled.get()).isEqualTo("The initial payload of the query ended the response");
+    assertThat(response.getContentAsString())
+        .contains("\"data\":null,\"hasNext\":false")
+        .doesNotContain("slow");
+  }
+
+  @Test
+  void cancels_the_deferred_query_when_the_client_leaves() {
+    CancellationToken requestToken = new CancellationToken();
+    request.setAttribute(GraphQLAbandonedRequestFilter.TOKEN_ATTRIBUTE, requestToken);
+
+    servlet(
+            env -> {
+              requestToken.cancel("Client disconnected");
+              return "hello";
+            })
+        .doPost(request(), response);
+
+    assertThat(cancelled.get()).isEqualTo("Client disconnected");
+  }
+
+  private MockHttpServletRequest request() {
+    request.setContentType("application/json");
+    request.addHeader("Accept", "multipart/mixed");
+    request.setContent(QUERY.getBytes(UTF_8));
+    return request;
+  }
+
+  private IncrementalGraphQLHttpServlet servlet(DataFetcher<String> greeting) {
+    DataFetcher<CompletableFuture<String>> slow =
+        env -> {
+          // completes only once the execution is cancelled
+          CompletableFuture<String> result = new CompletableFuture<>();
+          CancellationToken token = CancellationToken.from(env.getGraphQlContext());
+          token.onCancel(
+              () -> {
+                cancelled.set(token.getReason());
+                result.complete(null);
+              });
+          return result;
+        };
+    return new IncrementalGraphQLHttpServlet(
+        GraphQLConfiguration.with(
+                new SchemaGenerator()
+                    .makeExecutableSchema(
+                        new SchemaParser().parse("type Query { greeting: String!, slow: String }"),
+                        RuntimeWiring.newRuntimeWiring()
+                            .type(
+                                "Query",
+                                type ->
+                                    type.dataFetcher("greeting", greeting)
+                                        .dataFetcher("slow", slow))
+                            .build()))
+            .build(),
+        new DocumentParser());
+  }
+}
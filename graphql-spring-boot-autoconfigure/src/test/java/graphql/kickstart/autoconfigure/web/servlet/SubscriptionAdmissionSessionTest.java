@@ -0,0 +1,67 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import graphql.kickstart.autoconfigure.web.servlet.GraphQLWsApolloSubscriptionProtocolFactory.GraphQLWsApolloSubscriptionSession;
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import graphql.kickstart.execution.subscriptions.GraphQLSubscriptionMapper;
+import graphql.kickstart.spring.subscriptions.AdmissionControlledSubscriptionConsumer;
+import graphql.kickstart.spring.subscriptions.SessionAdmission;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import graphql.kickstart.spring.subscriptions.SubscriptionLimits;
+import java.util.ArrayList;
+import java.util.List;
+import javax.websocket.Session;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+class SubscriptionAdmissionSessionTest {
+
+  @Test
+  void keepsTheSlotOfARunningSubscriptionWhenItsIdIsStartedAgain() {
+    GraphQLObjectMapper objectMapper = GraphQLObjectMapper.newBuilder().build();
+    SessionAdmission admission =
+        new SubscriptionAdmission(
+                SubscriptionLimits.builder()
+                    .maxSubscriptionsPerSession(1)
+                    .startsPerSecond(0.5)
+                    .startBurst(1)
+                    .build())
+            .newSession();
+    GraphQLWsApolloSubscriptionSession subscriptionSession =
+        new GraphQLWsApolloSubscriptionSession(
+            new GraphQLSubscriptionMapper(objectMapper),
+            mock(Session.class),
+            admission,
+            null,
+            null,
+            null);
+    List<String> sent = new ArrayList<>();
+    Flux.from(subscriptionSession.getPublisher()).subscribe(sent::add);
+    List<String> applied = new ArrayList<>();
+    AdmissionControlledSubscriptionConsumer consumer =
+        new AdmissionControlledSubscriptionConsumer(
+            subscriptionSession, admission, objectMapper, applied::add);
+
+    consumer.accept(start("1"));
+    // rate limited, the subscription running with the id is left alone
+    consumer.accept(start("1"));
+
+    assertThat(applied).containsExactly(start("1"));
+    assertThat(admission.getSubscriptionCount()).isOne();
+    assertThat(sent).isEmpty();
+
+    consumer.accept(start("2"));
+
+    assertThat(applied).containsExactly(start("1"));
+    assertThat(admission.getSubscriptionCount()).isOne();
+    assertThat(sent).singleElement().asString().contains("\"id\":\"2\"", "\"type\":\"error\"");
+  }
+
+  private static String start(String id) {
+    return "{\"id\":\""
+        + id
+        + "\",\"type\":\"start\",\"payload\":{\"query\":\"subscription { a }\"}}";
+  }
+}
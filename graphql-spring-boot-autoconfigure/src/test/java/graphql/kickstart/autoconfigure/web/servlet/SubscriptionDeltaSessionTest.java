@@ -0,0 +1,123 @@
+package graphql.kickstart.autoconfigure.web.servlet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.kickstart.execution.BatchedDataLoaderGraphQLBuilder;
+import graphql.kickstart.execution.GraphQLInvoker;
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import graphql.kickstart.execution.config.GraphQLBuilder;
+import graphql.kickstart.execution.subscriptions.SubscriptionSession;
+import graphql.kickstart.servlet.input.GraphQLInvocationInputFactory;
+import graphql.kickstart.spring.subscriptions.SubscriptionAdmission;
+import graphql.kickstart.spring.subscriptions.SubscriptionLimits;
+import graphql.kickstart.spring.subscriptions.delta.DeltaConnectionListener;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.websocket.Session;
+import javax.websocket.server.HandshakeRequest;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+class SubscriptionDeltaSessionTest {
+
+  private static final String NAME =
+      "a name long enough for patches to be smaller than the payload";
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void sendsPatchesToSessionsNegotiatingDeltas() throws IOException, InterruptedException {
+    GraphQLSchema schema =
+        new SchemaGenerator()
+            .makeExecutableSchema(
+                new SchemaParser()
+                    .parse(
+                        "type Query { name: String }"
+                            + " type Subscription { product: Product }"
+                            + " type Product { n: Int name: String }"),
+                RuntimeWiring.newRuntimeWiring()
+                    .type(
+                        "Subscription",
+                        type ->
+                            type.dataFetcher(
+                                "product",
+                                env ->
+                                    Flux.just(
+                                        product(1, NAME), product(2, NAME), product(3, "renamed"))))
+                    .build());
+    GraphQLObjectMapper objectMapper = GraphQLObjectMapper.newBuilder().build();
+    GraphQLWsApolloSubscriptionProtocolFactory factory =
+        new GraphQLWsApolloSubscriptionProtocolFactory(
+            objectMapper,
+            GraphQLInvocationInputFactory.newBuilder(schema).build(),
+            new GraphQLInvoker(new GraphQLBuilder(), new BatchedDataLoaderGraphQLBuilder(null)),
+            Collections.singletonList(new DeltaConnectionListener(10)),
+            new SubscriptionAdmission(SubscriptionLimits.unlimited()));
+    Session session = mock(Session.class);
+    when(session.getId()).thenReturn("session");
+    Map<String, Object> userProperties = new HashMap<>();
+    userProperties.put(HandshakeRequest.class.getName(), mock(HandshakeRequest.class));
+    when(session.getUserProperties()).thenReturn(userProperties);
+    SubscriptionSession subscriptionSession = factory.createSession(session);
+    List<String> sent = new CopyOnWriteArrayList<>();
+    Flux.from(subscriptionSession.getPublisher()).subscribe(sent::add);
+    Consumer<String> consumer = factory.createConsumer(subscriptionSession);
+
+    consumer.accept("{\"type\":\"connection_init\",\"payload\":{\"delta\":\"json-patch\"}}");
+    consumer.accept(
+        "{\"id\":\"1\",\"type\":\"start\",\"payload\":"
+            + "{\"query\":\"subscription { product { n name } }\"}}");
+    for (int i = 0; i < 100 && payloads(sent).size() < 3; i++) {
+      TimeUnit.MILLISECONDS.sleep(20);
+    }
+
+    List<JsonNode> payloads = payloads(sent);
+    assertThat(payloads).hasSize(3);
+    assertThat(payloads.get(0))
+        .isEqualTo(mapper.readTree("{\"data\":{\"product\":" + json(1, NAME) + "}}"));
+    assertThat(payloads.get(1))
+        .isEqualTo(
+            mapper.readTree(
+                "{\"patch\":[{\"op\":\"replace\",\"path\":\"/data/product/n\",\"value\":2}]}"));
+    // the patch replacing every member is larger than the payload, which is sent in full
+    assertThat(payloads.get(2))
+        .isEqualTo(mapper.readTree("{\"data\":{\"product\":" + json(3, "renamed") + "}}"));
+  }
+
+  private List<JsonNode> payloads(List<String> sent) throws IOException {
+    List<JsonNode> payloads = new ArrayList<>();
+    for (String message : sent) {
+      JsonNode node = mapper.readTree(message);
+      if ("data".equals(node.path("type").asText())) {
+        payloads.add(node.get("payload"));
+      }
+    }
+    return payloads;
+  }
+
+  private String json(int n, String name) {
+    return "{\"n\":" + n + ",\"name\":\"" + name + "\"}";
+  }
+
+  private Map<String, Object> product(int n, String name) {
+    Map<String, Object> product = new HashMap<>();
+    product.put("n", n);
+    product.put("name", name);
+    return product;
+  }
+}
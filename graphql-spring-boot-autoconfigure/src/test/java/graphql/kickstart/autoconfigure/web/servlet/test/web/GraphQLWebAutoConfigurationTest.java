@@ -16,7 +16,9 @@ import graphql.kickstart.servlet.config.GraphQLSchemaServletProvider;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLSchema;
+import javax.servlet.MultipartConfigElement;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
@@ -97,6 +99,33 @@ class GraphQLWebAutoConfigurationTest extends AbstractAutoConfigurationTest {
     assertThat(this.getContext().getBean(AbstractGraphQLHttpServlet.class)).isNotNull();
   }
 
+  @Test
+  void keepsTheMultipartConfigOfTheApplication() {
+    load(MultipartConfiguration.class);
+
+    assertThat(multipartConfig().getMaxFileSize()).isEqualTo(1024);
+  }
+
+  @Test
+  void appliesTheUploadPropertiesOverTheMultipartConfigOfTheApplication() {
+    load(
+        MultipartConfiguration.class,
+        "graphql.servlet.upload.max-file-size=2KB",
+        "graphql.servlet.upload.max-request-size=4KB");
+
+    MultipartConfigElement multipartConfig = multipartConfig();
+    assertThat(multipartConfig.getMaxFileSize()).isEqualTo(2048);
+    assertThat(multipartConfig.getMaxRequestSize()).isEqualTo(4096);
+    assertThat(multipartConfig.getFileSizeThreshold()).isEqualTo(256 * 1024);
+  }
+
+  @SuppressWarnings("unchecked")
+  private MultipartConfigElement multipartConfig() {
+    ServletRegistrationBean<AbstractGraphQLHttpServlet> registration =
+        this.getContext().getBean("graphQLServletRegistrationBean", ServletRegistrationBean.class);
+    return registration.getMultipartConfig();
+  }
+
   @Configuration
   static class SimpleConfiguration {
 
@@ -171,6 +200,15 @@ class GraphQLWebAutoConfigurationTest extends AbstractAutoConfigurationTest {
     }
   }
 
+  @Configuration
+  static class MultipartConfiguration extends SimpleConfiguration {
+
+    @Bean
+    public MultipartConfigElement multipartConfigElement() {
+      return new MultipartConfigElement("", 1024, 1024, 0);
+    }
+  }
+
   @Configuration
   static class SchemaProviderConfiguration {
 